@@ -0,0 +1,603 @@
+package domain;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de acciones para el autoguardado.
+ *
+ * En lugar de guardar la partida completa cada vez, el motor anota en un
+ * archivo de solo-agregar cada entrada de los jugadores y cada frame
+ * simulado; cada cierto número de frames se agrega un punto de control con
+ * la partida completa (GameSnapshotCodec) y los contadores del motor. Así el
+ * costo de autoguardar depende de lo que pasó desde el último punto de
+ * control y no del tamaño del estado.
+ *
+ * Formato del archivo:
+ * - Encabezado: "BICJ" y la versión (2 bytes).
+ * - Registros, cada uno empieza con su tipo (1 byte):
+ *   TICK (sin datos), INPUT (jugador y entrada, 1 byte cada uno) y
+ *   CHECKPOINT (largo y CRC32 del contenido, 4 bytes cada uno, y el contenido:
+ *   largo de la partida, la partida y el estado del motor).
+ *
+ * El hilo del juego solo agrega los registros a un buffer en memoria y
+ * codifica los puntos de control (la partida se lee entre dos frames). Cada
+ * FLUSH_TICKS frames y en cada punto de control entrega los bytes al
+ * ejecutor de escritura, que es el único que toca el archivo: los escribe en
+ * el FileChannel y, en los puntos de control, lo fuerza a disco. Si el
+ * archivo supera MAX_BYTES, el punto de control se escribe en un archivo
+ * nuevo que reemplaza al anterior (se escribe aparte y se mueve encima). Un
+ * error de escritura se informa en la siguiente anotación del hilo del juego.
+ *
+ * Para recuperar (recover) se busca el último punto de control válido, se
+ * restaura y se reproducen los registros que lo siguen. Un registro cortado
+ * al final del archivo (por ejemplo, si el juego se cerró a mitad de una
+ * escritura) marca el final del diario.
+ *
+ * La reproducción es exacta si la partida usa un ManualClock, que es el que
+ * el motor avanza en cada frame.
+ */
+public class ActionJournal implements Closeable {
+
+    public static final byte[] MAGIC = {'B', 'I', 'C', 'J'};
+    public static final int VERSION = 1;
+
+    /** Frames entre puntos de control por defecto (unos 10 s de juego). */
+    public static final int DEFAULT_CHECKPOINT_TICKS = 625;
+    /** Frames entre escrituras del buffer al archivo (1 s de juego). */
+    public static final int FLUSH_TICKS = 62;
+    /** Tamaño a partir del cual el siguiente punto de control empieza un archivo nuevo. */
+    public static final long MAX_BYTES = 1 << 20;
+
+    private static final int TICK = 1;
+    private static final int INPUT = 2;
+    private static final int CHECKPOINT = 3;
+
+    private static final String[] INPUTS = {
+        GameEngine.UP, GameEngine.DOWN, GameEngine.LEFT, GameEngine.RIGHT, GameEngine.ACTION
+    };
+
+    private static final String WRITE_ERROR = "Error al escribir el autoguardado: ";
+    private static final String CORRUPT = "Autoguardado corrupto o inválido";
+
+    private final Path path;
+    private final int checkpointTicks;
+    private final Executor writer;
+
+    // Estado del hilo del juego
+    private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+    private boolean open;
+    private long fileBytes;
+    private GameEngine engine;
+    private int ticksSinceCheckpoint;
+    private int ticksSinceFlush;
+
+    // Estado del ejecutor de escritura
+    private FileChannel channel;
+    private volatile IOException failure;
+
+    /**
+     * Una escritura que corre en el ejecutor de escritura.
+     */
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private ActionJournal(Path path, int checkpointTicks, Executor writer) {
+        this.path = path;
+        this.checkpointTicks = checkpointTicks;
+        this.writer = writer;
+    }
+
+    /**
+     * Empieza un diario nuevo para el motor dado, reemplazando el archivo si
+     * existía, con un punto de control del estado actual. Desde aquí el motor
+     * anota sus frames y entradas en el diario.
+     *
+     * @param file            archivo del diario
+     * @param engine          motor a anotar
+     * @param checkpointTicks frames entre puntos de control
+     * @param writer          ejecutor que escribe el archivo, en orden (por
+     *                        ejemplo, de un solo hilo); las escrituras no
+     *                        bloquean al hilo del juego
+     * @return diario abierto
+     * @throws BadIceCreamException si no se puede escribir el archivo (con un
+     *         ejecutor de fondo, el error se informa en la siguiente anotación)
+     */
+    public static ActionJournal start(File file, GameEngine engine, int checkpointTicks, Executor writer)
+            throws BadIceCreamException {
+        if (checkpointTicks <= 0) {
+            throw new IllegalArgumentException("checkpointTicks debe ser positivo");
+        }
+        ActionJournal journal = new ActionJournal(file.toPath(), checkpointTicks, writer);
+        journal.open = true;
+        try {
+            journal.rollOver(engine);
+            journal.checkFailure();
+        } catch (IOException e) {
+            journal.fail(e);
+        }
+        journal.engine = engine;
+        engine.setJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Empieza un diario que escribe el archivo en el mismo hilo que anota.
+     */
+    public static ActionJournal start(File file, GameEngine engine, int checkpointTicks) throws BadIceCreamException {
+        return start(file, engine, checkpointTicks, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Empieza un diario con DEFAULT_CHECKPOINT_TICKS frames entre puntos de
+     * control que escribe el archivo con el ejecutor dado.
+     */
+    public static ActionJournal start(File file, GameEngine engine, Executor writer) throws BadIceCreamException {
+        return start(file, engine, DEFAULT_CHECKPOINT_TICKS, writer);
+    }
+
+    /**
+     * Empieza un diario con DEFAULT_CHECKPOINT_TICKS frames entre puntos de control.
+     */
+    public static ActionJournal start(File file, GameEngine engine) throws BadIceCreamException {
+        return start(file, engine, DEFAULT_CHECKPOINT_TICKS);
+    }
+
+    /**
+     * Restaura la partida de un diario: carga el último punto de control y
+     * reproduce los frames y entradas anotados después.
+     *
+     * @param file archivo del diario
+     * @return motor con la partida recuperada (sin diario), o null si el
+     *         archivo no existe o no tiene ningún punto de control completo
+     * @throws BadIceCreamException si el archivo no es un diario o su punto de control está dañado
+     */
+    public static GameEngine recover(File file) throws BadIceCreamException {
+        if (!file.isFile()) return null;
+        ByteBuffer bytes;
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            bytes = ByteBuffer.allocate((int) in.size());
+            while (bytes.hasRemaining() && in.read(bytes) >= 0) {
+            }
+            bytes.flip();
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al leer el autoguardado: " + e.getMessage());
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        if (bytes.remaining() < MAGIC.length + 2) return null;
+        bytes.get(magic);
+        if (!java.util.Arrays.equals(magic, MAGIC) || bytes.getShort() != VERSION) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+
+        int checkpoint = findLastCheckpoint(bytes);
+        if (checkpoint < 0) return null;
+
+        bytes.position(checkpoint + 1);
+        GameEngine engine = readCheckpoint(bytes);
+        replay(engine, bytes);
+        return engine;
+    }
+
+    /**
+     * Anota una entrada de un jugador.
+     */
+    void recordInput(int player, String input) throws BadIceCreamException {
+        if (!open) return;
+        int code = inputCode(input);
+        if (code < 0) {
+            throw new BadIceCreamException(BadIceCreamException.DIRECTION_NO_ALLOWED);
+        }
+        try {
+            checkFailure();
+            ensureRoom(3);
+            buffer.put((byte) INPUT).put((byte) player).put((byte) code);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Anota el fin de un frame. Entrega el buffer al ejecutor de escritura
+     * cada FLUSH_TICKS frames y agrega un punto de control cada
+     * checkpointTicks frames.
+     */
+    void recordTick(GameEngine engine) throws BadIceCreamException {
+        if (!open) return;
+        try {
+            checkFailure();
+            ensureRoom(1);
+            buffer.put((byte) TICK);
+            if (++ticksSinceCheckpoint >= checkpointTicks) {
+                writeCheckpoint(engine);
+            } else if (++ticksSinceFlush >= FLUSH_TICKS) {
+                flushBuffer();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Agrega ya un punto de control con el estado actual del motor.
+     *
+     * @throws BadIceCreamException si no se puede escribir el archivo
+     */
+    public void checkpoint() throws BadIceCreamException {
+        if (!open) return;
+        try {
+            checkFailure();
+            writeCheckpoint(engine);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Entrega al ejecutor de escritura los registros pendientes del buffer.
+     *
+     * @throws BadIceCreamException si falló una escritura anterior
+     */
+    public void flush() throws BadIceCreamException {
+        if (!open) return;
+        try {
+            checkFailure();
+            flushBuffer();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @return tamaño del archivo una vez escrito lo entregado, más lo que
+     *         queda en el buffer
+     */
+    public long size() throws IOException {
+        return open ? fileBytes + buffer.position() : Files.size(path);
+    }
+
+    public File getFile() {
+        return path.toFile();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Escribe lo pendiente, cierra el archivo y desconecta el diario del
+     * motor. Espera a que el ejecutor de escritura termine, para que el
+     * archivo quede completo aunque después se cierre el programa.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        flushBuffer();
+        detach();
+        submit(true, new Write() {
+            @Override
+            public void run() throws IOException {
+                if (failure == null && channel != null) {
+                    channel.force(false);
+                }
+                closeChannel();
+            }
+        });
+        awaitWrites();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Cierra el diario y borra el archivo (por ejemplo, cuando la partida
+     * termina y ya no hay nada que recuperar). El borrado lo hace el
+     * ejecutor de escritura, después de lo que tenía pendiente.
+     */
+    public void discard() {
+        buffer.clear();
+        detach();
+        submit(true, new Write() {
+            @Override
+            public void run() throws IOException {
+                closeChannel();
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    // Un autoguardado viejo sin borrar solo se ofrecerá para recuperar
+                }
+            }
+        });
+    }
+
+    private void writeCheckpoint(GameEngine engine) throws IOException {
+        if (fileBytes + buffer.position() >= MAX_BYTES) {
+            buffer.clear();
+            rollOver(engine);
+            return;
+        }
+        byte[] record = checkpointRecord(engine);
+        final byte[] bytes = new byte[buffer.position() + record.length];
+        buffer.flip();
+        buffer.get(bytes, 0, buffer.limit());
+        buffer.clear();
+        System.arraycopy(record, 0, bytes, bytes.length - record.length, record.length);
+        fileBytes += bytes.length;
+        ticksSinceCheckpoint = 0;
+        ticksSinceFlush = 0;
+        submit(false, new Write() {
+            @Override
+            public void run() throws IOException {
+                writeFully(channel, ByteBuffer.wrap(bytes));
+                channel.force(false);
+            }
+        });
+    }
+
+    /**
+     * Escribe en un archivo aparte el encabezado y un punto de control, lo
+     * mueve encima del diario y sigue agregando registros ahí. Solo la
+     * codificación corre en el hilo del juego.
+     */
+    private void rollOver(GameEngine engine) throws IOException {
+        byte[] record = checkpointRecord(engine);
+        final ByteBuffer bytes = ByteBuffer.allocate(MAGIC.length + 2 + record.length);
+        bytes.put(MAGIC).putShort((short) VERSION).put(record).flip();
+        fileBytes = bytes.limit();
+        ticksSinceCheckpoint = 0;
+        ticksSinceFlush = 0;
+        submit(false, new Write() {
+            @Override
+            public void run() throws IOException {
+                Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeFully(out, bytes);
+                    out.force(true);
+                }
+                closeChannel();
+                try {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+                channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        });
+    }
+
+    private static byte[] checkpointRecord(GameEngine engine) throws IOException {
+        byte[] snapshot;
+        try {
+            snapshot = GameSnapshotCodec.encode(engine.getGame());
+        } catch (BadIceCreamException e) {
+            throw new IOException(e.getMessage());
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(snapshot.length + 64);
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeInt(snapshot.length);
+        data.write(snapshot);
+        engine.writeState(data);
+        data.flush();
+        byte[] content = payload.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ByteBuffer record = ByteBuffer.allocate(9 + content.length);
+        record.put((byte) CHECKPOINT).putInt(content.length).putInt((int) crc.getValue()).put(content);
+        return record.array();
+    }
+
+    /**
+     * Recorre los registros y devuelve la posición del último punto de
+     * control completo, o -1 si no hay ninguno.
+     */
+    private static int findLastCheckpoint(ByteBuffer bytes) {
+        int last = -1;
+        while (bytes.hasRemaining()) {
+            int start = bytes.position();
+            int type = bytes.get();
+            if (type == TICK) {
+                continue;
+            } else if (type == INPUT) {
+                if (bytes.remaining() < 2) break;
+                bytes.position(bytes.position() + 2);
+            } else if (type == CHECKPOINT) {
+                if (bytes.remaining() < 8) break;
+                int length = bytes.getInt();
+                int crc = bytes.getInt();
+                if (length < 0 || bytes.remaining() < length) break;
+                CRC32 check = new CRC32();
+                ByteBuffer content = bytes.slice();
+                content.limit(length);
+                check.update(content);
+                if ((int) check.getValue() != crc) break;
+                bytes.position(bytes.position() + length);
+                last = start;
+            } else {
+                break;
+            }
+        }
+        return last;
+    }
+
+    private static GameEngine readCheckpoint(ByteBuffer bytes) throws BadIceCreamException {
+        int length = bytes.getInt();
+        bytes.getInt();
+        byte[] content = new byte[length];
+        bytes.get(content);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            byte[] snapshot = new byte[in.readInt()];
+            in.readFully(snapshot);
+            GameEngine engine = new GameEngine(GameSnapshotCodec.decode(snapshot));
+            engine.readState(in);
+            return engine;
+        } catch (IOException e) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+    }
+
+    /**
+     * Reproduce los registros que siguen al punto de control, hasta el final
+     * del archivo o hasta un registro incompleto.
+     */
+    private static void replay(GameEngine engine, ByteBuffer bytes) throws BadIceCreamException {
+        while (bytes.hasRemaining()) {
+            int type = bytes.get();
+            if (type == TICK) {
+                engine.step();
+            } else if (type == INPUT) {
+                if (bytes.remaining() < 2) return;
+                int player = bytes.get();
+                int code = bytes.get();
+                if (code < 0 || code >= INPUTS.length) return;
+                try {
+                    engine.applyInput(player, INPUTS[code]);
+                } catch (BadIceCreamException e) {
+                    // La entrada también falló en la partida original
+                }
+            } else {
+                // Un punto de control posterior al último válido no se reproduce
+                return;
+            }
+        }
+    }
+
+    private static int inputCode(String input) {
+        for (int i = 0; i < INPUTS.length; i++) {
+            if (INPUTS[i].equals(input)) return i;
+        }
+        return -1;
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Copia los registros del buffer y los entrega al ejecutor de escritura.
+     */
+    private void flushBuffer() {
+        ticksSinceFlush = 0;
+        if (buffer.position() == 0) return;
+        final byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        buffer.clear();
+        fileBytes += bytes.length;
+        submit(false, new Write() {
+            @Override
+            public void run() throws IOException {
+                writeFully(channel, ByteBuffer.wrap(bytes));
+            }
+        });
+    }
+
+    /**
+     * Encola una escritura. Después de un error las escrituras se descartan,
+     * salvo las de cierre (always).
+     *
+     * @return false si el ejecutor ya no acepta tareas
+     */
+    private boolean submit(final boolean always, final Write write) {
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (failure != null && !always) return;
+                    try {
+                        write.run();
+                    } catch (IOException e) {
+                        if (failure == null) failure = e;
+                        closeChannel();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (failure == null) failure = new IOException("el ejecutor de escritura ya no acepta tareas");
+            return false;
+        }
+    }
+
+    /**
+     * Espera a que el ejecutor de escritura termine lo que tiene encolado.
+     */
+    private void awaitWrites() throws IOException {
+        final CountDownLatch done = new CountDownLatch(1);
+        boolean queued = submit(true, new Write() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        if (!queued) return;
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("se interrumpió la espera del autoguardado");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) throw e;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    private void fail(IOException e) throws BadIceCreamException {
+        buffer.clear();
+        detach();
+        submit(true, new Write() {
+            @Override
+            public void run() {
+                closeChannel();
+            }
+        });
+        throw new BadIceCreamException(WRITE_ERROR + e.getMessage());
+    }
+
+    /**
+     * Deja de anotar y desconecta el diario del motor (hilo del juego).
+     */
+    private void detach() {
+        open = false;
+        if (engine != null && engine.getJournal() == this) {
+            engine.setJournal(null);
+        }
+    }
+
+    /**
+     * Cierra el archivo (ejecutor de escritura).
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ya no se va a escribir nada más en este diario
+            }
+            channel = null;
+        }
+    }
+}
@@ -1,46 +1,75 @@
 package domain;
 import java.util.*;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public class BadIceCream implements Serializable {
+
+    /** Activa autochequeos costosos (-Dbadicecream.debug=true). */
+    private static final boolean DEBUG = Boolean.getBoolean("badicecream.debug");
     
     private int height = 16;
     private int width = 16;
     private int level;
     private int phase;
 
-    private ArrayList<Unit> units;
-    private Fruit[][] fruits;
-    private Player[][] players;
-    private Block[][] blocks;
-    private Monster[][] monsters;
+    private EntityRegistry units;
+    private transient Monster[] monsterScratch;
+    private transient Fruit[] fruitScratch;
+    private transient DistanceField fruitField;
+    private transient ChaseField walkingChaseField;
+    private transient ChaseField iceBreakingChaseField;
+    private final int[] machineMoves = new int[4];
+    private GameRandom machineRandom;
+    private static final int[] MACHINE_DR = {-1, 1, 0, 0};
+    private static final int[] MACHINE_DC = {0, 0, -1, 1};
+    private static final String[] MACHINE_DIRECTIONS = {"up", "down", "left", "right"};
+    private CellStore cells;
  
     private int totalScore;
     private int phaseScore;
     private Fruit currentFruit;
     
-    private ArrayList<EntityData> fruitsPhase1 = new ArrayList<>();
-    private ArrayList<EntityData> fruitsPhase2 = new ArrayList<>();
+    private ArrayList<LevelData.Entry> fruitsPhase1 = new ArrayList<>();
+    private ArrayList<LevelData.Entry> fruitsPhase2 = new ArrayList<>();
     
     private Player player1;
     private Player player2;
     private String selectedPlayer1Flavor = null;
     private String selectedPlayer2Flavor = null;
-    private ArrayList<InteractWithPlayer> InteractorsWithPlayer = new ArrayList();    
+    private GameClock clock = new SystemClock();
+    private GameRandom random;
     /*
      * @level: número de nivel con el que se inicializa el juego
      * Constructor de la clase. Inicializa las estructuras del tablero
-     * y establece el nivel y la fase inicial.
+     * y establece el nivel y la fase inicial. La semilla de aleatoriedad
+     * se toma del reloj del sistema.
      * @return: no retorna nada
      */
     public BadIceCream(int level) throws BadIceCreamException { 
-        units = new ArrayList<>();
+        this(level, new GameRandom());
+    }
+
+    /*
+     * @level: número de nivel con el que se inicializa el juego
+     * @seed: semilla de la aleatoriedad de la partida
+     * Crea un juego reproducible: con la misma semilla y las mismas acciones,
+     * monstruos, frutas y bots toman las mismas decisiones.
+     * @return: no retorna nada
+     */
+    public BadIceCream(int level, long seed) throws BadIceCreamException {
+        this(level, new GameRandom(seed));
+    }
+
+    private BadIceCream(int level, GameRandom random) throws BadIceCreamException {
+        setRandom(random);
+        units = new EntityRegistry();
         phase = 1;
         this.level = level;
-        players = new Player[height][width];
-        fruits = new Fruit[height][width];
-        monsters = new Monster[height][width];
-        blocks = new Block[height][width];
+        cells = new CellStore(height, width);
         createBoard(height,width,level);
     }
     
@@ -55,6 +84,56 @@ public class BadIceCream implements Serializable {
         this.selectedPlayer2Flavor = player2Flavor;
     }
 
+    /*
+     * Retorna el reloj del juego que consultan todas las mecánicas temporales.
+     * @return: reloj actual del juego
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /*
+     * @clock: reloj a usar (SystemClock para tiempo real, ManualClock para simular)
+     * Reemplaza el reloj del juego. Las marcas de tiempo de las fogatas,
+     * baldosas y macetas que ya existen se corren a la escala del reloj nuevo,
+     * así que conservan el tiempo que llevaban transcurrido.
+     * @return: no retorna nada
+     */
+    public void setClock(GameClock clock) {
+        long delta = clock.currentTimeMillis() - this.clock.currentTimeMillis();
+        this.clock = clock;
+        if (delta == 0) return;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                Block b = cells.getBlock(r, c);
+                if (b != null) b.shiftTimes(delta);
+            }
+        }
+        for (int i = 0; i < units.getMonsterCount(); i++) {
+            units.getMonster(i).shiftTimes(delta);
+        }
+    }
+
+    /*
+     * Retorna la fuente de aleatoriedad de la partida. Todas las entidades
+     * deben sacar sus números de aquí.
+     * @return: generador de la partida
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    /*
+     * @random: generador a usar
+     * Reemplaza la fuente de aleatoriedad de la partida. Los bots reciben
+     * un generador derivado con split() para no alterar la secuencia del resto.
+     * @return: no retorna nada
+     */
+    public void setRandom(GameRandom random) {
+        this.random = random;
+        this.machineRandom = random.split();
+    }
+
     /*
      * @height: especifica la altura del tablero 
      * @width: especifica la anchura del tablero 
@@ -64,40 +143,45 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void createBoard(int height, int width,int level) throws BadIceCreamException{
-        for (int r=0;r<height;r++){
-            for (int c=0;c<width;c++){
-                fruits[r][c]=null;
-                blocks[r][c]=null;
-                players[r][c]=null;
-                monsters[r][c]=null; 
-            }
-        }
+        cells.clear();
     } 
 
     /*
      * @u: unidad que se va a añadir a la lista general de unidades
-     * Añade una unidad al arreglo de unidades activas del juego.
+     * Añade una unidad al registro de unidades activas del juego.
+     * Si ya estaba registrada no hace nada.
      * @return: no retorna nada
      */
     public void addUnit(Unit u){
         units.add(u);
     }
+
+    /*
+     * @u: unidad que se va a quitar
+     * Quita una unidad del registro de unidades activas (en O(1)).
+     * @return: no retorna nada
+     */
+    public void removeUnit(Unit u){
+        units.remove(u);
+    }
+
+    /*
+     * Retorna el registro de entidades activas del juego.
+     * @return: registro con los monstruos, frutas y jugadores vivos
+     */
+    public EntityRegistry getEntityRegistry() {
+        return units;
+    }
     
     /*
-     * Recorre la matriz de frutas y suma el puntaje de todas las frutas
-     * actualmente presentes en el tablero para la fase.
+     * Retorna la suma del puntaje de todas las frutas actualmente presentes
+     * en el tablero para la fase. El total se lleva al día cada vez que una
+     * fruta aparece, se mueve, se come o desaparece, sin recorrer el tablero.
      * @return: retorna la suma total de puntajes de las frutas de la fase
      */
     public int calculatePhaseScore() {
-        int sum = 0;
-        for(int r = 0; r < height; r++) {
-            for(int c = 0; c < width; c++) {
-                if(fruits[r][c]!= null) {
-                    sum += fruits[r][c].getScore();
-                }
-            }
-        }
-        return sum;
+        checkCountersInDebug();
+        return cells.getFruitScore();
     }
 
     /*
@@ -106,15 +190,8 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void reboot() { 
-        for(int r=0;r<height;r++){
-            for(int c=0; c<width; c++){
-                fruits[r][c]=null;
-                blocks[r][c]=null;
-                players[r][c]=null;
-                monsters[r][c]=null;
-            }
-        }
-        InteractorsWithPlayer.clear(); // Limpiar la lista de interactores
+        cells.clear();
+        units.clear();
     }
 
     /*
@@ -125,7 +202,7 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void setPlayer(int r, int c, Player p){
-        players[r][c] = p;
+        cells.setPlayer(r, c, p);
     }
 
     /*
@@ -136,7 +213,7 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void setFruit(int r, int c, Fruit f){
-        fruits[r][c] = f;
+        cells.setFruit(r, c, f);
     }
 
     /*
@@ -147,7 +224,7 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void setBlock(int r, int c, Block b){
-        blocks[r][c] = b;
+        cells.setBlock(r, c, b);
     }
 
     /*
@@ -158,7 +235,7 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void setMonster(int r, int c, Monster m){
-        monsters[r][c] = m;
+        cells.setMonster(r, c, m);
     }
 
     /**
@@ -168,37 +245,17 @@ public class BadIceCream implements Serializable {
     /*
      * Revisa las interacciones del jugador 1 con monstruos, frutas y bloques
      * en su posición actual (posibles muertes o recogida de frutas).
-     * Usa la lista InteractorsWithPlayer para verificar todas las interacciones.
+     * Solo consulta la celda del jugador (ver isDangerousCell).
      * @return: no retorna nada
      */
     public void checkActionsForPlayer1() {
         if (player1 == null) return;
         
-        // PRIMERO: Verificar bloques peligrosos (fogata activa) directamente
-        Block block = blocks[player1.getRow()][player1.getColumn()];
-        if (block != null && block.isFogata()) {
-            Fogata f = (Fogata)block;
-            // Verificar AMBOS: isActive() Y isDangerous() por si acaso
-            if (f.isActive() || f.isDangerous()) {
-                player1.die();
-                units.remove(player1);
-                player1 = null;
-                return; // Salir porque el jugador murió
-            }
-        }
-        
-        // SEGUNDO: Verificar objetos peligrosos usando InteractorsWithPlayer
-        for (InteractWithPlayer i : InteractorsWithPlayer) {
-            // Verificar si el objeto está en la misma posición que el jugador
-            if (i.getRow() == player1.getRow() && i.getColumn() == player1.getColumn()) {
-                if (i.isDangerous()) {
-                    // Objeto peligroso (monstruo o cactus activo)
-                    player1.die();
-                    units.remove(player1);
-                    player1 = null;
-                    return; // Salir porque el jugador murió
-                }
-            }
+        if (isDangerousCell(player1.getRow(), player1.getColumn())) {
+            player1.die();
+            units.remove(player1);
+            player1 = null;
+            return; // Salir porque el jugador murió
         }
         
         // Si el jugador sobrevivió, verificar si hay frutas para recoger
@@ -208,43 +265,48 @@ public class BadIceCream implements Serializable {
     /*
      * Revisa las interacciones del jugador 2 con monstruos, frutas y bloques
      * en su posición actual (posibles muertes o recogida de frutas).
-     * Usa la lista InteractorsWithPlayer para verificar todas las interacciones.
+     * Solo consulta la celda del jugador (ver isDangerousCell).
      * @return: no retorna nada
      */
     public void checkActionsForPlayer2() {
         if (player2 == null) return;
         
-        // PRIMERO: Verificar bloques peligrosos (fogata activa) directamente
-        Block block = blocks[player2.getRow()][player2.getColumn()];
-        if (block != null && block.isFogata()) {
-            Fogata f = (Fogata)block;
-            // Verificar AMBOS: isActive() Y isDangerous() por si acaso
-            if (f.isActive() || f.isDangerous()) {
-                player2.die();
-                units.remove(player2);
-                player2 = null;
-                return; // Salir porque el jugador murió
-            }
-        }
-        
-        // SEGUNDO: Verificar objetos peligrosos usando InteractorsWithPlayer
-        for (InteractWithPlayer i : InteractorsWithPlayer) {
-            // Verificar si el objeto está en la misma posición que el jugador
-            if (i.getRow() == player2.getRow() && i.getColumn() == player2.getColumn()) {
-                if (i.isDangerous()) {
-                    // Objeto peligroso (monstruo o cactus activo)
-                    player2.die();
-                    units.remove(player2);
-                    player2 = null;
-                    return; // Salir porque el jugador murió
-                }
-            }
+        if (isDangerousCell(player2.getRow(), player2.getColumn())) {
+            player2.die();
+            units.remove(player2);
+            player2 = null;
+            return; // Salir porque el jugador murió
         }
         
         // Si el jugador sobrevivió, verificar si hay frutas para recoger
         checkActionsWithFruits(player2);
     }
     
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Revisa en O(1) los objetos que interactúan con el jugador en la celda:
+     * el bloque (fogata activa), el monstruo y la fruta (cactus activo).
+     * Las tablas por celda del CellStore funcionan como índice espacial,
+     * porque cada entidad actualiza su celda al moverse.
+     * @return: true si pararse en la celda mata al jugador
+     */
+    public boolean isDangerousCell(int r, int c) {
+        Block block = cells.getBlock(r, c);
+        if (block != null) {
+            if (block.isFogata()) {
+                Fogata f = (Fogata) block;
+                if (f.isActive() || f.isDangerous()) return true;
+            } else if (block.isDangerous()) {
+                return true;
+            }
+        }
+        Monster m = cells.getMonster(r, c);
+        if (m != null && m.isDangerous()) return true;
+        Fruit f = cells.getFruit(r, c);
+        return f != null && f.isDangerous();
+    }
+    
     /*
      * @p: jugador sobre el cual se verifican las interacciones
      * Verifica si el jugador se encuentra sobre una fogata activa.
@@ -254,7 +316,7 @@ public class BadIceCream implements Serializable {
     public void checkActionsWithBlocks(Player p) {
         if (p == null) return;
         
-        Block block = blocks[p.getRow()][p.getColumn()];
+        Block block = cells.getBlock(p.getRow(), p.getColumn());
         if (block != null && block.isFogata()) { 
             Fogata f = (Fogata)block;
             if(f.isActive()) {
@@ -279,12 +341,12 @@ public class BadIceCream implements Serializable {
     public void checkActionsWithFruits(Player p) {
         if (p == null) return;
         
-        Fruit f = fruits[p.getRow()][p.getColumn()];
+        Fruit f = cells.getFruit(p.getRow(), p.getColumn());
         if(f!= null) {
             if(f.isCactus()) {
                 Cactus cactus = (Cactus)f;
                 if(cactus.isActive()) {
-                    players[p.getRow()][p.getColumn()] = null;
+                    cells.setPlayer(p.getRow(), p.getColumn(), null);
                     units.remove(p);
                     
                     if (p == player1) {
@@ -320,9 +382,9 @@ public class BadIceCream implements Serializable {
         int playerRow = p.getRow();
         int playerCol = p.getColumn();
         
-        Monster m = monsters[playerRow][playerCol];
+        Monster m = cells.getMonster(playerRow, playerCol);
         if (m != null) {
-            players[playerRow][playerCol] = null;
+            cells.setPlayer(playerRow, playerCol, null);
             
             units.remove(p);
             
@@ -367,27 +429,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void createIceUp(int r, int c) {
-        int row = r - 1; 
-
-        while(row >= 0) {
-            if (blocks[row][c] != null) {
-                if (blocks[row][c].isBaldosaCaliente()) {
-                    new IceBlock(this,row,c);
-                    blocks[row][c].setHasBaldosa(true);
-                }
-                else if(blocks[row][c].isFogata()) {
-                    new IceBlock(this,row,c);
-                    blocks[row][c].setHasFogata(true);
-                }
-                else { break; }
-            }
-            else if (monsters[row][c] != null || players[row][c] != null) {
-                break;
-            }
-            else {
-                new IceBlock(this, row, c);
-            }
-            row--; 
+        int n = Bitboards.freeRunBackward(iceStopColumn(c), r - 1);
+        for (int row = r - 1; row >= r - n; row--) {
+            placeIce(row, c);
         }
     }
 
@@ -399,25 +443,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void breakIceUp(int r, int c) {
-        int row = r - 1;
-
-        while (row >= 0) {
-            Block b = blocks[row][c];
-            if (b == null) {
-                break;
-            }
-            if (!b.isIceBlock()) {
-                break;
-            }
-            boolean hadFogata = b.hasFogata();
-            boolean hadBaldosa = b.hasBaldosa();
-            blocks[row][c] = null;
-            if (hadFogata) {
-                new Fogata(this, row, c);
-            } else if (hadBaldosa) {
-                new BaldosaCaliente(this, row, c);
-            }
-            row--;
+        int n = Bitboards.freeRunBackward(~cells.bits().column(Bitboards.ICE, c), r - 1);
+        for (int row = r - 1; row >= r - n; row--) {
+            removeIce(row, c);
         }
     }
  
@@ -429,25 +457,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void createIceDown(int r, int c) {
-        int row = r + 1;  
-
-        while (row < height) {
-            if (blocks[row][c] != null) {
-                if (blocks[row][c].isBaldosaCaliente()) {
-                    new IceBlock(this, row, c);
-                    blocks[row][c].setHasBaldosa(true);
-                } else if (blocks[row][c].isFogata()) {
-                    new IceBlock(this, row, c);
-                    blocks[row][c].setHasFogata(true);
-                } else {
-                    break;
-                }
-            } else if (monsters[row][c] != null || players[row][c] != null) {
-                break;
-            } else {
-                new IceBlock(this, row, c);
-            }
-            row++;
+        int n = Bitboards.freeRunForward(iceStopColumn(c), r + 1, height);
+        for (int row = r + 1; row <= r + n; row++) {
+            placeIce(row, c);
         }
     }
 
@@ -459,24 +471,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void breakIceDown(int r, int c) {
-        int row = r + 1;
-        while (row < height) {
-            Block b = blocks[row][c];
-            if (b == null) {
-                break;
-            }
-            if (!b.isIceBlock()) {
-                break;
-            }
-            boolean hadFogata = b.hasFogata();
-            boolean hadBaldosa = b.hasBaldosa();
-            blocks[row][c] = null;
-            if (hadFogata) {
-                new Fogata(this, row, c);
-            } else if (hadBaldosa) {
-                new BaldosaCaliente(this, row, c);
-            }
-            row++;
+        int n = Bitboards.freeRunForward(~cells.bits().column(Bitboards.ICE, c), r + 1, height);
+        for (int row = r + 1; row <= r + n; row++) {
+            removeIce(row, c);
         }
     }
 
@@ -488,25 +485,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void createIceLeft(int r, int c) {
-        int col = c - 1; 
-
-        while (col >= 0) {
-            if (blocks[r][col] != null) {
-                if (blocks[r][col].isBaldosaCaliente()) {
-                    new IceBlock(this, r, col);
-                    blocks[r][col].setHasBaldosa(true);
-                } else if (blocks[r][col].isFogata()) {
-                    new IceBlock(this, r, col);
-                    blocks[r][col].setHasFogata(true);
-                } else {
-                    break;
-                }
-            } else if (monsters[r][col] != null || players[r][col] != null) {
-                break;
-            } else {
-                new IceBlock(this, r, col);
-            }
-            col--;
+        int n = Bitboards.freeRunBackward(iceStopRow(r), c - 1);
+        for (int col = c - 1; col >= c - n; col--) {
+            placeIce(r, col);
         }
     }
 
@@ -518,24 +499,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void breakIceLeft(int r, int c) {
-        int col = c - 1;
-        while (col >= 0) {
-            Block b = blocks[r][col];
-            if (b == null) {
-                break;
-            }
-            if (!b.isIceBlock()) {
-                break;
-            }
-            boolean hadFogata = b.hasFogata();
-            boolean hadBaldosa = b.hasBaldosa();
-            blocks[r][col] = null;
-            if (hadFogata) {
-                new Fogata(this, r, col);
-            } else if (hadBaldosa) {
-                new BaldosaCaliente(this, r, col);
-            }
-            col--;
+        int n = Bitboards.freeRunBackward(~cells.bits().row(Bitboards.ICE, r), c - 1);
+        for (int col = c - 1; col >= c - n; col--) {
+            removeIce(r, col);
         }
     }
 
@@ -547,25 +513,9 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void createIceRight(int r, int c) {
-        int col = c + 1; 
-
-        while (col < width) {
-            if (blocks[r][col] != null) {
-                if (blocks[r][col].isBaldosaCaliente()) {
-                    new IceBlock(this, r, col);
-                    blocks[r][col].setHasBaldosa(true);
-                } else if (blocks[r][col].isFogata()) {
-                    new IceBlock(this, r, col);
-                    blocks[r][col].setHasFogata(true);
-                } else {
-                    break;
-                }
-            } else if (monsters[r][col] != null || players[r][col] != null) {
-                break;
-            } else {
-                new IceBlock(this, r, col);
-            }
-            col++;
+        int n = Bitboards.freeRunForward(iceStopRow(r), c + 1, width);
+        for (int col = c + 1; col <= c + n; col++) {
+            placeIce(r, col);
         }
     } 
 
@@ -577,27 +527,150 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void breakIceRight(int r, int c) {
-        int col = c + 1;
-        while (col < width) {
-            Block b = blocks[r][col];
-            if (b == null) {
-                break;
-            }
-            if (!b.isIceBlock()) {
-                break;
-            }
-            boolean hadFogata = b.hasFogata();
-            boolean hadBaldosa = b.hasBaldosa();
-            blocks[r][col] = null;
-            if (hadFogata) {
-                new Fogata(this, r, col);
-            } else if (hadBaldosa) {
-                new BaldosaCaliente(this, r, col);
+        int n = Bitboards.freeRunForward(~cells.bits().row(Bitboards.ICE, r), c + 1, width);
+        for (int col = c + 1; col <= c + n; col++) {
+            removeIce(r, col);
+        }
+    }
+
+    /*
+     * @r: fila del rayo de hielo
+     * Calcula los obstáculos que detienen un rayo de hielo en la fila: bloques
+     * sólidos, y monstruos o jugadores que no estén sobre una fogata o baldosa
+     * (sobre ellas el hielo se crea igual y queda cubriéndolas).
+     * @return: bits de la fila que detienen el rayo
+     */
+    private long iceStopRow(int r) {
+        Bitboards bits = cells.bits();
+        long hazards = bits.row(Bitboards.FIRE, r) | bits.row(Bitboards.HOT_TILE, r);
+        long occupied = bits.row(Bitboards.MONSTER, r) | bits.row(Bitboards.PLAYER, r);
+        return bits.row(Bitboards.SOLID, r) | (occupied & ~hazards);
+    }
+
+    /*
+     * @c: columna del rayo de hielo
+     * Igual que iceStopRow pero para una columna, usando las capas transpuestas.
+     * @return: bits de la columna que detienen el rayo
+     */
+    private long iceStopColumn(int c) {
+        Bitboards bits = cells.bits();
+        long hazards = bits.column(Bitboards.FIRE, c) | bits.column(Bitboards.HOT_TILE, c);
+        long occupied = bits.column(Bitboards.MONSTER, c) | bits.column(Bitboards.PLAYER, c);
+        return bits.column(Bitboards.SOLID, c) | (occupied & ~hazards);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Crea un bloque de hielo en la celda. Si había una fogata o baldosa caliente,
+     * el hielo la recuerda para restaurarla cuando se rompa.
+     * @return: no retorna nada
+     */
+    private void placeIce(int r, int c) {
+        Block under = cells.getBlock(r, c);
+        Block ice = new IceBlock(this, r, c);
+        if (under != null) {
+            if (under.isBaldosaCaliente()) {
+                ice.setHasBaldosa(true);
+            } else if (under.isFogata()) {
+                ice.setHasFogata(true);
             }
-            col++;
         }
     }
 
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Quita el bloque de hielo de la celda y restaura la fogata o baldosa
+     * caliente que estuviera cubriendo.
+     * @return: no retorna nada
+     */
+    private void removeIce(int r, int c) {
+        Block b = cells.getBlock(r, c);
+        boolean hadFogata = b.hasFogata();
+        boolean hadBaldosa = b.hasBaldosa();
+        cells.setBlock(r, c, null);
+        if (hadFogata) {
+            new Fogata(this, r, c);
+        } else if (hadBaldosa) {
+            new BaldosaCaliente(this, r, c);
+        }
+    }
+
+    /*
+     * @sr: fila de inicio
+     * @sc: columna de inicio
+     * @tr: fila final
+     * @tc: columna final
+     * Indica si entre dos celdas de la misma fila o columna (ambas incluidas)
+     * no hay bloques que tapen la visión (hielo o decoración).
+     * @return: true si la línea está despejada
+     */
+    public boolean isLineClear(int sr, int sc, int tr, int tc) {
+        Bitboards bits = cells.bits();
+        if (sr == tr) {
+            return (bits.row(Bitboards.SOLID, sr) & Bitboards.span(sc, tc)) == 0;
+        }
+        if (sc == tc) {
+            return (bits.column(Bitboards.SOLID, sc) & Bitboards.span(sr, tr)) == 0;
+        }
+        return false;
+    }
+
+    /*
+     * @r: fila del observador
+     * @c: columna del observador
+     * @direction: dirección de la mirada ("up", "down", "left" o "right")
+     * Indica si desde la celda se ve un jugador en línea recta, sin que un
+     * bloque de hielo o decoración tape la visión antes.
+     * @return: true si el jugador más cercano está antes que el primer bloque sólido
+     */
+    public boolean seesPlayerInLine(int r, int c, String direction) {
+        Bitboards bits = cells.bits();
+        long solid;
+        long players;
+        int from;
+        boolean forward;
+        int len;
+        if ("up".equals(direction) || "down".equals(direction)) {
+            solid = bits.column(Bitboards.SOLID, c);
+            players = bits.column(Bitboards.PLAYER, c);
+            forward = "down".equals(direction);
+            from = forward ? r + 1 : r - 1;
+            len = height;
+        } else if ("left".equals(direction) || "right".equals(direction)) {
+            solid = bits.row(Bitboards.SOLID, r);
+            players = bits.row(Bitboards.PLAYER, r);
+            forward = "right".equals(direction);
+            from = forward ? c + 1 : c - 1;
+            len = width;
+        } else {
+            return false;
+        }
+        if (forward) {
+            int free = Bitboards.freeRunForward(solid, from, len);
+            return Bitboards.freeRunForward(players, from, len) < free;
+        }
+        int free = Bitboards.freeRunBackward(solid, from);
+        return Bitboards.freeRunBackward(players, from) < free;
+    }
+
+    /*
+     * Retorna el almacén de celdas del tablero (uso interno del paquete).
+     * @return: CellStore del juego
+     */
+    CellStore getCellStore() {
+        return cells;
+    }
+
+    /*
+     * Retorna las capas de bits del tablero (paredes, hielo, peligros y ocupación).
+     * @return: bitboards sincronizados con el tablero
+     */
+    public Bitboards getBitboards() {
+        return cells.bits();
+    }
+
     /*
      * Marca el final del nivel para el jugador 1
      * eliminándolo de la referencia principal.
@@ -622,20 +695,9 @@ public class BadIceCream implements Serializable {
      */
     private boolean canPlayerStepOn(int r, int c) {
         if (!inBounds(r, c)) return false;
-
-        Block b = blocks[r][c];
-        if (b == null) return true;
-
-        if (b.isIceBlock()) return false;
-        if (b.isDecorationBlock()) return false;
-
-        if (b.isBaldosaCaliente()) return true;
-
-        // IMPORTANTE: ahora sí deja pisar la fogata; la muerte la decide checkActions
-        if (b.isFogata()) return true;
-
-        // Si aparece otro tipo de bloque “raro”, por defecto no se pisa
-        return false;
+        // Hielo y decoración forman la capa sólida; fogata y baldosa se pisan
+        // (si la fogata está activa, morirá al ejecutar checkActionsForPlayerX)
+        return !cells.bits().get(Bitboards.SOLID, r, c);
     }
     
     /**
@@ -651,17 +713,7 @@ public class BadIceCream implements Serializable {
      */
     public boolean canMonsterStepOn(int r, int c) {
         if (!inBounds(r, c)) return false;
-
-        Block b = blocks[r][c];
-        if (b == null) return true;
-
-        if (b.isIceBlock()) return false;
-        if (b.isDecorationBlock()) return false;
-
-        if (b.isBaldosaCaliente()) return true;
-        if (b.isFogata()) return true;
-
-        return false;
+        return !cells.bits().get(Bitboards.SOLID, r, c);
     }
 
     /*
@@ -705,7 +757,7 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
-        if (players[nr][nc] != null) {
+        if (cells.getPlayer(nr, nc) != null) {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
@@ -713,9 +765,9 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
-        players[r][c] = null;
+        cells.setPlayer(r, c, null);
         player1.changePosition(nr, nc);
-        players[nr][nc] = player1;
+        cells.setPlayer(nr, nc, player1);
     }
 
 
@@ -760,7 +812,7 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
-        if (players[nr][nc] != null) {
+        if (cells.getPlayer(nr, nc) != null) {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
@@ -768,9 +820,9 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_MOVEMENT);
         }
 
-        players[r][c] = null;
+        cells.setPlayer(r, c, null);
         player2.changePosition(nr, nc);
-        players[nr][nc] = player2;
+        cells.setPlayer(nr, nc, player2);
     }
 
     /*
@@ -790,35 +842,155 @@ public class BadIceCream implements Serializable {
     }
     
     /*
-     * Retorna la matriz de bloques del tablero.
+     * Retorna una copia de la matriz de bloques del tablero. Escribir en
+     * ella no modifica el tablero: para eso se debe usar setBlock().
      * @return: matriz de bloques blocks[][]
      */
     public Block[][] getBlocks() {
-        return blocks;
+        return cells.blockView();
     }
 
     /*
-     * Retorna la matriz de frutas del tablero.
+     * Retorna una copia de la matriz de frutas del tablero. Escribir en
+     * ella no modifica el tablero: para eso se debe usar setFruit().
      * @return: matriz de frutas fruits[][]
      */
     public Fruit[][] getFruits() {
-        return fruits;
+        return cells.fruitView();
     }
 
     /*
-     * Retorna la matriz de jugadores del tablero.
+     * Retorna una copia de la matriz de jugadores del tablero. Escribir en
+     * ella no modifica el tablero: para eso se debe usar setPlayer().
      * @return: matriz de jugadores players[][]
      */
     public Player[][] getPlayers() {
-        return players;
+        return cells.playerView();
     }
 
     /*
-     * Retorna la matriz de monstruos del tablero.
+     * Retorna una copia de la matriz de monstruos del tablero. Escribir en
+     * ella no modifica el tablero: para eso se debe usar setMonster().
      * @return: matriz de monstruos monsters[][]
      */
     public Monster[][] getMonsters() {
-        return monsters;
+        return cells.monsterView();
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Retorna el bloque de la celda indicada sin pasar por la vista de matriz.
+     * @return: bloque de la celda o null si no hay
+     */
+    public Block getBlockAt(int r, int c) {
+        return cells.getBlock(r, c);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Retorna la fruta de la celda indicada.
+     * @return: fruta de la celda o null si no hay
+     */
+    public Fruit getFruitAt(int r, int c) {
+        return cells.getFruit(r, c);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Retorna el monstruo de la celda indicada.
+     * @return: monstruo de la celda o null si no hay
+     */
+    public Monster getMonsterAt(int r, int c) {
+        return cells.getMonster(r, c);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Retorna el jugador de la celda indicada.
+     * @return: jugador de la celda o null si no hay
+     */
+    public Player getPlayerAt(int r, int c) {
+        return cells.getPlayer(r, c);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Retorna el código empaquetado de la celda (tipo de bloque y bits de ocupación,
+     * ver CellStore).
+     * @return: código de la celda
+     */
+    public int getCellCode(int r, int c) {
+        return cells.getCode(r, c);
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Indica si la celda no tiene bloque, fruta, monstruo ni jugador.
+     * @return: true si la celda está vacía
+     */
+    public boolean isCellEmpty(int r, int c) {
+        return cells.isEmpty(r, c);
+    }
+
+    /*
+     * @r: fila del bloque
+     * @c: columna del bloque
+     * @b: bloque cuyo estado cambió
+     * Recalcula el código de la celda cuando un bloque cambia de estado
+     * (por ejemplo, hielo que queda cubriendo una fogata o una baldosa).
+     * Si el bloque no es el que está en la celda, no hace nada.
+     * @return: no retorna nada
+     */
+    void refreshBlockCode(int r, int c, Block b) {
+        if (cells.inBounds(r, c) && cells.getBlock(r, c) == b) {
+            cells.refreshBlock(r, c);
+        }
+    }
+
+    /*
+     * @r: fila de la celda
+     * @c: columna de la celda
+     * Marca la celda como cambiada para que la interfaz la vuelva a pintar,
+     * aunque no haya cambiado lo que hay en ella (una unidad que gira, una
+     * fogata que se enciende, una maceta que entra en alerta).
+     * @return: no retorna nada
+     */
+    public void markDirty(int r, int c) {
+        cells.markDirty(r, c);
+    }
+
+    /*
+     * Indica si alguna celda cambió desde la última llamada a takeDirtyCells.
+     * @return: true si hay celdas por volver a pintar
+     */
+    public boolean hasDirtyCells() {
+        return cells.hasDirtyCells();
+    }
+
+    /*
+     * Retorna las celdas que cambiaron (movimientos, hielo creado o roto,
+     * frutas comidas, fogatas encendidas, unidades que giran) desde la última
+     * llamada, como índices fila * ancho + columna, y las deja como no cambiadas.
+     * @return: índices de las celdas cambiadas, en orden creciente
+     */
+    public int[] takeDirtyCells() {
+        return cells.takeDirtyCells();
+    }
+
+    /*
+     * Retorna un contador que cambia cada vez que se pone o se quita un
+     * bloque decorativo (por ejemplo, al cargar un nivel). La interfaz lo usa
+     * para saber cuándo volver a dibujar la parte fija del tablero.
+     * @return: versión de los bloques decorativos
+     */
+    public long getDecorationVersion() {
+        return cells.getDecorationVersion();
     }
 
     /*
@@ -854,22 +1026,23 @@ public class BadIceCream implements Serializable {
     }
     
     /*
-     * Recorre todas las frutas del tablero, las guarda en una lista
+     * Recorre las frutas del registro de entidades (copiadas a un arreglo
+     * reutilizable, sin barrer el tablero ni crear listas en cada tick)
      * y llama a su método act() para que ejecuten su comportamiento.
      * Al final revisa acciones de los jugadores tras mover las frutas.
      * @return: no retorna nada
      */
     public void tickFruits() {
-        ArrayList<Fruit> fruitsList = new ArrayList<>();
-
-        for (int r = 0; r < height; r++) { 
-            for (int c = 0; c < width; c++) {
-                if (fruits[r][c] != null) {
-                    fruitsList.add(fruits[r][c]);
-                }
-            }
-        }
-        for (Fruit fruit : fruitsList) {
+        int n = units.getFruitCount();
+        if (fruitScratch == null || fruitScratch.length < n) {
+            fruitScratch = new Fruit[Math.max(16, n * 2)];
+        }
+        units.copyFruits(fruitScratch);
+        for (int i = 0; i < n; i++) {
+            Fruit fruit = fruitScratch[i];
+            fruitScratch[i] = null;
+            // Puede haber sido comida o reemplazada durante este mismo tick
+            if (cells.getFruit(fruit.getRow(), fruit.getColumn()) != fruit) continue;
             try {
                 fruit.act();
             } catch (BadIceCreamException e) {              
@@ -878,20 +1051,52 @@ public class BadIceCream implements Serializable {
         checkActionsForPlayer1();
         checkActionsForPlayer2();
     }
-    
+
+    /*
+     * Recorre todos los monstruos registrados y llama a su método act().
+     * Cada monstruo actualiza su celda al moverse (Monster.changePosition).
+     * Al final revisa si algún jugador quedó en la misma celda que un monstruo.
+     * @return: no retorna nada
+     */
+    public void tickMonsters() {
+        int n = units.getMonsterCount();
+        if (monsterScratch == null || monsterScratch.length < n) {
+            monsterScratch = new Monster[Math.max(16, n * 2)];
+        }
+        units.copyMonsters(monsterScratch);
+        for (int i = 0; i < n; i++) {
+            Monster monster = monsterScratch[i];
+            monsterScratch[i] = null;
+            if (cells.getMonster(monster.getRow(), monster.getColumn()) != monster) continue;
+            try {
+                monster.act();
+            } catch (BadIceCreamException e) {
+            }
+        }
+        if (player1 != null && cells.getMonster(player1.getRow(), player1.getColumn()) != null) {
+            checkActionsForPlayer1();
+        }
+        if (player2 != null && cells.getMonster(player2.getRow(), player2.getColumn()) != null) {
+            checkActionsForPlayer2();
+        }
+    }
+
     /*
      * Recorre todos los bloques del tablero y verifica si son bloques de hielo
      * que deberían derretirse por estar sobre una baldosa caliente.
      * Si se deben derretir, se elimina el hielo y se restaura la baldosa caliente.
+     * También enciende las fogatas a las que ya les toca.
      * @return: no retorna nada
      */
     public void tickHotTiles() {
         for (int r = 0; r < height; r++) {
             for (int c = 0; c < width; c++) {
-                Block b = blocks[r][c];
+                Block b = cells.getBlock(r, c);
                 if (b != null && b.isIceBlock() && b.shouldMeltIceOverBaldosa()) {
-                    blocks[r][c] = null;
+                    cells.setBlock(r, c, null);
                     new BaldosaCaliente(this, r, c);
+                } else if (b != null && b.isFogata()) {
+                    ((Fogata) b).updateActivation();
                 }
             }
         }
@@ -904,7 +1109,7 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     private void spawnFruitsForPhase(int phaseNumber) throws BadIceCreamException {
-        ArrayList<EntityData> lista;
+        ArrayList<LevelData.Entry> lista;
 
         if (phaseNumber == 1) {
             lista = fruitsPhase1;
@@ -914,9 +1119,9 @@ public class BadIceCream implements Serializable {
             return; // por ahora solo 2 fases
         }
 
-        for (EntityData data : lista) {
-            validatePositionForFruit(data.row, data.col);
-            crearFruta(data.tipo, data.row, data.col);
+        for (LevelData.Entry data : lista) {
+            validatePositionForFruit(data.getRow(), data.getColumn());
+            crearFruta(data.getType(), data.getRow(), data.getColumn());
         }
     }
     
@@ -927,63 +1132,66 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     public void exportLevel(String filename) throws BadIceCreamException {
-        try {
-            PrintWriter writer = new PrintWriter(new FileWriter(filename));
-            
-            writer.println("jugador vs jugador");
-            
-            if (player1 != null) {
-                String tipo1 = determinarTipoJugador(player1);
-                writer.println(tipo1 + " " + player1.getRow() + " " + player1.getColumn());
-            } else {
-                writer.println("vainilla 10 7"); 
-            }
-            
-            if (player2 != null) {
-                String tipo2 = determinarTipoJugador(player2);
-                writer.println(tipo2 + " " + player2.getRow() + " " + player2.getColumn());
-            } else {
-                writer.println("chocolate 10 8"); 
-            }
-            
-            // MONSTRUOS
-            for (int r = 0; r < height; r++) {
-                for (int c = 0; c < width; c++) {
-                    if (monsters[r][c] != null) {
-                        Monster monster = monsters[r][c];
-                        String tipoMonstruo = determinarTipoMonstruo(monster);
-                        writer.println("monster " + tipoMonstruo + " " + r + " " + c);
-                    }
+        captureLevel().saveText(filename);
+    }
+
+    /*
+     * @filename: nombre o ruta del archivo donde se guardará el nivel
+     * Exporta el estado actual del nivel en formato binario (LevelBinaryFormat).
+     * importLevel lo reconoce automáticamente.
+     * @return: no retorna nada
+     */
+    public void exportLevelBinary(String filename) throws BadIceCreamException {
+        captureLevel().saveBinary(filename);
+    }
+
+    /*
+     * Arma la descripción del estado actual del tablero: jugadores, monstruos,
+     * bloques y las frutas presentes (como frutas de la fase 1).
+     * @return: nivel con el estado actual
+     */
+    public LevelData captureLevel() {
+        LevelData data = new LevelData(height, width);
+
+        if (player1 != null) {
+            data.setPlayer1(determinarTipoJugador(player1), player1.getRow(), player1.getColumn());
+        } else {
+            data.setPlayer1("vainilla", 10, 7);
+        }
+
+        if (player2 != null) {
+            data.setPlayer2(determinarTipoJugador(player2), player2.getRow(), player2.getColumn());
+        } else {
+            data.setPlayer2("chocolate", 10, 8);
+        }
+
+        // MONSTRUOS
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (cells.getMonster(r, c) != null) {
+                    data.addMonster(determinarTipoMonstruo(cells.getMonster(r, c)), r, c);
                 }
             }
+        }
 
-            // BLOQUES
-            for (int r = 0; r < height; r++) {
-                for (int c = 0; c < width; c++) {
-                    if (blocks[r][c] != null) {
-                        Block block = blocks[r][c];
-                        String tipoBloque = determinarTipoBloque(block);
-                        writer.println("block " + tipoBloque + " " + r + " " + c);
-                    }
+        // BLOQUES
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (cells.getBlock(r, c) != null) {
+                    data.addBlock(determinarTipoBloque(cells.getBlock(r, c)), r, c);
                 }
             }
+        }
 
-            // FRUTAS
-            for (int r = 0; r < height; r++) {
-                for (int c = 0; c < width; c++) {
-                    if (fruits[r][c] != null) {
-                        Fruit fruit = fruits[r][c];
-                        String tipoFruta = determinarTipoFruta(fruit);
-                        writer.println("fruit " + tipoFruta + " " + r + " " + c);
-                    }
+        // FRUTAS
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (cells.getFruit(r, c) != null) {
+                    data.addFruit(1, determinarTipoFruta(cells.getFruit(r, c)), r, c);
                 }
             }
-            
-            writer.close();
-            
-        } catch (IOException e) {
-            throw new BadIceCreamException("Error al escribir el archivo: " + e.getMessage());
         }
+        return data;
     }
 
     /*
@@ -1040,243 +1248,118 @@ public class BadIceCream implements Serializable {
         
         if ("BANANA".equals(tipo)) {
             return "platano";
-        } else if ("GRAPE".equals(tipo)) {
+        } else if ("UVA".equals(tipo)) {
             return "uva";
         } else if ("CACTUS".equals(tipo)) {
             return "cactus";
-        } else if ("CHERRY".equals(tipo)) {
+        } else if ("CEREZA".equals(tipo)) {
             return "cereza";
-        } else if ("PINEAPPLE".equals(tipo)) {
+        } else if ("PIÑA".equals(tipo)) {
             return "pina";
         }
         return "platano";
     }
     /*
      * @filename: nombre o ruta del archivo a importar
-     * Importa un nivel desde un archivo de texto, leyendo modo de juego,
-     * posiciones de jugadores, monstruos, bloques y frutas, y llenando
-     * las estructuras internas del tablero.
+     * Importa un nivel desde un archivo de texto o binario (se detecta por la
+     * firma del archivo), leyendo modo de juego, posiciones de jugadores,
+     * monstruos, bloques y frutas, y llenando las estructuras internas del tablero.
      * @return: no retorna nada
      */
     public void importLevel(String filename) throws BadIceCreamException {
-        try {
-            BufferedReader reader = new BufferedReader(new FileReader(filename));
-
-            // Limpia el tablero y estructuras internas
-            clearBoardForImport();
-
-            // Leer modo de juego
-            String mode = reader.readLine();
-            if (mode == null || !mode.trim().equals("jugador vs jugador")) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-            }
-
-            // ---- JUGADOR 1 ----
-            String player1Line = reader.readLine();
-            if (player1Line == null) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-            }
-            String[] player1Data = player1Line.trim().split("\\s+");
-            if (player1Data.length != 3) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-            }
-            String tipoJugador1 = player1Data[0].toLowerCase();
-            int p1Row = Integer.parseInt(player1Data[1]);
-            int p1Col = Integer.parseInt(player1Data[2]);
-
-            // ---- JUGADOR 2 ----
-            String player2Line = reader.readLine();
-            if (player2Line == null) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-            }
-            String[] player2Data = player2Line.trim().split("\\s+");
-            if (player2Data.length != 3) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-            }
-            String tipoJugador2 = player2Data[0].toLowerCase();
-            int p2Row = Integer.parseInt(player2Data[1]);
-            int p2Col = Integer.parseInt(player2Data[2]);
-
-            // Validar tipos de jugador
-            if (!esTipoJugadorValido(tipoJugador1) || !esTipoJugadorValido(tipoJugador2)) {
-                reader.close();
-                throw new BadIceCreamException("Tipo de jugador inválido. Use: vainilla, chocolate o fresa");
-            }
-
-            // Validar posiciones de jugadores
-            validatePositionForPlayer(p1Row, p1Col);
-            validatePositionForPlayer(p2Row, p2Col);
-
-            // No pueden estar en la misma casilla
-            if (p1Row == p2Row && p1Col == p2Col) {
-                reader.close();
-                throw new BadIceCreamException(BadIceCreamException.PLAYER_ON_PLAYER);
-            }
+        loadLevel(LevelData.load(filename));
+    }
 
-            // Crear jugadores usando los sabores seleccionados si existen, sino usar los del archivo
-            String flavor1 = selectedPlayer1Flavor != null ? selectedPlayer1Flavor : tipoJugador1;
-            String flavor2 = selectedPlayer2Flavor != null ? selectedPlayer2Flavor : tipoJugador2;
-            player1 = new Player(this, p1Row, p1Col, flavor1);
-            player2 = new Player(this, p2Row, p2Col, flavor2);
-            players[p1Row][p1Col] = player1;
-            players[p2Row][p2Col] = player2;
-
-            // Listas temporales para monstruos y bloques
-            ArrayList<EntityData> monstruosData = new ArrayList<>();
-            ArrayList<EntityData> bloquesData = new ArrayList<>();
-
-            // Listas de instancia para frutas por fase
-            fruitsPhase1.clear();
-            fruitsPhase2.clear();
-            int currentPhaseFile = 1; // por defecto, todo va a fase 1 si no se indica lo contrario
-
-            // Leer el resto del archivo
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-
-                String[] parts = line.split("\\s+");
-
-                // Línea que define la fase: "phase 1" o "phase 2"
-                if (parts[0].equalsIgnoreCase("phase")) {
-                    if (parts.length != 2) {
-                        reader.close();
-                        throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-                    }
-                    try {
-                        currentPhaseFile = Integer.parseInt(parts[1]);
-                    } catch (NumberFormatException e) {
-                        reader.close();
-                        throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-                    }
-                    continue; // pasar a la siguiente línea
-                }
+    /*
+     * @data: nivel ya leído de un archivo
+     * Limpia el tablero y crea en él los jugadores, bloques, monstruos y
+     * frutas de la fase 1 del nivel; las frutas de la fase 2 quedan pendientes.
+     * @return: no retorna nada
+     */
+    public void loadLevel(LevelData data) throws BadIceCreamException {
+        clearBoardForImport();
+        if (data.getHeight() != height || data.getWidth() != width) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
 
-                // El resto deben ser siempre 4 campos: categoria tipo row col
-                if (parts.length != 4) {
-                    reader.close();
-                    throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-                }
+        LevelData.Entry p1 = data.getPlayer1();
+        LevelData.Entry p2 = data.getPlayer2();
 
-                String categoria = parts[0].toLowerCase();
-                String tipo = parts[1].toLowerCase();
-                int row = Integer.parseInt(parts[2]);
-                int col = Integer.parseInt(parts[3]);
-
-                switch (categoria) {
-                    case "monster":
-                        if (!esTipoMonstruoValido(tipo)) {
-                            reader.close();
-                            throw new BadIceCreamException("Tipo de monstruo inválido. Use: troll, calamar o maceta");
-                        }
-                        monstruosData.add(new EntityData(tipo, row, col));
-                        break;
-
-                    case "block":
-                        if (!esTipoBloqueValido(tipo)) {
-                            reader.close();
-                            throw new BadIceCreamException("Tipo de bloque inválido.");
-                        }
-                        bloquesData.add(new EntityData(tipo, row, col));
-                        break;
-
-                    case "fruit":
-                        if (!esTipoFrutaValida(tipo)) {
-                            reader.close();
-                            throw new BadIceCreamException("Tipo de fruta inválido.");
-                        }
-                        // Enviar la fruta a la lista de la fase actual
-                        if (currentPhaseFile == 1) {
-                            fruitsPhase1.add(new EntityData(tipo, row, col));
-                        } else if (currentPhaseFile == 2) {
-                            fruitsPhase2.add(new EntityData(tipo, row, col));
-                        } else {
-                            // Si quisieras soportar más fases, extiendes aquí
-                            fruitsPhase1.add(new EntityData(tipo, row, col)); // fallback simple
-                        }
-                        break;
-
-                    default:
-                        reader.close();
-                        throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
-                }
-            }
+        // Validar posiciones de jugadores
+        validatePositionForPlayer(p1.getRow(), p1.getColumn());
+        validatePositionForPlayer(p2.getRow(), p2.getColumn());
 
-            // Crear bloques
-            for (EntityData data : bloquesData) {
-                validatePositionForBlock(data.row, data.col);
-                Block block = crearBloque(data.tipo, data.row, data.col);
-                blocks[data.row][data.col] = block;
-                InteractorsWithPlayer.add(block); // Agregar a la lista de interactores
-            }
+        // No pueden estar en la misma casilla
+        if (p1.getRow() == p2.getRow() && p1.getColumn() == p2.getColumn()) {
+            throw new BadIceCreamException(BadIceCreamException.PLAYER_ON_PLAYER);
+        }
 
-            // Crear monstruos
-            for (EntityData data : monstruosData) {
-                validatePositionForMonster(data.row, data.col);
-                Monster monster = crearMonstruo(data.tipo, data.row, data.col);
-                monsters[data.row][data.col] = monster;
-                InteractorsWithPlayer.add(monster); // Agregar a la lista de interactores
-            }
+        // Crear jugadores usando los sabores seleccionados si existen, sino usar los del archivo
+        String flavor1 = selectedPlayer1Flavor != null ? selectedPlayer1Flavor : p1.getType();
+        String flavor2 = selectedPlayer2Flavor != null ? selectedPlayer2Flavor : p2.getType();
+        player1 = new Player(this, p1.getRow(), p1.getColumn(), flavor1);
+        player2 = new Player(this, p2.getRow(), p2.getColumn(), flavor2);
+        cells.setPlayer(p1.getRow(), p1.getColumn(), player1);
+        cells.setPlayer(p2.getRow(), p2.getColumn(), player2);
 
-            // Crear frutas SOLO de la fase 1 al iniciar el nivel
-            spawnFruitsForPhase(1);
+        fruitsPhase1.addAll(data.getFruits(1));
+        fruitsPhase2.addAll(data.getFruits(2));
 
-            reader.close();
+        // Crear bloques
+        for (LevelData.Entry e : data.getBlocks()) {
+            validatePositionForBlock(e.getRow(), e.getColumn());
+            Block block = crearBloque(e.getType(), e.getRow(), e.getColumn());
+            cells.setBlock(e.getRow(), e.getColumn(), block);
+        }
 
-        } catch (FileNotFoundException e) {
-            throw new BadIceCreamException(BadIceCreamException.FILE_NOT_FOUND);
-        } catch (IOException e) {
-            throw new BadIceCreamException("Error al leer el archivo: " + e.getMessage());
-        } catch (NumberFormatException e) {
-            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        // Crear monstruos
+        for (LevelData.Entry e : data.getMonsters()) {
+            validatePositionForMonster(e.getRow(), e.getColumn());
+            Monster monster = crearMonstruo(e.getType(), e.getRow(), e.getColumn());
+            cells.setMonster(e.getRow(), e.getColumn(), monster);
         }
-    }
 
-    /*
-     * @tipo: texto del tipo de jugador leído del archivo
-     * Verifica si el tipo de jugador es uno de los permitidos (vainilla, chocolate o fresa).
-     * @return: true si es válido, false en caso contrario
-     */
-    private boolean esTipoJugadorValido(String tipo) {
-        return tipo.equals("vainilla") || tipo.equals("chocolate") || tipo.equals("fresa");
+        // Crear frutas SOLO de la fase 1 al iniciar el nivel
+        spawnFruitsForPhase(1);
     }
 
     /*
-     * @tipo: texto del tipo de monstruo leído del archivo
-     * Verifica si el tipo de monstruo es uno de los permitidos (troll, calamar, maceta).
-     * @return: true si es válido, false en caso contrario
+     * @template: plantilla de nivel ya validada (ver LevelTemplateCache)
+     * Limpia el tablero y crea el nivel de la plantilla. Las posiciones se
+     * validaron al compilar la plantilla, así que aquí solo se recorren sus
+     * arreglos y se crean las entidades, sin leer ni validar nada.
+     * @return: no retorna nada
      */
-    private boolean esTipoMonstruoValido(String tipo) {
-        return tipo.equals("troll") || tipo.equals("calamar") || tipo.equals("maceta");
-    }
+    public void loadTemplate(LevelTemplate template) throws BadIceCreamException {
+        clearBoardForImport();
+        if (template.getHeight() != height || template.getWidth() != width) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
 
-    /*
-     * @tipo: texto del tipo de bloque leído del archivo
-     * Verifica si el tipo de bloque es uno de los permitidos
-     * (iceblock, decoration, fogata, baldosa).
-     * @return: true si es válido, false en caso contrario
-     */
-    private boolean esTipoBloqueValido(String tipo) {
-        return tipo.equals("iceblock") || tipo.equals("decoration") 
-               || tipo.equals("fogata") || tipo.equals("baldosa");
-    }
+        int c1 = template.getPlayerCell(0);
+        int c2 = template.getPlayerCell(1);
+        String flavor1 = selectedPlayer1Flavor != null ? selectedPlayer1Flavor : template.getPlayerType(0);
+        String flavor2 = selectedPlayer2Flavor != null ? selectedPlayer2Flavor : template.getPlayerType(1);
+        player1 = new Player(this, c1 / width, c1 % width, flavor1);
+        player2 = new Player(this, c2 / width, c2 % width, flavor2);
+        cells.setPlayer(c1 / width, c1 % width, player1);
+        cells.setPlayer(c2 / width, c2 % width, player2);
 
-    /*
-     * @tipo: texto del tipo de fruta leído del archivo
-     * Verifica si el tipo de fruta es uno de los permitidos
-     * (platano, uva, cactus, cereza, pina).
-     * @return: true si es válido, false en caso contrario
-     */
-    private boolean esTipoFrutaValida(String tipo) {
-        return tipo.equals("platano") || tipo.equals("uva") || 
-               tipo.equals("cactus") || tipo.equals("cereza") || 
-               tipo.equals("pina");
+        fruitsPhase1.addAll(template.getFruits(1));
+        fruitsPhase2.addAll(template.getFruits(2));
+
+        for (int i = 0; i < template.getBlockCount(); i++) {
+            int cell = template.getBlockCell(i);
+            crearBloque(LevelData.BLOCK_TYPES[template.getBlockType(i)], cell / width, cell % width);
+        }
+        for (int i = 0; i < template.getMonsterCount(); i++) {
+            int cell = template.getMonsterCell(i);
+            crearMonstruo(LevelData.MONSTER_TYPES[template.getMonsterType(i)], cell / width, cell % width);
+        }
+
+        for (LevelData.Entry data : fruitsPhase1) {
+            crearFruta(data.getType(), data.getRow(), data.getColumn());
+        }
     }
 
     /*
@@ -1349,34 +1432,10 @@ public class BadIceCream implements Serializable {
             default:
                 fruit = new Platano(this, row, col);
         }
-        fruits[row][col] = fruit; // Asignar a la matriz
-        InteractorsWithPlayer.add(fruit); // Agregar a la lista de interactores
+        cells.setFruit(row, col, fruit); // Asignar a la matriz
         return fruit;
     }
 
-    /*
-     * Clase interna que almacena información básica de una entidad (tipo y posición)
-     * usada para construir monstruos, bloques o frutas después de leer el archivo.
-     */
-    private static class EntityData implements Serializable{
-        String tipo;
-        int row;
-        int col;
-        
-        /*
-         * @tipo: tipo de entidad (monster, block, fruit)
-         * @row: fila de la entidad
-         * @col: columna de la entidad
-         * Constructor que guarda los datos de una entidad leída del archivo.
-         * @return: no retorna nada
-         */
-        EntityData(String tipo, int row, int col) {
-            this.tipo = tipo;
-            this.row = row;
-            this.col = col; 
-        }
-    }
-
     /*
      * @row: fila a validar para colocar un jugador
      * @col: columna a validar para colocar un jugador
@@ -1389,19 +1448,19 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
 
-        if (blocks[row][col] != null) {
-            if (blocks[row][col].isIceBlock()) {
+        if (cells.getBlock(row, col) != null) {
+            if (cells.getBlock(row, col).isIceBlock()) {
                 throw new BadIceCreamException(BadIceCreamException.UNIT_ON_ICE_BLOCK);
             }
-            if (blocks[row][col].isDecorationBlock()) {
+            if (cells.getBlock(row, col).isDecorationBlock()) {
                 throw new BadIceCreamException(BadIceCreamException.UNIT_ON_DECORATION_BLOCK);
             }
         }
 
-        if (players[row][col] != null) {
+        if (cells.getPlayer(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.PLAYER_ON_PLAYER);
         }
-        if (monsters[row][col] != null) {
+        if (cells.getMonster(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.PLAYER_ON_MONSTER);
         }
     }
@@ -1418,19 +1477,19 @@ public class BadIceCream implements Serializable {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
 
-        if (blocks[row][col] != null) {
-            if (blocks[row][col].isIceBlock()) {
+        if (cells.getBlock(row, col) != null) {
+            if (cells.getBlock(row, col).isIceBlock()) {
                 throw new BadIceCreamException(BadIceCreamException.UNIT_ON_ICE_BLOCK);
             }
-            if (blocks[row][col].isDecorationBlock()) {
+            if (cells.getBlock(row, col).isDecorationBlock()) {
                 throw new BadIceCreamException(BadIceCreamException.UNIT_ON_DECORATION_BLOCK);
             }
         }
 
-        if (players[row][col] != null) {
+        if (cells.getPlayer(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.PLAYER_ON_MONSTER);
         }
-        if (monsters[row][col] != null) {
+        if (cells.getMonster(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.MONSTER_ON_MONSTER);
         }
     }
@@ -1446,10 +1505,10 @@ public class BadIceCream implements Serializable {
         if (row < 0 || row >= height || col < 0 || col >= width) {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
-        if (blocks[row][col] != null) {
+        if (cells.getBlock(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.MONSTER_ON_MONSTER);
         }
-        if (players[row][col] != null || monsters[row][col] != null) {
+        if (cells.getPlayer(row, col) != null || cells.getMonster(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
     }
@@ -1465,15 +1524,15 @@ public class BadIceCream implements Serializable {
         if (row < 0 || row >= height || col < 0 || col >= width) {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
-        if (fruits[row][col] != null) {
+        if (cells.getFruit(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
-        if (blocks[row][col] != null) {
-            if (blocks[row][col].isIceBlock() || blocks[row][col].isDecorationBlock()) {
+        if (cells.getBlock(row, col) != null) {
+            if (cells.getBlock(row, col).isIceBlock() || cells.getBlock(row, col).isDecorationBlock()) {
                 throw new BadIceCreamException(BadIceCreamException.UNIT_ON_ICE_BLOCK);
             }
         }
-        if (players[row][col] != null || monsters[row][col] != null) {
+        if (cells.getPlayer(row, col) != null || cells.getMonster(row, col) != null) {
             throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
         }
     }
@@ -1485,20 +1544,12 @@ public class BadIceCream implements Serializable {
      * @return: no retorna nada
      */
     private void clearBoardForImport() {
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                players[r][c] = null;
-                monsters[r][c] = null;
-                fruits[r][c] = null;
-                blocks[r][c] = null;
-            }
-        }
+        cells.clear();
         
         player1 = null;
         player2 = null;
         
         units.clear();
-        InteractorsWithPlayer.clear(); // Limpiar la lista de interactores
 
         fruitsPhase1.clear();
         fruitsPhase2.clear(); 
@@ -1506,19 +1557,41 @@ public class BadIceCream implements Serializable {
     }
 
     /*
-     * Verifica si en el tablero ya no quedan frutas (todas las posiciones
-     * de la matriz de frutas son null), es decir, si la fase se ha completado.
+     * Verifica si en el tablero ya no quedan frutas, es decir, si la fase se
+     * ha completado. Consulta el contador de frutas, por lo que es O(1).
      * @return: true si la fase está limpia de frutas, false en caso contrario
      */
     public boolean isPhaseCleared() {
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (fruits[r][c] != null) {
-                    return false;
-                }
-            }
+        checkCountersInDebug();
+        return cells.getFruitCount() == 0;
+    }
+
+    /*
+     * Retorna la cantidad de frutas que quedan en el tablero.
+     * @return: número de frutas vivas
+     */
+    public int getRemainingFruits() {
+        return cells.getFruitCount();
+    }
+
+    /*
+     * Compara los contadores incrementales de frutas y puntaje con un recorrido
+     * completo del tablero.
+     * @return: true si los contadores son consistentes
+     */
+    public boolean verifyCounters() {
+        return cells.verifyFruitCounters();
+    }
+
+    /*
+     * Si la propiedad del sistema badicecream.debug está activa, revisa la
+     * consistencia de los contadores y falla en cuanto se desincronizan.
+     * @return: no retorna nada
+     */
+    private void checkCountersInDebug() {
+        if (DEBUG && !verifyCounters()) {
+            throw new IllegalStateException("Contadores de frutas desincronizados con el tablero");
         }
-        return true;
     }
 
     /*
@@ -1573,62 +1646,198 @@ public class BadIceCream implements Serializable {
     }
     
     /**
-     * Guarda el estado completo del juego usando serialización
+     * Guarda el estado completo del juego con GameSnapshotCodec (ver
+     * saveSnapshot). openGame lo vuelve a abrir.
      */
     public void saveGame(String filepath) throws BadIceCreamException {
+        saveSnapshot(GameSnapshotCodec.encode(this), filepath);
+    }
+
+    /**
+     * Escribe en un archivo una partida ya codificada con GameSnapshotCodec.
+     * Permite tomar la foto de la partida en un momento (por ejemplo, entre
+     * dos ticks en el hilo de la interfaz) y escribirla después en otro hilo.
+     *
+     * La partida se escribe en un archivo temporal del mismo directorio y
+     * recién entonces reemplaza al archivo pedido, así que un error a mitad
+     * de camino deja intacta la partida que ya estaba guardada ahí.
+     */
+    public static void saveSnapshot(byte[] snapshot, String filepath) throws BadIceCreamException {
+        Path path = new File(filepath).getAbsoluteFile().toPath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
         try {
-            FileOutputStream fileOut = new FileOutputStream(filepath);
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(this);
-            out.close();
-            fileOut.close();
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+                fileOut.write(snapshot);
+                fileOut.getFD().sync();
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // El error original es el que importa
+            }
             throw new BadIceCreamException("Error al guardar el juego: " + e.getMessage());
         }
     }
     
     /**
-     * Carga un juego guardado previamente
+     * Carga un juego guardado previamente en el formato de GameSnapshotCodec.
+     * Las partidas que las versiones anteriores guardaban con serialización
+     * de Java no se pueden abrir: las clases del juego cambiaron y ya no
+     * coinciden con las del archivo. Se reconocen para avisarlo con
+     * BadIceCreamException.LEGACY_SAVE.
      */
     public static BadIceCream openGame(String filepath) throws BadIceCreamException {
-        try {
-            FileInputStream fileIn = new FileInputStream(filepath);
-            ObjectInputStream in = new ObjectInputStream(fileIn);
-            BadIceCream game = (BadIceCream) in.readObject();
-            in.close();
-            fileIn.close();
-            return game;
+        byte[] bytes;
+        try (InputStream fileIn = new FileInputStream(filepath)) {
+            bytes = fileIn.readAllBytes();
         } catch (IOException e) {
             throw new BadIceCreamException("Error al abrir el juego: " + e.getMessage());
-        } catch (ClassNotFoundException e) {
-            throw new BadIceCreamException("Archivo de juego corrupto o inválido");
         }
+        if (isObjectStream(bytes)) {
+            throw new BadIceCreamException(BadIceCreamException.LEGACY_SAVE);
+        }
+        return GameSnapshotCodec.decode(bytes);
+    }
+
+    /**
+     * @return true si los bytes empiezan con la firma de ObjectOutputStream
+     *         (0xACED), que usaban las partidas de versiones anteriores
+     */
+    private static boolean isObjectStream(byte[] bytes) {
+        return bytes.length >= 2 && (bytes[0] & 0xFF) == 0xAC && (bytes[1] & 0xFF) == 0xED;
     }
-    
 
     /*
-     * @row: fila de referencia (normalmente la del jugador)
-     * @col: columna de referencia (normalmente la del jugador)
-     * Busca la fruta más cercana en el tablero usando distancia Manhattan.
-     * @return: arreglo {fila, columna} de la fruta más cercana o null si no hay frutas
+     * @out: flujo de datos de la partida guardada
+     * Escribe el estado propio del juego (nivel, fase, puntajes, sabores,
+     * reloj, generadores y frutas pendientes) para GameSnapshotCodec.
+     * Las entidades y el tablero los escribe el codec.
+     * @return: no retorna nada
      */
-    private int[] findNearestFruit(int row, int col) {
-        int bestDist = Integer.MAX_VALUE;
-        int[] bestPos = null;
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (fruits[r][c] != null) {
-                    int d = Math.abs(r - row) + Math.abs(c - col);
-                    if (d < bestDist) {
-                        bestDist = d;
-                        bestPos = new int[]{r, c};
-                    }
-                }
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(level);
+        out.writeByte(phase);
+        out.writeInt(totalScore);
+        out.writeInt(phaseScore);
+        writeOptionalString(out, selectedPlayer1Flavor);
+        writeOptionalString(out, selectedPlayer2Flavor);
+
+        boolean manual = clock instanceof ManualClock;
+        out.writeBoolean(manual);
+        if (manual) {
+            out.writeLong(clock.currentTimeMillis());
+        }
+        out.writeLong(random.getSeed());
+        out.writeLong(random.getState());
+        out.writeLong(machineRandom.getSeed());
+        out.writeLong(machineRandom.getState());
+
+        writeFruitEntries(out, fruitsPhase1);
+        writeFruitEntries(out, fruitsPhase2);
+    }
+
+    /*
+     * @in: flujo de datos de la partida guardada
+     * Restaura el estado escrito por writeState.
+     * @return: no retorna nada
+     */
+    void readState(DataInput in) throws IOException {
+        level = in.readInt();
+        phase = in.readUnsignedByte();
+        totalScore = in.readInt();
+        phaseScore = in.readInt();
+        selectedPlayer1Flavor = readOptionalString(in);
+        selectedPlayer2Flavor = readOptionalString(in);
+
+        clock = in.readBoolean() ? new ManualClock(in.readLong()) : new SystemClock();
+        random = new GameRandom(in.readLong());
+        random.setState(in.readLong());
+        machineRandom = new GameRandom(in.readLong());
+        machineRandom.setState(in.readLong());
+
+        readFruitEntries(in, fruitsPhase1);
+        readFruitEntries(in, fruitsPhase2);
+    }
+
+    private static void writeOptionalString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptionalString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeFruitEntries(DataOutput out, ArrayList<LevelData.Entry> list) throws IOException {
+        out.writeShort(list.size());
+        for (LevelData.Entry e : list) {
+            out.writeByte(LevelData.typeCode(LevelData.FRUIT_TYPES, e.getType()));
+            out.writeInt(e.getRow());
+            out.writeInt(e.getColumn());
+        }
+    }
+
+    private static void readFruitEntries(DataInput in, ArrayList<LevelData.Entry> list) throws IOException {
+        list.clear();
+        int n = in.readUnsignedShort();
+        for (int i = 0; i < n; i++) {
+            int type = in.readByte();
+            if (type < 0 || type >= LevelData.FRUIT_TYPES.length) {
+                throw new IOException("Archivo de juego corrupto o inválido");
             }
+            list.add(new LevelData.Entry(LevelData.FRUIT_TYPES[type], in.readInt(), in.readInt()));
         }
-        return bestPos;
     }
     
+
+    /*
+     * Retorna el campo de distancias a las frutas, recalculándolo solo si
+     * cambiaron los bloques o las frutas desde la última consulta.
+     * @return: campo BFS con los pasos hasta la fruta más cercana desde cada celda
+     */
+    public DistanceField getFruitDistanceField() {
+        if (fruitField == null) {
+            fruitField = new DistanceField(height, width);
+        }
+        fruitField.update(cells);
+        return fruitField;
+    }
+
+    /*
+     * Retorna el campo de persecución hacia los jugadores para monstruos que
+     * no atraviesan hielo. Se comparte entre todos los monstruos y se recalcula
+     * como mucho una vez por tick (solo si cambiaron bloques o jugadores).
+     * @return: campo de persecución para monstruos caminantes
+     */
+    public ChaseField getWalkingChaseField() {
+        if (walkingChaseField == null) {
+            walkingChaseField = new ChaseField(height, width, 0);
+        }
+        walkingChaseField.update(cells);
+        return walkingChaseField;
+    }
+
+    /*
+     * Retorna el campo de persecución para monstruos que rompen hielo: cruzar
+     * una celda de hielo cuesta los ticks que tarda el Calamar en romperla más el paso.
+     * @return: campo de persecución para monstruos rompehielo
+     */
+    public ChaseField getIceBreakingChaseField() {
+        if (iceBreakingChaseField == null) {
+            iceBreakingChaseField = new ChaseField(height, width, CalamarNaranja.TICKS_TO_BREAK + 1);
+        }
+        iceBreakingChaseField.update(cells);
+        return iceBreakingChaseField;
+    }
+
     /*
      * @p: jugador que se quiere mover
      * @newRow: nueva fila a la que se quiere mover
@@ -1647,15 +1856,15 @@ public class BadIceCream implements Serializable {
             return false;
         }
         
-        if (players[newRow][newCol] != null && players[newRow][newCol] != p) {
+        if (cells.getPlayer(newRow, newCol) != null && cells.getPlayer(newRow, newCol) != p) {
             return false;
         }
         
-        if (monsters[newRow][newCol] != null) {
+        if (cells.getMonster(newRow, newCol) != null) {
             return false;
         }
         
-        Block b = blocks[newRow][newCol];
+        Block b = cells.getBlock(newRow, newCol);
         if (b != null && !b.isFogata()) {
             return false;
         }
@@ -1663,165 +1872,75 @@ public class BadIceCream implements Serializable {
     }
     
     /*
-     * Mueve automáticamente al jugador controlado por la máquina (player1).
-     * Estrategia:
-     *  1. Busca la fruta más cercana.
-     *  2. Evalúa los 4 movimientos posibles (arriba, abajo, izquierda, derecha).
-     *  3. Escoge el movimiento válido que más acerque a la fruta.
-     *  4. Si no hay frutas o no hay movimiento que acerque, intenta un movimiento válido aleatorio.
+     * Mueve automáticamente al jugador controlado por la máquina (player1)
+     * un paso por el camino más corto hacia una fruta (ver moveMachinePlayer).
      * Después de moverse se revisan las acciones habituales (monstruos, frutas, bloques).
      * @return: no retorna nada
      */
     public void moveMachinePlayer1() throws BadIceCreamException {
         if (player1 == null) return;
-        Player p = player1;
-        int currentRow = p.getRow();
-        int currentCol = p.getColumn();
-        
-        int[] target = findNearestFruit(currentRow, currentCol);
-        
-        int[][] directions = {
-            {-1, 0}, 
-            {1, 0},  
-            {0, -1}, 
-            {0, 1}   
-        };
-        
-        int bestRow = currentRow;
-        int bestCol = currentCol;
-        boolean foundBetter = false;
-        
-        if (target != null) {
-            int targetRow = target[0];
-            int targetCol = target[1];
-            int bestDist = Math.abs(targetRow - currentRow) + Math.abs(targetCol - currentCol);
-            
-            for (int[] dir : directions) {
-                int nr = currentRow + dir[0];
-                int nc = currentCol + dir[1];
-                if (canMoveTo(p, nr, nc)) {
-                    int d = Math.abs(targetRow - nr) + Math.abs(targetCol - nc);
-                    if (d < bestDist) {
-                        bestDist = d;
-                        bestRow = nr;
-                        bestCol = nc;
-                        foundBetter = true;
-                    }
-                }
-            }
-        }
-        
-        if (!foundBetter) {
-            java.util.ArrayList<int[]> validMoves = new java.util.ArrayList<>();
-            for (int[] dir : directions) {
-                int nr = currentRow + dir[0];
-                int nc = currentCol + dir[1];
-                if (canMoveTo(p, nr, nc)) {
-                    validMoves.add(new int[]{nr, nc});
-                }
-            }
-            if (!validMoves.isEmpty()) {
-                java.util.Random rand = new java.util.Random();
-                int[] chosen = validMoves.get(rand.nextInt(validMoves.size()));
-                bestRow = chosen[0];
-                bestCol = chosen[1];
-            } else {
-                return;
-            }
+        if (moveMachinePlayer(player1)) {
+            checkActionsForPlayer1();
         }
-        
-        players[currentRow][currentCol] = null;
-        
-        if (bestRow < currentRow) p.changeOfView("up");
-        else if (bestRow > currentRow) p.changeOfView("down");
-        else if (bestCol < currentCol) p.changeOfView("left");
-        else if (bestCol > currentCol) p.changeOfView("right");
-        
-        p.changePosition(bestRow, bestCol);
-        players[bestRow][bestCol] = p;
-        
-        checkActionsForPlayer1();
     }
      
     /*
-     * Mueve automáticamente al jugador controlado por la máquina (player2).
-     * Estrategia:
-     *  1. Busca la fruta más cercana.
-     *  2. Evalúa los 4 movimientos posibles (arriba, abajo, izquierda, derecha).
-     *  3. Escoge el movimiento válido que más acerque a la fruta.
-     *  4. Si no hay frutas o no hay movimiento que acerque, intenta un movimiento válido aleatorio.
+     * Mueve automáticamente al jugador controlado por la máquina (player2)
+     * un paso por el camino más corto hacia una fruta (ver moveMachinePlayer).
      * Después de moverse se revisan las acciones habituales (monstruos, frutas, bloques).
      * @return: no retorna nada
      */
     public void moveMachinePlayer2() throws BadIceCreamException {
         if (player2 == null) return;
-        Player p = player2;
+        if (moveMachinePlayer(player2)) {
+            checkActionsForPlayer2();
+        }
+    }
+
+    /*
+     * @p: jugador controlado por la máquina
+     * Estrategia:
+     *  1. Consulta el campo de distancias BFS a las frutas.
+     *  2. Entre los 4 movimientos válidos según canMoveTo (arriba, abajo,
+     *     izquierda, derecha), escoge el de menor distancia si mejora la actual.
+     *  3. Si no hay frutas alcanzables o ningún paso mejora (por ejemplo, un
+     *     monstruo tapa el camino), intenta un movimiento válido aleatorio.
+     * No crea objetos: usa el campo compartido y un arreglo de candidatos reutilizable.
+     * @return: true si el jugador se movió
+     */
+    private boolean moveMachinePlayer(Player p) throws BadIceCreamException {
         int currentRow = p.getRow();
         int currentCol = p.getColumn();
-        
-        int[] target = findNearestFruit(currentRow, currentCol);
-        
-        int[][] directions = {
-            {-1, 0}, 
-            {1, 0},  
-            {0, -1}, 
-            {0, 1}   
-        };
-        
-        int bestRow = currentRow;
-        int bestCol = currentCol;
-        boolean foundBetter = false;
-        
-        if (target != null) {
-            int targetRow = target[0];
-            int targetCol = target[1];
-            int bestDist = Math.abs(targetRow - currentRow) + Math.abs(targetCol - currentCol);
-            
-            for (int[] dir : directions) {
-                int nr = currentRow + dir[0];
-                int nc = currentCol + dir[1];
-                if (canMoveTo(p, nr, nc)) {
-                    int d = Math.abs(targetRow - nr) + Math.abs(targetCol - nc);
-                    if (d < bestDist) {
-                        bestDist = d;
-                        bestRow = nr;
-                        bestCol = nc;
-                        foundBetter = true;
-                    }
-                }
+        DistanceField field = getFruitDistanceField();
+
+        int bestDist = field.get(currentRow, currentCol);
+        int best = -1;
+        int validCount = 0;
+        for (int d = 0; d < 4; d++) {
+            int nr = currentRow + MACHINE_DR[d];
+            int nc = currentCol + MACHINE_DC[d];
+            if (!canMoveTo(p, nr, nc)) continue;
+            machineMoves[validCount++] = d;
+            int dist = field.get(nr, nc);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = d;
             }
         }
-        
-        if (!foundBetter) {
-            java.util.ArrayList<int[]> validMoves = new java.util.ArrayList<>();
-            for (int[] dir : directions) {
-                int nr = currentRow + dir[0];
-                int nc = currentCol + dir[1];
-                if (canMoveTo(p, nr, nc)) {
-                    validMoves.add(new int[]{nr, nc});
-                }
-            }
-            if (!validMoves.isEmpty()) {
-                java.util.Random rand = new java.util.Random();
-                int[] chosen = validMoves.get(rand.nextInt(validMoves.size()));
-                bestRow = chosen[0];
-                bestCol = chosen[1];
-            } else {
-                return;
-            }
+
+        if (best < 0) {
+            if (validCount == 0) return false;
+            best = machineMoves[machineRandom.nextInt(validCount)];
         }
-        
-        players[currentRow][currentCol] = null;
-        
-        if (bestRow < currentRow) p.changeOfView("up");
-        else if (bestRow > currentRow) p.changeOfView("down");
-        else if (bestCol < currentCol) p.changeOfView("left");
-        else if (bestCol > currentCol) p.changeOfView("right");
-        
+
+        int bestRow = currentRow + MACHINE_DR[best];
+        int bestCol = currentCol + MACHINE_DC[best];
+
+        cells.setPlayer(currentRow, currentCol, null);
+        p.changeOfView(MACHINE_DIRECTIONS[best]);
         p.changePosition(bestRow, bestCol);
-        players[bestRow][bestCol] = p;
-        
-        checkActionsForPlayer2();
+        cells.setPlayer(bestRow, bestCol, p);
+        return true;
     }
     
 }
\ No newline at end of file
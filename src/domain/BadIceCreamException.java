@@ -12,6 +12,7 @@ public class BadIceCreamException extends Exception{
     public static final String INVALID_LEVEL_FORMAT = "Formato de nivel inválido";
     public static final String FILE_NOT_FOUND = "Archivo no encontrado";
     public static final String INVALID_POSITION = "Posición inválida en el tablero";
+    public static final String LEGACY_SAVE = "La partida se guardó con una versión anterior del juego y ese formato ya no se puede abrir";
     public BadIceCreamException(String message){
         super(message);
     }
@@ -990,7 +990,7 @@ public class BadIceCreamTest {
         game.importLevel(testFile);
         
         // Recoger todas las frutas de fase 1
-        game.getFruits()[5][5] = null;
+        game.setFruit(5, 5, null);
         
         int phaseBefore = game.getPhase();
         game.goToNextPhase();
@@ -1826,4 +1826,1327 @@ public class BadIceCreamTest {
         
         assertNotNull("Juego debe seguir funcionando", game);
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void shouldRunLogicTicksAtFixedRateInEngine() throws BadIceCreamException {
+        Player p1 = new Player(game, 8, 8, "vanilla");
+        game.setPlayer1(p1);
+        game.setFruit(1, 1, new Platano(game, 1, 1));
+        
+        GameEngine engine = new GameEngine(game);
+        engine.runFor(10 * GameEngine.LOGIC_STEP_MILLIS);
+        
+        assertEquals("Los ticks lógicos deben seguir al tiempo simulado",
+                     engine.getSimulatedMillis() / GameEngine.LOGIC_STEP_MILLIS, engine.getLogicTickCount());
+        assertEquals("El juego sigue en curso", GameEngine.RUNNING, engine.getStatus());
+    }
+    
+    @Test
+    public void shouldEndEngineWhenNoPlayersAlive() throws BadIceCreamException {
+        GameEngine engine = new GameEngine(game);
+        engine.step();
+        
+        assertEquals("Sin jugadores la partida termina", GameEngine.GAME_OVER, engine.getStatus());
+        assertFalse("El motor no debe seguir corriendo", engine.isRunning());
+    }
+    
+    @Test
+    public void shouldReachVictoryWhenAllPhasesCleared() throws BadIceCreamException {
+        Player p1 = new Player(game, 8, 8, "vanilla");
+        game.setPlayer1(p1);
+        
+        GameEngine engine = new GameEngine(game);
+        engine.runFor(GameEngine.FRAME_STEP_MILLIS * 3);
+        
+        assertEquals("Sin frutas en ninguna fase se gana", GameEngine.VICTORY, engine.getStatus());
+    }
+    
+    @Test
+    public void shouldActivateFogataWhenManualClockAdvances() throws BadIceCreamException {
+        ManualClock clock = new ManualClock();
+        game.setClock(clock);
+        Fogata fogata = new Fogata(game, 5, 5);
+        
+        clock.advance(2999);
+        assertFalse("La fogata no debe activarse antes de 3 segundos", fogata.isActive());
+        clock.advance(1);
+        assertTrue("La fogata debe activarse a los 3 segundos de juego", fogata.isActive());
+    }
+    
+    @Test
+    public void shouldRebaseExistingTimersWhenClockChanges() throws BadIceCreamException {
+        Fogata fogata = new Fogata(game, 5, 5);
+        ManualClock clock = new ManualClock();
+        game.setClock(clock);
+        
+        assertTrue("La fogata conserva su creación en la escala del reloj nuevo",
+                   fogata.getCreationTime() <= 0);
+        clock.advance(2999);
+        assertFalse("Cambiar el reloj no debe encender la fogata antes de tiempo", fogata.isActive());
+        clock.advance(1);
+        assertTrue("La fogata debe encenderse a los 3 segundos del reloj nuevo", fogata.isActive());
+    }
+    
+    @Test
+    public void shouldMeltIceOverBaldosaWithVirtualTime() throws BadIceCreamException {
+        ManualClock clock = new ManualClock();
+        game.setClock(clock);
+        new BaldosaCaliente(game, 5, 5);
+        game.createIceRight(5, 4);
+        assertTrue("Debe haber hielo sobre la baldosa", game.getBlocks()[5][5].isIceBlock());
+        
+        GameEngine engine = new GameEngine(game);
+        game.setPlayer1(new Player(game, 10, 10, "vanilla"));
+        game.setFruit(1, 1, new Platano(game, 1, 1));
+        engine.runFor(2000 + GameEngine.FRAME_STEP_MILLIS);
+        
+        assertTrue("El hielo debe derretirse a los 2 segundos de juego",
+                   game.getBlocks()[5][5].isBaldosaCaliente());
+    }
+    
+    @Test
+    public void shouldKeepCellCodesInSyncWithEntities() throws BadIceCreamException {
+        new IceBlock(game, 2, 2);
+        new Fogata(game, 3, 3);
+        Platano platano = new Platano(game, 4, 4);
+        
+        assertEquals("Hielo debe codificarse como ICE", CellStore.ICE,
+                     game.getCellCode(2, 2) & CellStore.BLOCK_MASK);
+        assertEquals("Fogata debe codificarse como FOGATA", CellStore.FOGATA,
+                     game.getCellCode(3, 3) & CellStore.BLOCK_MASK);
+        assertTrue("La celda con fruta debe tener el bit de fruta",
+                   (game.getCellCode(4, 4) & CellStore.FRUIT_BIT) != 0);
+        assertSame("La vista de matriz debe ver la misma fruta", platano, game.getFruits()[4][4]);
+        
+        game.setFruit(4, 4, null);
+        assertTrue("La celda debe quedar vacía", game.isCellEmpty(4, 4));
+        assertNull("La vista de matriz debe reflejar el cambio", game.getFruits()[4][4]);
+    }
+    
+    @Test
+    public void shouldNotChangeBoardWhenWritingIntoMatrixView() throws BadIceCreamException {
+        IceBlock ice = new IceBlock(game, 2, 2);
+        
+        game.getBlocks()[2][2] = null;
+        
+        assertSame("Escribir en la vista no debe quitar el bloque", ice, game.getBlockAt(2, 2));
+        assertEquals("El código de la celda debe seguir siendo ICE", CellStore.ICE,
+                     game.getCellCode(2, 2) & CellStore.BLOCK_MASK);
+        assertSame("Una vista nueva debe seguir viendo el bloque", ice, game.getBlocks()[2][2]);
+    }
+    
+    @Test
+    public void shouldMarkIceCoveringFogataInCellCode() throws BadIceCreamException {
+        new Fogata(game, 5, 5);
+        game.createIceRight(5, 4);
+        
+        int code = game.getCellCode(5, 5);
+        assertEquals("Debe haber hielo en la celda", CellStore.ICE, code & CellStore.BLOCK_MASK);
+        assertTrue("El hielo debe marcar que cubre una fogata",
+                   (code & CellStore.COVERS_FOGATA_BIT) != 0);
+    }
+    
+    @Test
+    public void shouldStopIceRayAtDecorationAndMonster() throws BadIceCreamException {
+        new DecorationBlock(game, 5, 9);
+        new Fogata(game, 5, 7);
+        game.createIceRight(5, 4);
+        
+        for (int c = 5; c <= 8; c++) {
+            assertTrue("Debe haber hielo en [5][" + c + "]", game.getBlockAt(5, c).isIceBlock());
+        }
+        assertTrue("La decoración no se cubre", game.getBlockAt(5, 9).isDecorationBlock());
+        assertTrue("El hielo debe recordar la fogata", game.getBlockAt(5, 7).hasFogata());
+        
+        new Troll(game, 2, 3);
+        game.createIceUp(5, 3);
+        assertNotNull("Debe haber hielo en [4][3]", game.getBlockAt(4, 3));
+        assertNotNull("Debe haber hielo en [3][3]", game.getBlockAt(3, 3));
+        assertNull("El monstruo detiene el rayo", game.getBlockAt(2, 3));
+        
+        game.breakIceRight(5, 4);
+        assertNull("El hielo debe romperse", game.getBlockAt(5, 5));
+        assertTrue("La fogata debe restaurarse", game.getBlockAt(5, 7).isFogata());
+        assertTrue("La decoración sigue en pie", game.getBlockAt(5, 9).isDecorationBlock());
+    }
+    
+    @Test
+    public void shouldBlockLineOfSightWithIceButNotWithFogata() throws BadIceCreamException {
+        game.setPlayer1(new Player(game, 5, 10, "vanilla"));
+        new Fogata(game, 5, 7);
+        
+        assertTrue("La fogata no tapa la visión", game.seesPlayerInLine(5, 3, "right"));
+        assertFalse("No se ve hacia el otro lado", game.seesPlayerInLine(5, 3, "left"));
+        assertTrue("Se ve desde la derecha", game.seesPlayerInLine(5, 14, "left"));
+        
+        new IceBlock(game, 5, 8);
+        assertFalse("El hielo tapa la visión", game.seesPlayerInLine(5, 3, "right"));
+        assertFalse("La línea ya no está despejada", game.isLineClear(5, 3, 5, 10));
+        assertTrue("El tramo antes del hielo sí está despejado", game.isLineClear(5, 3, 5, 7));
+    }
+    
+    @Test
+    public void shouldFreeOldCellWhenMonsterChangesPosition() throws BadIceCreamException {
+        Troll troll = new Troll(game, 4, 4);
+        troll.changePosition(4, 5);
+        
+        assertNull("La celda anterior debe quedar libre", game.getMonsterAt(4, 4));
+        assertSame("El monstruo debe estar en su nueva celda", troll, game.getMonsterAt(4, 5));
+        assertTrue("La nueva celda debe ser peligrosa", game.isDangerousCell(4, 5));
+        assertFalse("La celda anterior ya no es peligrosa", game.isDangerousCell(4, 4));
+    }
+    
+    @Test
+    public void shouldKillPlayerOnActiveCactusWithoutImport() throws BadIceCreamException {
+        Cactus cactus = new Cactus(game, 6, 6);
+        cactus.changeActivity(true);
+        Player p1 = new Player(game, 6, 6, "vanilla");
+        game.setPlayer1(p1);
+        
+        game.checkActionsForPlayer1();
+        
+        assertNull("El cactus activo debe matar al jugador", game.getFirstPlayer());
+    }
+    
+    @Test
+    public void shouldKeepFruitCountersInSyncWhenEatingAndMoving() throws BadIceCreamException {
+        new Platano(game, 3, 3);
+        Uva uva = new Uva(game, 4, 4);
+        
+        assertEquals("Debe haber 2 frutas", 2, game.getRemainingFruits());
+        assertEquals("El puntaje de la fase debe incluir ambas frutas", 15, game.calculatePhaseScore());
+        
+        uva.changePosition(4, 5);
+        assertEquals("Mover una fruta no cambia el conteo", 2, game.getRemainingFruits());
+        
+        Player p1 = new Player(game, 3, 3, "vanilla");
+        game.setPlayer1(p1);
+        game.checkActionsForPlayer1();
+        
+        assertEquals("Debe quedar 1 fruta", 1, game.getRemainingFruits());
+        assertEquals("Solo queda el puntaje de la uva", 10, game.calculatePhaseScore());
+        assertFalse("La fase no está limpia", game.isPhaseCleared());
+        assertTrue("Los contadores deben coincidir con el tablero", game.verifyCounters());
+        
+        uva.dissapear();
+        assertTrue("Sin frutas la fase está limpia", game.isPhaseCleared());
+        assertTrue("Los contadores deben coincidir con el tablero", game.verifyCounters());
+    }
+    
+    @Test
+    public void shouldRegisterAndRemoveEntitiesInRegistry() throws BadIceCreamException {
+        EntityRegistry registry = game.getEntityRegistry();
+        Troll troll = new Troll(game, 2, 2);
+        Platano platano = new Platano(game, 3, 3);
+        Uva uva = new Uva(game, 4, 4);
+        
+        assertEquals("Debe haber 1 monstruo registrado", 1, registry.getMonsterCount());
+        assertEquals("Debe haber 2 frutas registradas", 2, registry.getFruitCount());
+        assertSame("El id debe resolver a la entidad", troll, registry.get(troll.getEntityId()));
+        
+        int uvaId = uva.getEntityId();
+        platano.dissapear();
+        assertEquals("Comer una fruta la quita del registro", 1, registry.getFruitCount());
+        assertSame("La uva conserva su id", uva, registry.get(uvaId));
+        assertEquals("La fruta quitada queda sin id", EntityRegistry.NO_ID, platano.getEntityId());
+        
+        game.addUnit(troll);
+        assertEquals("Registrar dos veces no duplica", 1, registry.getMonsterCount());
+    }
+    
+    @Test
+    public void shouldTickRegisteredMonstersWithoutGridSweep() throws BadIceCreamException {
+        Troll troll = new Troll(game, 8, 8);
+        int row = troll.getRow();
+        int col = troll.getColumn();
+        
+        for (int i = 0; i < 5; i++) {
+            game.tickMonsters();
+        }
+        
+        assertSame("El monstruo debe seguir indexado en su celda", troll,
+                   game.getMonsterAt(troll.getRow(), troll.getColumn()));
+        if (troll.getRow() != row || troll.getColumn() != col) {
+            assertNull("La celda inicial debe quedar libre", game.getMonsterAt(row, col));
+        }
+    }
+    
+    @Test
+    public void shouldReachFruitAroundWallWithMachinePlayer() throws BadIceCreamException {
+        for (int r = 0; r <= 9; r++) {
+            new DecorationBlock(game, r, 5);
+        }
+        new Platano(game, 5, 8);
+        Player p1 = new Player(game, 5, 2, "vanilla");
+        game.setPlayer1(p1);
+        
+        assertEquals("El camino más corto rodea la pared", 16,
+                     game.getFruitDistanceField().get(5, 2));
+        
+        for (int i = 0; i < 16; i++) {
+            game.moveMachinePlayer1();
+        }
+        
+        assertEquals("El bot debe comerse la fruta por el camino más corto", 5, p1.getScore());
+        assertTrue("La fase debe quedar limpia", game.isPhaseCleared());
+    }
+    
+    @Test
+    public void shouldRecomputeDistanceFieldOnlyWhenBoardChanges() throws BadIceCreamException {
+        new Platano(game, 2, 2);
+        DistanceField field = game.getFruitDistanceField();
+        assertEquals("Distancia en línea recta", 3, field.get(2, 5));
+        assertFalse("Sin cambios no debe recalcular", field.update(game.getCellStore()));
+        
+        new IceBlock(game, 2, 3);
+        assertEquals("El hielo obliga a rodear", 5, game.getFruitDistanceField().get(2, 5));
+    }
+    
+    @Test
+    public void shouldPriceIceInChaseFieldForIceBreakers() throws BadIceCreamException {
+        for (int r = 0; r < 16; r++) {
+            new IceBlock(game, r, 6);
+        }
+        game.setPlayer1(new Player(game, 5, 5, "vanilla"));
+        
+        assertEquals("Un caminante no puede cruzar la pared de hielo", ChaseField.UNREACHABLE,
+                     game.getWalkingChaseField().get(5, 7));
+        assertEquals("El rompehielo paga el hielo más el paso", 5,
+                     game.getIceBreakingChaseField().get(5, 7));
+        assertEquals("Desde la derecha el mejor paso es hacia la izquierda", 2,
+                     game.getIceBreakingChaseField().bestDirection(5, 7, 0));
+    }
+    
+    @Test
+    public void shouldBreakIceWhenChasingThroughWall() throws BadIceCreamException {
+        for (int r = 0; r < 16; r++) {
+            new IceBlock(game, r, 6);
+        }
+        game.setPlayer1(new Player(game, 5, 5, "vanilla"));
+        CalamarNaranja calamar = new CalamarNaranja(game, 5, 7);
+        
+        for (int i = 0; i < 3; i++) {
+            calamar.act();
+        }
+        assertNull("El calamar debe romper el hielo que lo separa del jugador", game.getBlockAt(5, 6));
+        
+        calamar.act();
+        assertEquals("Luego avanza por el hueco", 6, calamar.getColumn());
+    }
+    
+    @Test
+    public void shouldChaseAroundWallUsingSharedField() throws BadIceCreamException {
+        for (int r = 0; r <= 9; r++) {
+            new DecorationBlock(game, r, 5);
+        }
+        game.setPlayer1(new Player(game, 5, 2, "vanilla"));
+        
+        ChaseField field = game.getWalkingChaseField();
+        assertEquals("El camino rodea la pared", 16, field.get(5, 8));
+        assertEquals("Debe bajar para rodear la pared", 1, field.bestDirection(5, 8, 0));
+        assertSame("El campo se comparte mientras no cambie el tablero", field, game.getWalkingChaseField());
+        assertFalse("Sin cambios no se recalcula", field.update(game.getCellStore()));
+    }
+    
+    @Test
+    public void shouldReplaySameGameFromSameSeed() throws BadIceCreamException {
+        String first = simulateSeededGame(1234L);
+        String second = simulateSeededGame(1234L);
+        
+        assertEquals("La misma semilla debe producir la misma partida", first, second);
+    }
+    
+    @Test
+    public void shouldSplitIndependentRandomStreams() {
+        GameRandom a = new GameRandom(42L);
+        GameRandom b = new GameRandom(42L);
+        assertEquals("Misma semilla, mismo número", a.nextLong(), b.nextLong());
+        
+        GameRandom child = a.split();
+        b.nextLong();
+        assertEquals("split() avanza el padre una sola vez", a.nextLong(), b.nextLong());
+        assertTrue("El hijo tiene su propia secuencia", child.getSeed() != a.getSeed());
+        
+        for (int i = 0; i < 1000; i++) {
+            int x = a.nextInt(7);
+            assertTrue("nextInt debe quedar dentro del límite", x >= 0 && x < 7);
+        }
+    }
+    
+    private String simulateSeededGame(long seed) throws BadIceCreamException {
+        BadIceCream seeded = new BadIceCream(1, seed);
+        seeded.setClock(new ManualClock());
+        Narval narval = new Narval(seeded, 2, 2);
+        Maceta maceta = new Maceta(seeded, 12, 12);
+        Cereza cereza = new Cereza(seeded, 7, 7);
+        Piña pina = new Piña(seeded, 9, 3);
+        Player bot = new Player(seeded, 14, 1, "vanilla");
+        seeded.setPlayer1(bot);
+        
+        GameEngine engine = new GameEngine(seeded, true, false);
+        engine.runFor(20000);
+        
+        return narval.getRow() + "," + narval.getColumn() + ";" + maceta.getRow() + "," + maceta.getColumn()
+             + ";" + cereza.getRow() + "," + cereza.getColumn() + ";" + pina.getRow() + "," + pina.getColumn()
+             + ";" + bot.getRow() + "," + bot.getColumn() + ";" + bot.getScore() + ";" + engine.getStatus();
+    }
+    
+    @Test
+    public void shouldConvertLevelsBetweenTextAndBinaryWithoutLoss() throws BadIceCreamException {
+        for (int n = 1; n <= 3; n++) {
+            LevelData text = LevelData.load("level" + n + ".txt");
+            byte[] binary = LevelBinaryFormat.write(text);
+            LevelData decoded = LevelBinaryFormat.read(binary);
+            assertEquals("El binario debe describir el mismo nivel " + n, text, decoded);
+            
+            StringWriter out = new StringWriter();
+            decoded.writeText(new PrintWriter(out));
+            LevelData reparsed = LevelData.readText(new StringReader(out.toString()));
+            assertEquals("Volver a texto no debe perder datos", text, reparsed);
+            assertEquals("Las frutas de la fase 2 se conservan", text.getFruits(2), reparsed.getFruits(2));
+            assertTrue("El binario debe ser más chico que el texto", binary.length < out.toString().length());
+        }
+    }
+    
+    @Test
+    public void shouldImportBinaryLevelLikeTextLevel() throws BadIceCreamException {
+        String binaryFile = "test_level_binary.bicl";
+        try {
+            LevelData.load("level2.txt").saveBinary(binaryFile);
+            
+            BadIceCream fromText = new BadIceCream(1);
+            fromText.importLevel("level2.txt");
+            BadIceCream fromBinary = new BadIceCream(1);
+            fromBinary.importLevel(binaryFile);
+            
+            assertEquals("Ambos formatos deben crear el mismo tablero",
+                         fromText.captureLevel(), fromBinary.captureLevel());
+            assertEquals(fromText.getRemainingFruits(), fromBinary.getRemainingFruits());
+        } finally {
+            new File(binaryFile).delete();
+        }
+    }
+    
+    @Test
+    public void shouldRejectCorruptBinaryLevel() throws BadIceCreamException {
+        byte[] binary = LevelBinaryFormat.write(LevelData.load("level1.txt"));
+        
+        try {
+            LevelBinaryFormat.read(java.util.Arrays.copyOf(binary, binary.length - 5));
+            fail("Un binario truncado debe rechazarse");
+        } catch (BadIceCreamException e) {
+            assertEquals(BadIceCreamException.INVALID_LEVEL_FORMAT, e.getMessage());
+        }
+        
+        binary[LevelBinaryFormat.MAGIC.length] = 99;
+        try {
+            LevelBinaryFormat.read(binary);
+            fail("Una versión desconocida debe rechazarse");
+        } catch (BadIceCreamException e) {
+            assertEquals(BadIceCreamException.INVALID_LEVEL_FORMAT, e.getMessage());
+        }
+    }
+    
+    @Test
+    public void shouldInstantiateTemplateLikeImportedLevel() throws BadIceCreamException {
+        LevelTemplate template = LevelTemplate.load("level3.txt");
+        
+        BadIceCream imported = new BadIceCream(3);
+        imported.importLevel("level3.txt");
+        BadIceCream fromTemplate = new BadIceCream(3);
+        fromTemplate.loadTemplate(template);
+        BadIceCream another = new BadIceCream(3);
+        another.loadTemplate(template);
+        
+        assertEquals("La plantilla debe crear el mismo tablero que importLevel",
+                     imported.captureLevel(), fromTemplate.captureLevel());
+        assertEquals("Mismas clases de unidades en las mismas celdas",
+                     describeUnits(imported), describeUnits(fromTemplate));
+        assertEquals(describeFruitCells(imported), describeFruitCells(fromTemplate));
+        assertEquals(imported.getRemainingFruits(), fromTemplate.getRemainingFruits());
+        assertNotSame("Cada partida tiene sus propias entidades",
+                      fromTemplate.getMonsterAt(1, 1), another.getMonsterAt(1, 1));
+        
+        fromTemplate.getFruitAt(4, 4).dissapear();
+        assertNotNull("Cambiar una partida no afecta a otra", another.getFruitAt(4, 4));
+        assertEquals("La plantilla conserva las frutas de la fase 2",
+                     LevelData.load("level3.txt").getFruits(2), template.getFruits(2));
+        
+        BadIceCream cherries = new BadIceCream(2);
+        cherries.importLevel("level2.txt");
+        BadIceCream cherriesFromTemplate = new BadIceCream(2);
+        cherriesFromTemplate.loadTemplate(LevelTemplate.load("level2.txt"));
+        assertEquals(describeUnits(cherries), describeUnits(cherriesFromTemplate));
+        assertTrue(describeUnits(cherriesFromTemplate).contains("CEREZA"));
+    }
+    
+    @Test
+    public void shouldReuseCachedTemplateUntilFileChanges() throws BadIceCreamException, IOException {
+        String testFile = "test_level_cache.txt";
+        LevelTemplateCache cache = new LevelTemplateCache();
+        try {
+            try (PrintWriter writer = new PrintWriter(testFile)) {
+                writer.println("jugador vs jugador");
+                writer.println("vainilla 10 7");
+                writer.println("chocolate 10 8");
+                writer.println("fruit platano 5 5");
+            }
+            LevelTemplate first = cache.get(testFile);
+            assertSame("Sin cambios se reutiliza la plantilla", first, cache.get(testFile));
+            assertEquals(1, cache.getLoadCount());
+            
+            try (PrintWriter writer = new PrintWriter(testFile)) {
+                writer.println("jugador vs jugador");
+                writer.println("vainilla 10 7");
+                writer.println("chocolate 10 8");
+                writer.println("fruit platano 5 5");
+                writer.println("fruit uva 6 6");
+            }
+            new File(testFile).setLastModified(System.currentTimeMillis() + 5000);
+            LevelTemplate second = cache.get(testFile);
+            assertNotSame("Si el archivo cambia se vuelve a compilar", first, second);
+            assertEquals(2, second.getFruits(1).size());
+            assertEquals(2, cache.getLoadCount());
+        } finally {
+            new File(testFile).delete();
+        }
+    }
+    
+    @Test
+    public void shouldValidateTemplateWhenCompiling() {
+        LevelData data = new LevelData();
+        data.setPlayer1("vainilla", 3, 3);
+        data.setPlayer2("chocolate", 10, 8);
+        data.addBlock("iceblock", 3, 3);
+        try {
+            LevelTemplate.compile(data);
+            fail("Un bloque sobre un jugador debe rechazarse");
+        } catch (BadIceCreamException e) {
+            assertEquals(BadIceCreamException.INVALID_POSITION, e.getMessage());
+        }
+    }
+    
+    @Test
+    public void shouldReportLineAndColumnOfLevelFormatErrors() {
+        String level = "jugador vs jugador\n"
+                     + "vainilla 10 7\n"
+                     + "chocolate 10 8\n"
+                     + "\n"
+                     + "fruit platano 5 x5\n";
+        try {
+            LevelData.readText(new StringReader(level), "generado.txt");
+            fail("Un número inválido debe rechazarse");
+        } catch (LevelFormatException e) {
+            assertEquals("generado.txt", e.getSource());
+            assertEquals(5, e.getLine());
+            assertEquals(17, e.getColumn());
+            assertTrue(e.getMessage().startsWith(BadIceCreamException.INVALID_LEVEL_FORMAT));
+        } catch (BadIceCreamException e) {
+            fail("Debe ser un error de formato con posición: " + e.getMessage());
+        }
+        
+        try {
+            LevelData.readText(new StringReader("jugador vs jugador\nvainilla 1 1\nchocolate 1 2\nmonster dragon 3 3\n"));
+            fail("Un tipo de monstruo desconocido debe rechazarse");
+        } catch (LevelFormatException e) {
+            assertEquals(4, e.getLine());
+            assertEquals(9, e.getColumn());
+            assertTrue(e.getMessage().startsWith("Tipo de monstruo inválido"));
+        } catch (BadIceCreamException e) {
+            fail("Debe ser un error de formato con posición: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void shouldTokenizeLevelsRegardlessOfLineEndingsAndCase() throws BadIceCreamException {
+        LevelData unix = LevelData.readText(new StringReader(
+            "jugador vs jugador\nvainilla 8 5\nchocolate 8 10\nmonster troll 1 14\nblock iceblock 0 1\nphase 2\nfruit pina 4 7\n"));
+        LevelData windows = LevelData.readText(new StringReader(
+            "  jugador vs jugador  \r\nVAINILLA\t8 5\r\nchocolate 8 +10\r\n\r\n   \r\nMonster Troll 1 14\rBLOCK iceblock 0 1\r\nphase 2\r\nfruit Pina 4 7"));
+        
+        assertEquals("El contenido debe ser el mismo", unix, windows);
+        assertEquals(1, windows.getFruits(2).size());
+    }
+    
+    @Test
+    public void shouldParseLargeGeneratedLevel() throws BadIceCreamException {
+        StringBuilder text = new StringBuilder("jugador vs jugador\nvainilla 8 5\nchocolate 8 10\n");
+        for (int i = 0; i < 20000; i++) {
+            text.append("fruit uva ").append(i % 16).append(' ').append(i / 16 % 16).append('\n');
+        }
+        text.append("phase 2\n");
+        for (int i = 0; i < 20000; i++) {
+            text.append("block decoration ").append(i % 16).append(' ').append(i / 16 % 16).append('\n');
+        }
+        
+        LevelData data = LevelData.readText(new StringReader(text.toString()));
+        
+        assertEquals(20000, data.getFruits(1).size());
+        assertEquals(20000, data.getBlocks().size());
+        assertEquals("uva", data.getFruits(1).get(19999).getType());
+        assertEquals(19999 % 16, data.getFruits(1).get(19999).getRow());
+    }
+    
+    @Test
+    public void shouldExpandBlockFillDirectives() throws BadIceCreamException {
+        LevelData data = LevelData.readText(new StringReader(
+            "jugador vs jugador\nvainilla 8 5\nchocolate 8 10\n"
+          + "row iceblock 0 0 15\n"
+          + "column iceblock 15 1 14\n"
+          + "rect decoration 6 6 7 7\n"
+          + "map\n"
+          + "\n"
+          + ".F..B\n"
+          + "end\n"
+          + "fruit uva 2 2\n"));
+        
+        assertEquals(16 + 14 + 4 + 2, data.getBlocks().size());
+        
+        BadIceCream loaded = new BadIceCream(1);
+        loaded.loadLevel(data);
+        assertTrue(loaded.getBlockAt(0, 9).isIceBlock());
+        assertTrue(loaded.getBlockAt(14, 15).isIceBlock());
+        assertTrue(loaded.getBlockAt(7, 6).isDecorationBlock());
+        assertTrue(loaded.getBlockAt(1, 1).isFogata());
+        assertTrue(loaded.getBlockAt(1, 4).isBaldosaCaliente());
+        assertNull(loaded.getBlockAt(1, 0));
+        assertNotNull(loaded.getFruitAt(2, 2));
+    }
+    
+    @Test
+    public void shouldExportLevelsWithCompactBlockEncoding() throws BadIceCreamException {
+        for (int n = 1; n <= 3; n++) {
+            LevelData original = LevelData.load("level" + n + ".txt");
+            StringWriter out = new StringWriter();
+            original.writeText(new PrintWriter(out));
+            
+            assertEquals("El texto compacto debe describir el mismo nivel " + n,
+                         original, LevelData.readText(new StringReader(out.toString())));
+            assertTrue("El texto compacto debe ser mucho más corto",
+                       out.toString().length() * 3 < new File("level" + n + ".txt").length());
+        }
+        
+        LevelData wall = new LevelData();
+        wall.setPlayer1("vainilla", 8, 5);
+        wall.setPlayer2("chocolate", 8, 10);
+        wall.fillBlocks("iceblock", 3, 0, 3, 15);
+        StringWriter out = new StringWriter();
+        wall.writeText(new PrintWriter(out));
+        assertTrue("Una fila llena se escribe como un tramo", out.toString().contains("row iceblock 3 0 15"));
+    }
+    
+    @Test
+    public void shouldReportPositionOfBadMapSymbol() throws BadIceCreamException {
+        try {
+            LevelData.readText(new StringReader(
+                "jugador vs jugador\nvainilla 8 5\nchocolate 8 10\nmap\n##..\n#.?\nend\n"), "mapa.txt");
+            fail("Un símbolo desconocido debe rechazarse");
+        } catch (LevelFormatException e) {
+            assertEquals(6, e.getLine());
+            assertEquals(3, e.getColumn());
+        }
+        
+        try {
+            LevelData.readText(new StringReader(
+                "jugador vs jugador\nvainilla 8 5\nchocolate 8 10\nrect iceblock 0 0 16 3\n"));
+            fail("Un rectángulo fuera del tablero debe rechazarse");
+        } catch (LevelFormatException e) {
+            assertTrue(e.getMessage().startsWith(BadIceCreamException.INVALID_POSITION));
+        }
+    }
+    
+    @Test
+    public void shouldRestoreSnapshotAndContinueIdentically() throws BadIceCreamException {
+        BadIceCream original = new BadIceCream(2, 77L);
+        original.setClock(new ManualClock());
+        original.importLevel("level2.txt");
+        new Narval(original, 12, 3);
+        GameEngine engine = new GameEngine(original, true, true);
+        engine.runFor(4000);
+        
+        BadIceCream restored = GameSnapshotCodec.decode(GameSnapshotCodec.encode(original));
+        
+        assertEquals("El tablero restaurado debe ser igual", original.captureLevel(), restored.captureLevel());
+        assertEquals(describeUnits(original), describeUnits(restored));
+        assertEquals(original.getClock().currentTimeMillis(), restored.getClock().currentTimeMillis());
+        
+        new GameEngine(original, true, true).runFor(6000);
+        new GameEngine(restored, true, true).runFor(6000);
+        assertEquals("Ambas partidas deben seguir igual", describeUnits(original), describeUnits(restored));
+        assertEquals(original.getPhase(), restored.getPhase());
+    }
+    
+    @Test
+    public void shouldWriteSnapshotsMuchSmallerThanObjectStreams() throws BadIceCreamException, IOException {
+        game.importLevel("level1.txt");
+        
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(legacy)) {
+            out.writeObject(game);
+        }
+        byte[] snapshot = GameSnapshotCodec.encode(game);
+        
+        assertTrue("El snapshot (" + snapshot.length + " bytes) debe ser al menos 10 veces más chico que "
+                   + legacy.size() + " bytes", snapshot.length * 10 <= legacy.size());
+    }
+    
+    @Test
+    public void shouldReportLegacyObjectStreamSavesAsUnsupported() throws IOException {
+        // Partida del nivel 3 guardada con saveGame() por la versión original del juego
+        String legacyFile = "legacy_level3.sav";
+        byte[] head = java.nio.file.Files.readAllBytes(new File(legacyFile).toPath());
+        assertTrue("El archivo de prueba debe ser un ObjectOutputStream",
+                   (head[0] & 0xFF) == 0xAC && (head[1] & 0xFF) == 0xED);
+        try {
+            BadIceCream.openGame(legacyFile);
+            fail("Las partidas de versiones anteriores no se pueden abrir");
+        } catch (BadIceCreamException e) {
+            assertEquals(BadIceCreamException.LEGACY_SAVE, e.getMessage());
+        }
+    }
+    
+    @Test
+    public void shouldRejectTruncatedSnapshot() throws BadIceCreamException {
+        game.importLevel("level1.txt");
+        byte[] snapshot = GameSnapshotCodec.encode(game);
+        try {
+            GameSnapshotCodec.decode(java.util.Arrays.copyOf(snapshot, snapshot.length / 2));
+            fail("Un snapshot truncado debe rechazarse");
+        } catch (BadIceCreamException e) {
+            assertEquals("Archivo de juego corrupto o inválido", e.getMessage());
+        }
+    }
+    
+    private String describeUnits(BadIceCream g) {
+        StringBuilder sb = new StringBuilder();
+        EntityRegistry units = g.getEntityRegistry();
+        for (int i = 0; i < units.getPlayerCount(); i++) {
+            Player p = units.getPlayer(i);
+            sb.append("P").append(p.getRow()).append(',').append(p.getColumn()).append(',')
+              .append(p.getScore()).append(',').append(p.getDirectionOfView()).append(';');
+        }
+        for (int i = 0; i < units.getMonsterCount(); i++) {
+            Monster m = units.getMonster(i);
+            sb.append(m.getMonsterType()).append(m.getRow()).append(',').append(m.getColumn()).append(';');
+        }
+        for (int i = 0; i < units.getFruitCount(); i++) {
+            Fruit f = units.getFruit(i);
+            sb.append(f.getFruitType()).append(f.getRow()).append(',').append(f.getColumn()).append(';');
+        }
+        return sb.toString();
+    }
+    
+    @Test
+    public void shouldRecoverJournaledGameByReplayingTail() throws BadIceCreamException, IOException {
+        File file = new File("test_autosave.bicj");
+        try {
+            BadIceCream original = new BadIceCream(1, 5L);
+            original.setClock(new ManualClock());
+            original.importLevel("level1.txt");
+            GameEngine engine = new GameEngine(original, false, true);
+            ActionJournal journal = ActionJournal.start(file, engine, 100);
+            playScripted(engine, 350);
+            journal.close();
+            
+            GameEngine recovered = ActionJournal.recover(file);
+            assertNotNull(recovered);
+            assertEquals(engine.getFrameCount(), recovered.getFrameCount());
+            assertEquals(engine.getLogicTickCount(), recovered.getLogicTickCount());
+            assertTrue(recovered.isMachinePlayer2());
+            assertTrue(java.util.Arrays.equals(GameSnapshotCodec.encode(original),
+                                               GameSnapshotCodec.encode(recovered.getGame())));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldIgnoreTornRecordAtEndOfJournal() throws BadIceCreamException, IOException {
+        File file = new File("test_autosave_torn.bicj");
+        try {
+            BadIceCream original = new BadIceCream(1, 9L);
+            original.setClock(new ManualClock());
+            original.importLevel("level1.txt");
+            GameEngine engine = new GameEngine(original);
+            ActionJournal journal = ActionJournal.start(file, engine, 1000);
+            playScripted(engine, 120);
+            journal.close();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(2);
+            }
+            
+            GameEngine recovered = ActionJournal.recover(file);
+            assertTrue(java.util.Arrays.equals(GameSnapshotCodec.encode(original),
+                                               GameSnapshotCodec.encode(recovered.getGame())));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldAppendOnlyFewBytesPerTickBetweenCheckpoints() throws BadIceCreamException, IOException {
+        File file = new File("test_autosave_size.bicj");
+        try {
+            game.setClock(new ManualClock());
+            game.importLevel("level1.txt");
+            GameEngine engine = new GameEngine(game);
+            ActionJournal journal = ActionJournal.start(file, engine, 1000);
+            long afterCheckpoint = journal.size();
+            playScripted(engine, 200);
+            
+            assertTrue("200 frames no deben costar otro punto de control",
+                       journal.size() - afterCheckpoint < afterCheckpoint);
+            journal.discard();
+            assertFalse(file.exists());
+            assertNull(engine.getJournal());
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldLeaveJournalFileWritesToTheWriterExecutor() throws BadIceCreamException, IOException {
+        File file = new File("test_autosave_writer.bicj");
+        final java.util.List<Runnable> queued = new java.util.ArrayList<>();
+        java.util.concurrent.Executor writer = new java.util.concurrent.Executor() {
+            @Override
+            public void execute(Runnable task) {
+                queued.add(task);
+            }
+        };
+        try {
+            BadIceCream original = new BadIceCream(1, 3L);
+            original.setClock(new ManualClock());
+            original.importLevel("level1.txt");
+            GameEngine engine = new GameEngine(original);
+            ActionJournal journal = ActionJournal.start(file, engine, 100, writer);
+            playScripted(engine, 250);
+            
+            assertFalse("El hilo del juego no debe tocar el archivo", file.exists());
+            assertTrue("Los puntos de control y los bloques de registros se encolan", queued.size() > 3);
+            
+            for (int i = 0; i < queued.size(); i++) {
+                queued.get(i).run();
+            }
+            queued.clear();
+            journal.flush();
+            for (Runnable task : queued) {
+                task.run();
+            }
+            assertEquals(journal.size(), file.length());
+            
+            GameEngine recovered = ActionJournal.recover(file);
+            assertTrue(java.util.Arrays.equals(GameSnapshotCodec.encode(original),
+                                               GameSnapshotCodec.encode(recovered.getGame())));
+            
+            queued.clear();
+            journal.discard();
+            assertTrue("El borrado también lo hace el ejecutor", file.exists());
+            queued.get(0).run();
+            assertFalse(file.exists());
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldReturnNullWhenThereIsNoJournal() throws BadIceCreamException {
+        assertNull(ActionJournal.recover(new File("no_existe.bicj")));
+    }
+    
+    /**
+     * Avanza el motor los frames indicados, con entradas del jugador 1 cada pocos frames.
+     */
+    private static void playScripted(GameEngine engine, int frames) throws BadIceCreamException {
+        String[] inputs = {GameEngine.RIGHT, GameEngine.DOWN, GameEngine.ACTION, GameEngine.LEFT, GameEngine.UP};
+        for (int i = 0; i < frames && engine.isRunning(); i++) {
+            if (i % 7 == 0) {
+                try {
+                    engine.applyInput(1, inputs[(i / 7) % inputs.length]);
+                } catch (BadIceCreamException e) {
+                    // Movimiento bloqueado: la entrada igual queda anotada
+                }
+            }
+            engine.step();
+        }
+    }
+    
+    @Test
+    public void shouldSaveAndLoadGamesFromStoreSlots() throws BadIceCreamException, IOException {
+        File file = new File("test_store.bicv");
+        file.delete();
+        try {
+            game.importLevel("level1.txt");
+            BadIceCream other = new BadIceCream(3, 4L);
+            other.importLevel("level3.txt");
+            
+            try (SaveStore store = SaveStore.open(file, 8)) {
+                store.save(2, "Primera", game);
+                store.save(5, "Segunda", other);
+            }
+            try (SaveStore store = SaveStore.open(file)) {
+                assertEquals("Un almacén existente conserva sus ranuras", 8, store.getSlotCount());
+                java.util.List<SaveSlot> slots = store.listSlots();
+                assertEquals(2, slots.size());
+                assertEquals(2, slots.get(0).getIndex());
+                assertEquals("Primera", slots.get(0).getLabel());
+                assertEquals(3, slots.get(1).getLevel());
+                assertEquals(1, slots.get(1).getPhase());
+                assertNull(store.getSlot(0));
+                
+                assertEquals(game.captureLevel(), store.load(2).captureLevel());
+                assertEquals(describeUnits(game), describeUnits(store.load(2)));
+                assertEquals(other.captureLevel(), store.load(5).captureLevel());
+                assertEquals(describeUnits(other), describeUnits(store.load(5)));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldSaveEncodedSnapshotsWithTheirHeaderFields() throws BadIceCreamException, IOException {
+        File file = new File("test_store_bytes.bicv");
+        file.delete();
+        try {
+            game.importLevel("level2.txt");
+            byte[] snapshot = GameSnapshotCodec.encode(game);
+            try (SaveStore store = SaveStore.open(file, 4)) {
+                SaveSlot slot = store.save(1, "Foto", snapshot, 2, 1, 30, -1);
+                assertEquals(2, slot.getLevel());
+                assertEquals(30, slot.getPlayer1Score());
+                assertEquals(-1, slot.getPlayer2Score());
+                assertEquals(snapshot.length, slot.getSize());
+                assertEquals(game.captureLevel(), store.load(1).captureLevel());
+                assertEquals(describeUnits(game), describeUnits(store.load(1)));
+                try {
+                    store.save(2, "Basura", new byte[] {1, 2, 3}, 1, 1, 0, 0);
+                    fail("Solo se guardan partidas codificadas con GameSnapshotCodec");
+                } catch (BadIceCreamException e) {
+                    assertNull(store.getSlot(2));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldReuseAndCompactStoreSpace() throws BadIceCreamException, IOException {
+        File file = new File("test_store_compact.bicv");
+        file.delete();
+        try (SaveStore store = SaveStore.open(file, 4)) {
+            game.importLevel("level1.txt");
+            store.save(0, "a", game);
+            store.save(1, "b", game);
+            long used = store.getDataSize();
+            store.save(0, "a otra vez", game);
+            assertEquals("El reemplazo va a un lugar nuevo, sin pisar la partida anterior",
+                         used + used / 2, store.getDataSize());
+            assertEquals("a otra vez", store.getSlot(0).getLabel());
+            assertEquals(describeUnits(game), describeUnits(store.load(0)));
+            
+            store.delete(0);
+            assertEquals(used, store.compact());
+            assertEquals(used / 2, store.getDataSize());
+            assertEquals(game.captureLevel(), store.load(1).captureLevel());
+            assertEquals(describeUnits(game), describeUnits(store.load(1)));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldHoldManyBoardsInOneStore() throws BadIceCreamException, IOException {
+        File file = new File("test_store_many.bicv");
+        file.delete();
+        try (SaveStore store = SaveStore.open(file, 500)) {
+            BadIceCream sim = new BadIceCream(2, 21L);
+            sim.setClock(new ManualClock());
+            sim.importLevel("level2.txt");
+            GameEngine engine = new GameEngine(sim, true, true);
+            for (int i = 0; i < 500; i++) {
+                engine.runFor(100);
+                store.save(i, "sim " + i, sim);
+            }
+            assertEquals(500, store.listSlots().size());
+            assertEquals(sim.captureLevel(), store.load(499).captureLevel());
+            assertEquals(describeUnits(sim), describeUnits(store.load(499)));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldRejectEmptyOrMissingStoreSlots() throws BadIceCreamException, IOException {
+        File file = new File("test_store_empty.bicv");
+        file.delete();
+        try (SaveStore store = SaveStore.open(file, 2)) {
+            try {
+                store.load(1);
+                fail("Una ranura vacía no se puede cargar");
+            } catch (BadIceCreamException e) {
+                assertEquals("La ranura de guardado está vacía", e.getMessage());
+            }
+            try {
+                store.save(2, "x", game);
+                fail("La ranura no existe");
+            } catch (BadIceCreamException e) {
+                assertEquals("Ranura de guardado inválida", e.getMessage());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void shouldSaveSnapshotTakenBeforeGameContinues() throws BadIceCreamException {
+        String file = "test_snapshot_save.sav";
+        try {
+            game.setClock(new ManualClock());
+            game.importLevel("level2.txt");
+            GameEngine engine = new GameEngine(game, true, true);
+            engine.runFor(2000);
+            byte[] snapshot = GameSnapshotCodec.encode(game);
+            String atSnapshot = describeUnits(game);
+            
+            engine.runFor(3000);
+            BadIceCream.saveSnapshot(snapshot, file);
+            
+            assertEquals("Se guarda el estado del momento de la foto",
+                         atSnapshot, describeUnits(BadIceCream.openGame(file)));
+        } finally {
+            new File(file).delete();
+        }
+    }
+    
+    @Test
+    public void shouldKeepPreviousSaveWhenSnapshotWriteFails() throws BadIceCreamException {
+        String file = "test_snapshot_keep.sav";
+        File blocker = new File(file + ".tmp");
+        try {
+            game.importLevel("level2.txt");
+            game.saveGame(file);
+            String saved = describeUnits(game);
+            assertFalse("No quedan archivos temporales", blocker.exists());
+            
+            // Un directorio en el lugar del temporal hace fallar la escritura
+            assertTrue(blocker.mkdir());
+            try {
+                BadIceCream.saveSnapshot(GameSnapshotCodec.encode(new BadIceCream(1)), file);
+                fail("La escritura del temporal debía fallar");
+            } catch (BadIceCreamException e) {
+                assertEquals("La partida anterior sigue intacta", saved, describeUnits(BadIceCream.openGame(file)));
+            }
+        } finally {
+            blocker.delete();
+            new File(file).delete();
+        }
+    }
+    
+    @Test
+    public void shouldReadLevelsAndAssetsFromPackByName() throws BadIceCreamException, IOException {
+        String file = "test_pack.bicp";
+        try {
+            try (LevelPack.Writer writer = LevelPack.create(file)) {
+                for (int i = 1; i <= 3; i++) {
+                    writer.addLevel("level" + i, LevelData.load("level" + i + ".txt"));
+                }
+                writer.addAsset("/images/test.bin", new byte[] {1, 2, 3});
+            }
+            try (LevelPack pack = LevelPack.open(file)) {
+                assertEquals(4, pack.size());
+                assertEquals(java.util.Arrays.asList("level1", "level2", "level3"), pack.getLevelNames());
+                assertEquals(LevelData.load("level2.txt"), pack.readLevel("level2"));
+                assertTrue(java.util.Arrays.equals(new byte[] {1, 2, 3}, pack.read("/images/test.bin")));
+                assertFalse(pack.containsLevel("/images/test.bin"));
+                
+                game.loadTemplate(pack.getTemplate("level3"));
+                BadIceCream direct = new BadIceCream(3);
+                direct.importLevel("level3.txt");
+                assertEquals(direct.captureLevel(), game.captureLevel());
+                assertSame("La plantilla se valida una sola vez", pack.getTemplate("level3"), pack.getTemplate("level3"));
+            }
+        } finally {
+            new File(file).delete();
+        }
+    }
+    
+    @Test
+    public void shouldReadAnyPackEntryWithoutTheOthers() throws BadIceCreamException, IOException {
+        String file = "test_pack_many.bicp";
+        try {
+            LevelData base = LevelData.load("level1.txt");
+            try (LevelPack.Writer writer = LevelPack.create(file)) {
+                for (int i = 0; i < 2000; i++) {
+                    writer.addLevel("sim" + i, base);
+                }
+            }
+            // Dañar la primera entrada: las demás se siguen leyendo por su posición
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(LevelPack.HEADER_SIZE + 10);
+                raf.write(0x7F);
+            }
+            try (LevelPack pack = LevelPack.open(file)) {
+                assertEquals(2000, pack.size());
+                assertEquals(base, pack.readLevel("sim1999"));
+                try {
+                    pack.readLevel("sim0");
+                    fail("La entrada dañada no debe pasar el CRC");
+                } catch (BadIceCreamException e) {
+                    assertTrue(e.getMessage().startsWith("Paquete de niveles corrupto"));
+                }
+                try {
+                    pack.read("no_existe");
+                    fail("La entrada no existe");
+                } catch (BadIceCreamException e) {
+                    assertEquals("El paquete no tiene la entrada: no_existe", e.getMessage());
+                }
+            }
+        } finally {
+            new File(file).delete();
+        }
+    }
+    
+    @Test
+    public void shouldRejectPackWithImpossibleEntryCount() throws BadIceCreamException, IOException {
+        String file = "test_pack_count.bicp";
+        try {
+            try (LevelPack.Writer writer = LevelPack.create(file)) {
+                writer.addLevel("level1", LevelData.load("level1.txt"));
+            }
+            // Cantidad de entradas del encabezado (después de firma, versión y reservado)
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(8);
+                raf.writeInt(Integer.MAX_VALUE);
+            }
+            try {
+                LevelPack.open(file).close();
+                fail("Un índice que no puede tener tantas entradas es un paquete dañado");
+            } catch (BadIceCreamException e) {
+                assertTrue(e.getMessage().startsWith("Paquete de niveles corrupto"));
+            }
+        } finally {
+            new File(file).delete();
+        }
+    }
+    
+    @Test
+    public void shouldChangeDecorationVersionOnlyForDecorationBlocks() throws BadIceCreamException {
+        game.importLevel("level1.txt");
+        long loaded = game.getDecorationVersion();
+        
+        new IceBlock(game, 2, 3);
+        game.setBlock(2, 3, null);
+        assertEquals("El hielo no cambia la capa fija", loaded, game.getDecorationVersion());
+        
+        new DecorationBlock(game, 2, 3);
+        assertTrue(game.getDecorationVersion() != loaded);
+        long placed = game.getDecorationVersion();
+        game.importLevel("level2.txt");
+        assertTrue("Cargar otro nivel cambia la capa fija", game.getDecorationVersion() != placed);
+    }
+    
+    @Test
+    public void shouldTrackOnlyChangedCells() throws BadIceCreamException {
+        game.setClock(new ManualClock());
+        game.importLevel("level1.txt");
+        assertEquals("Cargar un nivel cambia todo el tablero", 256, game.takeDirtyCells().length);
+        assertFalse(game.hasDirtyCells());
+        
+        new IceBlock(game, 2, 3);
+        new IceBlock(game, 2, 3);
+        assertTrue(java.util.Arrays.equals(new int[] {2 * 16 + 3}, game.takeDirtyCells()));
+        assertEquals(0, game.takeDirtyCells().length);
+    }
+    
+    @Test
+    public void shouldMarkTurnsAndFireActivationAsChanged() throws BadIceCreamException {
+        ManualClock clock = new ManualClock();
+        game.setClock(clock);
+        Player p = new Player(game, 4, 4);
+        Fogata f = new Fogata(game, 10, 10);
+        game.takeDirtyCells();
+        
+        p.changeOfView(p.getDirectionOfView());
+        assertFalse("Mirar hacia donde ya miraba no cambia nada", game.hasDirtyCells());
+        p.changeOfView("left".equals(p.getDirectionOfView()) ? "right" : "left");
+        assertTrue(java.util.Arrays.equals(new int[] {4 * 16 + 4}, game.takeDirtyCells()));
+        
+        clock.advance(3000);
+        assertTrue("Consultar la fogata no la cambia", f.isActive());
+        assertFalse(game.hasDirtyCells());
+        game.tickHotTiles();
+        assertTrue(java.util.Arrays.equals(new int[] {10 * 16 + 10}, game.takeDirtyCells()));
+        game.tickHotTiles();
+        assertFalse("Una fogata ya encendida no se vuelve a marcar", game.hasDirtyCells());
+    }
+    
+    @Test
+    public void shouldLeaveIdleFramesWithoutChanges() throws BadIceCreamException {
+        game.setClock(new ManualClock());
+        game.importLevel("level1.txt");
+        GameEngine engine = new GameEngine(game);
+        engine.runFor(5000);
+        long ticks = engine.getLogicTickCount();
+        while (engine.getLogicTickCount() == ticks) {
+            engine.step();
+        }
+        game.takeDirtyCells();
+        
+        for (int i = 0; i < 5; i++) {
+            engine.step();
+        }
+        assertFalse("Entre ticks lógicos ningún frame cambia el tablero", game.hasDirtyCells());
+    }
+    
+    @Test
+    public void shouldCaptureBoardSnapshot() throws BadIceCreamException {
+        ManualClock clock = new ManualClock();
+        game.setClock(clock);
+        Player p = new Player(game, 4, 4);
+        new Troll(game, 8, 2);
+        Cactus cactus = new Cactus(game, 1, 1);
+        new IceBlock(game, 2, 3);
+        Fogata f = new Fogata(game, 10, 10);
+        cactus.changeActivity(true);
+        
+        BoardSnapshot before = BoardSnapshot.capture(game, 7, 99);
+        assertEquals(7, before.getFrame());
+        assertEquals(99, before.getInputNanos());
+        assertEquals(CellStore.ICE, before.getBlockCode(2, 3));
+        assertEquals(CellStore.FOGATA, before.getBlockCode(10, 10));
+        assertFalse(before.isFireOn(10, 10));
+        assertEquals(1, before.getPlayers().size());
+        assertEquals(p.getEntityId(), before.getPlayers().get(0).getId());
+        assertEquals("TROLL", before.getMonsters().get(0).getType());
+        assertEquals(8, before.getMonsters().get(0).getRow());
+        assertTrue("Cactus con púas", before.getFruits().get(0).isHighlighted());
+        
+        clock.advance(3000);
+        game.takeDirtyCells();
+        assertTrue("La foto ve la fogata encendida", BoardSnapshot.capture(game, 8, 0).isFireOn(10, 10));
+        assertFalse("Tomar la foto no cambia el juego", game.hasDirtyCells());
+        game.tickHotTiles();
+        assertTrue(f.isActive());
+        new IceBlock(game, 2, 4);
+        assertFalse("La foto no cambia con el juego", before.isFireOn(10, 10));
+        assertEquals(CellStore.NONE, before.getBlockCode(2, 4));
+        assertTrue(BoardSnapshot.capture(game, 8, 0).isFireOn(10, 10));
+    }
+    
+    @Test
+    public void shouldDetectDecorationChangesBetweenSnapshots() throws BadIceCreamException {
+        game.setClock(new ManualClock());
+        game.importLevel("level1.txt");
+        BoardSnapshot loaded = BoardSnapshot.capture(game, 0, 0);
+        
+        new IceBlock(game, 2, 3);
+        assertEquals("El hielo no cambia la capa fija", loaded.getDecorationVersion(),
+                BoardSnapshot.capture(game, 1, 0).getDecorationVersion());
+        game.importLevel("level2.txt");
+        assertTrue(loaded.getDecorationVersion() != BoardSnapshot.capture(game, 2, 0).getDecorationVersion());
+        
+        BadIceCream other = new BadIceCream(1);
+        other.importLevel("level2.txt");
+        assertTrue("Otro juego no comparte versión",
+                other.getDecorationVersion() != game.getDecorationVersion());
+    }
+    
+    @Test
+    public void shouldExposePreviousCellsForInterpolation() throws BadIceCreamException {
+        game.setClock(new ManualClock());
+        game.importLevel("level1.txt");
+        GameEngine engine = new GameEngine(game);
+        BoardSnapshot moved = null;
+        for (int i = 0; i < 20 && moved == null; i++) {
+            long ticks = engine.getLogicTickCount();
+            while (engine.getLogicTickCount() == ticks) {
+                engine.step();
+            }
+            BoardSnapshot snapshot = BoardSnapshot.capture(engine, 0);
+            if (snapshot.isMoving()) moved = snapshot;
+        }
+        assertTrue("Algún monstruo se mueve en los primeros ticks", moved != null);
+        assertTrue("Justo después del tick casi no avanzó", moved.getTickProgress() < 0.1);
+        assertEquals(engine.getLastLogicTickMillis(), engine.getSimulatedMillis() - (long) (moved.getTickProgress() * GameEngine.LOGIC_STEP_MILLIS));
+        
+        for (BoardSnapshot.Sprite s : moved.getMonsters()) {
+            if (!s.isMoving()) continue;
+            int dr = Math.abs(s.getRow() - s.getPreviousRow());
+            int dc = Math.abs(s.getColumn() - s.getPreviousColumn());
+            assertEquals("Solo se interpola hacia una celda vecina", 1, dr + dc);
+        }
+        
+        for (int i = 0; i < 15; i++) {
+            engine.step();
+        }
+        double progress = engine.getTickProgress();
+        assertTrue(progress > 0.4 && progress < 1.0);
+        assertTrue(moved.getTickProgressAt(moved.getCaptureNanos() + GameEngine.LOGIC_STEP_MILLIS * 1_000_000L) == 1.0);
+        assertFalse(moved.isMovingAt(moved.getCaptureNanos() + GameEngine.LOGIC_STEP_MILLIS * 1_000_000L));
+    }
+    
+    @Test
+    public void shouldNotInterpolatePlayersOrSnapshotsWithoutEngine() throws BadIceCreamException {
+        game.setClock(new ManualClock());
+        Player p = new Player(game, 4, 4);
+        GameEngine engine = new GameEngine(game);
+        engine.runFor(GameEngine.LOGIC_STEP_MILLIS);
+        engine.applyInput(1, GameEngine.RIGHT);
+        
+        assertEquals(-1, engine.getPreviousCell(p));
+        BoardSnapshot.Sprite player = BoardSnapshot.capture(engine, 0).getPlayers().get(0);
+        assertFalse(player.isMoving());
+        assertEquals(p.getColumn(), player.getPreviousColumn());
+        
+        BoardSnapshot plain = BoardSnapshot.capture(game, 0, 0);
+        assertTrue(plain.getTickProgress() == 1.0);
+        assertFalse(plain.isMoving());
+    }
+    
+    @Test
+    public void shouldKeepFruitTypesWhenExportingLevels() throws BadIceCreamException {
+        String[] levels = {"level2.txt", "level3.txt"};
+        String textFile = "test_export_fruits.txt";
+        String binaryFile = "test_export_fruits.bin";
+        try {
+            for (String level : levels) {
+                BadIceCream original = new BadIceCream(1);
+                original.importLevel(level);
+                String expected = describeFruitCells(original);
+                assertFalse(expected.isEmpty());
+                
+                original.exportLevel(textFile);
+                original.exportLevelBinary(binaryFile);
+                
+                BadIceCream fromText = new BadIceCream(1);
+                fromText.importLevel(textFile);
+                assertEquals("Texto: " + level, expected, describeFruitCells(fromText));
+                BadIceCream fromBinary = new BadIceCream(1);
+                fromBinary.importLevel(binaryFile);
+                assertEquals("Binario: " + level, expected, describeFruitCells(fromBinary));
+            }
+        } finally {
+            new File(textFile).delete();
+            new File(binaryFile).delete();
+        }
+    }
+    
+    /**
+     * Tipo de fruta de cada celda, fila por fila, sin depender del orden en
+     * que se crearon las frutas.
+     */
+    private String describeFruitCells(BadIceCream g) {
+        StringBuilder sb = new StringBuilder();
+        Fruit[][] fruits = g.getFruits();
+        for (int r = 0; r < fruits.length; r++) {
+            for (int c = 0; c < fruits[r].length; c++) {
+                if (fruits[r][c] != null) {
+                    sb.append(fruits[r][c].getFruitType()).append(r).append(',').append(c).append(';');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -16,4 +16,9 @@ public class BaldosaCaliente extends Block{
     public String getBlockType() {
         return "BALDOSACALINETE";
     }
+
+    @Override
+    public byte getCellCode() {
+        return CellStore.BALDOSA;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package domain;
+import java.io.*;
+
+/**
+ * Capas de bits del tablero (bitboards).
+ * Cada capa guarda un bit por celda en un arreglo de longs: un tablero de 16x16
+ * cabe en cuatro longs por capa. Además de la capa por filas (índice fila * ancho
+ * + columna) se mantiene una copia transpuesta (índice columna * alto + fila),
+ * de modo que una fila o una columna completa se extraen como un solo long y los
+ * rayos en cualquier dirección se resuelven con máscaras y búsqueda de bits.
+ *
+ * Las capas las mantiene sincronizadas el CellStore en cada setBlock, setFruit,
+ * setMonster y setPlayer. Requiere que el alto y el ancho no pasen de 64.
+ */
+public class Bitboards implements Serializable {
+
+    // Capas
+    public static final int SOLID = 0;      // hielo o decoración
+    public static final int ICE = 1;
+    public static final int FIRE = 2;       // fogata descubierta
+    public static final int HOT_TILE = 3;   // baldosa caliente descubierta
+    public static final int FRUIT = 4;
+    public static final int MONSTER = 5;
+    public static final int PLAYER = 6;
+    public static final int LAYERS = 7;
+
+    private final int height;
+    private final int width;
+    private final long[][] rows;
+    private final long[][] columns;
+
+    /**
+     * @param height número de filas (máximo 64)
+     * @param width  número de columnas (máximo 64)
+     */
+    public Bitboards(int height, int width) {
+        if (height > 64 || width > 64) {
+            throw new IllegalArgumentException("Bitboards soporta tableros de hasta 64x64");
+        }
+        this.height = height;
+        this.width = width;
+        int words = (height * width + 63) >>> 6;
+        rows = new long[LAYERS][words];
+        columns = new long[LAYERS][words];
+    }
+
+    public boolean get(int layer, int r, int c) {
+        int i = r * width + c;
+        return (rows[layer][i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void set(int layer, int r, int c, boolean on) {
+        int i = r * width + c;
+        int t = c * height + r;
+        if (on) {
+            rows[layer][i >>> 6] |= 1L << i;
+            columns[layer][t >>> 6] |= 1L << t;
+        } else {
+            rows[layer][i >>> 6] &= ~(1L << i);
+            columns[layer][t >>> 6] &= ~(1L << t);
+        }
+    }
+
+    /**
+     * Actualiza las capas de bloque de una celda según su código de bloque
+     * del CellStore.
+     */
+    void setBlockCode(int r, int c, int blockCode) {
+        set(SOLID, r, c, blockCode == CellStore.ICE || blockCode == CellStore.DECORATION);
+        set(ICE, r, c, blockCode == CellStore.ICE);
+        set(FIRE, r, c, blockCode == CellStore.FOGATA);
+        set(HOT_TILE, r, c, blockCode == CellStore.BALDOSA);
+    }
+
+    public void clear() {
+        for (int l = 0; l < LAYERS; l++) {
+            java.util.Arrays.fill(rows[l], 0L);
+            java.util.Arrays.fill(columns[l], 0L);
+        }
+    }
+
+    /**
+     * @return los bits de la fila r de la capa; el bit c corresponde a la columna c
+     */
+    public long row(int layer, int r) {
+        return extract(rows[layer], r * width, width);
+    }
+
+    /**
+     * @return los bits de la columna c de la capa; el bit r corresponde a la fila r
+     */
+    public long column(int layer, int c) {
+        return extract(columns[layer], c * height, height);
+    }
+
+    /**
+     * @return número de celdas encendidas en la capa
+     */
+    public int count(int layer) {
+        int n = 0;
+        for (long w : rows[layer]) {
+            n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    private static long extract(long[] words, int start, int len) {
+        int w = start >>> 6;
+        int off = start & 63;
+        long v = words[w] >>> off;
+        if (off + len > 64) {
+            v |= words[w + 1] << (64 - off);
+        }
+        return len == 64 ? v : v & ((1L << len) - 1);
+    }
+
+    /**
+     * Cuenta las celdas consecutivas sin bit en 'stop' desde la posición 'from'
+     * hacia posiciones mayores, sin pasar de 'len'.
+     *
+     * @param stop línea de bits (fila o columna) con los obstáculos
+     * @param from primera posición del rayo
+     * @param len  largo de la línea
+     * @return largo del tramo libre
+     */
+    public static int freeRunForward(long stop, int from, int len) {
+        if (from >= len) return 0;
+        int n = Long.numberOfTrailingZeros(stop >>> from);
+        return Math.min(n, len - from);
+    }
+
+    /**
+     * Cuenta las celdas consecutivas sin bit en 'stop' desde la posición 'from'
+     * hacia posiciones menores, sin pasar de 0.
+     *
+     * @param stop línea de bits (fila o columna) con los obstáculos
+     * @param from primera posición del rayo
+     * @return largo del tramo libre
+     */
+    public static int freeRunBackward(long stop, int from) {
+        if (from < 0) return 0;
+        long m = from >= 63 ? stop : stop & ((1L << (from + 1)) - 1);
+        if (m == 0) return from + 1;
+        return from - (63 - Long.numberOfLeadingZeros(m));
+    }
+
+    /**
+     * @param from posición inicial
+     * @param to   posición final (incluida), en cualquier orden
+     * @return máscara con los bits entre from y to encendidos
+     */
+    public static long span(int from, int to) {
+        int lo = Math.min(from, to);
+        int hi = Math.max(from, to);
+        long upper = hi >= 63 ? -1L : (1L << (hi + 1)) - 1;
+        return upper & (-1L << lo);
+    }
+}
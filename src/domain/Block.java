@@ -37,6 +37,11 @@ public abstract class Block implements Serializable, InteractWithPlayer{
     }
     
     public abstract String getBlockType();
+
+    /**
+     * Código de tipo de bloque que se guarda en el CellStore del tablero.
+     */
+    public abstract byte getCellCode();
     
     public void introduceFruit(Fruit f) {}
     
@@ -48,6 +53,7 @@ public abstract class Block implements Serializable, InteractWithPlayer{
     
     public void setHasFogata(boolean b) {
     	hasFogata = b;
+    	board.refreshBlockCode(row, column, this);
     }
     
     public boolean hasBaldosa() {return hasBaldosa;}
@@ -55,12 +61,13 @@ public abstract class Block implements Serializable, InteractWithPlayer{
     public void setHasBaldosa(boolean hasBaldosa) {
         this.hasBaldosa = hasBaldosa;
         if (hasBaldosa) {
-            baldosaCoverTime = System.currentTimeMillis();
+            baldosaCoverTime = board.getClock().currentTimeMillis();
         }
+        board.refreshBlockCode(row, column, this);
     }
     public boolean shouldMeltIceOverBaldosa() {
         return hasBaldosa &&
-               (System.currentTimeMillis() - baldosaCoverTime) >= BALDOSA_MELT_DELAY;
+               (board.getClock().currentTimeMillis() - baldosaCoverTime) >= BALDOSA_MELT_DELAY;
     }
     
     public boolean hasFruit() {return false;}
@@ -82,5 +89,39 @@ public abstract class Block implements Serializable, InteractWithPlayer{
         return false;
     }
 
+    /**
+     * Corre las marcas de tiempo del bloque al cambiar el reloj del juego.
+     *
+     * @param delta diferencia entre el reloj nuevo y el anterior
+     */
+    void shiftTimes(long delta) {
+        if (hasBaldosa) {
+            baldosaCoverTime += delta;
+        }
+    }
+
+    /**
+     * Escribe el estado del bloque que no se deduce de su tipo y su posición.
+     * Lo usa GameSnapshotCodec al guardar la partida.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(hasFogata);
+        out.writeBoolean(hasBaldosa);
+        if (hasBaldosa) {
+            out.writeLong(baldosaCoverTime);
+        }
+    }
+
+    /**
+     * Restaura el estado escrito por writeState.
+     */
+    void readState(DataInput in) throws IOException {
+        hasFogata = in.readBoolean();
+        hasBaldosa = in.readBoolean();
+        if (hasBaldosa) {
+            baldosaCoverTime = in.readLong();
+        }
+        board.refreshBlockCode(row, column, this);
+    }
 }
 
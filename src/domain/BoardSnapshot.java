@@ -0,0 +1,352 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Foto inmutable de lo que se ve del tablero en un momento dado: bloques,
+ * frutas, monstruos, jugadores y marcador.
+ *
+ * El juego no es seguro para varios hilos. El hilo que lo actualiza toma una
+ * foto después de cada cambio y la publica; un hilo de dibujo puede leerla
+ * mientras el juego sigue avanzando, sin tocar ninguna clase del dominio.
+ *
+ * Tomada desde un GameEngine, la foto incluye además la celda anterior de
+ * cada monstruo y fruta y el avance del tick lógico, para dibujarlos entre
+ * una celda y otra (getTickProgressAt) en vez de saltar de celda cada tick.
+ */
+public final class BoardSnapshot {
+
+    /** Marca que se suma al código de bloque de una fogata encendida. */
+    public static final int FIRE_ON_BIT = 0x08;
+
+    private final int height;
+    private final int width;
+    private final int level;
+    private final int phase;
+    private final int player1Score;
+    private final int player2Score;
+    private final long decorationVersion;
+    private final byte[] blocks;
+    private final List<Sprite> fruits;
+    private final List<Sprite> monsters;
+    private final List<Sprite> players;
+    private final boolean moving;
+    private final double tickProgress;
+    private final long frame;
+    private final long inputNanos;
+    private final long captureNanos;
+
+    private BoardSnapshot(BadIceCream game, byte[] blocks, List<Sprite> fruits, List<Sprite> monsters,
+                          List<Sprite> players, boolean moving, double tickProgress,
+                          long frame, long inputNanos) {
+        this.height = game.getHeight();
+        this.width = game.getWidth();
+        this.level = game.getLevel();
+        this.phase = game.getPhase();
+        this.player1Score = (game.getPlayer1() != null) ? game.getPlayer1().getScore() : 0;
+        this.player2Score = (game.getPlayer2() != null) ? game.getPlayer2().getScore() : 0;
+        this.decorationVersion = game.getDecorationVersion();
+        this.blocks = blocks;
+        this.fruits = Collections.unmodifiableList(fruits);
+        this.monsters = Collections.unmodifiableList(monsters);
+        this.players = Collections.unmodifiableList(players);
+        this.moving = moving;
+        this.tickProgress = tickProgress;
+        this.frame = frame;
+        this.inputNanos = inputNanos;
+        this.captureNanos = System.nanoTime();
+    }
+
+    /**
+     * Toma una foto del tablero. Se debe llamar desde el hilo que actualiza
+     * el juego. Solo lee: no cambia el juego ni sus celdas marcadas.
+     *
+     * @param game       juego a fotografiar
+     * @param frame      número de frame del motor (solo informativo)
+     * @param inputNanos System.nanoTime() de la última entrada del teclado
+     *                   aplicada antes de la foto, o 0 si no hubo
+     * @return foto del tablero
+     */
+    public static BoardSnapshot capture(BadIceCream game, long frame, long inputNanos) {
+        return capture(game, null, frame, inputNanos);
+    }
+
+    /**
+     * Toma una foto del juego del motor, con las celdas anteriores de los
+     * monstruos y frutas que se movieron en el último tick lógico.
+     *
+     * @param engine     motor del juego
+     * @param inputNanos System.nanoTime() de la última entrada del teclado
+     *                   aplicada antes de la foto, o 0 si no hubo
+     * @return foto del tablero
+     */
+    public static BoardSnapshot capture(GameEngine engine, long inputNanos) {
+        return capture(engine.getGame(), engine, engine.getFrameCount(), inputNanos);
+    }
+
+    private static BoardSnapshot capture(BadIceCream game, GameEngine engine, long frame, long inputNanos) {
+        CellStore cells = game.getCellStore();
+        int height = cells.getHeight();
+        int width = cells.getWidth();
+        byte[] blocks = new byte[height * width];
+        List<Sprite> fruits = new ArrayList<>();
+        List<Sprite> monsters = new ArrayList<>();
+        List<Sprite> players = new ArrayList<>();
+        boolean moving = false;
+
+        // Fila por fila, para que los sprites se solapen igual que en el tablero
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                int code = cells.getBlockCode(r, c);
+                // isActive() solo consulta el reloj; la fogata se enciende en tickHotTiles
+                if (code == CellStore.FOGATA && ((Fogata) cells.getBlock(r, c)).isActive()) {
+                    code |= FIRE_ON_BIT;
+                }
+                blocks[r * width + c] = (byte) code;
+
+                Fruit fruit = cells.getFruit(r, c);
+                if (fruit != null) {
+                    boolean active = fruit.isCactus() && ((Cactus) fruit).isActive();
+                    Sprite sprite = new Sprite(fruit.getEntityId(), fruit.getFruitType(), null, active,
+                            r, c, previousCell(engine, fruit, width), width);
+                    fruits.add(sprite);
+                    moving |= sprite.isMoving();
+                }
+                Monster monster = cells.getMonster(r, c);
+                if (monster != null) {
+                    Sprite sprite = new Sprite(monster.getEntityId(), monster.getMonsterType(),
+                            monster.getDirectionOfView(), monster.isInAlertMode(),
+                            r, c, previousCell(engine, monster, width), width);
+                    monsters.add(sprite);
+                    moving |= sprite.isMoving();
+                }
+                Player player = cells.getPlayer(r, c);
+                if (player != null) {
+                    players.add(new Sprite(player.getEntityId(), player.getFlavor(),
+                            player.getDirectionOfView(), false, r, c, -1, width));
+                }
+            }
+        }
+        double progress = (engine != null) ? engine.getTickProgress() : 1.0;
+        return new BoardSnapshot(game, blocks, fruits, monsters, players, moving, progress, frame, inputNanos);
+    }
+
+    /**
+     * @return celda anterior de la unidad si en el último tick pasó a una
+     *         celda vecina; -1 si no se movió, apareció o saltó más lejos
+     */
+    private static int previousCell(GameEngine engine, Unit u, int width) {
+        if (engine == null) return -1;
+        int previous = engine.getPreviousCell(u);
+        if (previous < 0) return -1;
+        int dr = Math.abs(previous / width - u.getRow());
+        int dc = Math.abs(previous % width - u.getColumn());
+        return (dr + dc == 1) ? previous : -1;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getPlayer1Score() {
+        return player1Score;
+    }
+
+    public int getPlayer2Score() {
+        return player2Score;
+    }
+
+    /**
+     * @return código del bloque de la celda (CellStore.NONE, ICE,
+     *         DECORATION, FOGATA o BALDOSA)
+     */
+    public int getBlockCode(int r, int c) {
+        return blocks[r * width + c] & CellStore.BLOCK_MASK;
+    }
+
+    /**
+     * @return true si en la celda hay una fogata encendida sin hielo encima
+     */
+    public boolean isFireOn(int r, int c) {
+        return (blocks[r * width + c] & FIRE_ON_BIT) != 0;
+    }
+
+    /**
+     * @return versión de los bloques decorativos del juego al tomar la foto
+     *         (ver BadIceCream.getDecorationVersion); si dos fotos tienen la
+     *         misma, la parte fija del tablero no cambió
+     */
+    public long getDecorationVersion() {
+        return decorationVersion;
+    }
+
+    /**
+     * @return frutas, fila por fila; getType() es el tipo de fruta y
+     *         isHighlighted() indica un cactus con púas
+     */
+    public List<Sprite> getFruits() {
+        return fruits;
+    }
+
+    /**
+     * @return monstruos, fila por fila; getType() es el tipo de monstruo e
+     *         isHighlighted() indica una maceta en alerta
+     */
+    public List<Sprite> getMonsters() {
+        return monsters;
+    }
+
+    /**
+     * @return jugadores, fila por fila; getType() es el sabor
+     */
+    public List<Sprite> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return true si algún monstruo o fruta se movió en el último tick lógico
+     */
+    public boolean isMoving() {
+        return moving;
+    }
+
+    /**
+     * @return avance del tick lógico al tomar la foto, entre 0 y 1 (1 si la
+     *         foto no se tomó desde un motor)
+     */
+    public double getTickProgress() {
+        return tickProgress;
+    }
+
+    /**
+     * Avance del tick lógico en otro momento, suponiendo que el juego sigue
+     * corriendo a ritmo de reloj real desde que se tomó la foto. Permite
+     * dibujar la misma foto varias veces con las unidades en movimiento.
+     *
+     * @param nanos System.nanoTime() del momento a dibujar
+     * @return valor entre getTickProgress() y 1
+     */
+    public double getTickProgressAt(long nanos) {
+        double elapsed = Math.max(0, nanos - captureNanos) / (GameEngine.LOGIC_STEP_MILLIS * 1_000_000.0);
+        return Math.min(1.0, tickProgress + elapsed);
+    }
+
+    /**
+     * @return true si en ese momento alguna unidad todavía va de una celda a
+     *         otra (hay que seguir dibujando frames)
+     */
+    public boolean isMovingAt(long nanos) {
+        return moving && getTickProgressAt(nanos) < 1.0;
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return System.nanoTime() de la última entrada aplicada antes de la
+     *         foto, o 0 si no hubo ninguna
+     */
+    public long getInputNanos() {
+        return inputNanos;
+    }
+
+    /**
+     * @return System.nanoTime() del momento en que se tomó la foto
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * Una unidad del tablero tal como se ve: su tipo, hacia dónde mira, su
+     * celda y la celda de la que viene. El id es el de la entidad, estable
+     * entre fotos.
+     */
+    public static final class Sprite {
+        private final int id;
+        private final String type;
+        private final String direction;
+        private final boolean highlighted;
+        private final int row;
+        private final int column;
+        private final int previousRow;
+        private final int previousColumn;
+
+        Sprite(int id, String type, String direction, boolean highlighted, int row, int column,
+               int previousCell, int width) {
+            this.id = id;
+            this.type = type;
+            this.direction = (direction != null) ? direction : "down";
+            this.highlighted = highlighted;
+            this.row = row;
+            this.column = column;
+            this.previousRow = (previousCell >= 0) ? previousCell / width : row;
+            this.previousColumn = (previousCell >= 0) ? previousCell % width : column;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return "up", "down", "left" o "right"
+         */
+        public String getDirection() {
+            return direction;
+        }
+
+        public boolean isHighlighted() {
+            return highlighted;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return fila en la que estaba antes del último tick lógico (la
+         *         actual si no se movió)
+         */
+        public int getPreviousRow() {
+            return previousRow;
+        }
+
+        /**
+         * @return columna en la que estaba antes del último tick lógico (la
+         *         actual si no se movió)
+         */
+        public int getPreviousColumn() {
+            return previousColumn;
+        }
+
+        /**
+         * @return true si en el último tick pasó de una celda vecina a esta
+         */
+        public boolean isMoving() {
+            return previousRow != row || previousColumn != column;
+        }
+    }
+}
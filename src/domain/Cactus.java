@@ -1,4 +1,5 @@
 package domain;
+import java.io.*;
 
 public class Cactus extends Fruit{
 	
@@ -8,8 +9,7 @@ public class Cactus extends Fruit{
     private static final int ACTIVE_TICKS = 5;    
     private static final int INACTIVE_TICKS = 5;  
     public Cactus(BadIceCream board, int row, int column){
-        super(board,row,column);
-        score = 20;
+        super(board,row,column,20);
         isActive = false; 
     }
 	
@@ -36,6 +36,9 @@ public class Cactus extends Fruit{
     public boolean isActive(){return isActive;}
 
     public void changeActivity(boolean x){
+        if (isActive != x) {
+            board.markDirty(row, column);
+        }
         isActive = x;
     }
 
@@ -51,4 +54,16 @@ public class Cactus extends Fruit{
         }
         return false;
     }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(isActive);
+        out.writeInt(tickCounter);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        isActive = in.readBoolean();
+        tickCounter = in.readInt();
+    }
 }
@@ -1,8 +1,10 @@
 package domain;
+import java.io.*;
 
 /**
  * Calamar Naranja:
- * Persigue al jugador más cercano. Si tiene hielo delante, intenta romperlo
+ * Persigue al jugador más cercano por el camino más barato del campo de
+ * persecución rompehielo del tablero. Si tiene hielo delante, intenta romperlo
  * tras varios ticks. No atraviesa bloques sólidos.
  *
  * Nota: Para tu regla, el calamar puede pararse sobre fogata/baldosa (activas o no),
@@ -11,7 +13,7 @@ package domain;
 public class CalamarNaranja extends Monster {
 
     private int breakingTicks = 0;
-    private static final int TICKS_TO_BREAK = 3;
+    static final int TICKS_TO_BREAK = 3;
 
     private int targetBlockRow = -1;
     private int targetBlockCol = -1;
@@ -27,42 +29,28 @@ public class CalamarNaranja extends Monster {
 
     /**
      * Tick del calamar:
-     * - Selecciona el jugador más cercano.
-     * - Decide una dirección (prioriza eje con mayor distancia).
+     * - Toma del campo de persecución rompehielo la dirección que más lo
+     *   acerca al jugador más cercano (el hielo cuenta como TICKS_TO_BREAK + 1).
      * - Si hay hielo delante, acumula ticks y lo rompe.
      * - Si la celda destino es pasable, se mueve.
      */
     @Override
     public void act() throws BadIceCreamException {
-        Player targetPlayer = findNearestPlayer();
-        if (targetPlayer == null) return;
+        if (board.getFirstPlayer() == null && board.getSecondPlayer() == null) return;
 
-        int pr = targetPlayer.getRow();
-        int pc = targetPlayer.getColumn();
+        int best = board.getIceBreakingChaseField().bestDirection(row, column, 0);
+        if (best < 0) return;
 
-        int dr = pr - row;
-        int dc = pc - column;
-
-        String dir = null;
-        int nr = row;
-        int nc = column;
-
-        if (Math.abs(dr) > Math.abs(dc)) {
-            if (dr > 0) { dir = "down"; nr = row + 1; }
-            else if (dr < 0) { dir = "up"; nr = row - 1; }
-        } else {
-            if (dc > 0) { dir = "right"; nc = column + 1; }
-            else if (dc < 0) { dir = "left"; nc = column - 1; }
-        }
-
-        if (dir == null) return;
+        String dir = ChaseField.DIRECTIONS[best];
+        int nr = row + ChaseField.DR[best];
+        int nc = column + ChaseField.DC[best];
 
         changeOfView(dir);
 
         if (!inBounds(nr, nc)) return;
-        if (board.getMonsters()[nr][nc] != null) return;
+        if (board.getMonsterAt(nr, nc) != null) return;
 
-        Block ahead = board.getBlocks()[nr][nc];
+        Block ahead = board.getBlockAt(nr, nc);
 
         // Si es hielo: romper con ticks
         if (ahead != null && ahead.isIceBlock()) {
@@ -101,11 +89,10 @@ public class CalamarNaranja extends Monster {
         breakingTicks++;
 
         if (breakingTicks >= TICKS_TO_BREAK) {
-            Block[][] blocks = board.getBlocks();
-            Block b = blocks[blockRow][blockCol];
+            Block b = board.getBlockAt(blockRow, blockCol);
 
             if (b != null && b.isIceBlock()) {
-                blocks[blockRow][blockCol] = null;
+                board.setBlock(blockRow, blockCol, null);
             }
 
             breakingTicks = 0;
@@ -114,25 +101,6 @@ public class CalamarNaranja extends Monster {
         }
     }
 
-    /**
-     * Encuentra el jugador más cercano (distancia Manhattan).
-     *
-     * @return Player más cercano o null si no existen jugadores
-     */
-    private Player findNearestPlayer() {
-        Player p1 = board.getFirstPlayer();
-        Player p2 = board.getSecondPlayer();
-
-        if (p1 == null && p2 == null) return null;
-        if (p1 == null) return p2;
-        if (p2 == null) return p1;
-
-        int d1 = Math.abs(p1.getRow() - row) + Math.abs(p1.getColumn() - column);
-        int d2 = Math.abs(p2.getRow() - row) + Math.abs(p2.getColumn() - column);
-
-        return (d1 <= d2) ? p1 : p2;
-    }
-
     private boolean inBounds(int r, int c) {
         return r >= 0 && r < board.getHeight() && c >= 0 && c < board.getWidth();
     }
@@ -144,12 +112,28 @@ public class CalamarNaranja extends Monster {
      * - decoración u otros sólidos => NO pasable
      */
     private boolean isPassableCellForMonster(int r, int c) {
-        Block b = board.getBlocks()[r][c];
+        Block b = board.getBlockAt(r, c);
         if (b == null) return true;
         if (b.isFogata() || b.isBaldosaCaliente()) return true;
         if (b.isIceBlock()) return false;
         if (b.isDecorationBlock()) return false;
         return false;
     }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(breakingTicks);
+        out.writeInt(targetBlockRow);
+        out.writeInt(targetBlockCol);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        super.readState(in);
+        breakingTicks = in.readInt();
+        targetBlockRow = in.readInt();
+        targetBlockCol = in.readInt();
+    }
 }
 
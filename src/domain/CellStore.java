@@ -0,0 +1,401 @@
+package domain;
+import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén compacto de las celdas del tablero.
+ * En lugar de cuatro matrices paralelas de objetos, guarda:
+ * - Un arreglo plano de bytes con el código de tipo/estado de cada celda
+ *   (tipo de bloque, hazard cubierto por hielo y qué entidades la ocupan).
+ * - Una tabla plana por tipo de entidad (bloques, frutas, monstruos, jugadores)
+ *   indexada por celda, sin punteros de fila intermedios.
+ *
+ * Las celdas se indexan como fila * ancho + columna. Las matrices Block[][],
+ * Fruit[][], etc. solo existen como vistas de compatibilidad: cada pedido
+ * devuelve una copia nueva de la tabla, así que escribir en ella no cambia el
+ * tablero ni desincroniza códigos, contadores o capas de bits. Toda
+ * modificación debe pasar por los set* del almacén.
+ *
+ * También mantiene las capas de bits (Bitboards) de paredes, hielo, peligros y
+ * ocupación, que se actualizan en los mismos set*.
+ */
+public class CellStore implements Serializable {
+
+    // Tipo de bloque (3 bits bajos del código)
+    public static final byte NONE = 0;
+    public static final byte ICE = 1;
+    public static final byte DECORATION = 2;
+    public static final byte FOGATA = 3;
+    public static final byte BALDOSA = 4;
+    public static final int BLOCK_MASK = 0x07;
+
+    // Ocupación y estado
+    public static final int FRUIT_BIT = 0x08;
+    public static final int MONSTER_BIT = 0x10;
+    public static final int PLAYER_BIT = 0x20;
+    public static final int COVERS_FOGATA_BIT = 0x40;
+    public static final int COVERS_BALDOSA_BIT = 0x80;
+
+    private final int height;
+    private final int width;
+    private final byte[] cells;
+    private final Block[] blockTable;
+    private final Fruit[] fruitTable;
+    private final Monster[] monsterTable;
+    private final Player[] playerTable;
+    private final Bitboards bits;
+
+    // Contadores incrementales de frutas en el tablero
+    private int fruitCount;
+    private int fruitScore;
+
+    // Versiones: cambian en cada escritura de bloques o frutas para que los
+    // campos de distancias sepan cuándo recalcular
+    private long blockVersion;
+    private long fruitVersion;
+    private long playerVersion;
+    // Solo cambia cuando aparece o desaparece un bloque decorativo, para que
+    // la interfaz sepa cuándo volver a dibujar la capa fija del tablero. Se
+    // toma de un contador común a todos los almacenes, así que dos tableros
+    // distintos nunca comparten versión
+    private static final AtomicLong DECORATION_VERSIONS = new AtomicLong();
+    private long decorationVersion = DECORATION_VERSIONS.incrementAndGet();
+
+    // Celdas que cambiaron desde la última vez que se consultaron (un bit
+    // por celda), para que la interfaz vuelva a pintar solo esas
+    private transient long[] dirty;
+    private transient int dirtyCount;
+
+    /**
+     * @param height número de filas
+     * @param width  número de columnas
+     */
+    public CellStore(int height, int width) {
+        this.height = height;
+        this.width = width;
+        int size = height * width;
+        cells = new byte[size];
+        blockTable = new Block[size];
+        fruitTable = new Fruit[size];
+        monsterTable = new Monster[size];
+        playerTable = new Player[size];
+        bits = new Bitboards(height, width);
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return capas de bits sincronizadas con este almacén
+     */
+    public Bitboards bits() {
+        return bits;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public boolean inBounds(int r, int c) {
+        return r >= 0 && r < height && c >= 0 && c < width;
+    }
+
+    public int index(int r, int c) {
+        return r * width + c;
+    }
+
+    /**
+     * @return código completo (tipo de bloque + bits de estado) de la celda
+     */
+    public int getCode(int r, int c) {
+        return cells[r * width + c] & 0xFF;
+    }
+
+    /**
+     * @return tipo de bloque de la celda (NONE, ICE, DECORATION, FOGATA o BALDOSA)
+     */
+    public int getBlockCode(int r, int c) {
+        return cells[r * width + c] & BLOCK_MASK;
+    }
+
+    /**
+     * @return true si la celda no tiene bloque, fruta, monstruo ni jugador
+     */
+    public boolean isEmpty(int r, int c) {
+        return cells[r * width + c] == 0;
+    }
+
+    public Block getBlock(int r, int c) {
+        return blockTable[r * width + c];
+    }
+
+    public Fruit getFruit(int r, int c) {
+        return fruitTable[r * width + c];
+    }
+
+    public Monster getMonster(int r, int c) {
+        return monsterTable[r * width + c];
+    }
+
+    public Player getPlayer(int r, int c) {
+        return playerTable[r * width + c];
+    }
+
+    public void setBlock(int r, int c, Block b) {
+        int i = r * width + c;
+        boolean wasDecoration = (cells[i] & BLOCK_MASK) == DECORATION;
+        blockTable[i] = b;
+        cells[i] = (byte) ((cells[i] & ~(BLOCK_MASK | COVERS_FOGATA_BIT | COVERS_BALDOSA_BIT)) | blockBits(b));
+        if (wasDecoration || (cells[i] & BLOCK_MASK) == DECORATION) {
+            decorationVersion = DECORATION_VERSIONS.incrementAndGet();
+        }
+        markDirty(i);
+        bits.setBlockCode(r, c, cells[i] & BLOCK_MASK);
+        blockVersion++;
+    }
+
+    /**
+     * Recalcula el código de bloque de la celda cuando cambia el estado interno
+     * del bloque (por ejemplo, hielo que pasa a cubrir una fogata).
+     */
+    public void refreshBlock(int r, int c) {
+        int i = r * width + c;
+        cells[i] = (byte) ((cells[i] & ~(BLOCK_MASK | COVERS_FOGATA_BIT | COVERS_BALDOSA_BIT)) | blockBits(blockTable[i]));
+        markDirty(i);
+    }
+
+    public void setFruit(int r, int c, Fruit f) {
+        int i = r * width + c;
+        Fruit old = fruitTable[i];
+        if (old != null) {
+            fruitCount--;
+            fruitScore -= old.getScore();
+        }
+        if (f != null) {
+            fruitCount++;
+            fruitScore += f.getScore();
+        }
+        fruitTable[i] = f;
+        fruitVersion++;
+        markDirty(i);
+        setBit(i, FRUIT_BIT, f != null);
+        bits.set(Bitboards.FRUIT, r, c, f != null);
+    }
+
+    public void setMonster(int r, int c, Monster m) {
+        int i = r * width + c;
+        monsterTable[i] = m;
+        markDirty(i);
+        setBit(i, MONSTER_BIT, m != null);
+        bits.set(Bitboards.MONSTER, r, c, m != null);
+    }
+
+    public void setPlayer(int r, int c, Player p) {
+        int i = r * width + c;
+        playerTable[i] = p;
+        playerVersion++;
+        markDirty(i);
+        setBit(i, PLAYER_BIT, p != null);
+        bits.set(Bitboards.PLAYER, r, c, p != null);
+    }
+
+    /**
+     * Vacía todas las celdas.
+     */
+    public void clear() {
+        java.util.Arrays.fill(cells, (byte) 0);
+        java.util.Arrays.fill(blockTable, null);
+        java.util.Arrays.fill(fruitTable, null);
+        java.util.Arrays.fill(monsterTable, null);
+        java.util.Arrays.fill(playerTable, null);
+        bits.clear();
+        fruitCount = 0;
+        fruitScore = 0;
+        blockVersion++;
+        fruitVersion++;
+        playerVersion++;
+        decorationVersion = DECORATION_VERSIONS.incrementAndGet();
+        for (int i = 0; i < cells.length; i++) {
+            markDirty(i);
+        }
+    }
+
+    /**
+     * @return número de frutas en el tablero, sin recorrerlo
+     */
+    public int getFruitCount() {
+        return fruitCount;
+    }
+
+    /**
+     * @return suma de los puntajes de las frutas en el tablero, sin recorrerlo
+     */
+    public int getFruitScore() {
+        return fruitScore;
+    }
+
+    /**
+     * @return versión de la capa de bloques; cambia con cada setBlock
+     */
+    public long getBlockVersion() {
+        return blockVersion;
+    }
+
+    /**
+     * Marca una celda como cambiada aunque su contenido sea el mismo objeto
+     * (por ejemplo, un jugador que gira o una fogata que se enciende).
+     */
+    public void markDirty(int r, int c) {
+        if (inBounds(r, c)) {
+            markDirty(r * width + c);
+        }
+    }
+
+    private void markDirty(int i) {
+        if (dirty == null) {
+            dirty = new long[(cells.length + 63) >>> 6];
+        }
+        long bit = 1L << i;
+        if ((dirty[i >>> 6] & bit) == 0) {
+            dirty[i >>> 6] |= bit;
+            dirtyCount++;
+        }
+    }
+
+    /**
+     * @return true si alguna celda cambió desde el último takeDirtyCells()
+     */
+    public boolean hasDirtyCells() {
+        return dirtyCount > 0;
+    }
+
+    /**
+     * Devuelve las celdas cambiadas, como índices fila * ancho + columna en
+     * orden creciente, y las deja como no cambiadas.
+     */
+    public int[] takeDirtyCells() {
+        int[] out = new int[dirtyCount];
+        if (dirtyCount == 0) return out;
+        int n = 0;
+        for (int w = 0; w < dirty.length; w++) {
+            long word = dirty[w];
+            while (word != 0) {
+                out[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+            dirty[w] = 0;
+        }
+        dirtyCount = 0;
+        return out;
+    }
+
+    /**
+     * @return versión de los bloques decorativos; cambia solo cuando se pone
+     *         o se quita uno, y no se repite entre almacenes
+     */
+    public long getDecorationVersion() {
+        return decorationVersion;
+    }
+
+    /**
+     * @return versión de la capa de frutas; cambia con cada setFruit
+     */
+    public long getFruitVersion() {
+        return fruitVersion;
+    }
+
+    /**
+     * @return versión de la capa de jugadores; cambia con cada setPlayer
+     */
+    public long getPlayerVersion() {
+        return playerVersion;
+    }
+
+    /**
+     * Recorre la tabla de frutas y compara con los contadores incrementales.
+     *
+     * @return true si los contadores coinciden con el contenido real del tablero
+     */
+    public boolean verifyFruitCounters() {
+        int count = 0;
+        int score = 0;
+        for (Fruit f : fruitTable) {
+            if (f != null) {
+                count++;
+                score += f.getScore();
+            }
+        }
+        return count == fruitCount && score == fruitScore;
+    }
+
+    /**
+     * Cuenta las celdas cuyo código tiene alguno de los bits indicados.
+     */
+    public int countCells(int mask) {
+        int n = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & mask) != 0) n++;
+        }
+        return n;
+    }
+
+    // ---- Vistas de compatibilidad (copias) ----
+
+    /**
+     * @return copia de la tabla de bloques como matriz
+     */
+    public Block[][] blockView() {
+        return fillView(new Block[height][width], blockTable);
+    }
+
+    /**
+     * @return copia de la tabla de frutas como matriz
+     */
+    public Fruit[][] fruitView() {
+        return fillView(new Fruit[height][width], fruitTable);
+    }
+
+    /**
+     * @return copia de la tabla de monstruos como matriz
+     */
+    public Monster[][] monsterView() {
+        return fillView(new Monster[height][width], monsterTable);
+    }
+
+    /**
+     * @return copia de la tabla de jugadores como matriz
+     */
+    public Player[][] playerView() {
+        return fillView(new Player[height][width], playerTable);
+    }
+
+    private <T> T[][] fillView(T[][] view, T[] table) {
+        for (int r = 0; r < height; r++) {
+            System.arraycopy(table, r * width, view[r], 0, width);
+        }
+        return view;
+    }
+
+    private void setBit(int i, int bit, boolean on) {
+        if (on) {
+            cells[i] = (byte) (cells[i] | bit);
+        } else {
+            cells[i] = (byte) (cells[i] & ~bit);
+        }
+    }
+
+    private static int blockBits(Block b) {
+        if (b == null) return NONE;
+        int bits = b.getCellCode();
+        if (b.isIceBlock()) {
+            if (b.hasFogata()) bits |= COVERS_FOGATA_BIT;
+            if (b.hasBaldosa()) bits |= COVERS_BALDOSA_BIT;
+        }
+        return bits;
+    }
+}
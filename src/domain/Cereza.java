@@ -1,5 +1,5 @@
 package domain;
-import java.util.Random;
+import java.io.*;
 
 public class Cereza extends Fruit {
 
@@ -8,8 +8,7 @@ public class Cereza extends Fruit {
     private int tickCounter = 0;
 
     public Cereza(BadIceCream board, int row, int column){
-        super(board,row,column);
-        score = 15;
+        super(board,row,column,15);
     }
 
     @Override
@@ -20,7 +19,7 @@ public class Cereza extends Fruit {
         }
         tickCounter = 0;
 
-        Random rand = new Random();
+        GameRandom rand = board.getRandom();
         int maxRow = board.getHeight();
         int maxCol = board.getWidth();
 
@@ -32,10 +31,10 @@ public class Cereza extends Fruit {
             newCol = rand.nextInt(maxCol);   
             intentos++;
         } while (intentos < 100 &&
-                (board.getBlocks()[newRow][newCol] != null ||
-                 board.getFruits()[newRow][newCol] != null ||
-                 board.getPlayers()[newRow][newCol] != null ||
-                 board.getMonsters()[newRow][newCol] != null));
+                (board.getBlockAt(newRow, newCol) != null ||
+                 board.getFruitAt(newRow, newCol) != null ||
+                 board.getPlayerAt(newRow, newCol) != null ||
+                 board.getMonsterAt(newRow, newCol) != null));
 
         if (intentos < 100) {
             changePosition(newRow, newCol);
@@ -46,4 +45,14 @@ public class Cereza extends Fruit {
     public String getFruitType() {
         return "CEREZA";
     }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(tickCounter);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        tickCounter = in.readInt();
+    }
 }
@@ -0,0 +1,168 @@
+package domain;
+import java.io.*;
+
+/**
+ * Campo de persecución compartido por todos los monstruos que persiguen.
+ * Es una búsqueda de caminos mínimos con varias fuentes: los jugadores vivos
+ * tienen costo 0 y para cada celda se guarda el costo de llegar desde ella
+ * hasta el jugador más cercano. Cada monstruo solo mira a sus 4 vecinos y
+ * avanza hacia el de menor costo, así que rodea obstáculos sin repetir
+ * búsquedas por monstruo.
+ *
+ * Modelos de costo:
+ * - Caminante (iceCost = 0): el hielo y la decoración no se pueden cruzar.
+ * - Rompehielo (iceCost > 0): entrar a una celda de hielo cuesta iceCost
+ *   (por ejemplo, los ticks que tarda el Calamar en romperlo más el paso).
+ *
+ * Fogatas y baldosas calientes se pisan con costo 1, igual que una celda vacía.
+ * Los costos son enteros pequeños, por lo que se usa una cola de cubetas
+ * circular (algoritmo de Dial) en vez de un heap. Los arreglos se reutilizan
+ * y el campo se recalcula solo si cambian los bloques o los jugadores.
+ */
+public class ChaseField implements Serializable {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** Direcciones en el orden de desempate: arriba, abajo, izquierda, derecha. */
+    public static final String[] DIRECTIONS = {"up", "down", "left", "right"};
+    public static final int[] DR = {-1, 1, 0, 0};
+    public static final int[] DC = {0, 0, -1, 1};
+
+    private final int height;
+    private final int width;
+    private final int iceCost;
+    private final int[] dist;
+    private final int[][] buckets;
+    private final int[] bucketSize;
+    private long blockVersion = -1;
+    private long playerVersion = -1;
+
+    /**
+     * @param height  número de filas del tablero
+     * @param width   número de columnas del tablero
+     * @param iceCost costo de entrar a una celda de hielo; 0 si el hielo no se puede cruzar
+     */
+    public ChaseField(int height, int width, int iceCost) {
+        this.height = height;
+        this.width = width;
+        this.iceCost = iceCost;
+        int n = height * width;
+        dist = new int[n];
+        int maxCost = Math.max(1, iceCost);
+        buckets = new int[maxCost + 1][];
+        for (int i = 0; i < buckets.length; i++) {
+            // Cada celda se encola a lo sumo una vez por vecino que la mejora
+            buckets[i] = new int[4 * n + n];
+        }
+        bucketSize = new int[maxCost + 1];
+    }
+
+    /**
+     * Recalcula el campo si cambiaron los bloques o la posición de los jugadores.
+     *
+     * @param cells almacén de celdas del tablero
+     * @return true si hubo que recalcular
+     */
+    public boolean update(CellStore cells) {
+        if (blockVersion == cells.getBlockVersion() && playerVersion == cells.getPlayerVersion()) {
+            return false;
+        }
+        compute(cells);
+        return true;
+    }
+
+    /**
+     * Calcula el campo desde cero tomando como fuentes a todos los jugadores del tablero.
+     *
+     * @param cells almacén de celdas del tablero
+     */
+    public void compute(CellStore cells) {
+        java.util.Arrays.fill(dist, UNREACHABLE);
+        java.util.Arrays.fill(bucketSize, 0);
+        int pending = 0;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if ((cells.getCode(r, c) & CellStore.PLAYER_BIT) != 0) {
+                    int i = r * width + c;
+                    dist[i] = 0;
+                    buckets[0][bucketSize[0]++] = i;
+                    pending++;
+                }
+            }
+        }
+
+        int b = buckets.length;
+        for (int d = 0; pending > 0; d++) {
+            int slot = d % b;
+            int[] bucket = buckets[slot];
+            for (int k = 0; k < bucketSize[slot]; k++) {
+                int i = bucket[k];
+                pending--;
+                if (dist[i] != d) continue; // entrada vieja, ya mejorada
+
+                int r = i / width;
+                int c = i - r * width;
+                // Costo de llegar a un vecino = costo de salir de él hacia esta celda
+                int step = enterCost(cells, r, c);
+                int next = d + step;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nr = r + DR[dir];
+                    int nc = c + DC[dir];
+                    if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+                    int j = nr * width + nc;
+                    if (next >= dist[j] || enterCost(cells, nr, nc) == 0) continue;
+                    dist[j] = next;
+                    int target = next % b;
+                    buckets[target][bucketSize[target]++] = j;
+                    pending++;
+                }
+            }
+            bucketSize[slot] = 0;
+        }
+
+        blockVersion = cells.getBlockVersion();
+        playerVersion = cells.getPlayerVersion();
+    }
+
+    /**
+     * @return costo de entrar a la celda, o 0 si no se puede entrar
+     */
+    private int enterCost(CellStore cells, int r, int c) {
+        int block = cells.getBlockCode(r, c);
+        if (block == CellStore.ICE) return iceCost;
+        if (block == CellStore.DECORATION) return 0;
+        return 1;
+    }
+
+    /**
+     * @return costo desde la celda hasta el jugador más cercano, o UNREACHABLE
+     */
+    public int get(int r, int c) {
+        return dist[r * width + c];
+    }
+
+    /**
+     * Elige la dirección hacia el vecino con menor costo que mejore el de la celda actual.
+     *
+     * @param r       fila actual del monstruo
+     * @param c       columna actual del monstruo
+     * @param exclude máscara de direcciones a descartar (bit i = DIRECTIONS[i])
+     * @return índice en DIRECTIONS, o -1 si ningún vecino acerca al jugador
+     */
+    public int bestDirection(int r, int c, int exclude) {
+        int best = -1;
+        int bestDist = dist[r * width + c];
+        for (int dir = 0; dir < 4; dir++) {
+            if ((exclude & (1 << dir)) != 0) continue;
+            int nr = r + DR[dir];
+            int nc = c + DC[dir];
+            if (nr < 0 || nr >= height || nc < 0 || nc >= width) continue;
+            int d = dist[nr * width + nc];
+            if (d < bestDist) {
+                bestDist = d;
+                best = dir;
+            }
+        }
+        return best;
+    }
+}
@@ -15,4 +15,9 @@ public class DecorationBlock extends Block {
     public String getBlockType() {
         return "DECORATION";
     }
+
+    @Override
+    public byte getCellCode() {
+        return CellStore.DECORATION;
+    }
 }
\ No newline at end of file
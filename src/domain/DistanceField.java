@@ -0,0 +1,114 @@
+package domain;
+import java.io.*;
+
+/**
+ * Campo de distancias por búsqueda en anchura (BFS) desde todas las frutas.
+ * Para cada celda guarda cuántos pasos faltan hasta la fruta alcanzable más
+ * cercana, moviéndose en 4 direcciones por celdas que un jugador puede pisar
+ * según canMoveTo: sin bloque o con fogata.
+ *
+ * Los jugadores máquina lo leen para tomar caminos mínimos reales en vez de
+ * acercarse en distancia Manhattan. El campo se recalcula solo cuando cambian
+ * los bloques o las frutas del tablero (según los contadores de versión del
+ * CellStore). Los monstruos y jugadores no forman parte del campo porque se
+ * mueven cada tick; el bot los evita al elegir el paso con canMoveTo.
+ *
+ * Los arreglos se crean una vez y se reutilizan: recalcular no crea objetos.
+ */
+public class DistanceField implements Serializable {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int height;
+    private final int width;
+    private final int[] dist;
+    private final int[] queue;
+    private long blockVersion = -1;
+    private long fruitVersion = -1;
+
+    /**
+     * @param height número de filas del tablero
+     * @param width  número de columnas del tablero
+     */
+    public DistanceField(int height, int width) {
+        this.height = height;
+        this.width = width;
+        dist = new int[height * width];
+        queue = new int[height * width];
+    }
+
+    /**
+     * Recalcula el campo si cambiaron los bloques o las frutas desde el último cálculo.
+     *
+     * @param cells almacén de celdas del tablero
+     * @return true si hubo que recalcular
+     */
+    public boolean update(CellStore cells) {
+        if (blockVersion == cells.getBlockVersion() && fruitVersion == cells.getFruitVersion()) {
+            return false;
+        }
+        compute(cells);
+        return true;
+    }
+
+    /**
+     * Calcula el campo desde cero: todas las frutas en celdas pisables son
+     * fuentes con distancia 0.
+     *
+     * @param cells almacén de celdas del tablero
+     */
+    public void compute(CellStore cells) {
+        java.util.Arrays.fill(dist, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if ((cells.getCode(r, c) & CellStore.FRUIT_BIT) != 0 && isWalkable(cells, r, c)) {
+                    int i = r * width + c;
+                    dist[i] = 0;
+                    queue[tail++] = i;
+                }
+            }
+        }
+        while (head < tail) {
+            int i = queue[head++];
+            int r = i / width;
+            int c = i - r * width;
+            int next = dist[i] + 1;
+            if (r > 0) tail = visit(cells, r - 1, c, next, tail);
+            if (r < height - 1) tail = visit(cells, r + 1, c, next, tail);
+            if (c > 0) tail = visit(cells, r, c - 1, next, tail);
+            if (c < width - 1) tail = visit(cells, r, c + 1, next, tail);
+        }
+        blockVersion = cells.getBlockVersion();
+        fruitVersion = cells.getFruitVersion();
+    }
+
+    private int visit(CellStore cells, int r, int c, int d, int tail) {
+        int i = r * width + c;
+        if (dist[i] != UNREACHABLE || !isWalkable(cells, r, c)) return tail;
+        dist[i] = d;
+        queue[tail] = i;
+        return tail + 1;
+    }
+
+    private static boolean isWalkable(CellStore cells, int r, int c) {
+        int block = cells.getBlockCode(r, c);
+        return block == CellStore.NONE || block == CellStore.FOGATA;
+    }
+
+    /**
+     * @return pasos hasta la fruta más cercana, o UNREACHABLE si no se puede llegar
+     */
+    public int get(int r, int c) {
+        return dist[r * width + c];
+    }
+
+    /**
+     * Obliga a recalcular en el próximo update().
+     */
+    public void invalidate() {
+        blockVersion = -1;
+        fruitVersion = -1;
+    }
+}
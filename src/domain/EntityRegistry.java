@@ -0,0 +1,204 @@
+package domain;
+import java.io.*;
+
+/**
+ * Registro de las entidades activas del juego (monstruos, frutas y jugadores).
+ * Cada entidad recibe un id estable mientras vive, y se guarda en un arreglo
+ * denso por tipo que los ticks recorren directamente, sin barrer el tablero.
+ *
+ * Agregar y quitar son O(1): al quitar, el último elemento del arreglo de su
+ * tipo ocupa el hueco (swap-remove) y se actualiza su posición. Los ids de
+ * entidades eliminadas se reutilizan para que las tablas no crezcan sin fin
+ * en simulaciones largas.
+ */
+public class EntityRegistry implements Serializable {
+
+    public static final int NO_ID = -1;
+
+    private Unit[] byId = new Unit[32];
+    private int[] slotById = new int[32];
+    private int[] freeIds = new int[32];
+    private int freeCount;
+    private int nextId;
+
+    private final KindList monsters = new KindList();
+    private final KindList fruits = new KindList();
+    private final KindList players = new KindList();
+
+    /**
+     * Registra la entidad si aún no lo está y le asigna un id.
+     *
+     * @param u entidad a registrar
+     * @return id de la entidad
+     */
+    public int add(Unit u) {
+        if (contains(u)) return u.getEntityId();
+
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        if (id >= byId.length) {
+            int size = Math.max(byId.length * 2, id + 1);
+            byId = java.util.Arrays.copyOf(byId, size);
+            slotById = java.util.Arrays.copyOf(slotById, size);
+        }
+        KindList list = listFor(u);
+        byId[id] = u;
+        slotById[id] = list == null ? NO_ID : list.add(u);
+        u.setEntityId(id);
+        return id;
+    }
+
+    /**
+     * Quita la entidad del registro. Si no estaba registrada no hace nada.
+     *
+     * @param u entidad a quitar
+     * @return true si estaba registrada
+     */
+    public boolean remove(Unit u) {
+        if (u == null || !contains(u)) return false;
+
+        int id = u.getEntityId();
+        KindList list = listFor(u);
+        if (list != null) {
+            Unit moved = list.removeAt(slotById[id]);
+            if (moved != null) {
+                slotById[moved.getEntityId()] = slotById[id];
+            }
+        }
+        byId[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = java.util.Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+        u.setEntityId(NO_ID);
+        return true;
+    }
+
+    /**
+     * @return true si la entidad está registrada en este registro
+     */
+    public boolean contains(Unit u) {
+        if (u == null) return false;
+        int id = u.getEntityId();
+        return id >= 0 && id < byId.length && byId[id] == u;
+    }
+
+    /**
+     * @param id id de la entidad
+     * @return entidad con ese id o null si no existe
+     */
+    public Unit get(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * Quita todas las entidades.
+     */
+    public void clear() {
+        for (int id = 0; id < nextId; id++) {
+            if (byId[id] != null) {
+                byId[id].setEntityId(NO_ID);
+                byId[id] = null;
+            }
+        }
+        freeCount = 0;
+        nextId = 0;
+        monsters.clear();
+        fruits.clear();
+        players.clear();
+    }
+
+    public int size() {
+        return monsters.size + fruits.size + players.size;
+    }
+
+    public int getMonsterCount() {
+        return monsters.size;
+    }
+
+    public Monster getMonster(int i) {
+        return (Monster) monsters.items[i];
+    }
+
+    public int getFruitCount() {
+        return fruits.size;
+    }
+
+    public Fruit getFruit(int i) {
+        return (Fruit) fruits.items[i];
+    }
+
+    public int getPlayerCount() {
+        return players.size;
+    }
+
+    public Player getPlayer(int i) {
+        return (Player) players.items[i];
+    }
+
+    /**
+     * Copia los monstruos registrados al arreglo dado, para recorrerlos
+     * aunque el registro cambie durante el recorrido.
+     *
+     * @param dest arreglo destino con al menos getMonsterCount() posiciones
+     * @return cantidad de monstruos copiados
+     */
+    public int copyMonsters(Monster[] dest) {
+        System.arraycopy(monsters.items, 0, dest, 0, monsters.size);
+        return monsters.size;
+    }
+
+    /**
+     * Copia las frutas registradas al arreglo dado.
+     *
+     * @param dest arreglo destino con al menos getFruitCount() posiciones
+     * @return cantidad de frutas copiadas
+     */
+    public int copyFruits(Fruit[] dest) {
+        System.arraycopy(fruits.items, 0, dest, 0, fruits.size);
+        return fruits.size;
+    }
+
+    private KindList listFor(Unit u) {
+        if (u.isMonster()) return monsters;
+        if (u.isFruit()) return fruits;
+        if (u.isPlayer()) return players;
+        return null;
+    }
+
+    /**
+     * Arreglo denso de entidades de un mismo tipo.
+     */
+    private static class KindList implements Serializable {
+        private Unit[] items = new Unit[16];
+        private int size;
+
+        private int add(Unit u) {
+            if (size == items.length) {
+                items = java.util.Arrays.copyOf(items, size * 2);
+            }
+            items[size] = u;
+            return size++;
+        }
+
+        /**
+         * Quita el elemento de la posición dada moviendo el último a su lugar.
+         *
+         * @return el elemento que cambió de posición, o null si no se movió ninguno
+         */
+        private Unit removeAt(int slot) {
+            int last = --size;
+            Unit moved = null;
+            if (slot != last) {
+                moved = items[last];
+                items[slot] = moved;
+            }
+            items[last] = null;
+            return moved;
+        }
+
+        private void clear() {
+            java.util.Arrays.fill(items, 0, size, null);
+            size = 0;
+        }
+    }
+}
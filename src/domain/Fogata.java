@@ -1,4 +1,5 @@
 package domain;
+import java.io.*;
 
 public class Fogata extends Block {
 
@@ -9,7 +10,7 @@ public class Fogata extends Block {
     public Fogata(BadIceCream board, int row, int column) {
         super(board, row, column);
         this.isActive = false;            
-        this.creationTime = System.currentTimeMillis();
+        this.creationTime = board.getClock().currentTimeMillis();
         this.setHasFogata(true);          
     }
 
@@ -18,11 +19,25 @@ public class Fogata extends Block {
         return true;
     }
 
+    /**
+     * @return true si ya pasaron ACTIVATION_DELAY ms de juego desde que se
+     *         creó. Solo consulta el reloj: no cambia la fogata ni su celda.
+     */
     public boolean isActive() {
-        if (!isActive && System.currentTimeMillis() - creationTime >= ACTIVATION_DELAY) {
-            isActive = true;
-        }
-        return isActive;
+        return isActive || board.getClock().currentTimeMillis() - creationTime >= ACTIVATION_DELAY;
+    }
+
+    /**
+     * Enciende la fogata si ya le toca y marca su celda como cambiada para
+     * que la interfaz la vuelva a pintar. El tablero la llama en cada frame.
+     *
+     * @return true si se encendió en esta llamada
+     */
+    public boolean updateActivation() {
+        if (isActive || !isActive()) return false;
+        isActive = true;
+        board.markDirty(row, column);
+        return true;
     }
 
     public long getCreationTime() {
@@ -34,12 +49,36 @@ public class Fogata extends Block {
         return "FOGATA";
     }
 
+    @Override
+    public byte getCellCode() {
+        return CellStore.FOGATA;
+    }
+
     @Override
     public boolean isDangerous(){
-        if(this.isActive){
+        if(isActive()){
             return true;
         }
         return false;
     }
-    
+
+    @Override
+    void shiftTimes(long delta) {
+        super.shiftTimes(delta);
+        creationTime += delta;
+    }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(isActive);
+        out.writeLong(creationTime);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        super.readState(in);
+        isActive = in.readBoolean();
+        creationTime = in.readLong();
+    }
 }
\ No newline at end of file
@@ -9,11 +9,21 @@ public abstract class Fruit implements Unit, Serializable, InteractWithPlayer{
     protected int column;
     protected BadIceCream board;
     protected int score;
+    private int entityId = EntityRegistry.NO_ID;
 
     public Fruit(BadIceCream board,int row, int column){
+        this(board, row, column, 0);
+    }
+
+    /**
+     * El puntaje se asigna antes de registrar la fruta en el tablero para que
+     * los contadores de puntaje del tablero lo vean desde el principio.
+     */
+    protected Fruit(BadIceCream board, int row, int column, int score){
         this.board = board;
         this.row = row;
         this.column = column;
+        this.score = score;
         this.board.setFruit(row,column,this);
         this.board.addUnit(this);
     }
@@ -37,7 +47,7 @@ public abstract class Fruit implements Unit, Serializable, InteractWithPlayer{
 
     @Override
     public void changePosition(int newRow, int newColumn) {
-        board.getFruits()[row][column] = null;
+        board.setFruit(row, column, null);
 
         row = newRow;
         column = newColumn;
@@ -52,6 +62,17 @@ public abstract class Fruit implements Unit, Serializable, InteractWithPlayer{
     
     public final void dissapear() {
     	this.board.setFruit(row, column, null);
+    	this.board.removeUnit(this);
+    }
+
+    @Override
+    public int getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public void setEntityId(int id) {
+        entityId = id;
     }
     
     public abstract String getFruitType();
@@ -61,5 +82,15 @@ public abstract class Fruit implements Unit, Serializable, InteractWithPlayer{
         return false;
     }
 
+    /**
+     * Escribe el estado propio de la fruta (contadores, dirección...) que no
+     * se deduce de su tipo y su posición. Lo usa GameSnapshotCodec.
+     */
+    void writeState(DataOutput out) throws IOException { }
+
+    /**
+     * Restaura el estado escrito por writeState.
+     */
+    void readState(DataInput in) throws IOException { }
 }
 
@@ -0,0 +1,23 @@
+package domain;
+import java.io.*;
+
+/**
+ * Reloj del juego. Todas las mecánicas temporales (activación de fogatas,
+ * derretido de hielo sobre baldosas, ciclos de alerta de la maceta) consultan
+ * este reloj en lugar de System.currentTimeMillis(), de modo que las
+ * simulaciones y las pruebas pueden adelantar el tiempo a voluntad.
+ */
+public interface GameClock extends Serializable {
+
+    /**
+     * @return tiempo actual del juego en milisegundos
+     */
+    long currentTimeMillis();
+
+    /**
+     * Avanza el reloj la cantidad indicada. En relojes de tiempo real no hace nada.
+     *
+     * @param millis milisegundos a avanzar
+     */
+    void advance(long millis);
+}
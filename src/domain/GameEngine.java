@@ -0,0 +1,371 @@
+package domain;
+import java.io.*;
+
+/**
+ * Motor de simulación de paso fijo del juego.
+ * Es dueño de todo el pipeline de ticks que antes vivía en los timers de la GUI:
+ * - Cada frame (FRAME_STEP_MILLIS) derrite hielo sobre baldosas y revisa el estado del juego.
+ * - Cada tick lógico (LOGIC_STEP_MILLIS) mueve monstruos, jugadores máquina y frutas.
+ *
+ * No usa ninguna clase de AWT/Swing, por lo que puede avanzarse tan rápido como
+ * permita la CPU (simulaciones, bots, pruebas) o a ritmo de reloj real desde la GUI
+ * mediante update(). Cada frame avanza el GameClock del juego; con un ManualClock
+ * el tiempo de las mecánicas temporales corre a la velocidad de la simulación.
+ *
+ * Para que la interfaz dibuje el movimiento suave sin subir la frecuencia de
+ * ticks, el motor recuerda la celda de cada monstruo y fruta antes del último
+ * tick lógico (getPreviousCell) y cuánto avanzó el tick siguiente
+ * (getTickProgress); el dibujo interpola entre las dos celdas.
+ *
+ * @author Neco-Arc Team
+ * @version 1.0
+ */
+public class GameEngine {
+
+    public static final long FRAME_STEP_MILLIS = 16;
+    public static final long LOGIC_STEP_MILLIS = 500;
+
+    /** Máximo de tiempo real que se intenta recuperar en una sola llamada a update(). */
+    private static final long MAX_CATCH_UP_MILLIS = 1000;
+
+    public static final String RUNNING = "RUNNING";
+    public static final String VICTORY = "VICTORY";
+    public static final String GAME_OVER = "GAME_OVER";
+
+    /** Entradas de los jugadores: las cuatro direcciones de movimiento y la acción. */
+    public static final String UP = "up";
+    public static final String DOWN = "down";
+    public static final String LEFT = "left";
+    public static final String RIGHT = "right";
+    public static final String ACTION = "action";
+
+    private final BadIceCream game;
+    private boolean machinePlayer1;
+    private boolean machinePlayer2;
+
+    private long pendingMillis;
+    private long logicAccumulator;
+    private long simulatedMillis;
+    private long frameCount;
+    private long logicTickCount;
+    private String status;
+    private ActionJournal journal;
+
+    // Celda de cada monstruo y fruta antes del último tick lógico, por id de
+    // entidad; la unidad se guarda para no confundirla con otra que reciba
+    // el mismo id después
+    private int[] previousCells = new int[32];
+    private Unit[] previousUnits = new Unit[32];
+    private long lastLogicTickMillis;
+
+    /**
+     * Crea un motor para el juego dado.
+     *
+     * @param game           juego a simular
+     * @param machinePlayer1 true si el jugador 1 lo controla la máquina
+     * @param machinePlayer2 true si el jugador 2 lo controla la máquina
+     */
+    public GameEngine(BadIceCream game, boolean machinePlayer1, boolean machinePlayer2) {
+        this.game = game;
+        this.machinePlayer1 = machinePlayer1;
+        this.machinePlayer2 = machinePlayer2;
+        this.status = RUNNING;
+    }
+
+    /**
+     * Crea un motor en el que ambos jugadores son humanos.
+     *
+     * @param game juego a simular
+     */
+    public GameEngine(BadIceCream game) {
+        this(game, false, false);
+    }
+
+    /**
+     * Avanza la simulación según el tiempo real transcurrido, ejecutando tantos
+     * frames fijos como quepan. El resto se acumula para la siguiente llamada.
+     *
+     * @param elapsedMillis milisegundos reales desde la última llamada
+     * @throws BadIceCreamException si falla alguna acción del tick
+     */
+    public void update(long elapsedMillis) throws BadIceCreamException {
+        if (elapsedMillis <= 0) return;
+        pendingMillis = Math.min(pendingMillis + elapsedMillis, MAX_CATCH_UP_MILLIS);
+        while (pendingMillis >= FRAME_STEP_MILLIS && RUNNING.equals(status)) {
+            pendingMillis -= FRAME_STEP_MILLIS;
+            step();
+        }
+    }
+
+    /**
+     * Ejecuta un frame fijo: primero el tick lógico si ya toca, después el
+     * derretido de hielo sobre baldosas y la revisión del estado del juego.
+     *
+     * @throws BadIceCreamException si falla alguna acción del tick
+     */
+    public void step() throws BadIceCreamException {
+        if (!RUNNING.equals(status)) return;
+
+        simulatedMillis += FRAME_STEP_MILLIS;
+        frameCount++;
+        game.getClock().advance(FRAME_STEP_MILLIS);
+        logicAccumulator += FRAME_STEP_MILLIS;
+
+        while (logicAccumulator >= LOGIC_STEP_MILLIS) {
+            logicAccumulator -= LOGIC_STEP_MILLIS;
+            stepLogic();
+        }
+
+        game.tickHotTiles();
+        updateStatus();
+
+        if (journal != null) {
+            journal.recordTick(this);
+        }
+    }
+
+    /**
+     * Aplica una entrada de un jugador humano: una dirección gira al jugador y
+     * lo mueve una casilla (revisando después sus interacciones); ACTION
+     * dispara o rompe hielo. Si hay un diario de acciones se anota antes de
+     * aplicarla, de modo que al reproducirlo se obtenga el mismo resultado
+     * aunque la entrada falle.
+     *
+     * @param player 1 o 2
+     * @param input  UP, DOWN, LEFT, RIGHT o ACTION
+     * @return false si el jugador no existe o la partida ya terminó
+     * @throws BadIceCreamException si el movimiento o la acción no se pueden ejecutar
+     */
+    public boolean applyInput(int player, String input) throws BadIceCreamException {
+        if (player != 1 && player != 2) {
+            throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_ACTION);
+        }
+        Player p = (player == 1) ? game.getFirstPlayer() : game.getSecondPlayer();
+        if (p == null || !RUNNING.equals(status)) return false;
+
+        if (journal != null) {
+            journal.recordInput(player, input);
+        }
+
+        if (ACTION.equals(input)) {
+            if (player == 1) {
+                game.shootOrBreakIcePlayer1();
+            } else {
+                game.shootOrBreakIcePlayer2();
+            }
+            return true;
+        }
+
+        p.changeOfView(input);
+        if (player == 1) {
+            game.movePlayer1();
+            game.checkActionsForPlayer1();
+        } else {
+            game.movePlayer2();
+            game.checkActionsForPlayer2();
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta frames fijos hasta cubrir el tiempo simulado indicado
+     * o hasta que termine la partida.
+     *
+     * @param millis milisegundos de juego a simular
+     * @throws BadIceCreamException si falla alguna acción del tick
+     */
+    public void runFor(long millis) throws BadIceCreamException {
+        long frames = millis / FRAME_STEP_MILLIS;
+        for (long i = 0; i < frames && RUNNING.equals(status); i++) {
+            step();
+        }
+    }
+
+    /**
+     * Simula la partida hasta que termine o hasta agotar el tiempo máximo.
+     *
+     * @param maxMillis límite de milisegundos de juego a simular
+     * @return estado final (RUNNING si se agotó el tiempo)
+     * @throws BadIceCreamException si falla alguna acción del tick
+     */
+    public String runUntilFinished(long maxMillis) throws BadIceCreamException {
+        runFor(maxMillis);
+        return status;
+    }
+
+    /**
+     * Tick lógico: monstruos, jugadores máquina y frutas, en ese orden.
+     */
+    private void stepLogic() throws BadIceCreamException {
+        logicTickCount++;
+        recordPreviousCells();
+        game.tickMonsters();
+
+        if (machinePlayer1 && game.getFirstPlayer() != null) {
+            game.moveMachinePlayer1();
+        }
+        if (machinePlayer2 && game.getSecondPlayer() != null) {
+            game.moveMachinePlayer2();
+        }
+
+        game.tickFruits();
+    }
+
+    /**
+     * Revisa si la partida terminó (ambos jugadores muertos o fase 2 limpia)
+     * y avanza de fase cuando se recogen todas las frutas de la fase 1.
+     */
+    private void updateStatus() throws BadIceCreamException {
+        if (game.getFirstPlayer() == null && game.getSecondPlayer() == null) {
+            status = GAME_OVER;
+            return;
+        }
+        if (game.isPhaseCleared()) {
+            if (game.getPhase() == 1) {
+                game.goToNextPhase();
+            } else {
+                status = VICTORY;
+            }
+        }
+    }
+
+    /**
+     * Guarda la celda de cada monstruo y fruta antes de moverlos y el
+     * momento del tick.
+     */
+    private void recordPreviousCells() {
+        java.util.Arrays.fill(previousUnits, null);
+        EntityRegistry units = game.getEntityRegistry();
+        for (int i = 0; i < units.getMonsterCount(); i++) {
+            recordPreviousCell(units.getMonster(i));
+        }
+        for (int i = 0; i < units.getFruitCount(); i++) {
+            recordPreviousCell(units.getFruit(i));
+        }
+        // Momento exacto en que tocaba el tick, aunque haya caído dentro de un frame
+        lastLogicTickMillis = simulatedMillis - logicAccumulator;
+    }
+
+    private void recordPreviousCell(Unit u) {
+        int id = u.getEntityId();
+        if (id < 0) return;
+        if (id >= previousUnits.length) {
+            int size = Math.max(previousUnits.length * 2, id + 1);
+            previousCells = java.util.Arrays.copyOf(previousCells, size);
+            previousUnits = java.util.Arrays.copyOf(previousUnits, size);
+        }
+        previousCells[id] = u.getRow() * game.getWidth() + u.getColumn();
+        previousUnits[id] = u;
+    }
+
+    /**
+     * Celda en la que estaba la unidad justo antes del último tick lógico,
+     * como índice fila * ancho + columna. Solo se guarda para monstruos y
+     * frutas, que se mueven en los ticks; los jugadores se mueven al
+     * presionar una tecla y se dibujan siempre en su celda actual.
+     *
+     * @param u unidad del juego
+     * @return celda anterior, o -1 si la unidad no existía en el último tick
+     *         o no es un monstruo ni una fruta
+     */
+    public int getPreviousCell(Unit u) {
+        int id = u.getEntityId();
+        if (id < 0 || id >= previousUnits.length || previousUnits[id] != u) return -1;
+        return previousCells[id];
+    }
+
+    /**
+     * @return tiempo simulado, en milisegundos, del último tick lógico
+     */
+    public long getLastLogicTickMillis() {
+        return lastLogicTickMillis;
+    }
+
+    /**
+     * Fracción del intervalo entre ticks lógicos que ya pasó desde el último
+     * tick, contando el tiempo que update() recibió y todavía no simuló. El
+     * dibujo la usa para ubicar a cada unidad entre su celda anterior y la
+     * actual.
+     *
+     * @return valor entre 0 (recién ocurrió el tick) y 1
+     */
+    public double getTickProgress() {
+        return Math.min(1.0, (double) (logicAccumulator + pendingMillis) / LOGIC_STEP_MILLIS);
+    }
+
+    public BadIceCream getGame() {
+        return game;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isRunning() {
+        return RUNNING.equals(status);
+    }
+
+    public long getSimulatedMillis() {
+        return simulatedMillis;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getLogicTickCount() {
+        return logicTickCount;
+    }
+
+    public boolean isMachinePlayer1() {
+        return machinePlayer1;
+    }
+
+    public boolean isMachinePlayer2() {
+        return machinePlayer2;
+    }
+
+    public void setMachinePlayers(boolean machinePlayer1, boolean machinePlayer2) {
+        this.machinePlayer1 = machinePlayer1;
+        this.machinePlayer2 = machinePlayer2;
+    }
+
+    public ActionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @param journal diario donde anotar entradas y frames, o null para no anotar
+     */
+    public void setJournal(ActionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Escribe los contadores del motor (modo de los jugadores, frames, ticks
+     * lógicos y tiempo acumulado) para los puntos de control del diario.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(machinePlayer1);
+        out.writeBoolean(machinePlayer2);
+        out.writeLong(simulatedMillis);
+        out.writeLong(frameCount);
+        out.writeLong(logicTickCount);
+        out.writeLong(logicAccumulator);
+        out.writeUTF(status);
+    }
+
+    /**
+     * Restaura los contadores escritos por writeState.
+     */
+    void readState(DataInput in) throws IOException {
+        machinePlayer1 = in.readBoolean();
+        machinePlayer2 = in.readBoolean();
+        simulatedMillis = in.readLong();
+        frameCount = in.readLong();
+        logicTickCount = in.readLong();
+        logicAccumulator = in.readLong();
+        status = in.readUTF();
+        pendingMillis = 0;
+    }
+}
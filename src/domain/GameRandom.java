@@ -0,0 +1,104 @@
+package domain;
+import java.io.*;
+
+/**
+ * Fuente de aleatoriedad de una partida (SplitMix64).
+ * Cada BadIceCream tiene la suya y todas las entidades sacan sus números de
+ * ella, así que una partida se puede reproducir a partir de su semilla y
+ * varias partidas en paralelo no compiten por un generador estático.
+ *
+ * No crea objetos al generar números y es serializable, por lo que el estado
+ * del generador se guarda junto con la partida. split() crea un generador
+ * independiente para un consumidor aparte (por ejemplo, los bots) sin alterar
+ * la secuencia del resto del juego más allá de esa llamada.
+ */
+public class GameRandom implements Serializable {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private long state;
+
+    /**
+     * @param seed semilla inicial
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * Crea un generador con una semilla tomada del reloj del sistema.
+     */
+    public GameRandom() {
+        this(mix(System.nanoTime() ^ System.currentTimeMillis()));
+    }
+
+    /**
+     * @return semilla con la que se creó el generador
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * @param bound límite superior (exclusivo), mayor que 0
+     * @return entero uniforme en [0, bound)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound debe ser positivo");
+        }
+        // Multiplicación de 32x32 bits: sin división y con sesgo despreciable
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return double uniforme en [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Crea un generador independiente derivado de este.
+     *
+     * @return nuevo generador con su propia secuencia
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong());
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return estado interno actual, para guardarlo en una partida
+     */
+    long getState() {
+        return state;
+    }
+
+    /**
+     * @param state estado interno devuelto antes por getState
+     */
+    void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,377 @@
+package domain;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato binario de las partidas guardadas.
+ *
+ * En lugar de serializar todo el grafo de objetos con ObjectOutputStream
+ * (cada bloque con su referencia al tablero, nombres de clases, Strings de
+ * dirección en cada unidad), escribe solo lo necesario para reconstruir la
+ * partida:
+ * - Encabezado: "BICS" y la versión del formato (2 bytes).
+ * - Tablero: alto, ancho, un byte con el tipo de bloque por celda y, en
+ *   orden de celdas, el estado de cada bloque (hazard cubierto y temporizadores).
+ * - Entidades: jugadores, monstruos y frutas en el orden del registro, cada
+ *   una como tipo (1 byte), fila, columna y su estado propio (writeState).
+ * - Estado del juego: nivel, fase, puntajes, sabores elegidos, reloj,
+ *   generadores aleatorios y frutas pendientes de cada fase.
+ *
+ * Al leer se crea un BadIceCream nuevo y se recrean las entidades con sus
+ * constructores, en el mismo orden, y luego se les restaura el estado. El
+ * estado del juego va al final para que lo que hagan los constructores con
+ * el reloj o el generador aleatorio no quede en la partida restaurada.
+ */
+public class GameSnapshotCodec {
+
+    public static final byte[] MAGIC = {'B', 'I', 'C', 'S'};
+    public static final int VERSION = 1;
+
+    private static final String CORRUPT = "Archivo de juego corrupto o inválido";
+
+    private static final String[] DIRECTIONS = {"up", "down", "left", "right"};
+    private static final int NO_DIRECTION = 0xFF;
+
+    // Tipos de entidad
+    private static final int TROLL = 0;
+    private static final int CALAMAR = 1;
+    private static final int MACETA = 2;
+    private static final int NARVAL = 3;
+
+    private static final int PLATANO = 0;
+    private static final int UVA = 1;
+    private static final int CACTUS = 2;
+    private static final int CEREZA = 3;
+    private static final int PINA = 4;
+
+    // Marcas de los jugadores
+    private static final int IS_PLAYER1 = 1;
+    private static final int IS_PLAYER2 = 2;
+
+    private GameSnapshotCodec() {
+    }
+
+    /**
+     * @param bytes primeros bytes de un archivo
+     * @return true si empiezan con la firma de este formato
+     */
+    public static boolean isSnapshot(byte[] bytes) {
+        if (bytes.length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Codifica la partida.
+     *
+     * @param game partida a guardar
+     * @return bytes de la partida
+     */
+    public static byte[] encode(BadIceCream game) throws BadIceCreamException {
+        SnapshotBuffer bytes = new SnapshotBuffer(1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(game, out);
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al guardar el juego: " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica una partida.
+     *
+     * @param bytes bytes escritos por encode
+     * @return partida restaurada
+     * @throws BadIceCreamException si los bytes no son una partida válida de esta versión
+     */
+    public static BadIceCream decode(byte[] bytes) throws BadIceCreamException {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decodifica una partida directamente desde un buffer (por ejemplo, una
+     * región mapeada de un archivo), desde su posición hasta su límite, sin
+     * copiarla antes a un arreglo. La posición del buffer no cambia.
+     *
+     * @param bytes buffer con los bytes escritos por encode
+     * @return partida restaurada
+     * @throws BadIceCreamException si los bytes no son una partida válida de esta versión
+     */
+    public static BadIceCream decode(ByteBuffer bytes) throws BadIceCreamException {
+        try (DataInputStream in = new DataInputStream(new SnapshotInput(bytes.duplicate()))) {
+            return read(in);
+        } catch (IOException | java.nio.BufferUnderflowException e) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+    }
+
+    /**
+     * Escribe la partida en el flujo dado.
+     */
+    public static void write(BadIceCream game, DataOutput out) throws IOException {
+        out.write(MAGIC);
+        out.writeShort(VERSION);
+
+        int height = game.getHeight();
+        int width = game.getWidth();
+        out.writeByte(height);
+        out.writeByte(width);
+        CellStore cells = game.getCellStore();
+        byte[] grid = new byte[height * width];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                grid[r * width + c] = (byte) cells.getBlockCode(r, c);
+            }
+        }
+        out.write(grid);
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                Block b = cells.getBlock(r, c);
+                if (b != null) {
+                    b.writeState(out);
+                }
+            }
+        }
+
+        EntityRegistry units = game.getEntityRegistry();
+        out.writeShort(units.getPlayerCount());
+        for (int i = 0; i < units.getPlayerCount(); i++) {
+            Player p = units.getPlayer(i);
+            int flags = (p == game.getPlayer1() ? IS_PLAYER1 : 0) | (p == game.getPlayer2() ? IS_PLAYER2 : 0);
+            out.writeByte(flags);
+            writePosition(out, p);
+            p.writeState(out);
+        }
+        out.writeShort(units.getMonsterCount());
+        for (int i = 0; i < units.getMonsterCount(); i++) {
+            Monster m = units.getMonster(i);
+            out.writeByte(monsterKind(m));
+            writePosition(out, m);
+            m.writeState(out);
+        }
+        out.writeShort(units.getFruitCount());
+        for (int i = 0; i < units.getFruitCount(); i++) {
+            Fruit f = units.getFruit(i);
+            out.writeByte(fruitKind(f));
+            writePosition(out, f);
+            f.writeState(out);
+        }
+
+        game.writeState(out);
+    }
+
+    /**
+     * Lee una partida del flujo dado.
+     *
+     * @throws BadIceCreamException si el contenido no es una partida válida de esta versión
+     */
+    public static BadIceCream read(DataInput in) throws IOException, BadIceCreamException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!isSnapshot(magic) || in.readUnsignedShort() != VERSION) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        BadIceCream game = new BadIceCream(1, 0L);
+
+        int height = in.readUnsignedByte();
+        int width = in.readUnsignedByte();
+        if (height != game.getHeight() || width != game.getWidth()) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        byte[] grid = new byte[height * width];
+        in.readFully(grid);
+        for (int i = 0; i < grid.length; i++) {
+            if (grid[i] == CellStore.NONE) continue;
+            Block b = createBlock(game, grid[i], i / width, i % width);
+            b.readState(in);
+        }
+
+        int players = in.readUnsignedShort();
+        for (int i = 0; i < players; i++) {
+            int flags = in.readUnsignedByte();
+            int row = readCoordinate(in, height);
+            int col = readCoordinate(in, width);
+            Player p = new Player(game, row, col);
+            p.readState(in);
+            if ((flags & IS_PLAYER1) != 0) game.setPlayer1(p);
+            if ((flags & IS_PLAYER2) != 0) game.setPlayer2(p);
+        }
+        int monsters = in.readUnsignedShort();
+        for (int i = 0; i < monsters; i++) {
+            int kind = in.readUnsignedByte();
+            Monster m = createMonster(game, kind, readCoordinate(in, height), readCoordinate(in, width));
+            m.readState(in);
+        }
+        int fruits = in.readUnsignedShort();
+        for (int i = 0; i < fruits; i++) {
+            int kind = in.readUnsignedByte();
+            Fruit f = createFruit(game, kind, readCoordinate(in, height), readCoordinate(in, width));
+            f.readState(in);
+        }
+
+        game.readState(in);
+        return game;
+    }
+
+    /**
+     * Escribe una dirección de vista ("up", "down", "left", "right") en un byte.
+     * Cualquier otro valor se escribe completo.
+     */
+    static void writeDirection(DataOutput out, String direction) throws IOException {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i].equals(direction)) {
+                out.writeByte(i);
+                return;
+            }
+        }
+        out.writeByte(NO_DIRECTION);
+        out.writeBoolean(direction != null);
+        if (direction != null) {
+            out.writeUTF(direction);
+        }
+    }
+
+    static String readDirection(DataInput in) throws IOException {
+        int code = in.readUnsignedByte();
+        if (code < DIRECTIONS.length) {
+            return DIRECTIONS[code];
+        }
+        if (code != NO_DIRECTION) {
+            throw new IOException(CORRUPT);
+        }
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writePosition(DataOutput out, Unit u) throws IOException {
+        out.writeByte(u.getRow());
+        out.writeByte(u.getColumn());
+    }
+
+    private static int readCoordinate(DataInput in, int limit) throws IOException {
+        int v = in.readUnsignedByte();
+        if (v >= limit) {
+            throw new IOException(CORRUPT);
+        }
+        return v;
+    }
+
+    /**
+     * ByteArrayOutputStream sin sincronización: DataOutputStream escribe byte
+     * a byte y el buffer solo lo usa el hilo que codifica.
+     */
+    private static final class SnapshotBuffer extends ByteArrayOutputStream {
+
+        SnapshotBuffer(int size) {
+            super(size);
+        }
+
+        @Override
+        public void write(int b) {
+            if (count == buf.length) {
+                buf = java.util.Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (count + len > buf.length) {
+                buf = java.util.Arrays.copyOf(buf, Math.max(buf.length * 2, count + len));
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Flujo de entrada sin sincronización sobre un ByteBuffer, que puede ser
+     * un arreglo o una región mapeada de un archivo.
+     */
+    private static final class SnapshotInput extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        SnapshotInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    private static Block createBlock(BadIceCream game, int code, int row, int col) throws IOException {
+        switch (code) {
+            case CellStore.ICE:
+                return new IceBlock(game, row, col);
+            case CellStore.DECORATION:
+                return new DecorationBlock(game, row, col);
+            case CellStore.FOGATA:
+                return new Fogata(game, row, col);
+            case CellStore.BALDOSA:
+                return new BaldosaCaliente(game, row, col);
+            default:
+                throw new IOException(CORRUPT);
+        }
+    }
+
+    private static int monsterKind(Monster m) throws IOException {
+        if (m instanceof Troll) return TROLL;
+        if (m instanceof CalamarNaranja) return CALAMAR;
+        if (m instanceof Maceta) return MACETA;
+        if (m instanceof Narval) return NARVAL;
+        throw new IOException("Monstruo sin formato de guardado: " + m.getMonsterType());
+    }
+
+    private static Monster createMonster(BadIceCream game, int kind, int row, int col) throws IOException {
+        switch (kind) {
+            case TROLL:
+                return new Troll(game, row, col);
+            case CALAMAR:
+                return new CalamarNaranja(game, row, col);
+            case MACETA:
+                return new Maceta(game, row, col);
+            case NARVAL:
+                return new Narval(game, row, col);
+            default:
+                throw new IOException(CORRUPT);
+        }
+    }
+
+    private static int fruitKind(Fruit f) throws IOException {
+        if (f instanceof Platano) return PLATANO;
+        if (f instanceof Uva) return UVA;
+        if (f instanceof Cactus) return CACTUS;
+        if (f instanceof Cereza) return CEREZA;
+        if (f instanceof Piña) return PINA;
+        throw new IOException("Fruta sin formato de guardado: " + f.getFruitType());
+    }
+
+    private static Fruit createFruit(BadIceCream game, int kind, int row, int col) throws IOException {
+        switch (kind) {
+            case PLATANO:
+                return new Platano(game, row, col);
+            case UVA:
+                return new Uva(game, row, col);
+            case CACTUS:
+                return new Cactus(game, row, col);
+            case CEREZA:
+                return new Cereza(game, row, col);
+            case PINA:
+                return new Piña(game, row, col);
+            default:
+                throw new IOException(CORRUPT);
+        }
+    }
+}
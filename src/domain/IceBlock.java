@@ -23,11 +23,17 @@ public class IceBlock extends Block {
     
     public void setHasFogata(boolean b) {
     	hasFogata = b;
+    	board.refreshBlockCode(row, column, this);
     }
 
     @Override
     public String getBlockType() {
         return "ICE";
     }
+
+    @Override
+    public byte getCellCode() {
+        return CellStore.ICE;
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+package domain;
+import java.nio.*;
+
+/**
+ * Formato binario de niveles. Guarda lo mismo que el formato de texto, pero
+ * se decodifica sin partir líneas ni convertir números: leer un nivel es
+ * recorrer un arreglo de bytes.
+ *
+ * Estructura (enteros big-endian):
+ * - Encabezado: "BICL", versión (1 byte), alto y ancho (1 byte cada uno).
+ * - Tabla de entidades: cantidad (2 bytes) y por entidad clase, tipo, fila y
+ *   columna (1 byte cada uno). Las dos primeras son los jugadores 1 y 2; el
+ *   resto, los monstruos en orden.
+ * - Capas de bloques: cantidad (1 byte) y por capa el tipo de bloque (1 byte)
+ *   seguido de un bit por celda (índice fila * ancho + columna) empaquetado
+ *   en longs.
+ * - Frutas por fase: cantidad de fases (1 byte) y por fase la cantidad de
+ *   frutas (2 bytes) y por fruta tipo, fila y columna (1 byte cada uno).
+ *
+ * Los tipos se guardan como su índice en las tablas de LevelData.
+ */
+public class LevelBinaryFormat {
+
+    public static final byte[] MAGIC = {'B', 'I', 'C', 'L'};
+    public static final int VERSION = 1;
+
+    private static final int KIND_PLAYER = 0;
+    private static final int KIND_MONSTER = 1;
+
+    private LevelBinaryFormat() {
+    }
+
+    /**
+     * @param bytes contenido de un archivo
+     * @return true si empieza con la firma del formato binario
+     */
+    public static boolean isBinary(byte[] bytes) {
+        if (bytes.length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Codifica un nivel.
+     *
+     * @param data nivel a codificar
+     * @return bytes del nivel en formato binario
+     * @throws BadIceCreamException si el nivel tiene posiciones que el formato
+     *                              no puede representar o dos bloques en una celda
+     */
+    public static byte[] write(LevelData data) throws BadIceCreamException {
+        int height = data.getHeight();
+        int width = data.getWidth();
+        if (height < 1 || height > 255 || width < 1 || width > 255) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        if (data.getPlayer1() == null || data.getPlayer2() == null) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        int words = (height * width + 63) >>> 6;
+        int entities = 2 + data.getMonsters().size();
+        if (entities > 0xFFFF) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        int size = MAGIC.length + 3 + 2 + 4 * entities + 1 + LevelData.BLOCK_TYPES.length * (1 + 8 * words) + 1;
+        for (int p = 1; p <= LevelData.PHASES; p++) {
+            if (data.getFruits(p).size() > 0xFFFF) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            size += 2 + 3 * data.getFruits(p).size();
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(MAGIC);
+        buf.put((byte) VERSION);
+        buf.put((byte) height);
+        buf.put((byte) width);
+
+        buf.putShort((short) entities);
+        putEntity(buf, KIND_PLAYER, LevelData.PLAYER_TYPES, data.getPlayer1());
+        putEntity(buf, KIND_PLAYER, LevelData.PLAYER_TYPES, data.getPlayer2());
+        for (LevelData.Entry e : data.getMonsters()) {
+            putEntity(buf, KIND_MONSTER, LevelData.MONSTER_TYPES, e);
+        }
+
+        long[][] layers = new long[LevelData.BLOCK_TYPES.length][words];
+        long[] occupied = new long[words];
+        for (LevelData.Entry e : data.getBlocks()) {
+            if (e.getRow() < 0 || e.getRow() >= height || e.getColumn() < 0 || e.getColumn() >= width) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
+            }
+            int i = e.getRow() * width + e.getColumn();
+            if ((occupied[i >>> 6] & (1L << i)) != 0) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
+            }
+            occupied[i >>> 6] |= 1L << i;
+            layers[code(LevelData.BLOCK_TYPES, e.getType())][i >>> 6] |= 1L << i;
+        }
+        buf.put((byte) layers.length);
+        for (int t = 0; t < layers.length; t++) {
+            buf.put((byte) t);
+            for (long w : layers[t]) {
+                buf.putLong(w);
+            }
+        }
+
+        buf.put((byte) LevelData.PHASES);
+        for (int p = 1; p <= LevelData.PHASES; p++) {
+            buf.putShort((short) data.getFruits(p).size());
+            for (LevelData.Entry e : data.getFruits(p)) {
+                buf.put((byte) code(LevelData.FRUIT_TYPES, e.getType()));
+                putPosition(buf, e);
+            }
+        }
+        return buf.array();
+    }
+
+    /**
+     * Decodifica un nivel.
+     *
+     * @param bytes contenido completo del archivo
+     * @return nivel leído
+     * @throws BadIceCreamException si los bytes no son un nivel válido de esta versión
+     */
+    public static LevelData read(byte[] bytes) throws BadIceCreamException {
+        if (!isBinary(bytes)) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes, MAGIC.length, bytes.length - MAGIC.length);
+            if ((buf.get() & 0xFF) != VERSION) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            int height = buf.get() & 0xFF;
+            int width = buf.get() & 0xFF;
+            if (height == 0 || width == 0) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            LevelData data = new LevelData(height, width);
+
+            int entities = buf.getShort() & 0xFFFF;
+            if (entities < 2) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            for (int n = 0; n < entities; n++) {
+                int kind = buf.get() & 0xFF;
+                int type = buf.get() & 0xFF;
+                int row = buf.get() & 0xFF;
+                int col = buf.get() & 0xFF;
+                if (n < 2) {
+                    String name = type(LevelData.PLAYER_TYPES, type, kind == KIND_PLAYER);
+                    if (n == 0) {
+                        data.setPlayer1(name, row, col);
+                    } else {
+                        data.setPlayer2(name, row, col);
+                    }
+                } else {
+                    data.addMonster(type(LevelData.MONSTER_TYPES, type, kind == KIND_MONSTER), row, col);
+                }
+            }
+
+            int words = (height * width + 63) >>> 6;
+            int layers = buf.get() & 0xFF;
+            for (int l = 0; l < layers; l++) {
+                String name = type(LevelData.BLOCK_TYPES, buf.get() & 0xFF, true);
+                for (int w = 0; w < words; w++) {
+                    long bits = buf.getLong();
+                    while (bits != 0) {
+                        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        if (i >= height * width) {
+                            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+                        }
+                        data.addBlock(name, i / width, i % width);
+                    }
+                }
+            }
+
+            int phases = buf.get() & 0xFF;
+            if (phases > LevelData.PHASES) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            for (int p = 1; p <= phases; p++) {
+                int count = buf.getShort() & 0xFFFF;
+                for (int n = 0; n < count; n++) {
+                    String name = type(LevelData.FRUIT_TYPES, buf.get() & 0xFF, true);
+                    int row = buf.get() & 0xFF;
+                    int col = buf.get() & 0xFF;
+                    data.addFruit(p, name, row, col);
+                }
+            }
+            if (buf.hasRemaining()) {
+                throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+            }
+            return data;
+        } catch (BufferUnderflowException e) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+    }
+
+    private static void putEntity(ByteBuffer buf, int kind, String[] table, LevelData.Entry e) throws BadIceCreamException {
+        buf.put((byte) kind);
+        buf.put((byte) code(table, e.getType()));
+        putPosition(buf, e);
+    }
+
+    private static void putPosition(ByteBuffer buf, LevelData.Entry e) throws BadIceCreamException {
+        if (e.getRow() < 0 || e.getRow() > 255 || e.getColumn() < 0 || e.getColumn() > 255) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
+        }
+        buf.put((byte) e.getRow());
+        buf.put((byte) e.getColumn());
+    }
+
+    private static int code(String[] table, String type) throws BadIceCreamException {
+        int code = LevelData.typeCode(table, type);
+        if (code < 0) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        return code;
+    }
+
+    private static String type(String[] table, int code, boolean valid) throws BadIceCreamException {
+        if (!valid || code >= table.length) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_LEVEL_FORMAT);
+        }
+        return table[code];
+    }
+}
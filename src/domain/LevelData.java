@@ -0,0 +1,584 @@
+package domain;
+import java.util.*;
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Descripción de un nivel independiente del tablero: jugadores, monstruos,
+ * bloques y frutas de cada fase, con sus tipos tal como aparecen en los
+ * archivos de niveles ("vainilla", "troll", "iceblock", "cereza", ...).
+ *
+ * Es el punto de encuentro entre los formatos de archivo y el juego: el
+ * formato de texto (level1.txt, ...) y el binario (LevelBinaryFormat) se
+ * leen y escriben como LevelData, y BadIceCream.loadLevel lo vuelca al
+ * tablero. Así ambos formatos se convierten entre sí sin pérdida.
+ *
+ * Aquí solo se validan la sintaxis y los tipos; las posiciones se validan al
+ * cargar el nivel en el tablero.
+ */
+public class LevelData implements Serializable {
+
+    public static final String MODE = "jugador vs jugador";
+    public static final int PHASES = 2;
+
+    // Tablas de tipos: el índice de cada tipo es su código en el formato binario
+    public static final String[] PLAYER_TYPES = {"vainilla", "chocolate", "fresa"};
+    public static final String[] MONSTER_TYPES = {"troll", "calamar", "maceta"};
+    public static final String[] BLOCK_TYPES = {"iceblock", "decoration", "fogata", "baldosa"};
+    public static final String[] FRUIT_TYPES = {"platano", "uva", "cactus", "cereza", "pina"};
+
+    /**
+     * Símbolo de cada tipo de bloque en las secciones "map" (mismo orden que
+     * BLOCK_TYPES). '.' o un espacio indican una celda sin bloque.
+     */
+    public static final String MAP_SYMBOLS = "#XFB";
+    public static final char MAP_EMPTY = '.';
+
+    // Primera palabra de las líneas del cuerpo
+    private static final String[] CATEGORIES = {"monster", "block", "fruit", "phase", "row", "column", "rect", "map"};
+    private static final int MONSTER = 0;
+    private static final int BLOCK = 1;
+    private static final int FRUIT = 2;
+    private static final int PHASE = 3;
+    private static final int ROW = 4;
+    private static final int COLUMN = 5;
+    private static final int RECT = 6;
+    private static final int MAP = 7;
+
+    private static final String PLAYER_TYPE_ERROR = "Tipo de jugador inválido. Use: vainilla, chocolate o fresa";
+    private static final String CATEGORY_ERROR = BadIceCreamException.INVALID_LEVEL_FORMAT + ": se esperaba monster, block, fruit, phase, row, column, rect o map";
+    private static final String EXTRA_FIELDS = BadIceCreamException.INVALID_LEVEL_FORMAT + ": sobran campos en la línea";
+
+    private final int height;
+    private final int width;
+    private Entry player1;
+    private Entry player2;
+    private final ArrayList<Entry> monsters = new ArrayList<>();
+    private final ArrayList<Entry> blocks = new ArrayList<>();
+    private final ArrayList<ArrayList<Entry>> fruits = new ArrayList<>();
+
+    /**
+     * Crea un nivel vacío para un tablero de 16x16.
+     */
+    public LevelData() {
+        this(16, 16);
+    }
+
+    /**
+     * @param height número de filas del tablero
+     * @param width  número de columnas del tablero
+     */
+    public LevelData(int height, int width) {
+        this.height = height;
+        this.width = width;
+        for (int i = 0; i < PHASES; i++) {
+            fruits.add(new ArrayList<Entry>());
+        }
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public Entry getPlayer1() {
+        return player1;
+    }
+
+    public Entry getPlayer2() {
+        return player2;
+    }
+
+    public void setPlayer1(String type, int row, int col) {
+        player1 = new Entry(type, row, col);
+    }
+
+    public void setPlayer2(String type, int row, int col) {
+        player2 = new Entry(type, row, col);
+    }
+
+    public void addMonster(String type, int row, int col) {
+        monsters.add(new Entry(type, row, col));
+    }
+
+    public void addBlock(String type, int row, int col) {
+        blocks.add(new Entry(type, row, col));
+    }
+
+    /**
+     * Agrega un bloque del tipo dado en cada celda del rectángulo entre las
+     * dos esquinas (incluidas, en cualquier orden).
+     *
+     * @throws BadIceCreamException si alguna esquina está fuera del tablero
+     */
+    public void fillBlocks(String type, int row1, int col1, int row2, int col2) throws BadIceCreamException {
+        if (!inBounds(row1, col1) || !inBounds(row2, col2)) {
+            throw new BadIceCreamException(BadIceCreamException.INVALID_POSITION);
+        }
+        for (int r = Math.min(row1, row2); r <= Math.max(row1, row2); r++) {
+            for (int c = Math.min(col1, col2); c <= Math.max(col1, col2); c++) {
+                blocks.add(new Entry(type, r, c));
+            }
+        }
+    }
+
+    public boolean inBounds(int row, int col) {
+        return row >= 0 && row < height && col >= 0 && col < width;
+    }
+
+    /**
+     * @param phase fase (1 o 2) en la que aparece la fruta
+     */
+    public void addFruit(int phase, String type, int row, int col) {
+        fruits.get(phase - 1).add(new Entry(type, row, col));
+    }
+
+    public List<Entry> getMonsters() {
+        return Collections.unmodifiableList(monsters);
+    }
+
+    public List<Entry> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @param phase fase (1 o 2)
+     * @return frutas de la fase en el orden en que se crean
+     */
+    public List<Entry> getFruits(int phase) {
+        return Collections.unmodifiableList(fruits.get(phase - 1));
+    }
+
+    /**
+     * Lee un nivel de un archivo, detectando si está en formato binario o de texto.
+     *
+     * @param filename nombre o ruta del archivo
+     * @return nivel leído
+     * @throws BadIceCreamException si el archivo no existe o su formato es inválido
+     */
+    public static LevelData load(String filename) throws BadIceCreamException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+            in.mark(LevelBinaryFormat.MAGIC.length);
+            byte[] head = in.readNBytes(LevelBinaryFormat.MAGIC.length);
+            in.reset();
+            if (LevelBinaryFormat.isBinary(head)) {
+                return LevelBinaryFormat.read(in.readAllBytes());
+            }
+            return readText(new InputStreamReader(in), filename);
+        } catch (FileNotFoundException e) {
+            throw new BadIceCreamException(BadIceCreamException.FILE_NOT_FOUND);
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al leer el archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda el nivel en formato de texto.
+     *
+     * @param filename nombre o ruta del archivo
+     * @throws BadIceCreamException si no se puede escribir
+     */
+    public void saveText(String filename) throws BadIceCreamException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writeText(writer);
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al escribir el archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda el nivel en formato binario.
+     *
+     * @param filename nombre o ruta del archivo
+     * @throws BadIceCreamException si no se puede escribir o el nivel no cabe en el formato
+     */
+    public void saveBinary(String filename) throws BadIceCreamException {
+        byte[] bytes = LevelBinaryFormat.write(this);
+        try {
+            Files.write(Paths.get(filename), bytes);
+        } catch (IOException | InvalidPathException e) {
+            throw new BadIceCreamException("Error al escribir el archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee un nivel en formato de texto.
+     *
+     * @param in texto del nivel
+     * @return nivel leído
+     * @throws BadIceCreamException si el formato o algún tipo es inválido
+     */
+    public static LevelData readText(Reader in) throws BadIceCreamException {
+        return readText(in, "nivel");
+    }
+
+    /**
+     * Lee un nivel en formato de texto: la línea de modo, un jugador por línea
+     * y luego líneas "monster|block|fruit tipo fila columna", con líneas
+     * "phase N" que indican a qué fase pertenecen las frutas siguientes.
+     *
+     * Los bloques también se pueden dar en grupo:
+     * - "row tipo fila col1 col2": un tramo de una fila.
+     * - "column tipo columna fila1 fila2": un tramo de una columna.
+     * - "rect tipo fila1 col1 fila2 col2": un rectángulo lleno.
+     * - "map" seguido de una línea por fila del tablero (desde la fila 0) con
+     *   un símbolo de MAP_SYMBOLS por columna, hasta una línea "end".
+     *
+     * Los errores de formato son LevelFormatException con línea y columna.
+     *
+     * @param in     texto del nivel
+     * @param source nombre del archivo, usado en los mensajes de error
+     * @return nivel leído
+     * @throws BadIceCreamException si el formato o algún tipo es inválido
+     */
+    public static LevelData readText(Reader in, String source) throws BadIceCreamException {
+        try (LevelTokenizer tokens = new LevelTokenizer(in, source)) {
+            LevelData data = new LevelData();
+
+            tokens.expectLine(MODE, BadIceCreamException.INVALID_LEVEL_FORMAT + ": se esperaba \"" + MODE + "\"");
+
+            for (int p = 0; p < 2; p++) {
+                String type = PLAYER_TYPES[tokens.nextKeyword(PLAYER_TYPES, PLAYER_TYPE_ERROR)];
+                int row = tokens.nextInt();
+                int col = tokens.nextInt();
+                tokens.endLine(EXTRA_FIELDS);
+                if (p == 0) {
+                    data.setPlayer1(type, row, col);
+                } else {
+                    data.setPlayer2(type, row, col);
+                }
+            }
+
+            int currentPhase = 1; // por defecto, todo va a fase 1 si no se indica lo contrario
+            while (tokens.skipBlankLines()) {
+                int category = tokens.nextKeyword(CATEGORIES, CATEGORY_ERROR);
+                if (category == PHASE) {
+                    currentPhase = tokens.nextInt();
+                    tokens.endLine(EXTRA_FIELDS);
+                    continue;
+                }
+                if (category == MAP) {
+                    tokens.endLine(EXTRA_FIELDS);
+                    readMap(tokens, data);
+                    continue;
+                }
+                if (category == ROW || category == COLUMN || category == RECT) {
+                    readFill(tokens, data, category);
+                    continue;
+                }
+
+                int type;
+                if (category == MONSTER) {
+                    type = tokens.nextKeyword(MONSTER_TYPES, "Tipo de monstruo inválido. Use: troll, calamar o maceta");
+                } else if (category == BLOCK) {
+                    type = tokens.nextKeyword(BLOCK_TYPES, "Tipo de bloque inválido.");
+                } else {
+                    type = tokens.nextKeyword(FRUIT_TYPES, "Tipo de fruta inválido.");
+                }
+                int row = tokens.nextInt();
+                int col = tokens.nextInt();
+                tokens.endLine(EXTRA_FIELDS);
+
+                if (category == MONSTER) {
+                    data.addMonster(MONSTER_TYPES[type], row, col);
+                } else if (category == BLOCK) {
+                    data.addBlock(BLOCK_TYPES[type], row, col);
+                } else {
+                    // Las fases que el juego no maneja van a la fase 1
+                    data.addFruit(currentPhase >= 1 && currentPhase <= PHASES ? currentPhase : 1, FRUIT_TYPES[type], row, col);
+                }
+            }
+            return data;
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al leer el archivo: " + e.getMessage());
+        }
+    }
+
+    private static void readFill(LevelTokenizer tokens, LevelData data, int category) throws IOException, BadIceCreamException {
+        String type = BLOCK_TYPES[tokens.nextKeyword(BLOCK_TYPES, "Tipo de bloque inválido.")];
+        int r1, c1, r2, c2;
+        if (category == ROW) {
+            r1 = r2 = tokens.nextInt();
+            c1 = tokens.nextInt();
+            c2 = tokens.nextInt();
+        } else if (category == COLUMN) {
+            c1 = c2 = tokens.nextInt();
+            r1 = tokens.nextInt();
+            r2 = tokens.nextInt();
+        } else {
+            r1 = tokens.nextInt();
+            c1 = tokens.nextInt();
+            r2 = tokens.nextInt();
+            c2 = tokens.nextInt();
+        }
+        if (!data.inBounds(r1, c1) || !data.inBounds(r2, c2)) {
+            throw tokens.error(BadIceCreamException.INVALID_POSITION);
+        }
+        tokens.endLine(EXTRA_FIELDS);
+        data.fillBlocks(type, r1, c1, r2, c2);
+    }
+
+    private static void readMap(LevelTokenizer tokens, LevelData data) throws IOException, BadIceCreamException {
+        for (int row = 0; ; row++) {
+            int length = tokens.readRawLine();
+            if (length < 0) {
+                throw tokens.error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": falta \"end\" al final del mapa");
+            }
+            if (tokens.rawLineEquals("end")) return;
+            // Los espacios finales no cuentan como columnas
+            while (length > 0 && tokens.rawChar(length - 1) <= ' ') {
+                length--;
+            }
+            if (length > 0 && row >= data.height) {
+                throw tokens.errorAt(BadIceCreamException.INVALID_POSITION, 0);
+            }
+            if (length > data.width) {
+                throw tokens.errorAt(BadIceCreamException.INVALID_POSITION, data.width);
+            }
+            for (int col = 0; col < length; col++) {
+                char symbol = tokens.rawChar(col);
+                if (symbol == MAP_EMPTY || symbol == ' ') continue;
+                int type = MAP_SYMBOLS.indexOf(symbol);
+                if (type < 0) {
+                    throw tokens.errorAt(BadIceCreamException.INVALID_LEVEL_FORMAT + ": símbolo de mapa desconocido", col);
+                }
+                data.addBlock(BLOCK_TYPES[type], row, col);
+            }
+        }
+    }
+
+    /**
+     * Escribe el nivel en formato de texto. Las líneas "phase" solo se
+     * escriben si hay frutas fuera de la fase 1.
+     *
+     * @param writer destino del texto
+     */
+    public void writeText(PrintWriter writer) {
+        writer.println(MODE);
+        writer.println(player1.type + " " + player1.row + " " + player1.col);
+        writer.println(player2.type + " " + player2.row + " " + player2.col);
+        for (Entry e : monsters) {
+            writer.println("monster " + e);
+        }
+        for (String line : blockLines()) {
+            writer.println(line);
+        }
+        boolean phased = false;
+        for (int p = 2; p <= PHASES; p++) {
+            phased |= !fruits.get(p - 1).isEmpty();
+        }
+        for (int p = 1; p <= PHASES; p++) {
+            if (phased) {
+                writer.println("phase " + p);
+            }
+            for (Entry e : fruits.get(p - 1)) {
+                writer.println("fruit " + e);
+            }
+        }
+    }
+
+    /**
+     * Elige la forma más corta de escribir los bloques: tramos y rectángulos,
+     * o una sección "map". Si hay bloques fuera del tablero o dos en la misma
+     * celda se escriben uno por línea para no perder información.
+     *
+     * @return líneas de texto con los bloques
+     */
+    private List<String> blockLines() {
+        int[] grid = new int[height * width];
+        Arrays.fill(grid, -1);
+        for (Entry e : blocks) {
+            int i = e.row * width + e.col;
+            if (!inBounds(e.row, e.col) || grid[i] >= 0) {
+                ArrayList<String> lines = new ArrayList<>();
+                for (Entry b : blocks) {
+                    lines.add("block " + b);
+                }
+                return lines;
+            }
+            grid[i] = typeCode(BLOCK_TYPES, e.type);
+        }
+        List<String> fills = fillLines(grid);
+        List<String> map = mapLines(grid);
+        return textLength(map) < textLength(fills) ? map : fills;
+    }
+
+    /**
+     * Cubre los bloques con rectángulos de un solo tipo, de forma voraz: desde
+     * la primera celda libre se extiende a la derecha y luego hacia abajo.
+     */
+    private List<String> fillLines(int[] grid) {
+        ArrayList<String> lines = new ArrayList<>();
+        boolean[] covered = new boolean[grid.length];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                int type = grid[r * width + c];
+                if (type < 0 || covered[r * width + c]) continue;
+
+                int c2 = c;
+                while (c2 + 1 < width && grid[r * width + c2 + 1] == type && !covered[r * width + c2 + 1]) {
+                    c2++;
+                }
+                int r2 = r;
+                while (r2 + 1 < height && isRun(grid, covered, type, r2 + 1, c, c2)) {
+                    r2++;
+                }
+                for (int rr = r; rr <= r2; rr++) {
+                    for (int cc = c; cc <= c2; cc++) {
+                        covered[rr * width + cc] = true;
+                    }
+                }
+
+                String name = BLOCK_TYPES[type];
+                if (r == r2 && c == c2) {
+                    lines.add("block " + name + " " + r + " " + c);
+                } else if (r == r2) {
+                    lines.add("row " + name + " " + r + " " + c + " " + c2);
+                } else if (c == c2) {
+                    lines.add("column " + name + " " + c + " " + r + " " + r2);
+                } else {
+                    lines.add("rect " + name + " " + r + " " + c + " " + r2 + " " + c2);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private boolean isRun(int[] grid, boolean[] covered, int type, int r, int c1, int c2) {
+        for (int c = c1; c <= c2; c++) {
+            if (grid[r * width + c] != type || covered[r * width + c]) return false;
+        }
+        return true;
+    }
+
+    private List<String> mapLines(int[] grid) {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("map");
+        int lastRow = -1;
+        for (int i = 0; i < grid.length; i++) {
+            if (grid[i] >= 0) lastRow = i / width;
+        }
+        StringBuilder line = new StringBuilder(width);
+        for (int r = 0; r <= lastRow; r++) {
+            line.setLength(0);
+            for (int c = 0; c < width; c++) {
+                int type = grid[r * width + c];
+                line.append(type < 0 ? MAP_EMPTY : MAP_SYMBOLS.charAt(type));
+            }
+            // Los vacíos del final de la fila no hace falta escribirlos
+            int length = line.length();
+            while (length > 0 && line.charAt(length - 1) == MAP_EMPTY) {
+                length--;
+            }
+            line.setLength(length);
+            lines.add(line.toString());
+        }
+        lines.add("end");
+        return lines;
+    }
+
+    private static int textLength(List<String> lines) {
+        int n = 0;
+        for (String line : lines) {
+            n += line.length() + 1;
+        }
+        return n;
+    }
+
+    /**
+     * @return true si el tipo está en la tabla
+     */
+    public static boolean isType(String[] table, String type) {
+        return typeCode(table, type) >= 0;
+    }
+
+    /**
+     * @return índice del tipo en la tabla, o -1 si no está
+     */
+    public static int typeCode(String[] table, String type) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(type)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Dos niveles son iguales si crean el mismo tablero: mismos jugadores,
+     * mismos monstruos y frutas en el mismo orden, y los mismos bloques en
+     * las mismas celdas (el orden de los bloques no cambia el tablero).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LevelData)) return false;
+        LevelData other = (LevelData) o;
+        return height == other.height && width == other.width
+            && Objects.equals(player1, other.player1) && Objects.equals(player2, other.player2)
+            && monsters.equals(other.monsters) && fruits.equals(other.fruits)
+            && sortedBlocks().equals(other.sortedBlocks());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(height, width, player1, player2, monsters, fruits, sortedBlocks());
+    }
+
+    private List<Entry> sortedBlocks() {
+        ArrayList<Entry> sorted = new ArrayList<>(blocks);
+        Collections.sort(sorted, new Comparator<Entry>() {
+            public int compare(Entry a, Entry b) {
+                if (a.row != b.row) return Integer.compare(a.row, b.row);
+                if (a.col != b.col) return Integer.compare(a.col, b.col);
+                return a.type.compareTo(b.type);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Una entidad del nivel: su tipo y su posición.
+     */
+    public static class Entry implements Serializable {
+        private final String type;
+        private final int row;
+        private final int col;
+
+        public Entry(String type, int row, int col) {
+            this.type = type;
+            this.row = row;
+            this.col = col;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getColumn() {
+            return col;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry e = (Entry) o;
+            return row == e.row && col == e.col && type.equals(e.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + row) * 31 + col;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + row + " " + col;
+        }
+    }
+}
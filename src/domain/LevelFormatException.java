@@ -0,0 +1,37 @@
+package domain;
+
+/**
+ * Error de formato en un archivo de nivel, con el archivo, la línea y la
+ * columna (ambas desde 1) donde se encontró.
+ */
+public class LevelFormatException extends BadIceCreamException {
+
+    private final String source;
+    private final int line;
+    private final int column;
+
+    /**
+     * @param detail descripción del error
+     * @param source nombre del archivo (o de la fuente) que se estaba leyendo
+     * @param line   línea del error
+     * @param column columna del error
+     */
+    public LevelFormatException(String detail, String source, int line, int column) {
+        super(detail + " (" + source + ", línea " + line + ", columna " + column + ")");
+        this.source = source;
+        this.line = line;
+        this.column = column;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
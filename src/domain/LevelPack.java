@@ -0,0 +1,351 @@
+package domain;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Paquete de niveles (y opcionalmente de imágenes u otros recursos) en un
+ * solo archivo con índice.
+ *
+ * Estructura (enteros big-endian):
+ * - Encabezado (HEADER_SIZE bytes): "BICP", versión (2 bytes), 2 bytes
+ *   reservados, cantidad de entradas (4 bytes) y posición del índice (8 bytes).
+ * - Contenido de las entradas, una detrás de otra. Los niveles se guardan en
+ *   el formato de LevelBinaryFormat; los recursos, tal cual.
+ * - Índice: por entrada su nombre (UTF), tipo (1 byte), posición (8 bytes),
+ *   largo (4 bytes) y CRC32 (4 bytes).
+ *
+ * Al abrir un paquete solo se lee el encabezado y el índice. Cada entrada se
+ * lee después con una lectura posicional en su desplazamiento, sin recorrer
+ * el resto del archivo; las lecturas se pueden hacer desde varios hilos.
+ */
+public class LevelPack implements Closeable {
+
+    public static final byte[] MAGIC = {'B', 'I', 'C', 'P'};
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 20;
+
+    public static final int LEVEL = 0;
+    public static final int ASSET = 1;
+
+    /** Bytes mínimos de una entrada del índice: nombre vacío, tipo, posición, largo y CRC32. */
+    private static final int MIN_ENTRY_SIZE = 2 + 1 + 8 + 4 + 4;
+
+    private static final String CORRUPT = "Paquete de niveles corrupto o inválido";
+    private static final String NO_ENTRY = "El paquete no tiene la entrada: ";
+
+    private final String source;
+    private final FileChannel channel;
+    private final Map<String, PackEntry> entries;
+    private final List<String> names;
+    private final Map<String, LevelTemplate> templates = new ConcurrentHashMap<>();
+
+    private LevelPack(String source, FileChannel channel, Map<String, PackEntry> entries, List<String> names) {
+        this.source = source;
+        this.channel = channel;
+        this.entries = entries;
+        this.names = names;
+    }
+
+    /**
+     * Abre un paquete leyendo solo su encabezado y su índice.
+     *
+     * @param filename archivo del paquete
+     * @return paquete abierto
+     * @throws BadIceCreamException si el archivo no existe o no es un paquete válido
+     */
+    public static LevelPack open(String filename) throws BadIceCreamException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || header.getShort() != VERSION) {
+                throw new BadIceCreamException(CORRUPT);
+            }
+            header.getShort();
+            int count = header.getInt();
+            long tocOffset = header.getLong();
+            long size = channel.size();
+            if (count < 0 || tocOffset < HEADER_SIZE || tocOffset > size || size - tocOffset > Integer.MAX_VALUE
+                    || count > (size - tocOffset) / MIN_ENTRY_SIZE) {
+                // Un conteo que no entra en el índice no se usa para reservar memoria
+                throw new BadIceCreamException(CORRUPT);
+            }
+
+            ByteBuffer toc = ByteBuffer.allocate((int) (size - tocOffset));
+            readFully(channel, toc, tocOffset);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(toc.array()));
+            Map<String, PackEntry> entries = new HashMap<>(count * 2);
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int kind = in.readUnsignedByte();
+                long offset = in.readLong();
+                int length = in.readInt();
+                int crc = in.readInt();
+                if (offset < HEADER_SIZE || length < 0 || offset + length > tocOffset
+                        || entries.put(name, new PackEntry(kind, offset, length, crc)) != null) {
+                    throw new BadIceCreamException(CORRUPT);
+                }
+                names.add(name);
+            }
+            return new LevelPack(filename, channel, entries, Collections.unmodifiableList(names));
+        } catch (FileNotFoundException | java.nio.file.NoSuchFileException e) {
+            closeQuietly(channel);
+            throw new BadIceCreamException(BadIceCreamException.FILE_NOT_FOUND + ": " + filename);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new BadIceCreamException(CORRUPT);
+        } catch (BadIceCreamException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * @return nombres de las entradas, en el orden en que se agregaron
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return nombres de las entradas que son niveles, en orden
+     */
+    public List<String> getLevelNames() {
+        List<String> levels = new ArrayList<>();
+        for (String name : names) {
+            if (entries.get(name).kind == LEVEL) levels.add(name);
+        }
+        return levels;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * @return true si la entrada existe y es un nivel
+     */
+    public boolean containsLevel(String name) {
+        PackEntry e = entries.get(name);
+        return e != null && e.kind == LEVEL;
+    }
+
+    /**
+     * Lee el contenido de una entrada en su posición, verificando su CRC32.
+     *
+     * @param name nombre de la entrada
+     * @return bytes de la entrada
+     * @throws BadIceCreamException si no existe o está dañada
+     */
+    public byte[] read(String name) throws BadIceCreamException {
+        PackEntry e = entries.get(name);
+        if (e == null) {
+            throw new BadIceCreamException(NO_ENTRY + name);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(e.length);
+        try {
+            readFully(channel, bytes, e.offset);
+        } catch (IOException ex) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array());
+        if ((int) crc.getValue() != e.crc) {
+            throw new BadIceCreamException(CORRUPT + " (" + source + ": " + name + ")");
+        }
+        return bytes.array();
+    }
+
+    /**
+     * @param name nombre de una entrada de nivel
+     * @return nivel leído
+     * @throws BadIceCreamException si no existe, no es un nivel o está dañado
+     */
+    public LevelData readLevel(String name) throws BadIceCreamException {
+        if (!containsLevel(name)) {
+            throw new BadIceCreamException(NO_ENTRY + name);
+        }
+        return LevelBinaryFormat.read(read(name));
+    }
+
+    /**
+     * Devuelve el nivel ya validado, listo para cargarse en un juego. Cada
+     * nivel se lee y valida una vez mientras el paquete esté abierto. La
+     * compilación se hace sin bloquear a los demás lectores; si dos hilos
+     * piden a la vez el mismo nivel nuevo, se queda la primera plantilla.
+     *
+     * @param name nombre de una entrada de nivel
+     * @return plantilla del nivel
+     * @throws BadIceCreamException si no existe o el nivel no es válido
+     */
+    public LevelTemplate getTemplate(String name) throws BadIceCreamException {
+        LevelTemplate template = templates.get(name);
+        if (template != null) return template;
+        template = LevelTemplate.compile(readLevel(name));
+        LevelTemplate previous = templates.putIfAbsent(name, template);
+        return (previous != null) ? previous : template;
+    }
+
+    /**
+     * @param name nombre de una entrada de recurso
+     * @return flujo con el contenido del recurso
+     * @throws BadIceCreamException si no existe o está dañado
+     */
+    public InputStream openAsset(String name) throws BadIceCreamException {
+        return new ByteArrayInputStream(read(name));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Crea un paquete nuevo. Las entradas se escriben a medida que se agregan
+     * y el índice se escribe al cerrar.
+     *
+     * @param filename archivo a crear (se reemplaza si existe)
+     * @return escritor del paquete
+     * @throws BadIceCreamException si no se puede crear el archivo
+     */
+    public static Writer create(String filename) throws BadIceCreamException {
+        try {
+            return new Writer(FileChannel.open(new File(filename).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al crear el paquete: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escritor de paquetes de niveles.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final Map<String, PackEntry> entries = new LinkedHashMap<>();
+        private long position = HEADER_SIZE;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Agrega un nivel, guardado en formato binario.
+         *
+         * @throws BadIceCreamException si el nombre se repite o no se puede escribir
+         */
+        public Writer addLevel(String name, LevelData level) throws BadIceCreamException {
+            return add(name, LEVEL, LevelBinaryFormat.write(level));
+        }
+
+        /**
+         * Agrega un recurso (por ejemplo, una imagen) tal cual.
+         *
+         * @throws BadIceCreamException si el nombre se repite o no se puede escribir
+         */
+        public Writer addAsset(String name, byte[] bytes) throws BadIceCreamException {
+            return add(name, ASSET, bytes);
+        }
+
+        private Writer add(String name, int kind, byte[] bytes) throws BadIceCreamException {
+            if (entries.containsKey(name)) {
+                throw new BadIceCreamException("Entrada repetida en el paquete: " + name);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            try {
+                writeFully(channel, ByteBuffer.wrap(bytes), position);
+            } catch (IOException e) {
+                throw new BadIceCreamException("Error al escribir el paquete: " + e.getMessage());
+            }
+            entries.put(name, new PackEntry(kind, position, bytes.length, (int) crc.getValue()));
+            position += bytes.length;
+            return this;
+        }
+
+        /**
+         * Escribe el índice y el encabezado y cierra el archivo.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteArrayOutputStream tocBytes = new ByteArrayOutputStream();
+                DataOutputStream toc = new DataOutputStream(tocBytes);
+                for (Map.Entry<String, PackEntry> e : entries.entrySet()) {
+                    PackEntry entry = e.getValue();
+                    toc.writeUTF(e.getKey());
+                    toc.writeByte(entry.kind);
+                    toc.writeLong(entry.offset);
+                    toc.writeInt(entry.length);
+                    toc.writeInt(entry.crc);
+                }
+                toc.flush();
+                writeFully(channel, ByteBuffer.wrap(tocBytes.toByteArray()), position);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.put(MAGIC).putShort((short) VERSION).putShort((short) 0)
+                      .putInt(entries.size()).putLong(position);
+                header.flip();
+                writeFully(channel, header, 0);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Ubicación de una entrada dentro del archivo.
+     */
+    private static final class PackEntry {
+        final int kind;
+        final long offset;
+        final int length;
+        final int crc;
+
+        PackEntry(int kind, long offset, int length, int crc) {
+            this.kind = kind;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, position);
+            if (n < 0) throw new EOFException();
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException e) {
+            // El error original es el que importa
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package domain;
+import java.util.*;
+
+/**
+ * Nivel ya leído y validado, listo para crear partidas.
+ *
+ * Se construye una sola vez a partir de un LevelData: al compilarlo se carga
+ * en un tablero de prueba, así que las reglas de validación son exactamente
+ * las de BadIceCream.loadLevel. Después guarda cada tipo de entidad en arreglos
+ * planos (código de tipo y celda fila * ancho + columna), de modo que
+ * BadIceCream.loadTemplate solo recorre arreglos y crea las entidades, sin
+ * leer archivos, partir texto ni volver a validar posiciones.
+ *
+ * Es inmutable: una misma plantilla puede instanciarse en muchas partidas,
+ * también desde varios hilos.
+ */
+public final class LevelTemplate {
+
+    private final int height;
+    private final int width;
+    private final String[] playerTypes;
+    private final int[] playerCells;
+    private final byte[] blockTypes;
+    private final int[] blockCells;
+    private final byte[] monsterTypes;
+    private final int[] monsterCells;
+    private final List<List<LevelData.Entry>> fruits;
+
+    private LevelTemplate(LevelData data) {
+        height = data.getHeight();
+        width = data.getWidth();
+
+        playerTypes = new String[] {data.getPlayer1().getType(), data.getPlayer2().getType()};
+        playerCells = new int[] {cell(data.getPlayer1()), cell(data.getPlayer2())};
+
+        List<LevelData.Entry> blocks = data.getBlocks();
+        blockTypes = new byte[blocks.size()];
+        blockCells = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            blockTypes[i] = (byte) LevelData.typeCode(LevelData.BLOCK_TYPES, blocks.get(i).getType());
+            blockCells[i] = cell(blocks.get(i));
+        }
+
+        List<LevelData.Entry> monsters = data.getMonsters();
+        monsterTypes = new byte[monsters.size()];
+        monsterCells = new int[monsters.size()];
+        for (int i = 0; i < monsters.size(); i++) {
+            monsterTypes[i] = (byte) LevelData.typeCode(LevelData.MONSTER_TYPES, monsters.get(i).getType());
+            monsterCells[i] = cell(monsters.get(i));
+        }
+
+        List<List<LevelData.Entry>> phases = new ArrayList<>();
+        for (int p = 1; p <= LevelData.PHASES; p++) {
+            phases.add(Collections.unmodifiableList(new ArrayList<>(data.getFruits(p))));
+        }
+        fruits = Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Valida el nivel y crea su plantilla.
+     *
+     * @param data nivel leído
+     * @return plantilla inmutable
+     * @throws BadIceCreamException si el nivel no se puede cargar en un tablero
+     */
+    public static LevelTemplate compile(LevelData data) throws BadIceCreamException {
+        BadIceCream scratch = new BadIceCream(1, 0L);
+        scratch.loadLevel(data);
+        return new LevelTemplate(data);
+    }
+
+    /**
+     * Lee, valida y compila un archivo de nivel (texto o binario).
+     *
+     * @param filename nombre o ruta del archivo
+     * @return plantilla inmutable
+     * @throws BadIceCreamException si el archivo no existe o el nivel es inválido
+     */
+    public static LevelTemplate load(String filename) throws BadIceCreamException {
+        return compile(LevelData.load(filename));
+    }
+
+    private int cell(LevelData.Entry e) {
+        return e.getRow() * width + e.getColumn();
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @param i 0 para el jugador 1, 1 para el jugador 2
+     * @return sabor del jugador según el archivo
+     */
+    public String getPlayerType(int i) {
+        return playerTypes[i];
+    }
+
+    /**
+     * @param i 0 para el jugador 1, 1 para el jugador 2
+     * @return celda inicial del jugador (fila * ancho + columna)
+     */
+    public int getPlayerCell(int i) {
+        return playerCells[i];
+    }
+
+    public int getBlockCount() {
+        return blockTypes.length;
+    }
+
+    /**
+     * @return tipo del bloque i, como índice en LevelData.BLOCK_TYPES
+     */
+    public int getBlockType(int i) {
+        return blockTypes[i];
+    }
+
+    public int getBlockCell(int i) {
+        return blockCells[i];
+    }
+
+    public int getMonsterCount() {
+        return monsterTypes.length;
+    }
+
+    /**
+     * @return tipo del monstruo i, como índice en LevelData.MONSTER_TYPES
+     */
+    public int getMonsterType(int i) {
+        return monsterTypes[i];
+    }
+
+    public int getMonsterCell(int i) {
+        return monsterCells[i];
+    }
+
+    /**
+     * @param phase fase (1 o 2)
+     * @return frutas de la fase, en una lista de solo lectura compartida
+     */
+    public List<LevelData.Entry> getFruits(int phase) {
+        return fruits.get(phase - 1);
+    }
+
+    /**
+     * @return descripción equivalente del nivel, por ejemplo para exportarlo
+     */
+    public LevelData toLevelData() {
+        LevelData data = new LevelData(height, width);
+        data.setPlayer1(playerTypes[0], playerCells[0] / width, playerCells[0] % width);
+        data.setPlayer2(playerTypes[1], playerCells[1] / width, playerCells[1] % width);
+        for (int i = 0; i < monsterTypes.length; i++) {
+            data.addMonster(LevelData.MONSTER_TYPES[monsterTypes[i]], monsterCells[i] / width, monsterCells[i] % width);
+        }
+        for (int i = 0; i < blockTypes.length; i++) {
+            data.addBlock(LevelData.BLOCK_TYPES[blockTypes[i]], blockCells[i] / width, blockCells[i] % width);
+        }
+        for (int p = 1; p <= LevelData.PHASES; p++) {
+            for (LevelData.Entry e : getFruits(p)) {
+                data.addFruit(p, e.getType(), e.getRow(), e.getColumn());
+            }
+        }
+        return data;
+    }
+}
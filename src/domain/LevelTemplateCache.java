@@ -0,0 +1,85 @@
+package domain;
+import java.util.*;
+import java.io.*;
+
+/**
+ * Caché de plantillas de nivel por archivo.
+ *
+ * La primera vez que se pide un archivo se lee, valida y compila; las
+ * siguientes se devuelve la misma plantilla mientras el archivo no cambie.
+ * Para saberlo solo se consultan la fecha de modificación y el tamaño del
+ * archivo, sin leerlo. Así reiniciar una partida o simular miles de partidas
+ * del mismo nivel no vuelve a leer ni a interpretar el archivo.
+ *
+ * Los métodos son sincronizados para poder compartir la caché entre hilos.
+ */
+public class LevelTemplateCache {
+
+    private static final LevelTemplateCache DEFAULT = new LevelTemplateCache();
+
+    private final Map<String, CachedTemplate> templates = new HashMap<>();
+    private int loads;
+
+    /**
+     * @return caché compartida por toda la aplicación
+     */
+    public static LevelTemplateCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param filename nombre o ruta del archivo de nivel
+     * @return plantilla del nivel, compilada de nuevo solo si el archivo cambió
+     * @throws BadIceCreamException si el archivo no existe o el nivel es inválido
+     */
+    public synchronized LevelTemplate get(String filename) throws BadIceCreamException {
+        File file = new File(filename).getAbsoluteFile();
+        if (!file.isFile()) {
+            templates.remove(file.getPath());
+            throw new BadIceCreamException(BadIceCreamException.FILE_NOT_FOUND);
+        }
+        long modified = file.lastModified();
+        long length = file.length();
+
+        CachedTemplate cached = templates.get(file.getPath());
+        if (cached != null && cached.modified == modified && cached.length == length) {
+            return cached.template;
+        }
+        LevelTemplate template = LevelTemplate.load(file.getPath());
+        loads++;
+        templates.put(file.getPath(), new CachedTemplate(template, modified, length));
+        return template;
+    }
+
+    /**
+     * Olvida la plantilla de un archivo.
+     *
+     * @param filename nombre o ruta del archivo de nivel
+     */
+    public synchronized void invalidate(String filename) {
+        templates.remove(new File(filename).getAbsoluteFile().getPath());
+    }
+
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * @return cuántas veces se leyó y compiló un archivo desde que se creó la caché
+     */
+    public synchronized int getLoadCount() {
+        return loads;
+    }
+
+    private static class CachedTemplate {
+        private final LevelTemplate template;
+        private final long modified;
+        private final long length;
+
+        private CachedTemplate(LevelTemplate template, long modified, long length) {
+            this.template = template;
+            this.modified = modified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package domain;
+import java.io.*;
+
+/**
+ * Lector de tokens para los archivos de nivel en texto.
+ *
+ * Lee el archivo por bloques sobre un único buffer de caracteres y entrega
+ * palabras clave y enteros sin crear Strings intermedios: las palabras se
+ * comparan en su lugar contra tablas de tipos (sin distinguir mayúsculas) y
+ * los números se acumulan dígito a dígito. Lleva la línea y la columna de
+ * cada token para que los errores indiquen dónde está el problema.
+ *
+ * Los espacios y tabulaciones separan tokens dentro de una línea; los saltos
+ * de línea (\n, \r o \r\n) separan líneas.
+ */
+public class LevelTokenizer implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final String source;
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+
+    // Palabra actual, en un arreglo que se reutiliza entre tokens
+    private char[] word = new char[32];
+    private int wordLength;
+
+    private int line = 1;
+    private int column = 1;
+    private int tokenLine = 1;
+    private int tokenColumn = 1;
+
+    /**
+     * @param in     texto a leer
+     * @param source nombre del archivo, usado en los mensajes de error
+     */
+    public LevelTokenizer(Reader in, String source) {
+        this(in, source, 8192);
+    }
+
+    /**
+     * @param in         texto a leer
+     * @param source     nombre del archivo, usado en los mensajes de error
+     * @param bufferSize tamaño del buffer de lectura
+     */
+    public LevelTokenizer(Reader in, String source, int bufferSize) {
+        this.in = in;
+        this.source = source;
+        this.buffer = new char[bufferSize];
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Salta las líneas vacías o con solo espacios.
+     *
+     * @return true si queda algún token, false si se llegó al final del texto
+     */
+    public boolean skipBlankLines() throws IOException {
+        while (true) {
+            skipSpaces();
+            int c = peek();
+            if (c == EOF) return false;
+            if (!isNewline(c)) {
+                markToken();
+                return true;
+            }
+            consumeNewline();
+        }
+    }
+
+    /**
+     * Exige que la línea actual, sin los espacios de los extremos, sea
+     * exactamente el texto dado, y pasa a la línea siguiente.
+     *
+     * @param text   contenido esperado de la línea
+     * @param detail mensaje si la línea no coincide
+     */
+    public void expectLine(String text, String detail) throws IOException, LevelFormatException {
+        skipSpaces();
+        markToken();
+        for (int i = 0; i < text.length(); i++) {
+            if (peek() != text.charAt(i)) {
+                throw error(detail);
+            }
+            advance();
+        }
+        endLine(detail);
+    }
+
+    /**
+     * Lee la siguiente palabra de la línea y la busca en la tabla, sin
+     * distinguir mayúsculas de minúsculas.
+     *
+     * @param table  palabras válidas, en minúsculas
+     * @param detail mensaje si la palabra no está en la tabla
+     * @return índice de la palabra en la tabla
+     */
+    public int nextKeyword(String[] table, String detail) throws IOException, LevelFormatException {
+        if (readWord() == 0) {
+            throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": falta un campo");
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (wordEquals(table[i])) return i;
+        }
+        throw error(detail);
+    }
+
+    /**
+     * Lee el siguiente entero de la línea (con signo opcional).
+     *
+     * @return valor leído
+     */
+    public int nextInt() throws IOException, LevelFormatException {
+        skipSpaces();
+        markToken();
+        int c = peek();
+        if (c == EOF || isNewline(c)) {
+            throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": falta un campo");
+        }
+        boolean negative = false;
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            advance();
+            c = peek();
+        }
+        if (c < '0' || c > '9') {
+            throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": se esperaba un número");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": número fuera de rango");
+            }
+            advance();
+            c = peek();
+        }
+        if (c != EOF && !isSpace(c) && !isNewline(c)) {
+            throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": se esperaba un número");
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) {
+            throw error(BadIceCreamException.INVALID_LEVEL_FORMAT + ": número fuera de rango");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Exige que no queden tokens en la línea actual y pasa a la siguiente.
+     *
+     * @param detail mensaje si sobran tokens
+     */
+    public void endLine(String detail) throws IOException, LevelFormatException {
+        skipSpaces();
+        int c = peek();
+        if (c == EOF) return;
+        if (!isNewline(c)) {
+            markToken();
+            throw error(detail);
+        }
+        consumeNewline();
+    }
+
+    /**
+     * Lee el resto de la línea actual tal cual, sin separarla en tokens
+     * (por ejemplo, las filas de una sección "map"), y pasa a la siguiente.
+     *
+     * @return cantidad de caracteres leídos, o -1 si no quedan líneas
+     */
+    public int readRawLine() throws IOException {
+        markToken();
+        wordLength = 0;
+        int c = peek();
+        if (c == EOF) return -1;
+        while (c != EOF && !isNewline(c)) {
+            appendWord(c);
+            advance();
+            c = peek();
+        }
+        if (c != EOF) consumeNewline();
+        return wordLength;
+    }
+
+    /**
+     * @return carácter i de la última línea leída con readRawLine
+     */
+    public char rawChar(int i) {
+        return word[i];
+    }
+
+    /**
+     * @return true si la última línea leída con readRawLine, sin los espacios
+     *         de los extremos, es exactamente el texto dado
+     */
+    public boolean rawLineEquals(String text) {
+        int start = 0;
+        int end = wordLength;
+        while (start < end && word[start] <= ' ') start++;
+        while (end > start && word[end - 1] <= ' ') end--;
+        if (end - start != text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (word[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param detail descripción del error
+     * @return excepción con la posición del último token leído
+     */
+    public LevelFormatException error(String detail) {
+        return errorAt(detail, 0);
+    }
+
+    /**
+     * @param detail descripción del error
+     * @param offset distancia en columnas desde el inicio del último token
+     * @return excepción con la posición indicada
+     */
+    public LevelFormatException errorAt(String detail, int offset) {
+        return new LevelFormatException(detail, source, tokenLine, tokenColumn + offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readWord() throws IOException {
+        skipSpaces();
+        markToken();
+        wordLength = 0;
+        int c = peek();
+        while (c != EOF && !isSpace(c) && !isNewline(c)) {
+            appendWord(c);
+            advance();
+            c = peek();
+        }
+        return wordLength;
+    }
+
+    private void appendWord(int c) {
+        if (wordLength == word.length) {
+            word = java.util.Arrays.copyOf(word, word.length * 2);
+        }
+        word[wordLength++] = (char) c;
+    }
+
+    private boolean wordEquals(String keyword) {
+        if (keyword.length() != wordLength) return false;
+        for (int i = 0; i < wordLength; i++) {
+            if (Character.toLowerCase(word[i]) != keyword.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peek())) {
+            advance();
+        }
+    }
+
+    private void consumeNewline() throws IOException {
+        if (peek() == '\r') {
+            pos++;
+            if (peek() == '\n') pos++;
+        } else {
+            pos++;
+        }
+        line++;
+        column = 1;
+    }
+
+    private void markToken() {
+        tokenLine = line;
+        tokenColumn = column;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit) {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) return EOF;
+            pos = 0;
+            limit = n;
+        }
+        return buffer[pos];
+    }
+
+    private void advance() {
+        pos++;
+        column++;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\f' || c == 0x0B;
+    }
+
+    private static boolean isNewline(int c) {
+        return c == '\n' || c == '\r';
+    }
+}
@@ -1,4 +1,5 @@
 package domain;
+import java.io.*;
 
 /**
  * Maceta:
@@ -24,7 +25,7 @@ public class Maceta extends Monster {
         super(board, row, column);
         isChasing = false;
         isInAlertMode = false;
-        lastAlertTime = System.currentTimeMillis();
+        lastAlertTime = board.getClock().currentTimeMillis();
         alertStartTime = 0;
     }
 
@@ -50,16 +51,18 @@ public class Maceta extends Monster {
      */
     @Override
     public void act() throws BadIceCreamException {
-        long now = System.currentTimeMillis();
+        long now = board.getClock().currentTimeMillis();
 
         if (!isInAlertMode && (now - lastAlertTime >= ALERT_INTERVAL)) {
             isInAlertMode = true;
+            board.markDirty(row, column);
             alertStartTime = now;
             lastAlertTime = now;
         }
 
         if (isInAlertMode && (now - alertStartTime >= ALERT_DURATION)) {
             isInAlertMode = false;
+            board.markDirty(row, column);
         }
 
         if (isInAlertMode) {
@@ -72,42 +75,27 @@ public class Maceta extends Monster {
     }
 
     /**
-     * En alerta: persigue al jugador más cercano (prioriza eje con mayor distancia).
-     * Si no puede avanzar hacia él, elige una dirección válida aleatoria.
+     * En alerta: persigue al jugador más cercano siguiendo el campo de
+     * persecución compartido del tablero (rodea hielo y decoración).
+     * Si el mejor paso está ocupado prueba el siguiente que también acerque;
+     * si ninguno sirve, elige una dirección válida aleatoria.
      */
     private void actInAlertMode() throws BadIceCreamException {
-        Player target = findNearestPlayer();
-        if (target == null) {
+        if (board.getFirstPlayer() == null && board.getSecondPlayer() == null) {
             actInNormalMode();
             return;
         }
 
         isChasing = true;
 
-        int tr = target.getRow();
-        int tc = target.getColumn();
-
-        int rr = tr - row;
-        int cc = tc - column;
-
+        ChaseField field = board.getWalkingChaseField();
         boolean moved = false;
-
-        if (Math.abs(rr) > Math.abs(cc)) {
-            if (rr < 0) moved = tryMoveInDirection("up");
-            else if (rr > 0) moved = tryMoveInDirection("down");
-
-            if (!moved) {
-                if (cc < 0) moved = tryMoveInDirection("left");
-                else if (cc > 0) moved = tryMoveInDirection("right");
-            }
-        } else {
-            if (cc < 0) moved = tryMoveInDirection("left");
-            else if (cc > 0) moved = tryMoveInDirection("right");
-
-            if (!moved) {
-                if (rr < 0) moved = tryMoveInDirection("up");
-                else if (rr > 0) moved = tryMoveInDirection("down");
-            }
+        int tried = 0;
+        int dir = field.bestDirection(row, column, tried);
+        while (!moved && dir >= 0) {
+            moved = tryMoveInDirection(ChaseField.DIRECTIONS[dir]);
+            tried |= 1 << dir;
+            dir = field.bestDirection(row, column, tried);
         }
 
         if (!moved) {
@@ -128,34 +116,10 @@ public class Maceta extends Monster {
             chooseRandomValidDirection();
         } else {
             if (seesPlayer) attemptMoveOneStep();
-            else if (Math.random() < 0.30) chooseRandomValidDirection();
+            else if (board.getRandom().nextDouble() < 0.30) chooseRandomValidDirection();
         }
     }
 
-    /**
-     * Busca el jugador más cercano iterando la matriz de players.
-     *
-     * @return Player más cercano o null si no hay jugadores
-     */
-    private Player findNearestPlayer() {
-        Player[][] players = board.getPlayers();
-        Player nearest = null;
-        double minDist = Double.MAX_VALUE;
-
-        for (int r = 0; r < board.getHeight(); r++) {
-            for (int c = 0; c < board.getWidth(); c++) {
-                if (players[r][c] != null) {
-                    double d = Math.sqrt(Math.pow(r - row, 2) + Math.pow(c - column, 2));
-                    if (d < minDist) {
-                        minDist = d;
-                        nearest = players[r][c];
-                    }
-                }
-            }
-        }
-        return nearest;
-    }
-
     /**
      * Intenta moverse una casilla en una dirección dada.
      *
@@ -175,32 +139,7 @@ public class Maceta extends Monster {
      * @return true si ve jugador, false si no
      */
     private boolean detectPlayerInLine() {
-        Player[][] players = board.getPlayers();
-        Block[][] blocks = board.getBlocks();
-
-        if ("up".equals(directionOfView)) {
-            for (int r = row - 1; r >= 0; r--) {
-                if (isSolidVisionBlock(blocks[r][column])) break;
-                if (players[r][column] != null) return true;
-            }
-        } else if ("down".equals(directionOfView)) {
-            for (int r = row + 1; r < board.getHeight(); r++) {
-                if (isSolidVisionBlock(blocks[r][column])) break;
-                if (players[r][column] != null) return true;
-            }
-        } else if ("left".equals(directionOfView)) {
-            for (int c = column - 1; c >= 0; c--) {
-                if (isSolidVisionBlock(blocks[row][c])) break;
-                if (players[row][c] != null) return true;
-            }
-        } else if ("right".equals(directionOfView)) {
-            for (int c = column + 1; c < board.getWidth(); c++) {
-                if (isSolidVisionBlock(blocks[row][c])) break;
-                if (players[row][c] != null) return true;
-            }
-        }
-
-        return false;
+        return board.seesPlayerInLine(row, column, directionOfView);
     }
 
     /**
@@ -232,14 +171,25 @@ public class Maceta extends Monster {
      * @throws BadIceCreamException si ocurre un error al cambiar dirección
      */
     private void chooseRandomValidDirection() throws BadIceCreamException {
-        String[] dirs = {"up", "down", "left", "right"};
-        java.util.ArrayList<String> valid = new java.util.ArrayList<>();
-
-        for (String d : dirs) if (isDirectionValid(d)) valid.add(d);
+        // Direcciones válidas como máscara sobre ChaseField.DIRECTIONS (bit i =
+        // DIRECTIONS[i]), para no crear una lista en cada tick
+        int valid = 0;
+        int count = 0;
+        for (int i = 0; i < ChaseField.DIRECTIONS.length; i++) {
+            if (isDirectionValid(ChaseField.DIRECTIONS[i])) {
+                valid |= 1 << i;
+                count++;
+            }
+        }
 
-        if (!valid.isEmpty()) {
-            String pick = valid.get((int) (Math.random() * valid.size()));
-            changeOfView(pick);
+        if (count > 0) {
+            int pick = board.getRandom().nextInt(count);
+            for (int i = 0; i < ChaseField.DIRECTIONS.length; i++) {
+                if ((valid & (1 << i)) != 0 && pick-- == 0) {
+                    changeOfView(ChaseField.DIRECTIONS[i]);
+                    return;
+                }
+            }
         } else {
             changeOfView(getOppositeDirection());
         }
@@ -287,9 +237,9 @@ public class Maceta extends Monster {
      */
     private boolean canMoveTo(int r, int c) {
         if (r < 0 || r >= board.getHeight() || c < 0 || c >= board.getWidth()) return false;
-        if (board.getMonsters()[r][c] != null) return false;
+        if (board.getMonsterAt(r, c) != null) return false;
 
-        Block b = board.getBlocks()[r][c];
+        Block b = board.getBlockAt(r, c);
         if (b == null) return true;
         if (b.isFogata() || b.isBaldosaCaliente()) return true;
 
@@ -300,14 +250,27 @@ public class Maceta extends Monster {
         return false;
     }
 
-    /**
-     * Define qué bloque “corta visión” (para detectar jugador).
-     * Fogata y baldosa caliente NO deben cortar visión en tu regla de pasabilidad,
-     * pero hielo/decoración sí.
-     */
-    private boolean isSolidVisionBlock(Block b) {
-        if (b == null) return false;
-        if (b.isFogata() || b.isBaldosaCaliente()) return false;
-        return true;
+    @Override
+    void shiftTimes(long delta) {
+        lastAlertTime += delta;
+        alertStartTime += delta;
+    }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(isChasing);
+        out.writeBoolean(isInAlertMode);
+        out.writeLong(lastAlertTime);
+        out.writeLong(alertStartTime);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        super.readState(in);
+        isChasing = in.readBoolean();
+        isInAlertMode = in.readBoolean();
+        lastAlertTime = in.readLong();
+        alertStartTime = in.readLong();
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package domain;
+
+/**
+ * Reloj virtual que solo avanza cuando se le indica con advance().
+ * Lo usa el GameEngine en simulaciones sin cabeza y las pruebas para
+ * adelantar los 3 s de una fogata o los 8 s de la maceta al instante.
+ */
+public class ManualClock implements GameClock {
+
+    private long now;
+
+    public ManualClock() {
+        this(0);
+    }
+
+    /**
+     * @param startMillis tiempo inicial del reloj
+     */
+    public ManualClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public void advance(long millis) {
+        if (millis > 0) {
+            now += millis;
+        }
+    }
+}
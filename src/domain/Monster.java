@@ -20,6 +20,7 @@ public abstract class Monster implements Unit, Serializable, InteractWithPlayer
     protected int column;
     protected BadIceCream board;
     protected String directionOfView;
+    private int entityId = EntityRegistry.NO_ID;
 
     /**
      * Crea un monstruo y lo registra en el tablero en la posición dada.
@@ -71,18 +72,32 @@ public abstract class Monster implements Unit, Serializable, InteractWithPlayer
 
     /**
      * Cambia la posición del monstruo dentro del tablero.
-     * Nota: este método también actualiza la referencia en la matriz de monstruos del tablero.
+     * Nota: este método también actualiza la referencia en la matriz de monstruos del tablero,
+     * liberando la celda anterior para que el índice por celda quede al día.
      *
      * @param newRow nueva fila
      * @param newColumn nueva columna
      */
     @Override
     public void changePosition(int newRow, int newColumn) {
+        if (board.getMonsterAt(row, column) == this) {
+            board.setMonster(row, column, null);
+        }
         row = newRow;
         column = newColumn;
         this.board.setMonster(row, column, this);
     }
 
+    @Override
+    public int getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public void setEntityId(int id) {
+        entityId = id;
+    }
+
     /**
      * Indica que esta unidad es un monstruo.
      *
@@ -102,6 +117,9 @@ public abstract class Monster implements Unit, Serializable, InteractWithPlayer
     public void changeOfView(String direction) throws BadIceCreamException {
         if (direction.equals("down") || direction.equals("up") ||
                 direction.equals("left") || direction.equals("right")) {
+            if (!direction.equals(directionOfView)) {
+                board.markDirty(row, column);
+            }
             directionOfView = direction;
         } else {
             throw new BadIceCreamException(BadIceCreamException.DIRECTION_NO_ALLOWED);
@@ -135,4 +153,26 @@ public abstract class Monster implements Unit, Serializable, InteractWithPlayer
     public boolean isInAlertMode() {
         return false;
     }
+
+    /**
+     * Corre las marcas de tiempo del monstruo al cambiar el reloj del juego.
+     *
+     * @param delta diferencia entre el reloj nuevo y el anterior
+     */
+    void shiftTimes(long delta) { }
+
+    /**
+     * Escribe el estado propio del monstruo que no se deduce de su tipo y su
+     * posición. Lo usa GameSnapshotCodec al guardar la partida.
+     */
+    void writeState(DataOutput out) throws IOException {
+        GameSnapshotCodec.writeDirection(out, directionOfView);
+    }
+
+    /**
+     * Restaura el estado escrito por writeState.
+     */
+    void readState(DataInput in) throws IOException {
+        directionOfView = GameSnapshotCodec.readDirection(in);
+    }
 }
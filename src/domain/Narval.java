@@ -1,6 +1,5 @@
 package domain;
-
-import java.util.Random;
+import java.io.*;
 
 /**
  * Narval:
@@ -14,8 +13,6 @@ import java.util.Random;
  */
 public class Narval extends Monster {
 
-    private static final Random RNG = new Random();
-
     private boolean isCharging = false;
 
     public Narval(BadIceCream board, int row, int column) {
@@ -80,16 +77,16 @@ public class Narval extends Monster {
         }
 
         // Otro monstruo bloquea => parar carga
-        if (board.getMonsters()[nr][nc] != null) {
+        if (board.getMonsterAt(nr, nc) != null) {
             isCharging = false;
             return;
         }
 
-        Block b = board.getBlocks()[nr][nc];
+        Block b = board.getBlockAt(nr, nc);
 
         // Si es hielo: romperlo (habilidad extra del narval)
         if (b != null && b.isIceBlock()) {
-            board.getBlocks()[nr][nc] = null;
+            board.setBlock(nr, nc, null);
             // después de romper, puede ocupar esa celda este mismo tick
             board.setMonster(row, column, null);
             changePosition(nr, nc);
@@ -112,7 +109,7 @@ public class Narval extends Monster {
      */
     private void wanderOneStep() throws BadIceCreamException {
         // 35% cambia dirección al azar
-        if (RNG.nextDouble() < 0.35) {
+        if (board.getRandom().nextDouble() < 0.35) {
             changeOfView(randomDirection());
         }
 
@@ -130,13 +127,13 @@ public class Narval extends Monster {
             return;
         }
 
-        if (board.getMonsters()[nr][nc] != null) {
+        if (board.getMonsterAt(nr, nc) != null) {
             changeOfView(randomDirection());
             return;
         }
 
         // En deambular NO atraviesa hielo (solo lo rompe cuando carga)
-        Block b = board.getBlocks()[nr][nc];
+        Block b = board.getBlockAt(nr, nc);
         if (b != null && b.isIceBlock()) {
             changeOfView(randomDirection());
             return;
@@ -179,14 +176,14 @@ public class Narval extends Monster {
 
         // misma fila
         if (pr == row) {
-            if (pc > column && clearLine(row, column + 1, row, pc, "right")) return "right";
-            if (pc < column && clearLine(row, column - 1, row, pc, "left")) return "left";
+            if (pc > column && clearLine(row, column + 1, row, pc)) return "right";
+            if (pc < column && clearLine(row, column - 1, row, pc)) return "left";
         }
 
         // misma columna
         if (pc == column) {
-            if (pr > row && clearLine(row + 1, column, pr, column, "down")) return "down";
-            if (pr < row && clearLine(row - 1, column, pr, column, "up")) return "up";
+            if (pr > row && clearLine(row + 1, column, pr, column)) return "down";
+            if (pr < row && clearLine(row - 1, column, pr, column)) return "up";
         }
 
         return null;
@@ -195,36 +192,8 @@ public class Narval extends Monster {
     /**
      * Verifica que no haya bloques sólidos entre dos puntos en línea recta.
      */
-    private boolean clearLine(int sr, int sc, int tr, int tc, String dir) {
-        Block[][] blocks = board.getBlocks();
-
-        if ("right".equals(dir)) {
-            for (int c = sc; c <= tc; c++) {
-                if (isSolidVisionBlock(blocks[sr][c])) return false;
-            }
-        } else if ("left".equals(dir)) {
-            for (int c = sc; c >= tc; c--) {
-                if (isSolidVisionBlock(blocks[sr][c])) return false;
-            }
-        } else if ("down".equals(dir)) {
-            for (int r = sr; r <= tr; r++) {
-                if (isSolidVisionBlock(blocks[r][sc])) return false;
-            }
-        } else if ("up".equals(dir)) {
-            for (int r = sr; r >= tr; r--) {
-                if (isSolidVisionBlock(blocks[r][sc])) return false;
-            }
-        }
-
-        return true;
-    }
-
-    private boolean isSolidVisionBlock(Block b) {
-        if (b == null) return false;
-        // fogata y baldosa NO bloquean visión en tu regla
-        if (b.isFogata() || b.isBaldosaCaliente()) return false;
-        // hielo y decoración sí bloquean
-        return true;
+    private boolean clearLine(int sr, int sc, int tr, int tc) {
+        return board.isLineClear(sr, sc, tr, tc);
     }
 
     private boolean inBounds(int r, int c) {
@@ -239,7 +208,7 @@ public class Narval extends Monster {
      * - hielo => no (salvo en carga, que se rompe aparte)
      */
     private boolean isPassableCellForMonster(int r, int c) {
-        Block b = board.getBlocks()[r][c];
+        Block b = board.getBlockAt(r, c);
         if (b == null) return true;
         if (b.isFogata() || b.isBaldosaCaliente()) return true;
         if (b.isDecorationBlock()) return false;
@@ -248,10 +217,22 @@ public class Narval extends Monster {
     }
 
     private String randomDirection() {
-        int x = RNG.nextInt(4);
+        int x = board.getRandom().nextInt(4);
         if (x == 0) return "up";
         if (x == 1) return "down";
         if (x == 2) return "left";
         return "right";
     }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(isCharging);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        super.readState(in);
+        isCharging = in.readBoolean();
+    }
 }
@@ -1,18 +1,15 @@
 package domain;
-
-import java.util.Random;
+import java.io.*;
 
 public class Piña extends Fruit {
 
     private String directionOfView;
-    private static final Random random = new Random();
 
     public Piña(BadIceCream board, int row, int column){
-        super(board,row,column);
-        score = 20;
+        super(board,row,column,20);
         // Dirección inicial aleatoria
         String[] dirs = {"up", "down", "left", "right"};
-        directionOfView = dirs[random.nextInt(dirs.length)];
+        directionOfView = dirs[board.getRandom().nextInt(dirs.length)];
     }
 
     @Override
@@ -46,13 +43,8 @@ public class Piña extends Fruit {
         int r2 = row + 2*dr;
         int c2 = column + 2*dc;
 
-        Block[][] blocks   = board.getBlocks();
-        Fruit[][] fruits   = board.getFruits();
-        Monster[][] monsters = board.getMonsters();
-        Player[][] players = board.getPlayers();
-
-        int height = blocks.length;
-        int width  = blocks[0].length;
+        int height = board.getHeight();
+        int width  = board.getWidth();
 
         // 1. Si la primera casilla está fuera del tablero → no se mueve
         if (r1 < 0 || r1 >= height || c1 < 0 || c1 >= width) {
@@ -61,9 +53,9 @@ public class Piña extends Fruit {
 
         // 2. Caso normal: la casilla inmediata está libre de bloque, monstruo y fruta
         //    (puede haber jugador, lo manejaremos luego con checkActions)
-        if (blocks[r1][c1] == null &&
-            monsters[r1][c1] == null &&
-            fruits[r1][c1] == null) {
+        if (board.getBlockAt(r1, c1) == null &&
+            board.getMonsterAt(r1, c1) == null &&
+            board.getFruitAt(r1, c1) == null) {
 
             changePosition(r1, c1);
             return true;
@@ -74,19 +66,19 @@ public class Piña extends Fruit {
         //    - La segunda casilla (r2,c2) existe
         //    - En (r2,c2) NO hay bloque, ni monstruo, ni fruta
         //      (puede haber jugador)
-        if (blocks[r1][c1] != null) {
+        if (board.getBlockAt(r1, c1) != null) {
             // Si la casilla de aterrizaje está fuera → no salta
             if (r2 < 0 || r2 >= height || c2 < 0 || c2 >= width) {
                 return false;
             }
 
             // Si hay otro bloque en r2,c2 → significa que son 2 bloques seguidos o más → NO salta
-            if (blocks[r2][c2] != null) {
+            if (board.getBlockAt(r2, c2) != null) {
                 return false;
             }
 
             // Si hay monstruo o fruta en la casilla de aterrizaje → tampoco
-            if (monsters[r2][c2] != null || fruits[r2][c2] != null) {
+            if (board.getMonsterAt(r2, c2) != null || board.getFruitAt(r2, c2) != null) {
                 return false;
             }
 
@@ -136,4 +128,14 @@ public class Piña extends Fruit {
     public String getFruitType() {
         return "PIÑA";
     }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        GameSnapshotCodec.writeDirection(out, directionOfView);
+    }
+
+    @Override
+    void readState(DataInput in) throws IOException {
+        directionOfView = GameSnapshotCodec.readDirection(in);
+    }
 }
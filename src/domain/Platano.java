@@ -3,8 +3,7 @@ package domain;
 public class Platano extends Fruit {
 
     public Platano(BadIceCream board, int row, int column){
-        super(board,row,column);
-        score = 5;
+        super(board,row,column,5);
     }
 
     @Override
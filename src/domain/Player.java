@@ -11,6 +11,7 @@ public class Player implements Unit, Serializable {
     private int column;
     private String directionOfView;
     private BadIceCream board;
+    private int entityId = EntityRegistry.NO_ID;
 
     public Player(BadIceCream board, int row, int column, String flavor){
         this.board = board;
@@ -54,6 +55,9 @@ public class Player implements Unit, Serializable {
 
     public void changeOfView(String direction) throws BadIceCreamException{
         if(direction.equals("down") || direction.equals("up") || direction.equals("left") || direction.equals("right")){
+            if (!direction.equals(directionOfView)) {
+                board.markDirty(row, column);
+            }
             directionOfView = direction;
         } else {
             throw new BadIceCreamException(BadIceCreamException.DIRECTION_NO_ALLOWED);
@@ -73,6 +77,16 @@ public class Player implements Unit, Serializable {
     
     @Override
     public boolean isPlayer(){return true;}
+
+    @Override
+    public int getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public void setEntityId(int id) {
+        entityId = id;
+    }
     
     public int getScore() {
         return score;
@@ -103,12 +117,11 @@ public class Player implements Unit, Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_ACTION);
         }
         
-        Block[][] blocks = board.getBlocks();
         
-        if (blocks[r - 1][c] != null && blocks[r - 1][c].isIceBlock()) {
+        if (board.getBlockAt(r - 1, c) != null && board.getBlockAt(r - 1, c).isIceBlock()) {
             board.breakIceUp(r, c);
         }
-        else if (blocks[r - 1][c] == null) {
+        else if (board.getBlockAt(r - 1, c) == null) {
             board.createIceUp(r, c);
         }
     }
@@ -121,12 +134,11 @@ public class Player implements Unit, Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_ACTION);
         }
         
-        Block[][] blocks = board.getBlocks();
         
-        if (blocks[r + 1][c] != null && blocks[r + 1][c].isIceBlock()) {
+        if (board.getBlockAt(r + 1, c) != null && board.getBlockAt(r + 1, c).isIceBlock()) {
             board.breakIceDown(r, c);  
         }
-        else if (blocks[r + 1][c] == null) {
+        else if (board.getBlockAt(r + 1, c) == null) {
             board.createIceDown(r, c);  
         }
     }
@@ -139,11 +151,10 @@ public class Player implements Unit, Serializable {
         if (c - 1 < 0) {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_ACTION);
         }
-        Block[][] blocks = board.getBlocks();   
-        if (blocks[r][c - 1] != null && blocks[r][c - 1].isIceBlock()) {
+        if (board.getBlockAt(r, c - 1) != null && board.getBlockAt(r, c - 1).isIceBlock()) {
             board.breakIceLeft(r, c);  
         }
-        else if (blocks[r][c - 1] == null) {
+        else if (board.getBlockAt(r, c - 1) == null) {
             board.createIceLeft(r, c); 
         }
     }
@@ -157,12 +168,11 @@ public class Player implements Unit, Serializable {
             throw new BadIceCreamException(BadIceCreamException.CANNOT_EXECUTE_ACTION);
         }
         
-        Block[][] blocks = board.getBlocks();
         
-        if (blocks[r][c + 1] != null && blocks[r][c + 1].isIceBlock()) {
+        if (board.getBlockAt(r, c + 1) != null && board.getBlockAt(r, c + 1).isIceBlock()) {
             board.breakIceRight(r, c);  
         }
-        else if (blocks[r][c + 1] == null) {
+        else if (board.getBlockAt(r, c + 1) == null) {
             board.createIceRight(r, c);  
         }
     }
@@ -170,5 +180,23 @@ public class Player implements Unit, Serializable {
     public void die() {
     	this.board.setPlayer(row, column, null);
     }
-    
+
+    /**
+     * Escribe el sabor, el puntaje y la dirección del jugador.
+     * Lo usa GameSnapshotCodec al guardar la partida.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeUTF(flavor == null ? "" : flavor);
+        out.writeInt(score);
+        GameSnapshotCodec.writeDirection(out, directionOfView);
+    }
+
+    /**
+     * Restaura el estado escrito por writeState.
+     */
+    void readState(DataInput in) throws IOException {
+        flavor = in.readUTF();
+        score = in.readInt();
+        directionOfView = GameSnapshotCodec.readDirection(in);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package domain;
+
+/**
+ * Encabezado de una ranura ocupada de un SaveStore: lo necesario para
+ * listar las partidas guardadas sin leer ni decodificar la partida.
+ */
+public final class SaveSlot {
+
+    private final int index;
+    private final String label;
+    private final int level;
+    private final int phase;
+    private final int player1Score;
+    private final int player2Score;
+    private final long timestamp;
+    private final int size;
+
+    SaveSlot(int index, String label, int level, int phase,
+             int player1Score, int player2Score, long timestamp, int size) {
+        this.index = index;
+        this.label = label;
+        this.level = level;
+        this.phase = phase;
+        this.player1Score = player1Score;
+        this.player2Score = player2Score;
+        this.timestamp = timestamp;
+        this.size = size;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return puntaje del jugador 1, o -1 si no estaba en el tablero al guardar
+     */
+    public int getPlayer1Score() {
+        return player1Score;
+    }
+
+    /**
+     * @return puntaje del jugador 2, o -1 si no estaba en el tablero al guardar
+     */
+    public int getPlayer2Score() {
+        return player2Score;
+    }
+
+    /**
+     * @return momento del guardado, en milisegundos desde la época
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return tamaño en bytes de la partida guardada
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(index + 1).append(". ");
+        if (!label.isEmpty()) {
+            sb.append(label).append(" - ");
+        }
+        sb.append("Nivel ").append(level).append(", fase ").append(phase);
+        if (player1Score >= 0) sb.append(", J1: ").append(player1Score);
+        if (player2Score >= 0) sb.append(", J2: ").append(player2Score);
+        sb.append(" (").append(new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm")
+                .format(new java.util.Date(timestamp))).append(")");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,436 @@
+package domain;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Almacén de partidas guardadas en un único archivo mapeado en memoria.
+ *
+ * El archivo tiene tres zonas:
+ * - Encabezado (HEADER_SIZE bytes): "BICV", versión, cantidad de ranuras y
+ *   el final de la zona de partidas.
+ * - Tabla de ranuras: SLOT_SIZE bytes por ranura, con nivel, fase, puntajes,
+ *   fecha, nombre y la ubicación (desplazamiento, largo, capacidad y CRC32)
+ *   de la partida.
+ * - Zona de partidas: los bytes de GameSnapshotCodec, uno detrás de otro.
+ *
+ * Listar las partidas solo lee la tabla. Cargar decodifica la partida
+ * directamente desde la región mapeada, sin copiarla a un arreglo. Al
+ * guardar, la partida nueva se escribe siempre al final de la zona de
+ * partidas y se fuerza a disco antes de cambiar y forzar el encabezado de la
+ * ranura: si el programa se corta a mitad de camino, la ranura sigue
+ * apuntando a la partida anterior, que no se tocó. compact() elimina los
+ * huecos que dejan las partidas borradas o reemplazadas.
+ *
+ * El archivo crece (y se vuelve a mapear) a medida que hace falta.
+ *
+ * Los métodos son synchronized, pero eso solo ordena los accesos a una misma
+ * instancia: un archivo se debe abrir con un único SaveStore a la vez.
+ */
+public final class SaveStore implements Closeable {
+
+    public static final byte[] MAGIC = {'B', 'I', 'C', 'V'};
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 32;
+    public static final int SLOT_SIZE = 64;
+    public static final int LABEL_BYTES = 27;
+    public static final int DEFAULT_SLOTS = 16;
+
+    // Encabezado del archivo
+    private static final int H_VERSION = 4;
+    private static final int H_SLOTS = 6;
+    private static final int H_DATA_END = 8;
+
+    // Campos de cada ranura
+    private static final int S_FLAGS = 0;
+    private static final int S_PHASE = 1;
+    private static final int S_LEVEL = 2;
+    private static final int S_PLAYER1 = 4;
+    private static final int S_PLAYER2 = 8;
+    private static final int S_TIMESTAMP = 12;
+    private static final int S_OFFSET = 20;
+    private static final int S_LENGTH = 24;
+    private static final int S_CAPACITY = 28;
+    private static final int S_CRC = 32;
+    private static final int S_LABEL_LENGTH = 36;
+    private static final int S_LABEL = 37;
+
+    private static final int USED = 1;
+
+    private static final int INITIAL_DATA_BYTES = 64 * 1024;
+
+    private static final String CORRUPT = "Archivo de partidas corrupto o inválido";
+    private static final String INVALID_SLOT = "Ranura de guardado inválida";
+    private static final String EMPTY_SLOT = "La ranura de guardado está vacía";
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int slotCount;
+    private final int dataStart;
+    private MappedByteBuffer map;
+
+    private SaveStore(RandomAccessFile file, int slotCount) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.slotCount = slotCount;
+        this.dataStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+    }
+
+    /**
+     * Abre el almacén del archivo dado, o lo crea con la cantidad de ranuras
+     * indicada si no existe. Un archivo existente conserva sus ranuras.
+     *
+     * @param path  archivo del almacén
+     * @param slots cantidad de ranuras si hay que crearlo
+     * @return almacén abierto
+     * @throws BadIceCreamException si el archivo no es un almacén o no se puede abrir
+     */
+    public static SaveStore open(File path, int slots) throws BadIceCreamException {
+        if (slots <= 0 || slots > 0xFFFF) {
+            throw new IllegalArgumentException("Cantidad de ranuras inválida: " + slots);
+        }
+        RandomAccessFile raf = null;
+        try {
+            boolean create = !path.exists() || path.length() == 0;
+            raf = new RandomAccessFile(path, "rw");
+            SaveStore store;
+            if (create) {
+                store = new SaveStore(raf, slots);
+                raf.setLength(store.dataStart + INITIAL_DATA_BYTES);
+                store.remap();
+                for (int i = 0; i < MAGIC.length; i++) {
+                    store.map.put(i, MAGIC[i]);
+                }
+                store.map.putShort(H_VERSION, (short) VERSION);
+                store.map.putShort(H_SLOTS, (short) slots);
+                store.map.putLong(H_DATA_END, store.dataStart);
+                store.map.force();
+            } else {
+                store = new SaveStore(raf, readSlotCount(raf));
+                store.remap();
+                if (store.dataEnd() < store.dataStart || store.dataEnd() > store.map.capacity()) {
+                    throw new BadIceCreamException(CORRUPT);
+                }
+            }
+            return store;
+        } catch (IOException e) {
+            closeQuietly(raf);
+            throw new BadIceCreamException("Error al abrir las partidas guardadas: " + e.getMessage());
+        } catch (BadIceCreamException e) {
+            closeQuietly(raf);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre o crea el almacén con DEFAULT_SLOTS ranuras.
+     */
+    public static SaveStore open(File path) throws BadIceCreamException {
+        return open(path, DEFAULT_SLOTS);
+    }
+
+    public synchronized int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Lista las ranuras ocupadas leyendo solo la tabla de ranuras.
+     *
+     * @return encabezados de las ranuras ocupadas, en orden de ranura
+     */
+    public synchronized List<SaveSlot> listSlots() {
+        List<SaveSlot> slots = new ArrayList<>();
+        for (int i = 0; i < slotCount; i++) {
+            if (isUsed(i)) {
+                slots.add(readSlot(i));
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * @param index ranura
+     * @return encabezado de la ranura, o null si está vacía
+     * @throws BadIceCreamException si la ranura no existe
+     */
+    public synchronized SaveSlot getSlot(int index) throws BadIceCreamException {
+        checkIndex(index);
+        return isUsed(index) ? readSlot(index) : null;
+    }
+
+    /**
+     * Guarda la partida en la ranura indicada, reemplazando lo que tuviera.
+     *
+     * @param index ranura
+     * @param label nombre para mostrar (se recorta a LABEL_BYTES bytes en UTF-8)
+     * @param game  partida a guardar
+     * @return encabezado de la ranura guardada
+     * @throws BadIceCreamException si la ranura no existe o no se puede escribir
+     */
+    public synchronized SaveSlot save(int index, String label, BadIceCream game) throws BadIceCreamException {
+        Player p1 = game.getFirstPlayer();
+        Player p2 = game.getSecondPlayer();
+        return save(index, label, GameSnapshotCodec.encode(game), game.getLevel(), game.getPhase(),
+                p1 != null ? p1.getScore() : -1, p2 != null ? p2.getScore() : -1);
+    }
+
+    /**
+     * Guarda una partida ya codificada con GameSnapshotCodec. Permite tomar
+     * la foto en el hilo del juego y escribirla después en otro hilo, sin
+     * volver a codificarla.
+     *
+     * @param index        ranura
+     * @param label        nombre para mostrar
+     * @param snapshot     partida codificada
+     * @param level        nivel de la partida
+     * @param phase        fase de la partida
+     * @param player1Score puntaje del jugador 1, o -1 si no está en el tablero
+     * @param player2Score puntaje del jugador 2, o -1 si no está en el tablero
+     * @return encabezado de la ranura guardada
+     * @throws BadIceCreamException si la ranura no existe o no se puede escribir
+     */
+    public synchronized SaveSlot save(int index, String label, byte[] snapshot, int level, int phase,
+                                      int player1Score, int player2Score) throws BadIceCreamException {
+        checkIndex(index);
+        if (!GameSnapshotCodec.isSnapshot(snapshot)) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        try {
+            int slot = slotPosition(index);
+            // La partida anterior de la ranura queda intacta hasta que el
+            // encabezado apunta a la nueva; compact() recupera su lugar
+            int offset = (int) dataEnd();
+            ensureCapacity((long) offset + snapshot.length);
+            ByteBuffer region = map.duplicate();
+            region.position(offset);
+            region.put(snapshot);
+            map.putLong(H_DATA_END, offset + snapshot.length);
+            map.force();
+
+            CRC32 crc = new CRC32();
+            crc.update(snapshot);
+            map.put(slot + S_PHASE, (byte) phase);
+            map.putShort(slot + S_LEVEL, (short) level);
+            map.putInt(slot + S_PLAYER1, player1Score);
+            map.putInt(slot + S_PLAYER2, player2Score);
+            map.putLong(slot + S_TIMESTAMP, System.currentTimeMillis());
+            map.putInt(slot + S_OFFSET, offset);
+            map.putInt(slot + S_LENGTH, snapshot.length);
+            map.putInt(slot + S_CAPACITY, snapshot.length);
+            map.putInt(slot + S_CRC, (int) crc.getValue());
+            writeLabel(slot, label);
+            map.put(slot + S_FLAGS, (byte) USED);
+            map.force();
+            return readSlot(index);
+        } catch (IOException e) {
+            throw new BadIceCreamException("Error al guardar el juego: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga la partida de una ranura, decodificándola desde el archivo mapeado.
+     *
+     * @param index ranura
+     * @return partida restaurada
+     * @throws BadIceCreamException si la ranura no existe, está vacía o su partida está dañada
+     */
+    public synchronized BadIceCream load(int index) throws BadIceCreamException {
+        checkIndex(index);
+        if (!isUsed(index)) {
+            throw new BadIceCreamException(EMPTY_SLOT);
+        }
+        ByteBuffer payload = payload(index);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != map.getInt(slotPosition(index) + S_CRC)) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        return GameSnapshotCodec.decode(payload);
+    }
+
+    /**
+     * Vacía una ranura. El espacio de su partida se recupera con compact().
+     *
+     * @param index ranura
+     * @throws BadIceCreamException si la ranura no existe
+     */
+    public synchronized void delete(int index) throws BadIceCreamException {
+        checkIndex(index);
+        map.put(slotPosition(index) + S_FLAGS, (byte) 0);
+        map.force();
+    }
+
+    /**
+     * Junta las partidas de las ranuras ocupadas al principio de la zona de
+     * partidas, eliminando los huecos.
+     *
+     * @return bytes recuperados
+     */
+    public synchronized long compact() {
+        List<Integer> used = new ArrayList<>();
+        for (int i = 0; i < slotCount; i++) {
+            if (isUsed(i)) used.add(i);
+        }
+        used.sort((a, b) -> Integer.compare(map.getInt(slotPosition(a) + S_OFFSET),
+                                            map.getInt(slotPosition(b) + S_OFFSET)));
+
+        long before = dataEnd();
+        int cursor = dataStart;
+        for (int index : used) {
+            int slot = slotPosition(index);
+            int offset = map.getInt(slot + S_OFFSET);
+            int length = map.getInt(slot + S_LENGTH);
+            if (offset != cursor) {
+                byte[] bytes = new byte[length];
+                ByteBuffer from = map.duplicate();
+                from.position(offset);
+                from.get(bytes);
+                ByteBuffer to = map.duplicate();
+                to.position(cursor);
+                to.put(bytes);
+                map.putInt(slot + S_OFFSET, cursor);
+            }
+            map.putInt(slot + S_CAPACITY, length);
+            cursor += length;
+        }
+        map.putLong(H_DATA_END, cursor);
+        map.force();
+        return before - cursor;
+    }
+
+    /**
+     * @return bytes usados de la zona de partidas, incluidos los huecos
+     */
+    public synchronized long getDataSize() {
+        return dataEnd() - dataStart;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (map != null) {
+            map.force();
+            map = null;
+        }
+        file.close();
+    }
+
+    private static int readSlotCount(RandomAccessFile raf) throws IOException, BadIceCreamException {
+        if (raf.length() < HEADER_SIZE) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        raf.seek(0);
+        raf.readFully(magic);
+        if (!java.util.Arrays.equals(magic, MAGIC) || raf.readUnsignedShort() != VERSION) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        int slots = raf.readUnsignedShort();
+        if (slots == 0 || raf.length() < HEADER_SIZE + (long) slots * SLOT_SIZE) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        return slots;
+    }
+
+    private void remap() throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    /**
+     * Agranda el archivo (al menos al doble) si el byte final indicado no entra.
+     */
+    private void ensureCapacity(long end) throws IOException {
+        if (end <= map.capacity()) return;
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("el archivo de partidas no puede superar 2 GB");
+        }
+        long size = Math.min(Math.max(end, (long) map.capacity() * 2), Integer.MAX_VALUE);
+        map.force();
+        file.setLength(size);
+        remap();
+    }
+
+    private long dataEnd() {
+        return map.getLong(H_DATA_END);
+    }
+
+    private int slotPosition(int index) {
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+
+    private boolean isUsed(int index) {
+        return (map.get(slotPosition(index) + S_FLAGS) & USED) != 0;
+    }
+
+    private void checkIndex(int index) throws BadIceCreamException {
+        if (index < 0 || index >= slotCount) {
+            throw new BadIceCreamException(INVALID_SLOT);
+        }
+    }
+
+    /**
+     * @return vista de solo lectura de la partida guardada en la ranura
+     */
+    private ByteBuffer payload(int index) throws BadIceCreamException {
+        int slot = slotPosition(index);
+        int offset = map.getInt(slot + S_OFFSET);
+        int length = map.getInt(slot + S_LENGTH);
+        if (offset < dataStart || length < 0 || (long) offset + length > dataEnd()) {
+            throw new BadIceCreamException(CORRUPT);
+        }
+        ByteBuffer view = map.asReadOnlyBuffer();
+        view.limit(offset + length);
+        view.position(offset);
+        return view.slice();
+    }
+
+    private SaveSlot readSlot(int index) {
+        int slot = slotPosition(index);
+        int labelLength = Math.min(map.get(slot + S_LABEL_LENGTH) & 0xFF, LABEL_BYTES);
+        byte[] label = new byte[labelLength];
+        for (int i = 0; i < labelLength; i++) {
+            label[i] = map.get(slot + S_LABEL + i);
+        }
+        return new SaveSlot(index,
+                new String(label, StandardCharsets.UTF_8),
+                map.getShort(slot + S_LEVEL),
+                map.get(slot + S_PHASE),
+                map.getInt(slot + S_PLAYER1),
+                map.getInt(slot + S_PLAYER2),
+                map.getLong(slot + S_TIMESTAMP),
+                map.getInt(slot + S_LENGTH));
+    }
+
+    /**
+     * Escribe el nombre en UTF-8, recortado a LABEL_BYTES sin partir caracteres.
+     */
+    private void writeLabel(int slot, String label) {
+        int length = 0;
+        if (label != null) {
+            for (int i = 0; i < label.length(); ) {
+                int cp = label.codePointAt(i);
+                byte[] bytes = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+                if (length + bytes.length > LABEL_BYTES) break;
+                for (byte b : bytes) {
+                    map.put(slot + S_LABEL + length++, b);
+                }
+                i += Character.charCount(cp);
+            }
+        }
+        map.put(slot + S_LABEL_LENGTH, (byte) length);
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        if (raf == null) return;
+        try {
+            raf.close();
+        } catch (IOException e) {
+            // El error original es el que importa
+        }
+    }
+}
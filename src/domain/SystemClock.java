@@ -0,0 +1,16 @@
+package domain;
+
+/**
+ * Reloj de tiempo real: delega en System.currentTimeMillis().
+ * Es el reloj por defecto de BadIceCream cuando se juega desde la GUI.
+ */
+public class SystemClock implements GameClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void advance(long millis) { }
+}
@@ -53,9 +53,9 @@ public class Troll extends Monster {
      */
     private boolean canMoveTo(int r, int c) {
         if (r < 0 || r >= board.getHeight() || c < 0 || c >= board.getWidth()) return false;
-        if (board.getMonsters()[r][c] != null) return false;
+        if (board.getMonsterAt(r, c) != null) return false;
 
-        Block b = board.getBlocks()[r][c];
+        Block b = board.getBlockAt(r, c);
         // Pasables para monstruos incluso activas:
         if (b == null) return true;
         if (b.isFogata() || b.isBaldosaCaliente()) return true;
@@ -12,6 +12,14 @@ public interface Unit extends Serializable {
 
     void changePosition(int newRow, int newColumn);
 
+    /**
+     * Id estable asignado por el EntityRegistry del tablero
+     * (EntityRegistry.NO_ID si la unidad no está registrada).
+     */
+    int getEntityId();
+
+    void setEntityId(int id);
+
     public default boolean isPlayer(){return false;}
     public default boolean isMonster(){return false;}
     public default boolean isFruit(){return false;}
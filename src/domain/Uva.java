@@ -3,8 +3,7 @@ package domain;
 public class Uva extends Fruit {
 
     public Uva(BadIceCream board, int row, int column){
-        super(board,row,column);
-        score = 10;
+        super(board,row,column,10);
     }
 
     @Override
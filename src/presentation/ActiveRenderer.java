@@ -0,0 +1,266 @@
+package presentation;
+
+import domain.BoardSnapshot;
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dibujo activo del tablero: un Canvas con BufferStrategy (intercambio de
+ * páginas si la pantalla lo permite) y un hilo propio que dibuja con un
+ * límite de frames por segundo, sin pasar por repaint() ni por la cola de
+ * eventos de Swing.
+ *
+ * El hilo de eventos sigue actualizando el juego; después de cada cambio
+ * publica un BoardSnapshot con publish() y el hilo de dibujo toma siempre la
+ * última foto publicada. Mientras alguna unidad va de una celda a otra se
+ * dibuja cada frame, con la unidad un poco más adelante; si no llegó una foto
+ * nueva y no hay nada en movimiento no se dibuja el frame.
+ *
+ * Mide el tiempo entre frames mostrados y la latencia de entrada a pantalla:
+ * desde que se aplica una tecla hasta que se muestra el primer frame que la
+ * incluye.
+ */
+final class ActiveRenderer implements Runnable {
+
+    /** Margen final de la espera que se hace girando en vez de dormir. */
+    private static final long SPIN_NANOS = 1_000_000L;
+    /** Cantidad de frames y de entradas con que se calculan los promedios. */
+    private static final int WINDOW = 120;
+    private static final Font STATS_FONT = new Font("Arial", Font.PLAIN, 14);
+
+    private final Canvas canvas = new Canvas();
+    private final BoardRenderer board;
+    private final long frameNanos;
+
+    private volatile BoardSnapshot snapshot;
+    private volatile boolean running;
+    private Thread thread;
+
+    private BufferStrategy strategy;
+    private BoardSnapshot shown;
+    private boolean shownSettled;
+    private int shownWidth;
+    private int shownHeight;
+    private long lastShowNanos;
+    private long lastInputNanos;
+
+    private final long[] frameTimes = new long[WINDOW];
+    private final long[] latencies = new long[WINDOW];
+    private int frameCount;
+    private int latencyCount;
+
+    // Texto de las estadísticas; se vuelve a armar solo si cambian los
+    // promedios redondeados a décimas
+    private String statsText;
+    private long statsFrameTenths = -1;
+    private long statsLatencyTenths = -1;
+
+    /**
+     * @param board    dibujante del tablero, de uso exclusivo de este hilo
+     * @param frameCap frames por segundo como máximo
+     */
+    ActiveRenderer(BoardRenderer board, int frameCap) {
+        this.board = board;
+        this.frameNanos = 1_000_000_000L / Math.max(1, frameCap);
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(false);
+    }
+
+    /**
+     * @return el Canvas donde se dibuja; se debe agregar a la ventana
+     */
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Publica la foto que se debe dibujar en el próximo frame.
+     */
+    void publish(BoardSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Arranca el hilo de dibujo (si no estaba corriendo).
+     */
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "bad-ice-cream-render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Detiene el hilo de dibujo y espera a que termine.
+     */
+    void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+            thread = null;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        while (running) {
+            try {
+                renderFrame();
+            } catch (RuntimeException e) {
+                // El Canvas se puede quitar de la ventana en medio de un frame
+                strategy = null;
+            }
+            next += frameNanos;
+            long now = System.nanoTime();
+            if (now - next > frameNanos) {
+                // Atrasado más de un frame: se sigue desde ahora en vez de
+                // dibujar varios frames seguidos para recuperar
+                next = now;
+            }
+            waitUntil(next);
+        }
+        strategy = null;
+    }
+
+    /**
+     * Espera hasta el instante indicado: duerme casi todo el tiempo y gira
+     * el último milisegundo, que es donde el sleep del sistema se pasa.
+     */
+    private void waitUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (running && deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void renderFrame() {
+        BoardSnapshot current = snapshot;
+        int w = canvas.getWidth();
+        int h = canvas.getHeight();
+        if (current == null || !canvas.isDisplayable() || w <= 0 || h <= 0) {
+            strategy = null;
+            lastShowNanos = 0;
+            return;
+        }
+        if (strategy == null) {
+            createStrategy();
+            shown = null;
+        }
+        long frameStart = System.nanoTime();
+        if (current == shown && shownSettled && w == shownWidth && h == shownHeight
+                && !strategy.contentsLost()) {
+            lastShowNanos = 0;
+            return;
+        }
+
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    board.render(g, current, w, h, canvas.getGraphicsConfiguration(), frameStart);
+                    drawStats(g, w);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+
+        long now = System.nanoTime();
+        recordFrame(now, current);
+        shown = current;
+        shownSettled = !current.isMovingAt(frameStart);
+        shownWidth = w;
+        shownHeight = h;
+    }
+
+    private void createStrategy() {
+        try {
+            canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true),
+                    new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException e) {
+            // Sin intercambio de páginas: se copia el buffer trasero
+            canvas.createBufferStrategy(2);
+        }
+        strategy = canvas.getBufferStrategy();
+    }
+
+    private synchronized void recordFrame(long now, BoardSnapshot current) {
+        // Solo cuentan frames seguidos: una pausa sin cambios no es un frame lento
+        if (lastShowNanos != 0) {
+            frameTimes[frameCount % WINDOW] = now - lastShowNanos;
+            frameCount++;
+        }
+        lastShowNanos = now;
+
+        long input = current.getInputNanos();
+        if (input != 0 && input != lastInputNanos) {
+            lastInputNanos = input;
+            latencies[latencyCount % WINDOW] = now - input;
+            latencyCount++;
+        }
+    }
+
+    private void drawStats(Graphics2D g, int w) {
+        long frameTenths = Math.round(getAverageFrameMillis() * 10);
+        long latencyTenths = Math.round(getAverageLatencyMillis() * 10);
+        if (statsText == null || frameTenths != statsFrameTenths || latencyTenths != statsLatencyTenths) {
+            statsText = tenths(frameTenths) + " ms/frame  entrada: " + tenths(latencyTenths) + " ms";
+            statsFrameTenths = frameTenths;
+            statsLatencyTenths = latencyTenths;
+        }
+        String text = statsText;
+        g.setFont(STATS_FONT);
+        int x = w - g.getFontMetrics().stringWidth(text) - 20;
+        g.setColor(Color.BLACK);
+        g.drawString(text, x + 1, 31);
+        g.setColor(Color.WHITE);
+        g.drawString(text, x, 30);
+    }
+
+    /**
+     * @return promedio del tiempo entre frames seguidos mostrados, en
+     *         milisegundos (0 si todavía no hay)
+     */
+    synchronized double getAverageFrameMillis() {
+        return average(frameTimes, frameCount);
+    }
+
+    /**
+     * @return promedio de la latencia de entrada a pantalla de las últimas
+     *         WINDOW teclas, en milisegundos (0 si todavía no hay)
+     */
+    synchronized double getAverageLatencyMillis() {
+        return average(latencies, latencyCount);
+    }
+
+    private static String tenths(long value) {
+        return (value / 10) + "." + (value % 10);
+    }
+
+    private static double average(long[] values, int count) {
+        int n = Math.min(count, WINDOW);
+        if (n == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+        }
+        return sum / (n * 1_000_000.0);
+    }
+}
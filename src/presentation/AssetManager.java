@@ -0,0 +1,214 @@
+package presentation;
+
+import domain.LevelPack;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * Carga de imágenes en paralelo.
+ *
+ * Cada imagen pedida se busca (paquete de niveles, recursos del classpath,
+ * directorio del proyecto y carpeta src, en ese orden) y se decodifica con
+ * ImageIO en un grupo de hilos de fondo, uno por núcleo. La imagen queda
+ * disponible en get() apenas termina de decodificarse, sin esperar a las
+ * demás; await() espera solo por la imagen pedida.
+ *
+ * ImageIO entrega la imagen ya decodificada, a diferencia de ImageIcon, que
+ * la decodifica en el hilo que la pide y bloquea con un MediaTracker.
+ */
+final class AssetManager {
+
+    /**
+     * Avance de la carga. Se llama desde los hilos de fondo.
+     */
+    interface Listener {
+        /**
+         * @param path   imagen que terminó de cargarse (o que no se encontró)
+         * @param loaded imágenes terminadas hasta ahora
+         * @param total  imágenes pedidas hasta ahora
+         */
+        void assetLoaded(String path, int loaded, int total);
+    }
+
+    private final LevelPack pack;
+    private final ExecutorService pool;
+    private final Map<String, CompletableFuture<Image>> images = new ConcurrentHashMap<>();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private volatile Listener listener;
+
+    /**
+     * @param pack paquete de niveles donde buscar primero las imágenes (puede
+     *             ser null); solo se lee, con lecturas posicionales
+     */
+    AssetManager(LevelPack pack) {
+        this.pack = pack;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "bad-ice-cream-assets-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        // Sin archivos temporales: las imágenes se leen de memoria o de disco
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * @param listener avance de la carga, o null para no avisar
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Empieza a cargar en paralelo las imágenes que todavía no se pidieron.
+     *
+     * @param paths rutas de las imágenes ("/images/...")
+     */
+    void loadAll(Collection<String> paths) {
+        for (String path : paths) {
+            request(path);
+        }
+    }
+
+    /**
+     * @param path ruta de la imagen
+     * @return la imagen si ya terminó de cargarse; null si todavía se está
+     *         cargando o no se encontró. Si no se había pedido, empieza a
+     *         cargarla.
+     */
+    Image get(String path) {
+        return request(path).getNow(null);
+    }
+
+    /**
+     * Espera a que termine de cargarse una imagen (y solo esa).
+     *
+     * @param path ruta de la imagen
+     * @return la imagen, o null si no se encontró
+     */
+    Image await(String path) {
+        try {
+            return request(path).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return imágenes que ya terminaron de cargarse (o que no se encontraron)
+     */
+    int getLoadedCount() {
+        return loaded.get();
+    }
+
+    /**
+     * @return imágenes pedidas hasta ahora
+     */
+    int getRequestedCount() {
+        return images.size();
+    }
+
+    /**
+     * @return true si terminaron todas las imágenes pedidas
+     */
+    boolean isDone() {
+        return loaded.get() >= images.size();
+    }
+
+    /**
+     * Detiene los hilos de carga. Las imágenes ya cargadas siguen disponibles.
+     */
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private CompletableFuture<Image> request(final String path) {
+        CompletableFuture<Image> image = images.get(path);
+        if (image != null) return image;
+
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        image = images.putIfAbsent(path, created);
+        if (image != null) return image;
+
+        try {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Image decoded = null;
+                    try {
+                        decoded = decode(path);
+                    } finally {
+                        created.complete(decoded);
+                        finished(path);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            created.complete(null);
+            finished(path);
+        }
+        return created;
+    }
+
+    private void finished(String path) {
+        int done = loaded.incrementAndGet();
+        Listener l = listener;
+        if (l != null) {
+            l.assetLoaded(path, done, images.size());
+        }
+    }
+
+    private Image decode(String path) {
+        try {
+            BufferedImage image = null;
+            if (pack != null && pack.contains(path)) {
+                image = ImageIO.read(new ByteArrayInputStream(pack.read(path)));
+            } else {
+                java.net.URL url = AssetManager.class.getResource(path);
+                if (url != null) {
+                    image = ImageIO.read(url);
+                } else {
+                    File file = findFile(path);
+                    if (file == null) {
+                        System.out.println("⚠ No se pudo cargar: " + path);
+                        return null;
+                    }
+                    image = ImageIO.read(file);
+                }
+            }
+            if (image == null) {
+                System.out.println("✗ Formato de imagen no soportado: " + path);
+            }
+            return image;
+        } catch (IOException | domain.BadIceCreamException | RuntimeException e) {
+            System.out.println("✗ Error cargando imagen: " + path);
+            return null;
+        }
+    }
+
+    private static File findFile(String path) {
+        String projectPath = System.getProperty("user.dir");
+        String relative = path.replace("/", File.separator);
+        File file = new File(projectPath + relative);
+        if (file.exists()) return file;
+        file = new File(projectPath + File.separator + "src" + relative);
+        if (file.exists()) return file;
+        return null;
+    }
+}
@@ -41,6 +41,8 @@ public class BadIceCreamGUI extends JFrame {
     private JMenuItem exportLevel;
     private JMenuItem saveGame;
     private JMenuItem openGame;
+    private JMenuItem saveSlot;
+    private JMenuItem loadSlot;
 
     private JPanel gameOverPanel;
     private JPanel victoryPanel;
@@ -48,55 +50,162 @@ public class BadIceCreamGUI extends JFrame {
     private BadIceCream juego;
     private int currentLevel = 1;
 
+    private GameEngine engine;
     private Timer gameTimer;
-    private Timer monsterTimer;
+    private long lastFrameNanos;
 
     private boolean isMachinePlayer1 = false;
     private boolean isMachinePlayer2 = false;
 
+    private static final String AUTOSAVE_FILE = "autosave.bicj";
+    private static final String SAVE_STORE_FILE = "partidas.bicv";
+    private static final String LEVEL_PACK_FILE = "levels.bicp";
+    private LevelPack levelPack;
+    private ActionJournal autosave;
+    /**
+     * Almacén de partidas de la sesión. Se abre la primera vez que hace falta
+     * y solo se usa desde el hilo de ioExecutor.
+     */
+    private SaveStore saveStore;
+
+    /**
+     * Imágenes de los menús, en el orden en que se necesitan. Se cargan en
+     * paralelo con las del tablero mientras se muestra la pantalla de carga.
+     */
+    private static final String[] MENU_IMAGES = {
+            "/images/bad_Ice_Cream_initial_screen.png",
+            "/images/default_image_background.png",
+            "/images/selection_color_image.png",
+            "/images/lose.png"
+    };
+    private AssetManager assets;
+    private JPanel loadingPanel;
+    private JProgressBar loadingBar;
+
+    /**
+     * Dibujo activo (opcional, con -Dbadicecream.activeRendering=true): el
+     * tablero lo dibuja un hilo propio en un Canvas con BufferStrategy, como
+     * máximo a -Dbadicecream.frameCap frames por segundo (60 por defecto).
+     * Sin la opción se usa el repintado de Swing por celdas cambiadas.
+     */
+    private static final boolean ACTIVE_RENDERING = Boolean.getBoolean("badicecream.activeRendering");
+    private static final int FRAME_CAP = Integer.getInteger("badicecream.frameCap", 60);
+    private ActiveRenderer activeRenderer;
+    private long lastInputNanos;
+
+    /**
+     * Hilo de fondo para guardar, abrir e importar sin congelar la ventana.
+     * Es uno solo para que las escrituras a disco se hagan en orden.
+     */
+    private final java.util.concurrent.ExecutorService ioExecutor =
+            java.util.concurrent.Executors.newSingleThreadExecutor(new java.util.concurrent.ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "bad-ice-cream-io");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
     /**
      * Constructor principal de la GUI.
      * Inicializa todos los elementos visuales y acciones.
      */
     public BadIceCreamGUI() {
+        openLevelPack();
+        startLoadingAssets();
         prepareElements();
         prepareActions();
+        offerAutosaveRecovery();
+    }
+
+    /**
+     * Empieza a cargar en paralelo todas las imágenes del juego. La pantalla
+     * de carga muestra el avance y cada panel usa sus imágenes apenas están.
+     */
+    private void startLoadingAssets() {
+        assets = new AssetManager(levelPack);
+        assets.setListener(new AssetManager.Listener() {
+            @Override
+            public void assetLoaded(String path, final int loaded, final int total) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        showLoadingProgress(loaded, total);
+                    }
+                });
+            }
+        });
+        java.util.List<String> paths = new java.util.ArrayList<>(java.util.Arrays.asList(MENU_IMAGES));
+        paths.addAll(BoardRenderer.getImagePaths());
+        assets.loadAll(paths);
+    }
+
+    /**
+     * Actualiza la pantalla de carga y, cuando terminan todas las imágenes,
+     * pasa al menú inicial.
+     */
+    private void showLoadingProgress(int loaded, int total) {
+        if (loadingBar != null) {
+            loadingBar.setMaximum(total);
+            loadingBar.setValue(loaded);
+            loadingBar.setString(loaded + " / " + total);
+        }
+        // Los paneles toman sus imágenes al pintarse
+        getContentPane().repaint();
+        if (activeRenderer != null) {
+            publishSnapshot();
+        }
+        if (assets.isDone() && getContentPane() == loadingPanel) {
+            setContentPane(initialPanel);
+            revalidate();
+            repaint();
+        }
     }
 
     /**
-     * Carga una imagen desde diferentes ubicaciones posibles.
-     * Intenta cargar desde recursos JAR, directorio del proyecto, y carpeta src.
+     * Devuelve una imagen del juego, esperando solo por ella si todavía se
+     * está cargando. Se busca en el paquete de niveles, los recursos del JAR,
+     * el directorio del proyecto y la carpeta src (ver AssetManager).
      *
      * @param relativePath Ruta relativa de la imagen
      * @return Image cargada o null si no se encontró
      */
     private Image loadImageUniversal(String relativePath) {
-        try {
-            java.net.URL imgURL = getClass().getResource(relativePath);
-            if (imgURL != null) {
-                return new ImageIcon(imgURL).getImage();
-            }
-
-            String projectPath = System.getProperty("user.dir");
-            String fullPath = projectPath + relativePath.replace("/", java.io.File.separator);
-            java.io.File file = new java.io.File(fullPath);
-            if (file.exists()) {
-                return new ImageIcon(fullPath).getImage();
-            }
-
-            fullPath = projectPath + "/src" + relativePath.replace("/", java.io.File.separator);
-            file = new java.io.File(fullPath);
-            if (file.exists()) {
-                return new ImageIcon(fullPath).getImage();
-            }
+        return assets.await(relativePath);
+    }
 
-            System.out.println("⚠ No se pudo cargar: " + relativePath);
-            return null;
+    /**
+     * Abre el paquete de niveles del directorio de trabajo, si existe. Sus
+     * niveles e imágenes tienen prioridad sobre los archivos sueltos.
+     */
+    private void openLevelPack() {
+        java.io.File file = new java.io.File(System.getProperty("user.dir"), LEVEL_PACK_FILE);
+        if (!file.isFile()) return;
+        try {
+            levelPack = LevelPack.open(file.getAbsolutePath());
+        } catch (BadIceCreamException e) {
+            System.out.println("✗ Error abriendo el paquete de niveles: " + e.getMessage());
+        }
+    }
 
-        } catch (Exception e) {
-            System.out.println("✗ Error cargando imagen: " + relativePath);
-            return null;
+    /**
+     * Busca el nivel indicado primero en el paquete de niveles y después como
+     * archivo levelN.txt en el directorio de trabajo.
+     *
+     * @param level número de nivel
+     * @return plantilla del nivel, o null si no hay ninguno
+     */
+    private LevelTemplate findLevelTemplate(int level) throws BadIceCreamException {
+        String name = "level" + level;
+        if (levelPack != null && levelPack.containsLevel(name)) {
+            return levelPack.getTemplate(name);
         }
+        java.io.File f = new java.io.File(System.getProperty("user.dir"), name + ".txt");
+        if (f.exists()) {
+            return LevelTemplateCache.getDefault().get(f.getAbsolutePath());
+        }
+        return null;
     }
 
     /**
@@ -106,6 +215,16 @@ public class BadIceCreamGUI extends JFrame {
     private void prepareElements() {
         setTitle("Bad Ice Cream");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (activeRenderer != null) {
+                    activeRenderer.stop();
+                }
+                closeAutosave();
+                closeSaveStore();
+            }
+        });
         setResizable(false);
 
         Image tempImage = loadImageUniversal("/images/bad_Ice_Cream_initial_screen.png");
@@ -120,6 +239,7 @@ public class BadIceCreamGUI extends JFrame {
 
         setLocationRelativeTo(null);
 
+        prepareElementsLoading();
         prepareElementsInitialPanel();
         prepareElementsElectionMode();
         prepareElementsPlayerSelection();
@@ -128,8 +248,41 @@ public class BadIceCreamGUI extends JFrame {
         prepareElementsGameOver();
         prepareElementsVictory();
 
-        setContentPane(initialPanel);
+        setContentPane(assets.isDone() ? initialPanel : loadingPanel);
         setVisible(true);
+
+        // Por si la última imagen terminó mientras se armaban los paneles
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                showLoadingProgress(assets.getLoadedCount(), assets.getRequestedCount());
+            }
+        });
+    }
+
+    /**
+     * Prepara la pantalla de carga, que se muestra mientras se cargan las
+     * imágenes al abrir el juego.
+     */
+    private void prepareElementsLoading() {
+        loadingPanel = new JPanel(new GridBagLayout());
+        loadingPanel.setBackground(new Color(135, 206, 250));
+
+        JPanel box = new JPanel(new BorderLayout(0, 15));
+        box.setOpaque(false);
+
+        JLabel title = new JLabel("Cargando...", SwingConstants.CENTER);
+        title.setFont(new Font("Arial", Font.BOLD, 30));
+        title.setForeground(Color.WHITE);
+
+        loadingBar = new JProgressBar(0, Math.max(1, assets.getRequestedCount()));
+        loadingBar.setValue(assets.getLoadedCount());
+        loadingBar.setStringPainted(true);
+        loadingBar.setPreferredSize(new Dimension(400, 30));
+
+        box.add(title, BorderLayout.NORTH);
+        box.add(loadingBar, BorderLayout.CENTER);
+        loadingPanel.add(box);
     }
 
     /**
@@ -139,13 +292,13 @@ public class BadIceCreamGUI extends JFrame {
         initialPanel = new JPanel() {
             private Image backgroundImage;
 
-            {
-                backgroundImage = loadImageUniversal("/images/bad_Ice_Cream_initial_screen.png");
-            }
-
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                if (backgroundImage == null) {
+                    // Se muestra apenas termina de cargarse
+                    backgroundImage = assets.get("/images/bad_Ice_Cream_initial_screen.png");
+                }
                 if (backgroundImage != null) {
                     g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
                 } else {
@@ -183,13 +336,13 @@ public class BadIceCreamGUI extends JFrame {
         gameOverPanel = new JPanel() {
             private Image gameOverImage;
 
-            {
-                gameOverImage = loadImageUniversal("/images/lose.png");
-            }
-
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                if (gameOverImage == null) {
+                    // Se muestra apenas termina de cargarse
+                    gameOverImage = assets.get("/images/lose.png");
+                }
                 if (gameOverImage != null) {
                     g.drawImage(gameOverImage, 0, 0, getWidth(), getHeight(), this);
                 } else {
@@ -233,6 +386,7 @@ public class BadIceCreamGUI extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 stopGameTimers();
+                discardAutosave();
                 juego = null;
                 setContentPane(initialPanel);
                 revalidate();
@@ -337,6 +491,7 @@ public class BadIceCreamGUI extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 stopGameTimers();
+                discardAutosave();
                 juego = null;
                 setContentPane(initialPanel);
                 revalidate();
@@ -355,13 +510,13 @@ public class BadIceCreamGUI extends JFrame {
         electionModePanel = new JPanel() {
             private Image backgroundImage;
 
-            {
-                backgroundImage = loadImageUniversal("/images/default_image_background.png");
-            }
-
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                if (backgroundImage == null) {
+                    // Se muestra apenas termina de cargarse
+                    backgroundImage = assets.get("/images/default_image_background.png");
+                }
                 if (backgroundImage != null) {
                     g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
                 } else {
@@ -461,13 +616,13 @@ public class BadIceCreamGUI extends JFrame {
         playerSelectionPanel = new JPanel() {
             private Image selectionImage;
 
-            {
-                selectionImage = loadImageUniversal("/images/selection_color_image.png");
-            }
-
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                if (selectionImage == null) {
+                    // Se muestra apenas termina de cargarse
+                    selectionImage = assets.get("/images/selection_color_image.png");
+                }
 
                 g.setColor(new Color(135, 206, 250));
                 g.fillRect(0, 0, getWidth(), getHeight());
@@ -600,13 +755,13 @@ public class BadIceCreamGUI extends JFrame {
         electionLevelPanel = new JPanel() {
             private Image backgroundImage;
 
-            {
-                backgroundImage = loadImageUniversal("/images/default_image_background.png");
-            }
-
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                if (backgroundImage == null) {
+                    // Se muestra apenas termina de cargarse
+                    backgroundImage = assets.get("/images/default_image_background.png");
+                }
                 if (backgroundImage != null) {
                     g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
                 } else {
@@ -690,6 +845,8 @@ public class BadIceCreamGUI extends JFrame {
         exportLevel = new JMenuItem("Exportar Nivel");
         saveGame = new JMenuItem("Guardar Juego");
         openGame = new JMenuItem("Abrir Juego");
+        saveSlot = new JMenuItem("Guardar en Ranura");
+        loadSlot = new JMenuItem("Cargar Ranura");
 
         menuOption.add(news);
         menuOption.add(importLevel);
@@ -697,6 +854,8 @@ public class BadIceCreamGUI extends JFrame {
         menuOption.addSeparator();
         menuOption.add(saveGame);
         menuOption.add(openGame);
+        menuOption.add(saveSlot);
+        menuOption.add(loadSlot);
         menuOption.addSeparator();
         menuOption.add(exit);
 
@@ -781,6 +940,20 @@ public class BadIceCreamGUI extends JFrame {
                 actionOpenGame();
             }
         });
+
+        saveSlot.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                actionSaveSlot();
+            }
+        });
+
+        loadSlot.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                actionLoadSlot();
+            }
+        });
     }
 
     private void actionPlay() {
@@ -832,22 +1005,22 @@ public class BadIceCreamGUI extends JFrame {
 
         try {
             juego = new BadIceCream(level);
+            juego.setClock(new ManualClock());
 
             if (player1Flavor != null && player2Flavor != null) {
                 juego.setPlayerFlavors(player1Flavor, player2Flavor);
             }
 
-            String fileName = "level" + level + ".txt";
-            java.io.File f = new java.io.File(System.getProperty("user.dir"), fileName);
-
-            if (f.exists()) {
-                juego.importLevel(f.getAbsolutePath());
+            LevelTemplate template = findLevelTemplate(level);
+            if (template != null) {
+                juego.loadTemplate(template);
             }
 
         } catch (BadIceCreamException e) {
             e.printStackTrace();
         }
 
+        createEngine();
         startGameTimers();
 
         setContentPane(mainGame);
@@ -861,21 +1034,22 @@ public class BadIceCreamGUI extends JFrame {
 
         try {
             juego = new BadIceCream(currentLevel);
+            juego.setClock(new ManualClock());
 
             if (player1Flavor != null && player2Flavor != null) {
                 juego.setPlayerFlavors(player1Flavor, player2Flavor);
             }
 
-            String fileName = "level" + currentLevel + ".txt";
-            java.io.File f = new java.io.File(System.getProperty("user.dir"), fileName);
-            if (f.exists()) {
-                juego.importLevel(f.getAbsolutePath());
+            LevelTemplate template = findLevelTemplate(currentLevel);
+            if (template != null) {
+                juego.loadTemplate(template);
             }
 
         } catch (BadIceCreamException e) {
             e.printStackTrace();
         }
 
+        createEngine();
         startGameTimers();
 
         setContentPane(mainGame);
@@ -888,20 +1062,135 @@ public class BadIceCreamGUI extends JFrame {
         if (gameTimer != null && gameTimer.isRunning()) {
             gameTimer.stop();
         }
-        if (monsterTimer != null && monsterTimer.isRunning()) {
-            monsterTimer.stop();
+    }
+
+    /**
+     * Crea el motor de simulación para el juego actual con el modo seleccionado.
+     * La GUI solo lo avanza a ritmo de reloj real desde el gameTimer.
+     */
+    private void createEngine() {
+        engine = (juego != null) ? new GameEngine(juego, isMachinePlayer1, isMachinePlayer2) : null;
+        startAutosave();
+    }
+
+    /**
+     * Empieza un diario de autoguardado nuevo para el motor actual. El archivo
+     * lo escribe el hilo de ioExecutor, así que el gameTimer solo anota en
+     * memoria. Si no se puede escribir, el juego sigue sin autoguardado.
+     */
+    private void startAutosave() {
+        closeAutosave();
+        if (engine == null) return;
+        try {
+            autosave = ActionJournal.start(new java.io.File(System.getProperty("user.dir"), AUTOSAVE_FILE),
+                    engine, ioExecutor);
+        } catch (BadIceCreamException e) {
+            System.out.println("✗ Autoguardado desactivado: " + e.getMessage());
+            autosave = null;
+        }
+    }
+
+    /**
+     * Cierra el diario dejando el archivo para recuperarlo al volver a abrir el juego.
+     */
+    private void closeAutosave() {
+        if (autosave != null) {
+            try {
+                autosave.close();
+            } catch (java.io.IOException e) {
+                System.out.println("✗ Error cerrando el autoguardado: " + e.getMessage());
+            }
+            autosave = null;
+        }
+    }
+
+    /**
+     * Borra el autoguardado cuando la partida termina o se abandona.
+     */
+    private void discardAutosave() {
+        if (autosave != null) {
+            autosave.discard();
+            autosave = null;
+        }
+    }
+
+    /**
+     * Si quedó un autoguardado de una partida sin terminar (el juego se cerró
+     * o falló a mitad de partida), ofrece continuarla desde donde quedó.
+     */
+    private void offerAutosaveRecovery() {
+        java.io.File file = new java.io.File(System.getProperty("user.dir"), AUTOSAVE_FILE);
+        GameEngine recovered;
+        try {
+            recovered = ActionJournal.recover(file);
+        } catch (BadIceCreamException e) {
+            System.out.println("✗ No se pudo recuperar el autoguardado: " + e.getMessage());
+            file.delete();
+            return;
+        }
+        if (recovered == null || !recovered.isRunning()) {
+            file.delete();
+            return;
+        }
+
+        int answer = JOptionPane.showConfirmDialog(this,
+                "Se encontró una partida sin terminar. ¿Deseas continuarla?",
+                "Recuperar partida",
+                JOptionPane.YES_NO_OPTION);
+        if (answer != JOptionPane.YES_OPTION) {
+            file.delete();
+            return;
+        }
+
+        setSize(1280, 720);
+        setLocationRelativeTo(null);
+        if (mainGame == null) {
+            prepareElementsMainGame();
         }
+        juego = recovered.getGame();
+        currentLevel = juego.getLevel();
+        isMachinePlayer1 = recovered.isMachinePlayer1();
+        isMachinePlayer2 = recovered.isMachinePlayer2();
+        engine = recovered;
+        startAutosave();
+        startGameTimers();
+
+        setContentPane(mainGame);
+        mainGame.requestFocusInWindow();
+        revalidate();
+        repaint();
     }
 
     private void startGameTimers() {
+        lastFrameNanos = System.nanoTime();
+        publishSnapshot();
         if (gameTimer != null) {
             gameTimer.start();
         }
-        if (monsterTimer != null) {
-            monsterTimer.start();
+    }
+
+    /**
+     * Con dibujo activo, publica una foto nueva del tablero si alguna celda
+     * cambió desde la anterior.
+     */
+    private void publishChanges() {
+        if (juego != null && juego.hasDirtyCells()) {
+            publishSnapshot();
         }
     }
 
+    /**
+     * Con dibujo activo, publica una foto del tablero para el hilo de dibujo.
+     * Se llama desde el EDT, que es el único que toca el juego.
+     */
+    private void publishSnapshot() {
+        if (activeRenderer == null || juego == null) return;
+        juego.takeDirtyCells();
+        activeRenderer.publish((engine != null)
+                ? BoardSnapshot.capture(engine, lastInputNanos)
+                : BoardSnapshot.capture(juego, 0, lastInputNanos));
+    }
+
     private void actionExit() {
         int confirm = JOptionPane.showConfirmDialog(this,
                 "¿Estás seguro de que quieres salir?",
@@ -909,12 +1198,15 @@ public class BadIceCreamGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
+            closeAutosave();
+            closeSaveStore();
             System.exit(0);
         }
     }
 
     private void actionNewGame() {
         stopGameTimers();
+        discardAutosave();
         juego = null;
         setContentPane(initialPanel);
         revalidate();
@@ -923,670 +1215,219 @@ public class BadIceCreamGUI extends JFrame {
 
     private void prepareElementsMainGame() {
         mainGame = new JPanel() {
-            private final int CELL_SIZE = 40;
-            private final int BOARD_WIDTH = 16 * CELL_SIZE;
-            private final int BOARD_HEIGHT = 16 * CELL_SIZE;
-
-            private Image vanillaSprite;
-            private Image vanillaSpriteUp;
-            private Image vanillaSpriteDown;
-            private Image vanillaSpriteLeft;
-            private Image vanillaSpriteRight;
-
-            private Image chocolateSprite;
-            private Image chocolateSpriteUp;
-            private Image chocolateSpriteDown;
-            private Image chocolateSpriteLeft;
-            private Image chocolateSpriteRight;
-
-            private Image strawberrySprite;
-
-            private Image bananaSprite;
-            private Image cherrySprite;
-            private Image grapesSprite;
-            private Image pineappleSprite;
-            private Image cactusSprite;
-            private Image cactusActivadoPNG;
-
-            private Image trollSprite;
-            private Image trollSpriteUp;
-            private Image trollSpriteDown;
-            private Image trollSpriteLeft;
-            private Image trollSpriteRight;
-
-            private Image calamarSprite;
-            private Image iceBlockSprite;
-            private Image decorationBlockSprite;
-            private Image igluSprite;
-            private Image cirnoBackground;
-
-            private Image flowerpotAlertUp;
-            private Image flowerpotAlertFront;
-            private Image flowerpotAlertLeft;
-            private Image flowerpotAlertRight;
-
-            private Image flowerpotSprite;
-            private Image flowerpotSpriteUp;
-            private Image flowerpotSpriteDown;
-            private Image flowerpotSpriteLeft;
-            private Image flowerpotSpriteRight;
-
-            private Image baldosaCalienteSprite;
-            private Image fogataSprite;
+            private final BoardRenderer board = new BoardRenderer(path -> assets.get(path));
+
+            // Margen alrededor de una celda cambiada: los sprites se dibujan
+            // más grandes que la celda (hasta 1.7 veces) y la maceta en alerta
+            // lleva un halo
+            private final int DIRTY_MARGIN = BoardRenderer.CELL_SIZE / 2;
+            private int shownLevel = -1;
+            private int shownPhase = -1;
+            private int shownScore1 = -1;
+            private int shownScore2 = -1;
+            // Foto del último tick lógico en el que algún monstruo o fruta
+            // pasó a otra celda; null si no hay nada en movimiento. Se toma
+            // una vez por tick, no en cada frame
+            private BoardSnapshot movers;
+            private GameEngine moversEngine;
+            private long moversTick = -1;
 
             {
                 setPreferredSize(new Dimension(1280, 720));
-                loadSprites();
-
-                gameTimer = new Timer(16, new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent e) {
-                        if (juego != null) {
-                            // Derretir hielo sobre baldosas calientes (2s)
-                            juego.tickHotTiles();
-
-                            checkGameStatus();
-                            repaint();
-                        }
-                    }
-                });
 
-                monsterTimer = new Timer(500, new ActionListener() {
+                gameTimer = new Timer((int) GameEngine.FRAME_STEP_MILLIS, new ActionListener() {
                     @Override
                     public void actionPerformed(ActionEvent e) {
-                        if (juego != null) {
-                            moveAllMonsters();
-
-                            if (isMachinePlayer1 && juego.getFirstPlayer() != null) {
-                                try {
-                                    juego.moveMachinePlayer1();
-                                } catch (BadIceCreamException ex) {
-                                    ex.printStackTrace();
-                                }
-                            }
-
-                            if (isMachinePlayer2 && juego.getSecondPlayer() != null) {
+                        if (juego != null && engine != null) {
+                            long now = System.nanoTime();
+                            long elapsed = (now - lastFrameNanos) / 1_000_000L;
+                            if (elapsed > 0) {
+                                lastFrameNanos += elapsed * 1_000_000L;
                                 try {
-                                    juego.moveMachinePlayer2();
+                                    engine.update(elapsed);
                                 } catch (BadIceCreamException ex) {
                                     ex.printStackTrace();
                                 }
                             }
-
-                            try {
-                                juego.tickFruits();
-                            } catch (Exception ex) {
-                                ex.printStackTrace();
-                            }
-                        }
-                    }
-                });
-            }
-
-            private void checkGameStatus() {
-                Player player1 = juego.getFirstPlayer();
-                Player player2 = juego.getSecondPlayer();
-                if (player1 == null && player2 == null) {
-                    stopGameTimers();
-                    showGameOver();
-                    return;
-                }
-                if (player1 != null || player2 != null) {
-                    if (juego.isPhaseCleared()) {
-                        try {
-                            if (juego.getPhase() == 1) {
-                                juego.goToNextPhase();
+                            checkGameStatus();
+                            if (activeRenderer != null) {
+                                publishChanges();
                             } else {
-                                stopGameTimers();
-                                showVictory();
+                                repaintChanges();
                             }
-                        } catch (BadIceCreamException e) {
-                            e.printStackTrace();
                         }
                     }
-                }
+                });
             }
 
-            private void moveAllMonsters() {
+            /**
+             * Vuelve a pintar solo las celdas que el juego marcó como
+             * cambiadas (con margen para los sprites), el camino de las
+             * unidades que se están moviendo entre dos celdas y el marcador
+             * si cambió algún puntaje. Si no cambió nada no se pinta el frame.
+             *
+             * La foto con las unidades en movimiento se toma solo cuando hubo
+             * un tick lógico nuevo y el tick todavía no terminó; sin ticks
+             * nuevos no se hace ningún trabajo de fotos.
+             */
+            private void repaintChanges() {
                 if (juego == null) return;
-
-                Monster[][] monsters = juego.getMonsters();
-                Player player1 = juego.getFirstPlayer();
-                Player player2 = juego.getSecondPlayer();
-
-                java.util.ArrayList<Monster> monsterList = new java.util.ArrayList<>();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        if (monsters[r][c] != null) {
-                            monsterList.add(monsters[r][c]);
-                        }
-                    }
-                }
-
-                for (Monster monster : monsterList) {
-                    try {
-                        int oldRow = monster.getRow();
-                        int oldCol = monster.getColumn();
-
-                        monster.act();
-
-                        if (monster.getRow() != oldRow || monster.getColumn() != oldCol) {
-                            monsters[oldRow][oldCol] = null;
-                            monsters[monster.getRow()][monster.getColumn()] = monster;
-                        }
-
-                    } catch (BadIceCreamException ex) {
-                    }
+                int offsetX = (getWidth() - BoardRenderer.BOARD_WIDTH) / 2;
+                int offsetY = (getHeight() - BoardRenderer.BOARD_HEIGHT) / 2;
+                int width = juego.getWidth();
+
+                for (int cell : juego.takeDirtyCells()) {
+                    int x = offsetX + (cell % width) * BoardRenderer.CELL_SIZE - DIRTY_MARGIN;
+                    int y = offsetY + (cell / width) * BoardRenderer.CELL_SIZE - DIRTY_MARGIN;
+                    repaint(x, y, BoardRenderer.CELL_SIZE + 2 * DIRTY_MARGIN, BoardRenderer.CELL_SIZE + 2 * DIRTY_MARGIN);
                 }
 
-                if (player1 != null) {
-                    int playerRow = player1.getRow();
-                    int playerCol = player1.getColumn();
-                    boolean collision = false;
-
-                    if (monsters[playerRow][playerCol] != null) {
-                        collision = true;
-                    }
-
-                    if (!collision) {
-                        for (Monster monster : monsterList) {
-                            if (monster.getRow() == playerRow && monster.getColumn() == playerCol) {
-                                collision = true;
-                                break;
+                if (engine != null) {
+                    double progress = engine.getTickProgress();
+                    if (engine != moversEngine || engine.getLogicTickCount() != moversTick) {
+                        moversEngine = engine;
+                        moversTick = engine.getLogicTickCount();
+                        // Deja en su celda las unidades del tick anterior
+                        repaintMovers(offsetX, offsetY);
+                        movers = null;
+                        if (progress < 1.0) {
+                            BoardSnapshot snapshot = BoardSnapshot.capture(engine, 0);
+                            if (snapshot.isMoving()) {
+                                movers = snapshot;
                             }
                         }
                     }
-
-                    if (collision) {
-                        juego.checkActionsForPlayer1();
+                    repaintMovers(offsetX, offsetY);
+                    // Un frame más al terminar, para dejarlas en su celda
+                    if (progress >= 1.0) {
+                        movers = null;
                     }
                 }
 
-                if (player2 != null) {
-                    int playerRow = player2.getRow();
-                    int playerCol = player2.getColumn();
-                    boolean collision = false;
-
-                    if (monsters[playerRow][playerCol] != null) {
-                        collision = true;
-                    }
-
-                    if (!collision) {
-                        for (Monster monster : monsterList) {
-                            if (monster.getRow() == playerRow && monster.getColumn() == playerCol) {
-                                collision = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (collision) {
-                        juego.checkActionsForPlayer2();
-                    }
+                Player player1 = juego.getPlayer1();
+                Player player2 = juego.getPlayer2();
+                int score1 = (player1 != null) ? player1.getScore() : 0;
+                int score2 = (player2 != null) ? player2.getScore() : 0;
+                if (juego.getLevel() != shownLevel || juego.getPhase() != shownPhase
+                        || score1 != shownScore1 || score2 != shownScore2) {
+                    shownLevel = juego.getLevel();
+                    shownPhase = juego.getPhase();
+                    shownScore1 = score1;
+                    shownScore2 = score2;
+                    repaint(BoardRenderer.HUD_BOUNDS);
                 }
             }
 
-            private void loadSprites() {
-                vanillaSprite = loadImageUniversal("/images/vanilla_sprite.png");
-                vanillaSpriteUp = loadImageUniversal("/images/player/vanilla_up.png");
-                vanillaSpriteDown = loadImageUniversal("/images/player/vanilla_down.png");
-                vanillaSpriteLeft = loadImageUniversal("/images/player/vanilla_left.png");
-                vanillaSpriteRight = loadImageUniversal("/images/player/vanilla_right.png");
-
-                chocolateSprite = loadImageUniversal("/images/chocolate_sprite.png");
-                chocolateSpriteUp = loadImageUniversal("/images/player/chocolate_up.png");
-                chocolateSpriteDown = loadImageUniversal("/images/player/chocolate_down.png");
-                chocolateSpriteLeft = loadImageUniversal("/images/player/chocolate_left.png");
-                chocolateSpriteRight = loadImageUniversal("/images/player/chocolate_right.png");
-
-                strawberrySprite = loadImageUniversal("/images/strawberry_sprite.png");
-
-                bananaSprite = loadImageUniversal("/images/banana_sprite.png");
-                cherrySprite = loadImageUniversal("/images/cherry_sprite.png");
-                grapesSprite = loadImageUniversal("/images/grapes_sprite.png");
-                pineappleSprite = loadImageUniversal("/images/pinaplee_sprite.png");
-                cactusSprite = loadImageUniversal("/images/cactus_sprite.png");
-
-                trollSprite = loadImageUniversal("/images/troll_sprite.png");
-                trollSpriteUp = loadImageUniversal("/images/troll_up.png");
-                trollSpriteDown = loadImageUniversal("/images/troll_down.png");
-                trollSpriteLeft = loadImageUniversal("/images/troll_left.png");
-                trollSpriteRight = loadImageUniversal("/images/troll_right.png");
-
-                calamarSprite = loadImageUniversal("/images/calamar_sprite.png");
-
-                flowerpotSpriteUp = loadImageUniversal("/images/macetaatrasapuntodeprenderseatras.png");
-                flowerpotSpriteDown = loadImageUniversal("/images/macetafrentederechanoflor.png");
-                flowerpotSpriteLeft = loadImageUniversal("/images/macetamovimientoizquierda2.png");
-                flowerpotSpriteRight = loadImageUniversal("/images/macetamovimientoderecha2.png");
-
-                flowerpotSprite = flowerpotSpriteDown;
-
-                flowerpotAlertUp = loadImageUniversal("/images/macetaatrasderechaflor.png");
-                flowerpotAlertFront = loadImageUniversal("/images/maceta_a_punto_de_transformarsefrente1.png");
-                flowerpotAlertLeft = loadImageUniversal("/images/macetamovimientoizquierdaflor2.png");
-                flowerpotAlertRight = loadImageUniversal("/images/movimientoderechaflor2.png");
-
-                iceBlockSprite = loadImageUniversal("/images/spriteCuleroDelHielo.png");
-                decorationBlockSprite = loadImageUniversal("/images/spriteCuleroDecoracion.png");
-
-                igluSprite = loadImageUniversal("/images/spriteIgluBonito.png");
-                cirnoBackground = loadImageUniversal("/images/110624.jpg");
-
-                baldosaCalienteSprite = loadImageUniversal("/images/baldosa_caliente.png");
-                fogataSprite = loadImageUniversal("/images/fogata.png");
-                cactusActivadoPNG = loadImageUniversal("/images/CactusActivado.png");
+            private void repaintMovers(int offsetX, int offsetY) {
+                if (movers == null) return;
+                repaintMoving(movers.getFruits(), offsetX, offsetY);
+                repaintMoving(movers.getMonsters(), offsetX, offsetY);
             }
 
-            private Image getPlayerSprite(Player player) {
-                String flavor = player.getFlavor();
-                String direction = player.getDirectionOfView();
+            private void repaintMoving(java.util.List<BoardSnapshot.Sprite> sprites, int offsetX, int offsetY) {
+                for (BoardSnapshot.Sprite s : sprites) {
+                    if (!s.isMoving()) continue;
+                    int column = Math.min(s.getColumn(), s.getPreviousColumn());
+                    int row = Math.min(s.getRow(), s.getPreviousRow());
+                    int columns = Math.abs(s.getColumn() - s.getPreviousColumn()) + 1;
+                    int rows = Math.abs(s.getRow() - s.getPreviousRow()) + 1;
+                    repaint(offsetX + column * BoardRenderer.CELL_SIZE - DIRTY_MARGIN,
+                            offsetY + row * BoardRenderer.CELL_SIZE - DIRTY_MARGIN,
+                            columns * BoardRenderer.CELL_SIZE + 2 * DIRTY_MARGIN,
+                            rows * BoardRenderer.CELL_SIZE + 2 * DIRTY_MARGIN);
+                }
+            }
 
-                if (direction == null) {
-                    direction = "down";
+            private void checkGameStatus() {
+                if (GameEngine.GAME_OVER.equals(engine.getStatus())) {
+                    stopGameTimers();
+                    discardAutosave();
+                    showGameOver();
+                } else if (GameEngine.VICTORY.equals(engine.getStatus())) {
+                    stopGameTimers();
+                    discardAutosave();
+                    showVictory();
                 }
+            }
 
-                String spritePath = "/images/player/" + flavor + "_" + direction + ".png";
-                Image sprite = loadImageUniversal(spritePath);
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
 
-                if (sprite == null) {
-                    spritePath = "/images/player/" + flavor + "_down.png";
-                    sprite = loadImageUniversal(spritePath);
-                }
+                // Con dibujo activo el tablero lo pinta el Canvas que cubre el panel
+                if (juego == null || activeRenderer != null) return;
 
-                return sprite;
+                BoardSnapshot snapshot = (engine != null)
+                        ? BoardSnapshot.capture(engine, 0)
+                        : BoardSnapshot.capture(juego, 0, 0);
+                board.render((Graphics2D) g, snapshot, getWidth(), getHeight(), getGraphicsConfiguration());
             }
+        };
 
-            private Image getMonsterSprite(Monster monster) {
-                String direction = monster.getDirectionOfView();
+        mainGame.setLayout(null);
+        mainGame.setFocusable(true);
 
-                if (direction == null) {
-                    direction = "down";
+        if (ACTIVE_RENDERING) {
+            activeRenderer = new ActiveRenderer(new BoardRenderer(path -> assets.get(path)), FRAME_CAP);
+            final Canvas canvas = activeRenderer.getCanvas();
+            mainGame.add(canvas);
+            mainGame.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    canvas.setBounds(0, 0, mainGame.getWidth(), mainGame.getHeight());
                 }
+            });
+            activeRenderer.start();
+        }
 
-                String monsterType = monster.getMonsterType();
-
-                switch (monsterType) {
-                    case "TROLL":
-                        switch (direction.toLowerCase()) {
-                            case "up":
-                                return trollSpriteUp != null ? trollSpriteUp : trollSprite;
-                            case "down":
-                                return trollSpriteDown != null ? trollSpriteDown : trollSprite;
-                            case "left":
-                                return trollSpriteLeft != null ? trollSpriteLeft : trollSprite;
-                            case "right":
-                                return trollSpriteRight != null ? trollSpriteRight : trollSprite;
-                            default:
-                                return trollSpriteDown != null ? trollSpriteDown : trollSprite;
-                        }
+        mainGame.addKeyListener(new KeyAdapter() {
+            private long lastMoveTimeP1 = 0;
+            private long lastMoveTimeP2 = 0;
+            private long lastActionTimeP1 = 0;
+            private long lastActionTimeP2 = 0;
+            private final long MOVE_DELAY = 150;
+            private final long ACTION_DELAY = 250;
+            private boolean applied;
 
-                    case "CALAMAR":
-                        return calamarSprite;
-
-                    case "MACETA":
-                        String directiones = monster.getDirectionOfView();
-
-                        if (monster.isInAlertMode()) {
-                            switch (directiones) {
-                                case "up":
-                                    return flowerpotAlertUp != null ? flowerpotAlertUp : flowerpotSpriteUp;
-                                case "down":
-                                    return flowerpotAlertFront != null ? flowerpotAlertFront : flowerpotSpriteDown;
-                                case "left":
-                                    return flowerpotAlertLeft != null ? flowerpotAlertLeft : flowerpotSpriteLeft;
-                                case "right":
-                                    return flowerpotAlertRight != null ? flowerpotAlertRight : flowerpotSpriteRight;
-                                default:
-                                    return flowerpotAlertFront != null ? flowerpotAlertFront : flowerpotSprite;
-                            }
-                        } else {
-                            switch (directiones) {
-                                case "up":
-                                    return flowerpotSpriteUp != null ? flowerpotSpriteUp : flowerpotSprite;
-                                case "down":
-                                    return flowerpotSpriteDown != null ? flowerpotSpriteDown : flowerpotSprite;
-                                case "left":
-                                    return flowerpotSpriteLeft != null ? flowerpotSpriteLeft : flowerpotSprite;
-                                case "right":
-                                    return flowerpotSpriteRight != null ? flowerpotSpriteRight : flowerpotSprite;
-                                default:
-                                    return flowerpotSprite;
-                            }
-                        }
-                    default:
-                        return trollSprite;
-                }
+            private void apply(int player, String input) throws BadIceCreamException {
+                engine.applyInput(player, input);
+                applied = true;
             }
 
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-
-                if (juego == null) return;
-
-                Graphics2D g2d = (Graphics2D) g;
-
-                if (cirnoBackground != null) {
-                    g2d.drawImage(cirnoBackground, 0, 0, getWidth(), getHeight(), null);
-                } else {
-                    g2d.setColor(new Color(135, 206, 250));
-                    g2d.fillRect(0, 0, getWidth(), getHeight());
-                }
-
-                int offsetX = (getWidth() - BOARD_WIDTH) / 2;
-                int offsetY = (getHeight() - BOARD_HEIGHT) / 2;
-
-                g2d.setColor(Color.WHITE);
-                g2d.fillRect(offsetX, offsetY, BOARD_WIDTH, BOARD_HEIGHT);
-
-                drawIceBlocks(g2d, offsetX, offsetY);
-                drawDecorationBlocks(g2d, offsetX, offsetY);
-                drawSpecialBlocks(g2d, offsetX, offsetY);
-                drawIglu(g2d, offsetX, offsetY);
-                drawFruits(g2d, offsetX, offsetY);
-                drawMonsters(g2d, offsetX, offsetY);
-                drawPlayers(g2d, offsetX, offsetY);
-                drawUI(g2d);
-            }
-
-            private void drawIceBlocks(Graphics2D g, int offsetX, int offsetY) {
-                Block[][] blocks = juego.getBlocks();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Block block = blocks[r][c];
-                        if (block != null) {
-                            if (block.isIceBlock() || "ICE".equals(block.getBlockType()) || "ICEBLOCK".equals(block.getBlockType())) {
-                                int x = offsetX + c * CELL_SIZE;
-                                int y = offsetY + r * CELL_SIZE;
-
-                                if (iceBlockSprite != null) {
-                                    int spriteSize = (int)(CELL_SIZE * 1.05);
-                                    int margin = (CELL_SIZE - spriteSize) / 2;
-                                    g.drawImage(iceBlockSprite, x + margin, y + margin, spriteSize, spriteSize, null);
-                                } else {
-                                    g.setColor(new Color(100, 200, 255));
-                                    g.fillRect(offsetX + c * CELL_SIZE, offsetY + r * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            private void drawDecorationBlocks(Graphics2D g, int offsetX, int offsetY) {
-                Block[][] blocks = juego.getBlocks();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Block block = blocks[r][c];
-                        if (block != null && (block.isDecorationBlock() || "DECORATION".equals(block.getBlockType()))) {
-                            if (r >= 6 && r <= 9 && c >= 6 && c <= 9) {
-                                continue;
-                            }
-
-                            int x = offsetX + c * CELL_SIZE;
-                            int y = offsetY + r * CELL_SIZE;
-
-                            if (decorationBlockSprite != null) {
-                                int spriteSize = (int)(CELL_SIZE * 1);
-                                int margin = (CELL_SIZE - spriteSize) / 2;
-                                g.drawImage(decorationBlockSprite, x + margin, y + margin, spriteSize, spriteSize, null);
-                            }
-                        }
-                    }
-                }
-            }
-
-            private void drawSpecialBlocks(Graphics2D g, int offsetX, int offsetY) {
-                Block[][] blocks = juego.getBlocks();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Block block = blocks[r][c];
-                        if (block == null) continue;
-
-                        int x = offsetX + c * CELL_SIZE;
-                        int y = offsetY + r * CELL_SIZE;
-
-                        if (block.isBaldosaCaliente()) {
-                            if (baldosaCalienteSprite != null) {
-                                g.drawImage(baldosaCalienteSprite, x, y, CELL_SIZE, CELL_SIZE, null);
-                            } else {
-                                g.setColor(new Color(255, 140, 0));
-                                g.fillRect(x + 2, y + 2, CELL_SIZE - 4, CELL_SIZE - 4);
-                            }
-                        } else if (block.isFogata()) {
-                            Fogata fogata = (Fogata) block;
-                            if (fogata.isActive() && fogataSprite != null) {
-                                int size = (int)(CELL_SIZE * 1.3);
-                                int margin = (CELL_SIZE - size) / 2;
-                                g.drawImage(fogataSprite, x + margin, y + margin, size, size, null);
-                            } else if (fogata.isActive()) {
-                                g.setColor(new Color(255, 69, 0));
-                                g.fillOval(x + 5, y + 5, CELL_SIZE - 10, CELL_SIZE - 10);
-                            }
-                        }
-                    }
-                }
-            }
-
-            private void drawIglu(Graphics2D g, int offsetX, int offsetY) {
-                if (igluSprite != null) {
-                    int igluAreaSize = (int)(5.5 * CELL_SIZE);
-                    int igluAreaX = offsetX + 6 * CELL_SIZE - (int)(0.96 * CELL_SIZE);
-                    int igluAreaY = offsetY + 6 * CELL_SIZE - (int)(0.75 * CELL_SIZE);
-
-                    g.drawImage(igluSprite, igluAreaX, igluAreaY, igluAreaSize, igluAreaSize, null);
-                }
-            }
-
-            private void drawFruits(Graphics2D g, int offsetX, int offsetY) {
-                Fruit[][] fruits = juego.getFruits();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Fruit fruit = fruits[r][c];
-                        if (fruit != null) {
-                            int x = offsetX + c * CELL_SIZE;
-                            int y = offsetY + r * CELL_SIZE;
-
-                            Image sprite = null;
-                            String fruitType = fruit.getFruitType();
-
-                            switch (fruitType) {
-                                case "BANANA":
-                                    sprite = bananaSprite;
-                                    break;
-                                case "CEREZA":
-                                    sprite = cherrySprite;
-                                    break;
-                                case "UVA":
-                                    sprite = grapesSprite;
-                                    break;
-                                case "PIÑA":
-                                    sprite = pineappleSprite;
-                                    break;
-                            }
-
-                            if (sprite != null) {
-                                int spriteSize = (int)(CELL_SIZE * 1.4);
-                                int margin = (CELL_SIZE - spriteSize) / 2;
-                                g.drawImage(sprite, x + margin, y + margin, spriteSize, spriteSize, null);
-                            }
-
-                            if (fruit.isCactus()) {
-                                Cactus cactus = (Cactus) fruit;
-                                int spriteSize = (int)(CELL_SIZE * 1.4);
-                                int margin = (CELL_SIZE - spriteSize) / 2;
-                                if (cactus.isActive()) {
-                                    g.drawImage(cactusActivadoPNG, x + margin, y + margin, spriteSize, spriteSize, null);
-                                } else {
-                                    g.drawImage(cactusSprite, x + margin, y + margin, spriteSize, spriteSize, null);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            private void drawMonsters(Graphics2D g, int offsetX, int offsetY) {
-                Monster[][] monsters = juego.getMonsters();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Monster monster = monsters[r][c];
-                        if (monster != null) {
-                            int x = offsetX + c * CELL_SIZE;
-                            int y = offsetY + r * CELL_SIZE;
-
-                            if (monster.getMonsterType().equals("MACETA") && monster.isInAlertMode()) {
-                                g.setColor(new Color(255, 220, 0, 80));
-                                g.fillOval(x - 5, y - 5, CELL_SIZE + 10, CELL_SIZE + 10);
-                            }
-
-                            Image sprite = getMonsterSprite(monster);
-
-                            if (sprite != null) {
-                                float scale = getSpriteScale(monster);
-                                int spriteSize = (int)(CELL_SIZE * scale);
-                                int margin = (CELL_SIZE - spriteSize) / 2;
-                                g.drawImage(sprite, x + margin, y + margin, spriteSize, spriteSize, null);
-                            }
-                        }
-                    }
-                }
-            }
-
-            private float getSpriteScale(Monster monster) {
-                String type = monster.getMonsterType();
-                String direction = monster.getDirectionOfView();
-
-                switch (type) {
-                    case "TROLL":
-                        if (direction.equals("left") || direction.equals("right")) return 1.3f;
-                        return 1.6f;
-                    case "MACETA":
-                        if (monster.isInAlertMode()) return 1.7f;
-                        return 1.5f;
-                    case "CALAMAR":
-                        return 1.5f;
-                    default:
-                        return 1.6f;
-                }
-            }
-
-            private void drawPlayers(Graphics2D g, int offsetX, int offsetY) {
-                Player[][] players = juego.getPlayers();
-
-                for (int r = 0; r < 16; r++) {
-                    for (int c = 0; c < 16; c++) {
-                        Player player = players[r][c];
-                        if (player != null) {
-                            int x = offsetX + c * CELL_SIZE;
-                            int y = offsetY + r * CELL_SIZE;
-
-                            Image sprite = getPlayerSprite(player);
-
-                            if (sprite != null) {
-                                int spriteHeight = (int)(CELL_SIZE * 1.6);
-                                int spriteWidth = (int)(CELL_SIZE * 1.2);
-
-                                int marginX = (CELL_SIZE - spriteWidth) / 2;
-                                int marginY = (CELL_SIZE - spriteHeight) / 2;
-
-                                g.drawImage(sprite, x + marginX, y + marginY, spriteWidth, spriteHeight, null);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            private void drawUI(Graphics2D g) {
-                g.setColor(Color.WHITE);
-                g.setFont(new Font("Arial", Font.BOLD, 24));
-
-                g.setColor(Color.BLACK);
-                g.drawString("Level: " + juego.getLevel(), 51, 51);
-                g.drawString("Phase: " + juego.getPhase(), 51, 81);
-
-                Player player1 = juego.getPlayer1();
-                Player player2 = juego.getPlayer2();
-
-                int score1 = (player1 != null) ? player1.getScore() : 0;
-                int score2 = (player2 != null) ? player2.getScore() : 0;
-
-                g.drawString("P1: " + score1, 51, 111);
-                g.drawString("P2: " + score2, 51, 141);
-
-                g.setColor(Color.WHITE);
-                g.drawString("Level: " + juego.getLevel(), 50, 50);
-                g.drawString("Phase: " + juego.getPhase(), 50, 80);
-                g.drawString("P1: " + score1, 50, 110);
-                g.drawString("P2: " + score2, 50, 140);
-            }
-        };
-
-        mainGame.setLayout(null);
-        mainGame.setFocusable(true);
-
-        mainGame.addKeyListener(new KeyAdapter() {
-            private long lastMoveTimeP1 = 0;
-            private long lastMoveTimeP2 = 0;
-            private long lastActionTimeP1 = 0;
-            private long lastActionTimeP2 = 0;
-            private final long MOVE_DELAY = 150;
-            private final long ACTION_DELAY = 250;
-
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (juego != null) {
-                    Player player1 = juego.getFirstPlayer();
-                    Player player2 = juego.getSecondPlayer();
+            public void keyPressed(KeyEvent e) {
+                if (juego != null && engine != null) {
+                    long inputNanos = System.nanoTime();
+                    applied = false;
+                    Player player1 = juego.getFirstPlayer();
+                    Player player2 = juego.getSecondPlayer();
 
                     long currentTime = System.currentTimeMillis();
                     int keyCode = e.getKeyCode();
 
                     if (player1 != null && !isMachinePlayer1) {
                         if (currentTime - lastMoveTimeP1 >= MOVE_DELAY) {
-                            int oldRow = player1.getRow();
-                            int oldCol = player1.getColumn();
-
                             if (keyCode == KeyEvent.VK_A) {
                                 try {
-                                    player1.changeOfView("left");
-                                    juego.movePlayer1();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer1();
+                                    apply(1, GameEngine.LEFT);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP1 = currentTime;
                             } else if (keyCode == KeyEvent.VK_D) {
                                 try {
-                                    player1.changeOfView("right");
-                                    juego.movePlayer1();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer1();
+                                    apply(1, GameEngine.RIGHT);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP1 = currentTime;
                             } else if (keyCode == KeyEvent.VK_W) {
                                 try {
-                                    player1.changeOfView("up");
-                                    juego.movePlayer1();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer1();
+                                    apply(1, GameEngine.UP);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP1 = currentTime;
                             } else if (keyCode == KeyEvent.VK_S) {
                                 try {
-                                    player1.changeOfView("down");
-                                    juego.movePlayer1();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer1();
+                                    apply(1, GameEngine.DOWN);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP1 = currentTime;
@@ -1595,7 +1436,7 @@ public class BadIceCreamGUI extends JFrame {
 
                         if (keyCode == KeyEvent.VK_SPACE && currentTime - lastActionTimeP1 >= ACTION_DELAY) {
                             try {
-                                juego.shootOrBreakIcePlayer1();
+                                apply(1, GameEngine.ACTION);
                                 lastActionTimeP1 = currentTime;
                             } catch (BadIceCreamException ex) {
                             }
@@ -1604,42 +1445,27 @@ public class BadIceCreamGUI extends JFrame {
 
                     if (player2 != null && !isMachinePlayer2) {
                         if (currentTime - lastMoveTimeP2 >= MOVE_DELAY) {
-                            int oldRow = player2.getRow();
-                            int oldCol = player2.getColumn();
-
                             if (keyCode == KeyEvent.VK_LEFT) {
                                 try {
-                                    player2.changeOfView("left");
-                                    juego.movePlayer2();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer2();
+                                    apply(2, GameEngine.LEFT);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP2 = currentTime;
                             } else if (keyCode == KeyEvent.VK_RIGHT) {
                                 try {
-                                    player2.changeOfView("right");
-                                    juego.movePlayer2();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer2();
+                                    apply(2, GameEngine.RIGHT);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP2 = currentTime;
                             } else if (keyCode == KeyEvent.VK_UP) {
                                 try {
-                                    player2.changeOfView("up");
-                                    juego.movePlayer2();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer2();
+                                    apply(2, GameEngine.UP);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP2 = currentTime;
                             } else if (keyCode == KeyEvent.VK_DOWN) {
                                 try {
-                                    player2.changeOfView("down");
-                                    juego.movePlayer2();
-                                    juego.getPlayers()[oldRow][oldCol] = null;
-                                    juego.checkActionsForPlayer2();
+                                    apply(2, GameEngine.DOWN);
                                 } catch (BadIceCreamException ex) {
                                 }
                                 lastMoveTimeP2 = currentTime;
@@ -1648,14 +1474,18 @@ public class BadIceCreamGUI extends JFrame {
 
                         if (keyCode == KeyEvent.VK_ENTER && currentTime - lastActionTimeP2 >= ACTION_DELAY) {
                             try {
-                                juego.shootOrBreakIcePlayer2();
+                                apply(2, GameEngine.ACTION);
                                 lastActionTimeP2 = currentTime;
                             } catch (BadIceCreamException ex) {
                             }
                         }
                     }
-
-                    repaint();
+                    if (applied && activeRenderer != null) {
+                        // Se publica ya para medir la latencia de la tecla a la pantalla
+                        lastInputNanos = inputNanos;
+                        publishSnapshot();
+                    }
+                    // Sin dibujo activo, las celdas que cambió la entrada se pintan en el siguiente frame del gameTimer
                 }
             }
         });
@@ -1696,32 +1526,59 @@ public class BadIceCreamGUI extends JFrame {
         int result = fileChooser.showOpenDialog(this);
 
         if (result == JFileChooser.APPROVE_OPTION) {
-            java.io.File selectedFile = fileChooser.getSelectedFile();
-
-            try {
-                stopGameTimers();
-                juego.importLevel(selectedFile.getAbsolutePath());
-                startGameTimers();
+            final java.io.File selectedFile = fileChooser.getSelectedFile();
+            final BadIceCream target = juego;
 
-                if (mainGame != null) {
-                    mainGame.repaint();
+            // Leer y validar el nivel en segundo plano; solo cargarlo en el juego en el EDT
+            ioExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final LevelTemplate template = LevelTemplate.load(selectedFile.getAbsolutePath());
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                finishImportLevel(target, template, selectedFile);
+                            }
+                        });
+                    } catch (BadIceCreamException ex) {
+                        showErrorLater("Error al importar el nivel:\n" + ex.getMessage());
+                    }
                 }
+            });
+        }
+    }
 
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Nivel importado exitosamente desde:\n" + selectedFile.getName(),
-                        "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE
-                );
+    private void finishImportLevel(BadIceCream target, LevelTemplate template, java.io.File selectedFile) {
+        if (juego == null || juego != target) {
+            // El juego cambió mientras se leía el archivo
+            return;
+        }
+        try {
+            stopGameTimers();
+            juego.loadTemplate(template);
+            createEngine();
+            startGameTimers();
 
-            } catch (BadIceCreamException ex) {
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Error al importar el nivel:\n" + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE
-                );
+            if (mainGame != null) {
+                mainGame.repaint();
             }
+
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Nivel importado exitosamente desde:\n" + selectedFile.getName(),
+                    "Éxito",
+                    JOptionPane.INFORMATION_MESSAGE
+            );
+
+        } catch (BadIceCreamException ex) {
+            startGameTimers();
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Error al importar el nivel:\n" + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE
+            );
         }
     }
 
@@ -1810,18 +1667,11 @@ public class BadIceCreamGUI extends JFrame {
                 selectedFile = new java.io.File(filePath);
             }
 
+            // La foto de la partida se toma aquí, en el EDT y entre dos ticks;
+            // la escritura a disco va en segundo plano mientras se sigue jugando
+            final byte[] snapshot;
             try {
-                stopGameTimers();
-                juego.saveGame(selectedFile.getAbsolutePath());
-                startGameTimers();
-
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Partida guardada exitosamente en:\n" + selectedFile.getName(),
-                        "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE
-                );
-
+                snapshot = GameSnapshotCodec.encode(juego);
             } catch (BadIceCreamException ex) {
                 JOptionPane.showMessageDialog(
                         this,
@@ -1829,7 +1679,20 @@ public class BadIceCreamGUI extends JFrame {
                         "Error",
                         JOptionPane.ERROR_MESSAGE
                 );
+                return;
             }
+            final java.io.File target = selectedFile;
+            ioExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        BadIceCream.saveSnapshot(snapshot, target.getAbsolutePath());
+                        showMessageLater("Partida guardada exitosamente en:\n" + target.getName());
+                    } catch (BadIceCreamException ex) {
+                        showErrorLater("Error al guardar la partida:\n" + ex.getMessage());
+                    }
+                }
+            });
         }
     }
 
@@ -1846,35 +1709,276 @@ public class BadIceCreamGUI extends JFrame {
         int result = fileChooser.showOpenDialog(this);
 
         if (result == JFileChooser.APPROVE_OPTION) {
-            java.io.File selectedFile = fileChooser.getSelectedFile();
+            final java.io.File selectedFile = fileChooser.getSelectedFile();
 
-            try {
-                stopGameTimers();
-                juego = BadIceCream.openGame(selectedFile.getAbsolutePath());
+            // Leer y decodificar en segundo plano; el juego actual sigue hasta que esté lista
+            ioExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final BadIceCream loaded = BadIceCream.openGame(selectedFile.getAbsolutePath());
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                finishOpenGame(loaded, selectedFile);
+                            }
+                        });
+                    } catch (BadIceCreamException ex) {
+                        showErrorLater("Error al cargar la partida:\n" + ex.getMessage());
+                    }
+                }
+            });
+        }
+    }
 
-                prepareElementsMainGame();
-                setContentPane(mainGame);
-                mainGame.requestFocusInWindow();
-                startGameTimers();
-                revalidate();
-                repaint();
+    private void finishOpenGame(BadIceCream loaded, java.io.File selectedFile) {
+        showLoadedGame(loaded);
 
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Partida cargada exitosamente desde:\n" + selectedFile.getName(),
-                        "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE
-                );
+        JOptionPane.showMessageDialog(
+                this,
+                "Partida cargada exitosamente desde:\n" + selectedFile.getName(),
+                "Éxito",
+                JOptionPane.INFORMATION_MESSAGE
+        );
+    }
 
-            } catch (BadIceCreamException ex) {
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Error al cargar la partida:\n" + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE
-                );
+    /**
+     * Reemplaza el juego actual por uno cargado y lo muestra.
+     */
+    private void showLoadedGame(BadIceCream loaded) {
+        stopGameTimers();
+        juego = loaded;
+        currentLevel = juego.getLevel();
+
+        setSize(1280, 720);
+        setLocationRelativeTo(null);
+        if (mainGame == null) {
+            prepareElementsMainGame();
+        }
+        createEngine();
+        setContentPane(mainGame);
+        mainGame.requestFocusInWindow();
+        startGameTimers();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Muestra un mensaje desde el hilo de fondo, en el EDT.
+     */
+    private void showMessageLater(final String message) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                JOptionPane.showMessageDialog(BadIceCreamGUI.this, message, "Éxito",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * Muestra un error desde el hilo de fondo, en el EDT.
+     */
+    private void showErrorLater(final String message) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                JOptionPane.showMessageDialog(BadIceCreamGUI.this, message, "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * @return el almacén de partidas de la sesión, abriéndolo si hace falta.
+     *         Solo se llama desde el hilo de ioExecutor.
+     */
+    private SaveStore saveStore() throws BadIceCreamException {
+        if (saveStore == null) {
+            saveStore = SaveStore.open(new java.io.File(System.getProperty("user.dir"), SAVE_STORE_FILE));
+        }
+        return saveStore;
+    }
+
+    /**
+     * Cierra el almacén de partidas en ioExecutor, después de lo que tenga pendiente.
+     */
+    private void closeSaveStore() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (saveStore == null) return;
+                try {
+                    saveStore.close();
+                } catch (java.io.IOException e) {
+                    System.out.println("✗ Error cerrando las partidas guardadas: " + e.getMessage());
+                }
+                saveStore = null;
             }
+        });
+    }
+
+    /**
+     * Guarda la partida actual en una ranura del almacén de partidas.
+     * La lista de ranuras se arma en ioExecutor solo con sus encabezados; el
+     * juego queda en pausa hasta que se elige la ranura.
+     */
+    private void actionSaveSlot() {
+        if (juego == null) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Primero debes iniciar un juego para guardarlo",
+                    "Advertencia",
+                    JOptionPane.WARNING_MESSAGE
+            );
+            return;
         }
+
+        stopGameTimers();
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SaveStore store = saveStore();
+                    final String[] options = new String[store.getSlotCount()];
+                    for (int i = 0; i < options.length; i++) {
+                        SaveSlot slot = store.getSlot(i);
+                        options[i] = (slot != null) ? slot.toString() : (i + 1) + ". (vacía)";
+                    }
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            chooseSaveSlot(options);
+                        }
+                    });
+                } catch (final BadIceCreamException ex) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            JOptionPane.showMessageDialog(
+                                    BadIceCreamGUI.this,
+                                    "Error al guardar la partida:\n" + ex.getMessage(),
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE
+                            );
+                            startGameTimers();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Pregunta la ranura y el nombre y, si se eligen, guarda la partida en
+     * segundo plano. Después sigue el juego.
+     */
+    private void chooseSaveSlot(String[] options) {
+        if (juego == null) return;
+        Object choice = JOptionPane.showInputDialog(this, "Elige una ranura:", "Guardar en ranura",
+                JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        if (choice != null) {
+            int index = java.util.Arrays.asList(options).indexOf(choice);
+            String label = JOptionPane.showInputDialog(this, "Nombre de la partida:", "Nivel " + currentLevel);
+            if (label != null) {
+                try {
+                    saveSlotInBackground(index, label);
+                } catch (BadIceCreamException ex) {
+                    JOptionPane.showMessageDialog(
+                            this,
+                            "Error al guardar la partida:\n" + ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE
+                    );
+                }
+            }
+        }
+        startGameTimers();
+    }
+
+    /**
+     * Codifica la partida una sola vez en el EDT (entre dos ticks) y escribe
+     * esos bytes en la ranura en segundo plano.
+     */
+    private void saveSlotInBackground(final int index, final String label) throws BadIceCreamException {
+        final byte[] snapshot = GameSnapshotCodec.encode(juego);
+        final int level = juego.getLevel();
+        final int phase = juego.getPhase();
+        Player p1 = juego.getFirstPlayer();
+        Player p2 = juego.getSecondPlayer();
+        final int score1 = (p1 != null) ? p1.getScore() : -1;
+        final int score2 = (p2 != null) ? p2.getScore() : -1;
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    saveStore().save(index, label, snapshot, level, phase, score1, score2);
+                    showMessageLater("Partida guardada en la ranura " + (index + 1));
+                } catch (BadIceCreamException ex) {
+                    showErrorLater("Error al guardar la partida:\n" + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Carga una partida de una ranura del almacén de partidas. La lista se
+     * arma en ioExecutor con los encabezados; la partida se lee ahí también.
+     */
+    private void actionLoadSlot() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final java.util.List<SaveSlot> slots = saveStore().listSlots();
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            chooseLoadSlot(slots);
+                        }
+                    });
+                } catch (BadIceCreamException ex) {
+                    showErrorLater("Error al cargar la partida:\n" + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private void chooseLoadSlot(java.util.List<SaveSlot> slots) {
+        if (slots.isEmpty()) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "No hay partidas guardadas en ranuras",
+                    "Advertencia",
+                    JOptionPane.WARNING_MESSAGE
+            );
+            return;
+        }
+        SaveSlot[] options = slots.toArray(new SaveSlot[0]);
+        Object choice = JOptionPane.showInputDialog(this, "Elige una partida:", "Cargar ranura",
+                JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        if (choice != null) {
+            loadSlotInBackground(((SaveSlot) choice).getIndex());
+        }
+    }
+
+    private void loadSlotInBackground(final int index) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final BadIceCream loaded = saveStore().load(index);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            showLoadedGame(loaded);
+                        }
+                    });
+                } catch (BadIceCreamException ex) {
+                    showErrorLater("Error al cargar la partida:\n" + ex.getMessage());
+                }
+            }
+        });
     }
 
     public static void main(String[] args) {
@@ -491,4 +491,88 @@ public class BadIceCreamGUITest {
         // Restaurar original
         gui.setContentPane(originalContentPane);
     }
+    
+    // ==================== PRUEBAS DE LA CACHÉ DE SPRITES ====================
+    
+    /**
+     * Test 41: Un sprite se escala una sola vez por tamaño
+     */
+    @Test
+    public void testSpriteCacheScalesOncePerSize() {
+        SpriteCache cache = new SpriteCache();
+        Image sprite = new java.awt.image.BufferedImage(10, 10, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        cache.validate(null, 40, 1280, 720);
+        
+        Image first = cache.get(sprite, 56, 56);
+        assertEquals("Debe quedar del tamaño en pantalla", 56, first.getWidth(null));
+        assertSame("La segunda vez debe salir de la caché", first, cache.get(sprite, 56, 56));
+        cache.get(sprite, 40, 40);
+        assertEquals(2, cache.getRenderCount());
+    }
+    
+    /**
+     * Test 42: La caché se vacía al cambiar el tamaño de celda o de ventana
+     */
+    @Test
+    public void testSpriteCacheClearsWhenSizeChanges() {
+        SpriteCache cache = new SpriteCache();
+        Image sprite = new java.awt.image.BufferedImage(10, 10, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        cache.validate(null, 40, 1280, 720);
+        cache.get(sprite, 56, 56);
+        
+        cache.validate(null, 40, 1280, 720);
+        assertEquals("Mismo tamaño: se conserva", 1, cache.size());
+        cache.validate(null, 40, 1024, 720);
+        assertEquals("Otro tamaño de ventana: se vacía", 0, cache.size());
+    }
+    
+    // ==================== PRUEBAS DE LA CARGA DE IMÁGENES ====================
+    
+    /**
+     * Test 43: Las imágenes del tablero se cargan en paralelo y se avisa el avance
+     */
+    @Test
+    public void testAssetManagerLoadsBoardImages() {
+        AssetManager assets = new AssetManager(null);
+        final java.util.concurrent.atomic.AtomicInteger reports = new java.util.concurrent.atomic.AtomicInteger();
+        assets.setListener(new AssetManager.Listener() {
+            @Override
+            public void assetLoaded(String path, int loaded, int total) {
+                reports.incrementAndGet();
+            }
+        });
+        java.util.List<String> paths = BoardRenderer.getImagePaths();
+        assets.loadAll(paths);
+        
+        Image ice = assets.await("/images/spriteCuleroDelHielo.png");
+        assertNotNull("Debe cargar el sprite del hielo", ice);
+        assertSame("Una vez cargada, get() la devuelve sin esperar", ice, assets.get("/images/spriteCuleroDelHielo.png"));
+        for (String path : paths) {
+            assets.await(path);
+        }
+        assertEquals(paths.size(), assets.getRequestedCount());
+        // El aviso llega justo después de que la imagen queda disponible
+        for (int i = 0; i < 100 && reports.get() < paths.size(); i++) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        assertTrue(assets.isDone());
+        assertEquals(paths.size(), reports.get());
+        assets.shutdown();
+    }
+    
+    /**
+     * Test 44: Una imagen que no existe no frena la carga
+     */
+    @Test
+    public void testAssetManagerMissingImage() {
+        AssetManager assets = new AssetManager(null);
+        assertNull(assets.await("/images/no_existe.png"));
+        assertNull(assets.get("/images/no_existe.png"));
+        assertEquals(1, assets.getRequestedCount());
+        assets.shutdown();
+    }
 }
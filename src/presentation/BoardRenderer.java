@@ -0,0 +1,513 @@
+package presentation;
+
+import domain.BoardSnapshot;
+import domain.CellStore;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Dibuja el tablero a partir de un BoardSnapshot: capa fija, bloques,
+ * frutas, monstruos, jugadores y marcador.
+ *
+ * No lee el juego, solo la foto, así que se puede usar desde el hilo de
+ * eventos (panel del juego) o desde un hilo de dibujo propio (ActiveRenderer).
+ * Cada instancia guarda sus sprites escalados y su capa fija, y la debe usar
+ * un solo hilo. Las imágenes se piden al cargador en cada frame hasta que
+ * estén todas, así que el tablero se puede dibujar mientras se cargan.
+ *
+ * Los monstruos y frutas que se movieron en el último tick lógico se dibujan
+ * entre su celda anterior y la actual según el avance del tick, así que se
+ * ven moverse de a poco en cada frame aunque el juego los mueva de a una
+ * celda cada LOGIC_STEP_MILLIS.
+ */
+final class BoardRenderer {
+
+    static final int CELL_SIZE = 40;
+    static final int BOARD_WIDTH = 16 * CELL_SIZE;
+    static final int BOARD_HEIGHT = 16 * CELL_SIZE;
+    static final Rectangle HUD_BOUNDS = new Rectangle(40, 20, 260, 135);
+
+    private static final String[] FLAVORS = {"vanilla", "chocolate", "strawberry"};
+    private static final String[] DIRECTIONS = {"up", "down", "left", "right"};
+
+    private final Function<String, Image> loader;
+
+    private Image bananaSprite;
+    private Image cherrySprite;
+    private Image grapesSprite;
+    private Image pineappleSprite;
+    private Image cactusSprite;
+    private Image cactusActivadoPNG;
+
+    private Image trollSprite;
+    private Image trollSpriteUp;
+    private Image trollSpriteDown;
+    private Image trollSpriteLeft;
+    private Image trollSpriteRight;
+
+    private Image calamarSprite;
+    private Image iceBlockSprite;
+    private Image decorationBlockSprite;
+    private Image igluSprite;
+    private Image cirnoBackground;
+
+    private Image flowerpotAlertUp;
+    private Image flowerpotAlertFront;
+    private Image flowerpotAlertLeft;
+    private Image flowerpotAlertRight;
+
+    private Image flowerpotSprite;
+    private Image flowerpotSpriteUp;
+    private Image flowerpotSpriteDown;
+    private Image flowerpotSpriteLeft;
+    private Image flowerpotSpriteRight;
+
+    private Image baldosaCalienteSprite;
+    private Image fogataSprite;
+
+    private final Map<String, Image> playerSprites = new HashMap<>();
+    private final SpriteCache sprites = new SpriteCache();
+    private boolean missingSprites;
+
+    // Capa fija: fondo, tablero blanco, decoraciones e iglú, dibujada una vez
+    // por nivel y por tamaño de ventana
+    private BufferedImage staticLayer;
+    private GraphicsConfiguration staticConfiguration;
+    private long staticDecorationVersion;
+    private Image staticBackground;
+    private Image staticDecoration;
+    private Image staticIglu;
+
+    /**
+     * @param loader carga una imagen a partir de su ruta ("/images/...");
+     *               devuelve null si no la encuentra
+     */
+    BoardRenderer(Function<String, Image> loader) {
+        this.loader = loader;
+        loadSprites();
+    }
+
+    /**
+     * Toma del cargador las imágenes del tablero. Se repite en cada frame
+     * mientras falte alguna, para usar cada imagen apenas termina de cargarse.
+     */
+    private void loadSprites() {
+        missingSprites = false;
+        bananaSprite = sprite("/images/banana_sprite.png");
+        cherrySprite = sprite("/images/cherry_sprite.png");
+        grapesSprite = sprite("/images/grapes_sprite.png");
+        pineappleSprite = sprite("/images/pinaplee_sprite.png");
+        cactusSprite = sprite("/images/cactus_sprite.png");
+
+        trollSprite = sprite("/images/troll_sprite.png");
+        trollSpriteUp = sprite("/images/troll_up.png");
+        trollSpriteDown = sprite("/images/troll_down.png");
+        trollSpriteLeft = sprite("/images/troll_left.png");
+        trollSpriteRight = sprite("/images/troll_right.png");
+
+        calamarSprite = sprite("/images/calamar_sprite.png");
+
+        flowerpotSpriteUp = sprite("/images/macetaatrasapuntodeprenderseatras.png");
+        flowerpotSpriteDown = sprite("/images/macetafrentederechanoflor.png");
+        flowerpotSpriteLeft = sprite("/images/macetamovimientoizquierda2.png");
+        flowerpotSpriteRight = sprite("/images/macetamovimientoderecha2.png");
+
+        flowerpotSprite = flowerpotSpriteDown;
+
+        flowerpotAlertUp = sprite("/images/macetaatrasderechaflor.png");
+        flowerpotAlertFront = sprite("/images/maceta_a_punto_de_transformarsefrente1.png");
+        flowerpotAlertLeft = sprite("/images/macetamovimientoizquierdaflor2.png");
+        flowerpotAlertRight = sprite("/images/movimientoderechaflor2.png");
+
+        iceBlockSprite = sprite("/images/spriteCuleroDelHielo.png");
+        decorationBlockSprite = sprite("/images/spriteCuleroDecoracion.png");
+
+        igluSprite = sprite("/images/spriteIgluBonito.png");
+        cirnoBackground = sprite("/images/110624.jpg");
+
+        baldosaCalienteSprite = sprite("/images/baldosa_caliente.png");
+        fogataSprite = sprite("/images/fogata.png");
+        cactusActivadoPNG = sprite("/images/CactusActivado.png");
+
+        for (String flavor : FLAVORS) {
+            for (String direction : DIRECTIONS) {
+                if (getPlayerSprite(flavor, direction) == null) {
+                    missingSprites = true;
+                }
+            }
+        }
+    }
+
+    private Image sprite(String path) {
+        Image image = loader.apply(path);
+        if (image == null) {
+            missingSprites = true;
+        }
+        return image;
+    }
+
+    /**
+     * @return rutas de todas las imágenes que usa el tablero, para cargarlas
+     *         por adelantado
+     */
+    static List<String> getImagePaths() {
+        final List<String> paths = new ArrayList<>();
+        new BoardRenderer(path -> {
+            if (!paths.contains(path)) paths.add(path);
+            return null;
+        });
+        return paths;
+    }
+
+    /**
+     * Dibuja la foto completa en un área de w x h con el tablero centrado,
+     * con las unidades en movimiento donde van en este momento.
+     *
+     * @param g             destino
+     * @param snapshot      foto del tablero
+     * @param w             ancho del área
+     * @param h             alto del área
+     * @param configuration pantalla del destino (puede ser null)
+     */
+    void render(Graphics2D g, BoardSnapshot snapshot, int w, int h, GraphicsConfiguration configuration) {
+        render(g, snapshot, w, h, configuration, System.nanoTime());
+    }
+
+    /**
+     * Igual que render(g, snapshot, w, h, configuration), con las unidades
+     * en movimiento donde van en el momento indicado.
+     *
+     * @param nanos System.nanoTime() del frame que se dibuja
+     */
+    void render(Graphics2D g, BoardSnapshot snapshot, int w, int h, GraphicsConfiguration configuration,
+                long nanos) {
+        if (missingSprites) {
+            loadSprites();
+        }
+        sprites.validate(configuration, CELL_SIZE, w, h);
+        double progress = snapshot.getTickProgressAt(nanos);
+
+        drawStaticLayer(g, snapshot, w, h, configuration);
+
+        int offsetX = (w - BOARD_WIDTH) / 2;
+        int offsetY = (h - BOARD_HEIGHT) / 2;
+
+        drawIceBlocks(g, snapshot, offsetX, offsetY);
+        drawSpecialBlocks(g, snapshot, offsetX, offsetY);
+        drawFruits(g, snapshot, offsetX, offsetY, progress);
+        drawMonsters(g, snapshot, offsetX, offsetY, progress);
+        drawPlayers(g, snapshot, offsetX, offsetY);
+        drawUI(g, snapshot);
+    }
+
+    /**
+     * Dibuja la capa fija del tablero. Se vuelve a generar solo si cambiaron
+     * las decoraciones (al cargar otro nivel), el tamaño, la pantalla o
+     * alguna de sus imágenes terminó de cargarse.
+     */
+    private void drawStaticLayer(Graphics2D g, BoardSnapshot snapshot, int w, int h,
+                                 GraphicsConfiguration configuration) {
+        if (w <= 0 || h <= 0) return;
+
+        if (staticLayer == null || staticLayer.getWidth() != w || staticLayer.getHeight() != h
+                || staticConfiguration != configuration
+                || snapshot.getDecorationVersion() != staticDecorationVersion
+                || staticBackground != cirnoBackground || staticDecoration != decorationBlockSprite
+                || staticIglu != igluSprite) {
+            staticLayer = (configuration != null)
+                    ? configuration.createCompatibleImage(w, h, Transparency.OPAQUE)
+                    : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D layer = staticLayer.createGraphics();
+            try {
+                paintStaticLayer(layer, snapshot, w, h);
+            } finally {
+                layer.dispose();
+            }
+            staticConfiguration = configuration;
+            staticDecorationVersion = snapshot.getDecorationVersion();
+            staticBackground = cirnoBackground;
+            staticDecoration = decorationBlockSprite;
+            staticIglu = igluSprite;
+        }
+        g.drawImage(staticLayer, 0, 0, null);
+    }
+
+    private void paintStaticLayer(Graphics2D g, BoardSnapshot snapshot, int w, int h) {
+        if (cirnoBackground != null) {
+            sprites.draw(g, cirnoBackground, 0, 0, w, h);
+        } else {
+            g.setColor(new Color(135, 206, 250));
+            g.fillRect(0, 0, w, h);
+        }
+
+        int offsetX = (w - BOARD_WIDTH) / 2;
+        int offsetY = (h - BOARD_HEIGHT) / 2;
+
+        g.setColor(Color.WHITE);
+        g.fillRect(offsetX, offsetY, BOARD_WIDTH, BOARD_HEIGHT);
+
+        drawDecorationBlocks(g, snapshot, offsetX, offsetY);
+        drawIglu(g, offsetX, offsetY);
+    }
+
+    private void drawIceBlocks(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY) {
+        for (int r = 0; r < snapshot.getHeight(); r++) {
+            for (int c = 0; c < snapshot.getWidth(); c++) {
+                if (snapshot.getBlockCode(r, c) == CellStore.ICE) {
+                    int x = offsetX + c * CELL_SIZE;
+                    int y = offsetY + r * CELL_SIZE;
+
+                    if (iceBlockSprite != null) {
+                        int spriteSize = (int)(CELL_SIZE * 1.05);
+                        int margin = (CELL_SIZE - spriteSize) / 2;
+                        sprites.draw(g, iceBlockSprite, x + margin, y + margin, spriteSize, spriteSize);
+                    } else {
+                        g.setColor(new Color(100, 200, 255));
+                        g.fillRect(x, y, CELL_SIZE, CELL_SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawDecorationBlocks(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY) {
+        for (int r = 0; r < snapshot.getHeight(); r++) {
+            for (int c = 0; c < snapshot.getWidth(); c++) {
+                if (snapshot.getBlockCode(r, c) == CellStore.DECORATION) {
+                    if (r >= 6 && r <= 9 && c >= 6 && c <= 9) {
+                        continue;
+                    }
+
+                    int x = offsetX + c * CELL_SIZE;
+                    int y = offsetY + r * CELL_SIZE;
+
+                    if (decorationBlockSprite != null) {
+                        sprites.draw(g, decorationBlockSprite, x, y, CELL_SIZE, CELL_SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawSpecialBlocks(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY) {
+        for (int r = 0; r < snapshot.getHeight(); r++) {
+            for (int c = 0; c < snapshot.getWidth(); c++) {
+                int code = snapshot.getBlockCode(r, c);
+                int x = offsetX + c * CELL_SIZE;
+                int y = offsetY + r * CELL_SIZE;
+
+                if (code == CellStore.BALDOSA) {
+                    if (baldosaCalienteSprite != null) {
+                        sprites.draw(g, baldosaCalienteSprite, x, y, CELL_SIZE, CELL_SIZE);
+                    } else {
+                        g.setColor(new Color(255, 140, 0));
+                        g.fillRect(x + 2, y + 2, CELL_SIZE - 4, CELL_SIZE - 4);
+                    }
+                } else if (code == CellStore.FOGATA && snapshot.isFireOn(r, c)) {
+                    if (fogataSprite != null) {
+                        int size = (int)(CELL_SIZE * 1.3);
+                        int margin = (CELL_SIZE - size) / 2;
+                        sprites.draw(g, fogataSprite, x + margin, y + margin, size, size);
+                    } else {
+                        g.setColor(new Color(255, 69, 0));
+                        g.fillOval(x + 5, y + 5, CELL_SIZE - 10, CELL_SIZE - 10);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawIglu(Graphics2D g, int offsetX, int offsetY) {
+        if (igluSprite != null) {
+            int igluAreaSize = (int)(5.5 * CELL_SIZE);
+            int igluAreaX = offsetX + 6 * CELL_SIZE - (int)(0.96 * CELL_SIZE);
+            int igluAreaY = offsetY + 6 * CELL_SIZE - (int)(0.75 * CELL_SIZE);
+
+            sprites.draw(g, igluSprite, igluAreaX, igluAreaY, igluAreaSize, igluAreaSize);
+        }
+    }
+
+    private void drawFruits(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY, double progress) {
+        for (BoardSnapshot.Sprite fruit : snapshot.getFruits()) {
+            int x = offsetX + interpolate(fruit.getPreviousColumn(), fruit.getColumn(), progress);
+            int y = offsetY + interpolate(fruit.getPreviousRow(), fruit.getRow(), progress);
+
+            Image sprite = null;
+            switch (fruit.getType()) {
+                case "BANANA":
+                    sprite = bananaSprite;
+                    break;
+                case "CEREZA":
+                    sprite = cherrySprite;
+                    break;
+                case "UVA":
+                    sprite = grapesSprite;
+                    break;
+                case "PIÑA":
+                    sprite = pineappleSprite;
+                    break;
+                case "CACTUS":
+                    sprite = fruit.isHighlighted() ? cactusActivadoPNG : cactusSprite;
+                    break;
+            }
+
+            if (sprite != null) {
+                int spriteSize = (int)(CELL_SIZE * 1.4);
+                int margin = (CELL_SIZE - spriteSize) / 2;
+                sprites.draw(g, sprite, x + margin, y + margin, spriteSize, spriteSize);
+            }
+        }
+    }
+
+    private void drawMonsters(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY, double progress) {
+        for (BoardSnapshot.Sprite monster : snapshot.getMonsters()) {
+            int x = offsetX + interpolate(monster.getPreviousColumn(), monster.getColumn(), progress);
+            int y = offsetY + interpolate(monster.getPreviousRow(), monster.getRow(), progress);
+
+            if ("MACETA".equals(monster.getType()) && monster.isHighlighted()) {
+                g.setColor(new Color(255, 220, 0, 80));
+                g.fillOval(x - 5, y - 5, CELL_SIZE + 10, CELL_SIZE + 10);
+            }
+
+            Image sprite = getMonsterSprite(monster);
+
+            if (sprite != null) {
+                float scale = getSpriteScale(monster);
+                int spriteSize = (int)(CELL_SIZE * scale);
+                int margin = (CELL_SIZE - spriteSize) / 2;
+                sprites.draw(g, sprite, x + margin, y + margin, spriteSize, spriteSize);
+            }
+        }
+    }
+
+    private void drawPlayers(Graphics2D g, BoardSnapshot snapshot, int offsetX, int offsetY) {
+        for (BoardSnapshot.Sprite player : snapshot.getPlayers()) {
+            int x = offsetX + player.getColumn() * CELL_SIZE;
+            int y = offsetY + player.getRow() * CELL_SIZE;
+
+            Image sprite = getPlayerSprite(player.getType(), player.getDirection());
+
+            if (sprite != null) {
+                int spriteHeight = (int)(CELL_SIZE * 1.6);
+                int spriteWidth = (int)(CELL_SIZE * 1.2);
+
+                int marginX = (CELL_SIZE - spriteWidth) / 2;
+                int marginY = (CELL_SIZE - spriteHeight) / 2;
+
+                sprites.draw(g, sprite, x + marginX, y + marginY, spriteWidth, spriteHeight);
+            }
+        }
+    }
+
+    /**
+     * @return posición en píxeles entre la celda from (progress 0) y la
+     *         celda to (progress 1), relativa al tablero
+     */
+    private static int interpolate(int from, int to, double progress) {
+        return (int) Math.round((from + (to - from) * progress) * CELL_SIZE);
+    }
+
+    private void drawUI(Graphics2D g, BoardSnapshot snapshot) {
+        g.setFont(new Font("Arial", Font.BOLD, 24));
+
+        g.setColor(Color.BLACK);
+        g.drawString("Level: " + snapshot.getLevel(), 51, 51);
+        g.drawString("Phase: " + snapshot.getPhase(), 51, 81);
+        g.drawString("P1: " + snapshot.getPlayer1Score(), 51, 111);
+        g.drawString("P2: " + snapshot.getPlayer2Score(), 51, 141);
+
+        g.setColor(Color.WHITE);
+        g.drawString("Level: " + snapshot.getLevel(), 50, 50);
+        g.drawString("Phase: " + snapshot.getPhase(), 50, 80);
+        g.drawString("P1: " + snapshot.getPlayer1Score(), 50, 110);
+        g.drawString("P2: " + snapshot.getPlayer2Score(), 50, 140);
+    }
+
+    private Image getPlayerSprite(String flavor, String direction) {
+        String key = flavor + "_" + direction;
+        if (playerSprites.containsKey(key)) {
+            return playerSprites.get(key);
+        }
+
+        Image sprite = loader.apply("/images/player/" + flavor + "_" + direction + ".png");
+
+        if (sprite == null) {
+            sprite = loader.apply("/images/player/" + flavor + "_down.png");
+        }
+
+        if (sprite != null) {
+            playerSprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    private Image getMonsterSprite(BoardSnapshot.Sprite monster) {
+        String direction = monster.getDirection();
+
+        switch (monster.getType()) {
+            case "TROLL":
+                switch (direction) {
+                    case "up":
+                        return trollSpriteUp != null ? trollSpriteUp : trollSprite;
+                    case "left":
+                        return trollSpriteLeft != null ? trollSpriteLeft : trollSprite;
+                    case "right":
+                        return trollSpriteRight != null ? trollSpriteRight : trollSprite;
+                    default:
+                        return trollSpriteDown != null ? trollSpriteDown : trollSprite;
+                }
+
+            case "CALAMAR":
+                return calamarSprite;
+
+            case "MACETA":
+                if (monster.isHighlighted()) {
+                    switch (direction) {
+                        case "up":
+                            return flowerpotAlertUp != null ? flowerpotAlertUp : flowerpotSpriteUp;
+                        case "left":
+                            return flowerpotAlertLeft != null ? flowerpotAlertLeft : flowerpotSpriteLeft;
+                        case "right":
+                            return flowerpotAlertRight != null ? flowerpotAlertRight : flowerpotSpriteRight;
+                        default:
+                            return flowerpotAlertFront != null ? flowerpotAlertFront : flowerpotSpriteDown;
+                    }
+                } else {
+                    switch (direction) {
+                        case "up":
+                            return flowerpotSpriteUp != null ? flowerpotSpriteUp : flowerpotSprite;
+                        case "left":
+                            return flowerpotSpriteLeft != null ? flowerpotSpriteLeft : flowerpotSprite;
+                        case "right":
+                            return flowerpotSpriteRight != null ? flowerpotSpriteRight : flowerpotSprite;
+                        default:
+                            return flowerpotSpriteDown != null ? flowerpotSpriteDown : flowerpotSprite;
+                    }
+                }
+            default:
+                return trollSprite;
+        }
+    }
+
+    private float getSpriteScale(BoardSnapshot.Sprite monster) {
+        String direction = monster.getDirection();
+
+        switch (monster.getType()) {
+            case "TROLL":
+                if (direction.equals("left") || direction.equals("right")) return 1.3f;
+                return 1.6f;
+            case "MACETA":
+                if (monster.isHighlighted()) return 1.7f;
+                return 1.5f;
+            case "CALAMAR":
+                return 1.5f;
+            default:
+                return 1.6f;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package presentation;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caché de sprites ya escalados a su tamaño final en pantalla.
+ *
+ * Dibujar con drawImage(img, x, y, ancho, alto, null) escala la imagen en
+ * cada frame; con el pipeline por software eso es lo más caro de pintar el
+ * tablero. Esta caché escala cada sprite una sola vez por tamaño, en una
+ * imagen compatible con la pantalla, y después se dibuja sin escalar.
+ *
+ * Los tamaños dependen del tamaño de celda y del tamaño del panel (el fondo
+ * se estira a todo el panel); validate() vacía la caché cuando cambian.
+ */
+final class SpriteCache {
+
+    private final Map<Key, Image> scaled = new HashMap<>();
+    private GraphicsConfiguration configuration;
+    private int cellSize = -1;
+    private int width = -1;
+    private int height = -1;
+    private int renderCount;
+
+    /**
+     * Vacía la caché si cambió el tamaño de celda, el tamaño del panel o la
+     * pantalla en la que se dibuja.
+     *
+     * @param configuration configuración gráfica del panel (puede ser null)
+     * @param cellSize      tamaño de celda en píxeles
+     * @param width         ancho del panel
+     * @param height        alto del panel
+     */
+    void validate(GraphicsConfiguration configuration, int cellSize, int width, int height) {
+        if (configuration != this.configuration || cellSize != this.cellSize
+                || width != this.width || height != this.height) {
+            scaled.clear();
+            this.configuration = configuration;
+            this.cellSize = cellSize;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * @param source imagen original
+     * @param w      ancho en pantalla
+     * @param h      alto en pantalla
+     * @return la imagen escalada a w x h, creada la primera vez que se pide;
+     *         null si source es null
+     */
+    Image get(Image source, int w, int h) {
+        if (source == null) return null;
+        if (w <= 0 || h <= 0 || source.getWidth(null) <= 0 || source.getHeight(null) <= 0) {
+            // Sin tamaño todavía: se dibuja la original hasta que termine de cargar
+            return source;
+        }
+        Key key = new Key(source, w, h);
+        Image image = scaled.get(key);
+        if (image == null) {
+            image = render(source, w, h);
+            scaled.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Dibuja el sprite escalado con su esquina superior izquierda en (x, y).
+     */
+    void draw(Graphics g, Image source, int x, int y, int w, int h) {
+        Image image = get(source, w, h);
+        if (image != null) {
+            g.drawImage(image, x, y, null);
+        }
+    }
+
+    /**
+     * @return cantidad de sprites escalados desde que se creó la caché
+     */
+    int getRenderCount() {
+        return renderCount;
+    }
+
+    int size() {
+        return scaled.size();
+    }
+
+    private Image render(Image source, int w, int h) {
+        BufferedImage image = (configuration != null)
+                ? configuration.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+                : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        renderCount++;
+        return image;
+    }
+
+    /**
+     * Imagen original (por identidad) y tamaño.
+     */
+    private static final class Key {
+        private final Image source;
+        private final int w;
+        private final int h;
+
+        Key(Image source, int w, int h) {
+            this.source = source;
+            this.w = w;
+            this.h = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return source == k.source && w == k.w && h == k.h;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(source) * 31 + w) * 31 + h;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tools;
+
+import domain.BadIceCreamException;
+import domain.LevelData;
+import domain.LevelPack;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Arma un paquete de niveles a partir de archivos sueltos.
+ *
+ * Los archivos .txt y .bicl se agregan como niveles con su nombre sin
+ * extensión ("level1.txt" queda como "level1"). Los demás archivos se agregan
+ * como recursos con su ruta desde la carpeta indicada, incluida esta
+ * ("src/images/player/a.png" queda como "/images/player/a.png"), que es la
+ * misma ruta con la que los busca la interfaz. Un recurso pasado suelto, sin
+ * carpeta, queda con su nombre de archivo ("logo.png" queda como "/logo.png").
+ *
+ * Uso: java tools.LevelPackBuilder salida.bicp archivo-o-carpeta...
+ */
+public class LevelPackBuilder {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Uso: java tools.LevelPackBuilder salida.bicp archivo-o-carpeta...");
+            return;
+        }
+        int levels = 0;
+        int assets = 0;
+        try (LevelPack.Writer pack = LevelPack.create(args[0])) {
+            for (int i = 1; i < args.length; i++) {
+                Path input = Paths.get(args[i]);
+                List<Path> files = new ArrayList<>();
+                if (Files.isDirectory(input)) {
+                    try (java.util.stream.Stream<Path> walk = Files.walk(input)) {
+                        walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+                    }
+                } else {
+                    files.add(input);
+                }
+                Path base = Files.isDirectory(input) ? input.toAbsolutePath().getParent() : null;
+                for (Path file : files) {
+                    if (isLevel(file)) {
+                        pack.addLevel(baseName(file), LevelData.load(file.toString()));
+                        levels++;
+                    } else {
+                        String name = (base != null)
+                                ? "/" + base.relativize(file.toAbsolutePath()).toString().replace(File.separatorChar, '/')
+                                : "/" + file.getFileName();
+                        pack.addAsset(name, Files.readAllBytes(file));
+                        assets++;
+                    }
+                }
+            }
+        } catch (BadIceCreamException e) {
+            System.out.println("✗ " + e.getMessage());
+            return;
+        }
+        System.out.println("Paquete " + args[0] + ": " + levels + " niveles, " + assets + " recursos");
+    }
+
+    private static boolean isLevel(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".txt") || name.endsWith(".bicl");
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}